@@ -0,0 +1,133 @@
+package io.spiralserver.control;
+
+import io.spiralserver.observability.Metrics;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Configuration of a {@link StartupRecovery}.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable; {@code with*} methods return modified copies</li>
+ *   <li>All values are validated when set</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class RecoveryConfig {
+    
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private Set<AgentRegistry.AgentInstance.InstanceStatus> statuses = EnumSet.of(
+        AgentRegistry.AgentInstance.InstanceStatus.CREATED,
+        AgentRegistry.AgentInstance.InstanceStatus.RUNNING,
+        AgentRegistry.AgentInstance.InstanceStatus.PAUSED
+    );
+    private Predicate<String> pendingEvents = agentInstanceId -> false;
+    private Metrics metrics; // null disables metrics
+    
+    private RecoveryConfig() {
+    }
+    
+    private RecoveryConfig(RecoveryConfig other) {
+        this.parallelism = other.parallelism;
+        this.statuses = other.statuses;
+        this.pendingEvents = other.pendingEvents;
+        this.metrics = other.metrics;
+    }
+    
+    /**
+     * Creates a configuration with default settings: one worker per available processor,
+     * recovering every instance that has not completed or failed.
+     * 
+     * @return configuration
+     */
+    public static RecoveryConfig defaults() {
+        return new RecoveryConfig();
+    }
+    
+    /**
+     * Sets how many agent instances are recovered concurrently.
+     * 
+     * @param parallelism worker count
+     * @return modified copy
+     */
+    public RecoveryConfig withParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        RecoveryConfig copy = new RecoveryConfig(this);
+        copy.parallelism = parallelism;
+        return copy;
+    }
+    
+    /**
+     * Sets the instance statuses that are recovered; other instances are left cold.
+     * 
+     * @param statuses recovered statuses
+     * @return modified copy
+     */
+    public RecoveryConfig withStatuses(Set<AgentRegistry.AgentInstance.InstanceStatus> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            throw new IllegalArgumentException("Statuses cannot be null or empty");
+        }
+        RecoveryConfig copy = new RecoveryConfig(this);
+        copy.statuses = Set.copyOf(statuses);
+        return copy;
+    }
+    
+    /**
+     * Sets which agent instances have events waiting to be processed; they are recovered
+     * before all others so they can resume first.
+     * 
+     * @param pendingEvents tells whether an agent instance has pending events
+     * @return modified copy
+     */
+    public RecoveryConfig withPendingEvents(Predicate<String> pendingEvents) {
+        if (pendingEvents == null) {
+            throw new IllegalArgumentException("Pending events predicate cannot be null");
+        }
+        RecoveryConfig copy = new RecoveryConfig(this);
+        copy.pendingEvents = pendingEvents;
+        return copy;
+    }
+    
+    /**
+     * Reports progress metrics ({@code recovery.agents.*}, {@code recovery.eta_ms}).
+     * 
+     * @param metrics metrics sink
+     * @return modified copy
+     */
+    public RecoveryConfig withMetrics(Metrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null");
+        }
+        RecoveryConfig copy = new RecoveryConfig(this);
+        copy.metrics = metrics;
+        return copy;
+    }
+    
+    public int parallelism() {
+        return parallelism;
+    }
+    
+    public Set<AgentRegistry.AgentInstance.InstanceStatus> statuses() {
+        return statuses;
+    }
+    
+    public Predicate<String> pendingEvents() {
+        return pendingEvents;
+    }
+    
+    public Optional<Metrics> metrics() {
+        return Optional.ofNullable(metrics);
+    }
+    
+    @Override
+    public String toString() {
+        return "RecoveryConfig{parallelism=" + parallelism + ", statuses=" + statuses + "}";
+    }
+}
\ No newline at end of file
@@ -7,6 +7,7 @@
  *   <li>Event router with CEL filtering</li>
  *   <li>Scheduler</li>
  *   <li>Admission control</li>
+ *   <li>Parallel startup recovery of hot state from snapshots and the event log</li>
  * </ul>
  * 
  * <p><strong>Invariants:</strong>
@@ -0,0 +1,303 @@
+package io.spiralserver.control;
+
+import io.spiralserver.runtime.ReplayEngine;
+import io.spiralserver.schema.AgentSchema;
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.schema.SchemaRegistry;
+import io.spiralserver.schema.ValidationResult;
+import io.spiralserver.schema.Version;
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.EventLog;
+import io.spiralserver.state.HotState;
+import io.spiralserver.state.Snapshot;
+import io.spiralserver.state.SnapshotStore;
+import io.spiralserver.state.hot.ConcurrentHotState;
+import io.spiralserver.state.hot.VersionedState;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link StartupRecovery}.
+ * 
+ * @author SpiralServer Team
+ */
+class StartupRecoveryTest {
+    
+    private static final SchemaRef ORDERS = new SchemaRef("agent", "orders", new Version(1, 0, 0));
+    
+    private final Registry registry = new Registry();
+    private final Snapshots snapshots = new Snapshots();
+    private final Replays replays = new Replays();
+    private final ConcurrentHotState hotState = new ConcurrentHotState();
+    
+    private StartupRecovery recovery(RecoveryConfig config) {
+        return new StartupRecovery(registry, snapshots, new HeadLog(new Cursor(100)), replays, hotState, config);
+    }
+    
+    @Test
+    void testRebuildsHotStateFromSnapshotsAndTail() throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            registry.add("agent-" + i, AgentRegistry.AgentInstance.InstanceStatus.RUNNING);
+            if (i % 2 == 0) {
+                snapshots.put(new Snapshot("s-" + i, "agent-" + i, new Cursor(40), Map.of("n", i), Instant.EPOCH, 1));
+            }
+        }
+        registry.add("done", AgentRegistry.AgentInstance.InstanceStatus.COMPLETED);
+        
+        StartupRecovery recovery = recovery(RecoveryConfig.defaults().withParallelism(4));
+        StartupRecovery.Report report = recovery.recover(List.of(ORDERS));
+        
+        assertEquals(50, report.recovered());
+        assertTrue(report.failed().isEmpty());
+        assertEquals(Map.of("n", 8, "replayedFrom", 40L), hotState.read("agent-8").orElseThrow().data());
+        assertEquals(Map.of("replayedFrom", 0L), hotState.read("agent-9").orElseThrow().data());
+        assertTrue(hotState.read("done").isEmpty());
+        StartupRecovery.Progress progress = recovery.progress();
+        assertEquals(50, progress.total());
+        assertEquals(50, progress.done());
+        assertEquals(Optional.of(Duration.ZERO), progress.eta());
+    }
+    
+    @Test
+    void testRecoversPendingAgentsFirstAndIsolatesFailures() throws InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            registry.add("agent-" + i, AgentRegistry.AgentInstance.InstanceStatus.PAUSED);
+        }
+        replays.failing.add("agent-3");
+        Set<String> pending = Set.of("agent-17", "agent-18");
+        
+        StartupRecovery recovery = recovery(RecoveryConfig.defaults().withParallelism(1).withPendingEvents(pending::contains));
+        StartupRecovery.Report report = recovery.recover(List.of(ORDERS));
+        
+        assertEquals(19, report.recovered());
+        assertEquals(List.of("agent-3"), report.failed());
+        assertEquals(List.of("agent-17", "agent-18"), replays.order.subList(0, 2));
+        assertTrue(hotState.read("agent-3").isEmpty());
+        assertThrows(IllegalArgumentException.class,
+            () -> recovery.recover(List.of(new SchemaRef("agent", "missing", new Version(1, 0, 0)))));
+    }
+    
+    /**
+     * Event log that only reports its head; recovery reads no events itself.
+     */
+    private static final class HeadLog implements EventLog {
+        
+        private final Cursor head;
+        
+        HeadLog(Cursor head) {
+            this.head = head;
+        }
+        
+        @Override
+        public long append(Event event) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public List<Event> read(Cursor cursor, int limit) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public List<Event> readByCorrelation(String correlationKey, Optional<SchemaRef> eventSchemaRef, int limit) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public Optional<Event> findByIdempotencyKey(String idempotencyKey, long dedupeWindowMs) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public Cursor currentCursor() {
+            return head;
+        }
+    }
+    
+    private static final class Schema implements AgentSchema {
+        
+        private final SchemaRef ref;
+        
+        Schema(SchemaRef ref) {
+            this.ref = ref;
+        }
+        
+        @Override
+        public SchemaRef ref() {
+            return ref;
+        }
+        
+        @Override
+        public String name() {
+            return ref.name();
+        }
+        
+        @Override
+        public List<EventSubscription> eventSubscriptions() {
+            return List.of();
+        }
+        
+        @Override
+        public List<SchemaRef> toolRefs() {
+            return List.of();
+        }
+        
+        @Override
+        public List<SchemaRef> policyRefs() {
+            return List.of();
+        }
+        
+        @Override
+        public ValidationResult validate(SchemaRegistry registry) {
+            return ValidationResult.valid();
+        }
+    }
+    
+    private static final class Registry implements AgentRegistry {
+        
+        private final List<AgentInstance> instances = new ArrayList<>();
+        
+        void add(String id, AgentInstance.InstanceStatus status) {
+            instances.add(new AgentInstance() {
+                public String instanceId() {
+                    return id;
+                }
+                
+                public SchemaRef agentRef() {
+                    return ORDERS;
+                }
+                
+                public InstanceStatus status() {
+                    return status;
+                }
+                
+                public long createdAt() {
+                    return 0;
+                }
+                
+                public long lastUpdatedAt() {
+                    return 0;
+                }
+            });
+        }
+        
+        @Override
+        public void register(AgentSchema agentSchema, SchemaRegistry schemaRegistry) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public Optional<AgentSchema> getSchema(SchemaRef agentRef) {
+            return agentRef.equals(ORDERS) ? Optional.of(new Schema(ORDERS)) : Optional.empty();
+        }
+        
+        @Override
+        public AgentInstance createInstance(SchemaRef agentRef, String instanceId, Object initialState) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public Optional<AgentInstance> getInstance(String instanceId) {
+            return instances.stream().filter(i -> i.instanceId().equals(instanceId)).findFirst();
+        }
+        
+        @Override
+        public List<AgentInstance> listInstances(SchemaRef agentRef) {
+            return agentRef.equals(ORDERS) ? instances : List.of();
+        }
+    }
+    
+    private static final class Snapshots implements SnapshotStore {
+        
+        private final Map<String, Snapshot> latest = new HashMap<>();
+        
+        void put(Snapshot snapshot) {
+            latest.put(snapshot.agentInstanceId(), snapshot);
+        }
+        
+        @Override
+        public void save(Snapshot snapshot) {
+            put(snapshot);
+        }
+        
+        @Override
+        public Optional<Snapshot> findById(String snapshotId) {
+            return latest.values().stream().filter(s -> s.snapshotId().equals(snapshotId)).findFirst();
+        }
+        
+        @Override
+        public synchronized Optional<Snapshot> findLatestBefore(String agentInstanceId, Cursor maxCursor) {
+            return Optional.ofNullable(latest.get(agentInstanceId)).filter(s -> !s.cursor().isAfter(maxCursor));
+        }
+        
+        @Override
+        public int deleteBefore(String agentInstanceId, Cursor beforeCursor) {
+            return 0;
+        }
+    }
+    
+    /**
+     * Replays nothing: the final state is the snapshot state tagged with its cursor.
+     */
+    private static final class Replays implements ReplayEngine {
+        
+        final Set<String> failing = ConcurrentHashMap.newKeySet();
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        
+        @Override
+        public ReplayResult replay(String agentInstanceId, AgentSchema agentSchema, Cursor fromCursor,
+                                   Optional<Cursor> toCursor, Optional<HotState.State> initialState) {
+            return result(agentInstanceId, Map.of("replayedFrom", fromCursor.sequence()));
+        }
+        
+        @Override
+        public ReplayResult replayFromSnapshot(String agentInstanceId, AgentSchema agentSchema, Snapshot snapshot,
+                                               Optional<Cursor> toCursor) {
+            Map<String, Object> state = new HashMap<>(castMap(snapshot.stateData()));
+            state.put("replayedFrom", snapshot.cursor().sequence());
+            return result(agentInstanceId, state);
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static Map<String, Object> castMap(Object data) {
+            return (Map<String, Object>) data;
+        }
+        
+        private ReplayResult result(String agentInstanceId, Object data) {
+            order.add(agentInstanceId);
+            if (failing.contains(agentInstanceId)) {
+                throw new IllegalStateException("replay failed");
+            }
+            HotState.State state = VersionedState.of(data);
+            return new ReplayResult() {
+                public ReplayStatus status() {
+                    return ReplayStatus.SUCCESS;
+                }
+                
+                public HotState.State finalState() {
+                    return state;
+                }
+                
+                public Cursor finalCursor() {
+                    return new Cursor(100);
+                }
+                
+                public List<ReplayEvent> events() {
+                    return List.of();
+                }
+            };
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,410 @@
+package io.spiralserver.runtime;
+
+import io.spiralserver.schema.AgentSchema;
+import io.spiralserver.state.EventLog;
+import io.spiralserver.state.HotState;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Execution engine running one actor per agent instance around an {@link Executor}.
+ * 
+ * <p>Every agent instance gets a bounded mailbox. While its mailbox holds events the
+ * actor runs on its own (by default virtual) thread and processes them one at a time:
+ * it reads the current state from the {@link HotState}, asks the {@link Planner} for a
+ * plan, runs it with the {@link Executor} and installs the new state. Different agent
+ * instances run in parallel; the events of one never overlap, so no per-agent locking is
+ * needed. An actor's thread ends when its mailbox is empty and the drained mailbox is
+ * dropped, so idle agents cost the engine nothing, and agents waiting on tools park
+ * their virtual thread without holding a carrier.
+ * 
+ * <p>Agents whose schema opts into {@link AgentSchema#batchedPlanning()} have the events
+ * queued for them folded into one planning call, up to the configured batch size and
+ * delay, and commit one state version per batch. This saves state reads, version checks
+ * and tool calls under bursty ingest.
+ * 
+ * <p>A mailbox counts events queued or in progress against its capacity. {@link #offer}
+ * fails and {@link #offer(String, EventLog.Event, Duration)} waits while it is full,
+ * which pushes back on the router feeding the engine.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Events of one agent instance are processed serially, in offer order</li>
+ *   <li>A batch succeeds or fails as a whole</li>
+ *   <li>At most {@code mailboxCapacity} events per agent instance are admitted</li>
+ *   <li>States are installed with {@link HotState#update}, so a state changed outside
+ *       the actor fails the event instead of being overwritten</li>
+ *   <li>A failed event does not stop its actor</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class ActorEngine implements Closeable {
+    
+    private static final System.Logger LOGGER = System.getLogger(ActorEngine.class.getName());
+    
+    private final HotState hotState;
+    private final Planner planner;
+    private final Executor executor;
+    private final ToolBoundary toolBoundary;
+    private final Function<String, AgentSchema> schemas;
+    private final Function<String, Planner.PlanningContext> contexts;
+    private final ActorEngineConfig config;
+    private final ExecutorService threads;
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final AtomicInteger offering = new AtomicInteger();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile boolean closed;
+    
+    /**
+     * Creates an engine.
+     * 
+     * @param hotState hot state the agent states are read from and installed into
+     * @param planner planner
+     * @param executor executor
+     * @param toolBoundary tool boundary handed to the executor
+     * @param schemas resolves the schema of an agent instance
+     * @param contexts resolves the planning context of an agent instance
+     * @param config engine configuration
+     */
+    public ActorEngine(
+        HotState hotState,
+        Planner planner,
+        Executor executor,
+        ToolBoundary toolBoundary,
+        Function<String, AgentSchema> schemas,
+        Function<String, Planner.PlanningContext> contexts,
+        ActorEngineConfig config
+    ) {
+        if (hotState == null) {
+            throw new IllegalArgumentException("Hot state cannot be null");
+        }
+        if (planner == null) {
+            throw new IllegalArgumentException("Planner cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (toolBoundary == null) {
+            throw new IllegalArgumentException("Tool boundary cannot be null");
+        }
+        if (schemas == null || contexts == null) {
+            throw new IllegalArgumentException("Schema and context resolvers cannot be null");
+        }
+        if (config == null) {
+            throw new IllegalArgumentException("Config cannot be null");
+        }
+        this.hotState = hotState;
+        this.planner = planner;
+        this.executor = executor;
+        this.toolBoundary = toolBoundary;
+        this.schemas = schemas;
+        this.contexts = contexts;
+        this.config = config;
+        this.threads = Executors.newThreadPerTaskExecutor(config.threadFactory());
+    }
+    
+    /**
+     * Queues an event for an agent instance if its mailbox has room.
+     * 
+     * @param agentInstanceId agent instance identifier
+     * @param event event to process
+     * @return true if queued, false if the mailbox is full
+     * @throws IllegalStateException if the engine is closed
+     */
+    public boolean offer(String agentInstanceId, EventLog.Event event) {
+        Mailbox mailbox = hold(agentInstanceId, event);
+        try {
+            if (!mailbox.permits.tryAcquire()) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            enqueue(mailbox, event);
+            return true;
+        } finally {
+            mailbox.release();
+        }
+    }
+    
+    /**
+     * Queues an event for an agent instance, waiting for room in its mailbox.
+     * 
+     * @param agentInstanceId agent instance identifier
+     * @param event event to process
+     * @param timeout how long to wait for room
+     * @return true if queued, false if the mailbox stayed full
+     * @throws IllegalStateException if the engine is closed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean offer(String agentInstanceId, EventLog.Event event, Duration timeout) throws InterruptedException {
+        if (timeout == null || timeout.isNegative()) {
+            throw new IllegalArgumentException("Timeout cannot be null or negative");
+        }
+        Mailbox mailbox = hold(agentInstanceId, event);
+        try {
+            if (!mailbox.permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            enqueue(mailbox, event);
+            return true;
+        } finally {
+            mailbox.release();
+        }
+    }
+    
+    /**
+     * Returns the mailbox of an agent instance, creating it if needed, and registers the
+     * caller as a holder so that the mailbox is not dropped until {@link Mailbox#release}.
+     */
+    private Mailbox hold(String agentInstanceId, EventLog.Event event) {
+        if (agentInstanceId == null || event == null) {
+            throw new IllegalArgumentException("Agent instance id and event cannot be null");
+        }
+        if (closed) {
+            throw new IllegalStateException("Actor engine is closed");
+        }
+        return mailboxes.compute(agentInstanceId, (id, existing) -> {
+            Mailbox mailbox = existing != null ? existing : new Mailbox(id);
+            mailbox.holders.incrementAndGet();
+            return mailbox;
+        });
+    }
+    
+    /**
+     * Adds an admitted event and starts the actor if it is idle. Registers with
+     * {@code offering} so that {@link #close()} waits for the actor to be started.
+     */
+    private void enqueue(Mailbox mailbox, EventLog.Event event) {
+        offering.incrementAndGet();
+        try {
+            if (closed) {
+                mailbox.permits.release();
+                throw new IllegalStateException("Actor engine is closed");
+            }
+            mailbox.queue.add(event);
+            if (mailbox.scheduled.compareAndSet(false, true)) {
+                threads.execute(mailbox);
+            } else {
+                Thread lingering = mailbox.lingering;
+                if (lingering != null) {
+                    LockSupport.unpark(lingering);
+                }
+            }
+        } finally {
+            offering.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Plans and executes a batch of events against the current state of an agent
+     * instance and installs the resulting state.
+     */
+    private void process(String agentInstanceId, AgentSchema schema, List<EventLog.Event> batch) {
+        HotState.State state = hotState.read(agentInstanceId)
+            .orElseThrow(() -> new IllegalStateException("No hot state for " + agentInstanceId));
+        Planner.Plan plan = planner.plan(schema, state, batch, contexts.apply(agentInstanceId));
+        Executor.ExecutionResult result = executor.execute(agentInstanceId, schema, plan, state, toolBoundary);
+        if (result.status() == Executor.ExecutionResult.ExecutionStatus.FAILED) {
+            failed.addAndGet(batch.size());
+            LOGGER.log(System.Logger.Level.WARNING, "Execution of events {0}..{1} for {2} failed",
+                batch.get(0).sequence(), batch.get(batch.size() - 1).sequence(), agentInstanceId);
+            return;
+        }
+        if (result.newState() != null && !hotState.update(agentInstanceId, state.version(), result.newState())) {
+            throw new IllegalStateException("State of " + agentInstanceId + " changed outside its actor");
+        }
+        processed.addAndGet(batch.size());
+    }
+    
+    /**
+     * Returns the number of events queued or in progress for an agent instance.
+     * 
+     * @param agentInstanceId agent instance identifier
+     * @return mailbox depth
+     */
+    public int pending(String agentInstanceId) {
+        Mailbox mailbox = mailboxes.get(agentInstanceId);
+        return mailbox == null ? 0 : config.mailboxCapacity() - mailbox.permits.availablePermits();
+    }
+    
+    /**
+     * Returns the number of agent instances that currently have a mailbox, i.e. that have
+     * events queued or in progress, or an offer under way.
+     * 
+     * @return mailbox count
+     */
+    public int mailboxCount() {
+        return mailboxes.size();
+    }
+    
+    /**
+     * Returns the number of events processed successfully.
+     * 
+     * @return processed events
+     */
+    public long processedCount() {
+        return processed.get();
+    }
+    
+    /**
+     * Returns the number of events whose processing failed.
+     * 
+     * @return failed events
+     */
+    public long failedCount() {
+        return failed.get();
+    }
+    
+    /**
+     * Returns the number of offers refused because a mailbox was full.
+     * 
+     * @return rejected offers
+     */
+    public long rejectedCount() {
+        return rejected.get();
+    }
+    
+    public ActorEngineConfig config() {
+        return config;
+    }
+    
+    /**
+     * Stops accepting events and waits up to the configured shutdown timeout for the
+     * queued ones to be processed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        while (offering.get() > 0) {
+            Thread.onSpinWait();
+        }
+        threads.shutdown();
+        try {
+            if (!threads.awaitTermination(config.shutdownTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                LOGGER.log(System.Logger.Level.WARNING, "Actor engine closed with events still queued");
+                threads.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            threads.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Mailbox and actor of one agent instance. Runs while {@code scheduled} is set; the
+     * flag is cleared and re-checked against the queue before the actor stops so that an
+     * event added meanwhile is not stranded.
+     * 
+     * <p>Offers hold the mailbox while they admit and queue their event. A mailbox that is
+     * not held, not scheduled and has all permits back is dropped from the engine; the
+     * check runs under the map's lock for the agent instance, which offers also take to
+     * hold the mailbox, so an offer either keeps the mailbox alive or creates a new one.
+     */
+    private final class Mailbox implements Runnable {
+        
+        private final String agentInstanceId;
+        private final ConcurrentLinkedQueue<EventLog.Event> queue = new ConcurrentLinkedQueue<>();
+        private final Semaphore permits = new Semaphore(config.mailboxCapacity());
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicInteger holders = new AtomicInteger(); // incremented under the map lock
+        private volatile Thread lingering; // set while waiting for a batch to fill
+        
+        Mailbox(String agentInstanceId) {
+            this.agentInstanceId = agentInstanceId;
+        }
+        
+        @Override
+        public void run() {
+            do {
+                EventLog.Event event;
+                while ((event = queue.poll()) != null) {
+                    List<EventLog.Event> batch = List.of(event);
+                    try {
+                        AgentSchema schema = schemas.apply(agentInstanceId);
+                        if (schema.batchedPlanning()) {
+                            batch = collect(event);
+                        }
+                        process(agentInstanceId, schema, batch);
+                    } catch (RuntimeException e) {
+                        failed.addAndGet(batch.size());
+                        LOGGER.log(System.Logger.Level.WARNING, "Processing of event " + event.sequence() + " and "
+                            + (batch.size() - 1) + " more for " + agentInstanceId + " failed", e);
+                    } finally {
+                        permits.release(batch.size());
+                    }
+                }
+                scheduled.set(false);
+            } while (!queue.isEmpty() && scheduled.compareAndSet(false, true));
+            dropIfIdle();
+        }
+        
+        /**
+         * Ends an offer's hold on the mailbox.
+         */
+        void release() {
+            if (holders.decrementAndGet() == 0) {
+                dropIfIdle();
+            }
+        }
+        
+        private void dropIfIdle() {
+            if (idle()) {
+                mailboxes.computeIfPresent(agentInstanceId,
+                    (id, mailbox) -> mailbox == this && idle() ? null : mailbox);
+            }
+        }
+        
+        /**
+         * Holders are checked first: an offer queues its event and schedules the actor
+         * before it releases the mailbox.
+         */
+        private boolean idle() {
+            return holders.get() == 0 && !scheduled.get() && queue.isEmpty()
+                && permits.availablePermits() == config.mailboxCapacity();
+        }
+        
+        /**
+         * Takes queued events after the first one, up to the batch size, lingering up to
+         * the batch delay for more to arrive.
+         */
+        private List<EventLog.Event> collect(EventLog.Event first) {
+            List<EventLog.Event> batch = new ArrayList<>();
+            batch.add(first);
+            long deadline = System.nanoTime() + config.maxBatchDelay().toNanos();
+            while (batch.size() < config.maxBatchEvents()) {
+                EventLog.Event event = queue.poll();
+                if (event != null) {
+                    batch.add(event);
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                lingering = Thread.currentThread();
+                if (queue.isEmpty()) {
+                    LockSupport.parkNanos(this, remaining);
+                }
+                lingering = null;
+            }
+            return batch;
+        }
+    }
+}
\ No newline at end of file
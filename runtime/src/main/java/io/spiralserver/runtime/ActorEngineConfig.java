@@ -0,0 +1,154 @@
+package io.spiralserver.runtime;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Configuration of an {@link ActorEngine}.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable; {@code with*} methods return modified copies</li>
+ *   <li>All values are validated when set</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class ActorEngineConfig {
+    
+    public static final int DEFAULT_MAILBOX_CAPACITY = 1_024;
+    public static final int DEFAULT_MAX_BATCH_EVENTS = 64;
+    public static final Duration DEFAULT_SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+    
+    private int mailboxCapacity = DEFAULT_MAILBOX_CAPACITY;
+    private int maxBatchEvents = DEFAULT_MAX_BATCH_EVENTS;
+    private Duration maxBatchDelay = Duration.ZERO;
+    private Duration shutdownTimeout = DEFAULT_SHUTDOWN_TIMEOUT;
+    private ThreadFactory threadFactory; // null uses virtual threads
+    
+    private ActorEngineConfig() {
+    }
+    
+    private ActorEngineConfig(ActorEngineConfig other) {
+        this.mailboxCapacity = other.mailboxCapacity;
+        this.maxBatchEvents = other.maxBatchEvents;
+        this.maxBatchDelay = other.maxBatchDelay;
+        this.shutdownTimeout = other.shutdownTimeout;
+        this.threadFactory = other.threadFactory;
+    }
+    
+    /**
+     * Creates a configuration with default settings: mailboxes of 1024 events drained on
+     * virtual threads, and batches of up to 64 already queued events for agents that plan
+     * in batches.
+     * 
+     * @return configuration
+     */
+    public static ActorEngineConfig defaults() {
+        return new ActorEngineConfig();
+    }
+    
+    /**
+     * Sets how many events an agent instance may have queued or in progress. Offers to a
+     * full mailbox fail or wait, which pushes back on the router.
+     * 
+     * @param mailboxCapacity events per mailbox
+     * @return modified copy
+     */
+    public ActorEngineConfig withMailboxCapacity(int mailboxCapacity) {
+        if (mailboxCapacity <= 0) {
+            throw new IllegalArgumentException("Mailbox capacity must be positive");
+        }
+        ActorEngineConfig copy = new ActorEngineConfig(this);
+        copy.mailboxCapacity = mailboxCapacity;
+        return copy;
+    }
+    
+    /**
+     * Sets how many events at most are planned together for an agent that plans in
+     * batches.
+     * 
+     * @param maxBatchEvents events per batch
+     * @return modified copy
+     */
+    public ActorEngineConfig withMaxBatchEvents(int maxBatchEvents) {
+        if (maxBatchEvents <= 0) {
+            throw new IllegalArgumentException("Max batch events must be positive");
+        }
+        ActorEngineConfig copy = new ActorEngineConfig(this);
+        copy.maxBatchEvents = maxBatchEvents;
+        return copy;
+    }
+    
+    /**
+     * Sets how long a batch may wait for more events once its mailbox runs empty. Zero
+     * batches only the events already queued, adding no latency.
+     * 
+     * @param maxBatchDelay batch delay
+     * @return modified copy
+     */
+    public ActorEngineConfig withMaxBatchDelay(Duration maxBatchDelay) {
+        if (maxBatchDelay == null || maxBatchDelay.isNegative()) {
+            throw new IllegalArgumentException("Max batch delay cannot be null or negative");
+        }
+        ActorEngineConfig copy = new ActorEngineConfig(this);
+        copy.maxBatchDelay = maxBatchDelay;
+        return copy;
+    }
+    
+    /**
+     * Sets how long {@link ActorEngine#close()} waits for queued events to be processed.
+     * 
+     * @param shutdownTimeout shutdown timeout
+     * @return modified copy
+     */
+    public ActorEngineConfig withShutdownTimeout(Duration shutdownTimeout) {
+        if (shutdownTimeout == null || shutdownTimeout.isNegative()) {
+            throw new IllegalArgumentException("Shutdown timeout cannot be null or negative");
+        }
+        ActorEngineConfig copy = new ActorEngineConfig(this);
+        copy.shutdownTimeout = shutdownTimeout;
+        return copy;
+    }
+    
+    /**
+     * Sets the factory of the threads that drain mailboxes, instead of virtual threads.
+     * 
+     * @param threadFactory thread factory
+     * @return modified copy
+     */
+    public ActorEngineConfig withThreadFactory(ThreadFactory threadFactory) {
+        if (threadFactory == null) {
+            throw new IllegalArgumentException("Thread factory cannot be null");
+        }
+        ActorEngineConfig copy = new ActorEngineConfig(this);
+        copy.threadFactory = threadFactory;
+        return copy;
+    }
+    
+    public int mailboxCapacity() {
+        return mailboxCapacity;
+    }
+    
+    public int maxBatchEvents() {
+        return maxBatchEvents;
+    }
+    
+    public Duration maxBatchDelay() {
+        return maxBatchDelay;
+    }
+    
+    public Duration shutdownTimeout() {
+        return shutdownTimeout;
+    }
+    
+    public ThreadFactory threadFactory() {
+        return threadFactory != null ? threadFactory : Thread.ofVirtual().name("agent-actor-", 0).factory();
+    }
+    
+    @Override
+    public String toString() {
+        return "ActorEngineConfig{mailboxCapacity=" + mailboxCapacity + ", maxBatchEvents=" + maxBatchEvents
+            + ", maxBatchDelay=" + maxBatchDelay + ", shutdownTimeout=" + shutdownTimeout + "}";
+    }
+}
\ No newline at end of file
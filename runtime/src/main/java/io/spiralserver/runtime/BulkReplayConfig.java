@@ -0,0 +1,126 @@
+package io.spiralserver.runtime;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Configuration of a {@link BulkReplayEngine}.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable; {@code with*} methods return modified copies</li>
+ *   <li>All values are validated when set</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class BulkReplayConfig {
+    
+    public static final int DEFAULT_PAGE_SIZE = 1_000;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 100_000;
+    
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private boolean recordEvents;
+    private ThreadFactory threadFactory; // null uses virtual threads
+    
+    private BulkReplayConfig() {
+    }
+    
+    private BulkReplayConfig(BulkReplayConfig other) {
+        this.pageSize = other.pageSize;
+        this.maxInFlight = other.maxInFlight;
+        this.recordEvents = other.recordEvents;
+        this.threadFactory = other.threadFactory;
+    }
+    
+    /**
+     * Creates a configuration with default settings: pages of 1000 events, at most
+     * 100,000 events scanned ahead of their application, replayed on virtual threads
+     * without keeping per-event records.
+     * 
+     * @return configuration
+     */
+    public static BulkReplayConfig defaults() {
+        return new BulkReplayConfig();
+    }
+    
+    /**
+     * Sets how many events are read from the log at a time.
+     * 
+     * @param pageSize events per read
+     * @return modified copy
+     */
+    public BulkReplayConfig withPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        BulkReplayConfig copy = new BulkReplayConfig(this);
+        copy.pageSize = pageSize;
+        return copy;
+    }
+    
+    /**
+     * Sets how many routed events may wait for their agent before the scan pauses.
+     * 
+     * @param maxInFlight events scanned but not yet applied
+     * @return modified copy
+     */
+    public BulkReplayConfig withMaxInFlight(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max in flight must be positive");
+        }
+        BulkReplayConfig copy = new BulkReplayConfig(this);
+        copy.maxInFlight = maxInFlight;
+        return copy;
+    }
+    
+    /**
+     * Sets whether each result keeps the plan and execution result of every replayed
+     * event, as audits need. Off by default, since rebuilds only need the final states.
+     * 
+     * @param recordEvents true to keep per-event records
+     * @return modified copy
+     */
+    public BulkReplayConfig withRecordEvents(boolean recordEvents) {
+        BulkReplayConfig copy = new BulkReplayConfig(this);
+        copy.recordEvents = recordEvents;
+        return copy;
+    }
+    
+    /**
+     * Sets the factory of the threads agents are replayed on, instead of virtual threads.
+     * 
+     * @param threadFactory thread factory
+     * @return modified copy
+     */
+    public BulkReplayConfig withThreadFactory(ThreadFactory threadFactory) {
+        if (threadFactory == null) {
+            throw new IllegalArgumentException("Thread factory cannot be null");
+        }
+        BulkReplayConfig copy = new BulkReplayConfig(this);
+        copy.threadFactory = threadFactory;
+        return copy;
+    }
+    
+    public int pageSize() {
+        return pageSize;
+    }
+    
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+    
+    public boolean recordEvents() {
+        return recordEvents;
+    }
+    
+    public ThreadFactory threadFactory() {
+        return threadFactory != null ? threadFactory : Thread.ofVirtual().name("bulk-replay-", 0).factory();
+    }
+    
+    @Override
+    public String toString() {
+        return "BulkReplayConfig{pageSize=" + pageSize + ", maxInFlight=" + maxInFlight
+            + ", recordEvents=" + recordEvents + "}";
+    }
+}
\ No newline at end of file
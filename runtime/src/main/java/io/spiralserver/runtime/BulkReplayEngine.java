@@ -0,0 +1,330 @@
+package io.spiralserver.runtime;
+
+import io.spiralserver.schema.AgentSchema;
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.EventLog;
+import io.spiralserver.state.HotState;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Replays many agent instances from a single scan of the {@link EventLog}.
+ * 
+ * <p>{@link ReplayEngine} replays one agent at a time, so rebuilding or auditing a whole
+ * tenant reads the log once per agent. This engine reads it once, in pages, and routes
+ * each event to the agent instances it concerns. Every instance has its own lane that
+ * applies its events in log order on a (by default virtual) thread: the event is planned
+ * against the lane's state, the plan executed, and the new state carried to the next
+ * event. Lanes of different instances run in parallel. The scan pauses while too many
+ * routed events wait to be applied, bounding memory however far it runs ahead.
+ * 
+ * <p>Replays should be given a replay-mode {@link ToolBoundary} that serves recorded
+ * tool results, so that no tool is invoked again. Hot state is not touched; the final
+ * states are returned.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Events of one agent instance are applied serially, in sequence order</li>
+ *   <li>A lane that fails stops applying events; other lanes are unaffected</li>
+ *   <li>At most {@code maxInFlight} events are routed but not yet applied</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class BulkReplayEngine {
+    
+    private static final System.Logger LOGGER = System.getLogger(BulkReplayEngine.class.getName());
+    
+    private final EventLog eventLog;
+    private final Planner planner;
+    private final Executor executor;
+    private final ToolBoundary toolBoundary;
+    private final Function<String, Planner.PlanningContext> contexts;
+    private final Function<EventLog.Event, Collection<String>> router;
+    private final BulkReplayConfig config;
+    
+    /**
+     * Creates a bulk replay engine.
+     * 
+     * @param eventLog event log replayed
+     * @param planner planner
+     * @param executor executor
+     * @param toolBoundary tool boundary handed to the executor, normally in replay mode
+     * @param contexts resolves the planning context of an agent instance
+     * @param router resolves the agent instances an event is delivered to
+     * @param config replay configuration
+     */
+    public BulkReplayEngine(
+        EventLog eventLog,
+        Planner planner,
+        Executor executor,
+        ToolBoundary toolBoundary,
+        Function<String, Planner.PlanningContext> contexts,
+        Function<EventLog.Event, Collection<String>> router,
+        BulkReplayConfig config
+    ) {
+        if (eventLog == null) {
+            throw new IllegalArgumentException("Event log cannot be null");
+        }
+        if (planner == null) {
+            throw new IllegalArgumentException("Planner cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (toolBoundary == null) {
+            throw new IllegalArgumentException("Tool boundary cannot be null");
+        }
+        if (contexts == null || router == null) {
+            throw new IllegalArgumentException("Context resolver and router cannot be null");
+        }
+        if (config == null) {
+            throw new IllegalArgumentException("Config cannot be null");
+        }
+        this.eventLog = eventLog;
+        this.planner = planner;
+        this.executor = executor;
+        this.toolBoundary = toolBoundary;
+        this.contexts = contexts;
+        this.router = router;
+        this.config = config;
+    }
+    
+    /**
+     * Replays the given agent instances, blocking until all lanes are done.
+     * 
+     * @param targets agent instances to replay, each from its own cursor
+     * @param toCursor ending cursor (exclusive, empty means to the end of the log)
+     * @return per-instance results and run statistics
+     * @throws InterruptedException if interrupted; running lanes are interrupted
+     */
+    public Report replayAll(Collection<Target> targets, Optional<Cursor> toCursor) throws InterruptedException {
+        if (targets == null || toCursor == null) {
+            throw new IllegalArgumentException("Targets and end cursor cannot be null");
+        }
+        Map<String, Lane> lanes = new LinkedHashMap<>();
+        Cursor cursor = null;
+        for (Target target : targets) {
+            if (lanes.put(target.agentInstanceId(), new Lane(target)) != null) {
+                throw new IllegalArgumentException("Duplicate target: " + target.agentInstanceId());
+            }
+            cursor = cursor == null || target.after().isBefore(cursor) ? target.after() : cursor;
+        }
+        Run run = new Run(config.maxInFlight());
+        long startedAt = System.nanoTime();
+        long scanned = 0;
+        ExecutorService threads = Executors.newThreadPerTaskExecutor(config.threadFactory());
+        try {
+            scan:
+            while (cursor != null) {
+                List<EventLog.Event> page = eventLog.read(cursor, config.pageSize());
+                for (EventLog.Event event : page) {
+                    if (toCursor.isPresent() && event.sequence() >= toCursor.get().sequence()) {
+                        break scan;
+                    }
+                    scanned++;
+                    for (String agentInstanceId : router.apply(event)) {
+                        Lane lane = lanes.get(agentInstanceId);
+                        if (lane != null && event.sequence() > lane.target.after().sequence()) {
+                            run.inFlight.acquire();
+                            lane.queue.add(new Routed(event, System.nanoTime()));
+                            if (lane.scheduled.compareAndSet(false, true)) {
+                                threads.execute(() -> lane.drain(run));
+                            }
+                        }
+                    }
+                    cursor = new Cursor(event.sequence());
+                }
+                if (page.size() < config.pageSize()) {
+                    break;
+                }
+            }
+            threads.shutdown();
+            threads.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } finally {
+            threads.shutdownNow();
+        }
+        Map<String, ReplayEngine.ReplayResult> results = new LinkedHashMap<>();
+        for (Lane lane : lanes.values()) {
+            results.put(lane.target.agentInstanceId(), lane.result());
+        }
+        long applied = run.applied.sum();
+        return new Report(Collections.unmodifiableMap(results), scanned, applied,
+            Duration.ofNanos(System.nanoTime() - startedAt),
+            Duration.ofNanos(applied == 0 ? 0 : run.lagNanos.sum() / applied),
+            Duration.ofNanos(run.maxLagNanos.get()));
+    }
+    
+    public BulkReplayConfig config() {
+        return config;
+    }
+    
+    /**
+     * Agent instance to replay.
+     * 
+     * @param agentInstanceId agent instance identifier
+     * @param agentSchema agent schema
+     * @param initialState state before the first replayed event
+     * @param after cursor of the initial state; only later events are replayed
+     */
+    public record Target(String agentInstanceId, AgentSchema agentSchema, HotState.State initialState, Cursor after) {
+        
+        public Target {
+            if (agentInstanceId == null || agentSchema == null || initialState == null || after == null) {
+                throw new IllegalArgumentException("Target fields cannot be null");
+            }
+        }
+    }
+    
+    /**
+     * Outcome of a bulk replay.
+     * 
+     * @param results replay result of each target, in target order
+     * @param eventsScanned events read from the log
+     * @param eventsApplied events applied across all agent instances
+     * @param elapsed duration of the run
+     * @param meanLag mean time from an event's scan to its application
+     * @param maxLag longest time from an event's scan to its application
+     */
+    public record Report(Map<String, ReplayEngine.ReplayResult> results, long eventsScanned, long eventsApplied,
+                         Duration elapsed, Duration meanLag, Duration maxLag) {
+        
+        /**
+         * Returns the applied events per second of the run.
+         * 
+         * @return throughput
+         */
+        public double eventsPerSecond() {
+            long nanos = elapsed.toNanos();
+            return nanos == 0 ? 0 : eventsApplied * 1e9 / nanos;
+        }
+        
+        /**
+         * Returns the ids of the agent instances whose replay did not succeed.
+         * 
+         * @return failed agent instance ids
+         */
+        public List<String> failed() {
+            List<String> failed = new ArrayList<>();
+            results.forEach((id, result) -> {
+                if (result.status() != ReplayEngine.ReplayResult.ReplayStatus.SUCCESS) {
+                    failed.add(id);
+                }
+            });
+            return failed;
+        }
+    }
+    
+    private record Routed(EventLog.Event event, long routedAtNanos) {
+    }
+    
+    /**
+     * Shared accounting of one run.
+     */
+    private static final class Run {
+        private final Semaphore inFlight;
+        private final LongAdder applied = new LongAdder();
+        private final LongAdder lagNanos = new LongAdder();
+        private final LongAccumulator maxLagNanos = new LongAccumulator(Math::max, 0);
+        
+        Run(int maxInFlight) {
+            this.inFlight = new Semaphore(maxInFlight);
+        }
+    }
+    
+    /**
+     * Events and replay state of one agent instance. Drained by one thread at a time
+     * while {@code scheduled} is set, so the state needs no lock; the flag's atomic
+     * updates order it between successive drains.
+     */
+    private final class Lane {
+        private final Target target;
+        private final ConcurrentLinkedQueue<Routed> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final List<ReplayEngine.ReplayResult.ReplayEvent> events = new ArrayList<>();
+        private HotState.State state;
+        private Cursor cursor;
+        private boolean failed;
+        
+        Lane(Target target) {
+            this.target = target;
+            this.state = target.initialState();
+            this.cursor = target.after();
+        }
+        
+        void drain(Run run) {
+            do {
+                Routed routed;
+                while ((routed = queue.poll()) != null) {
+                    try {
+                        if (!failed) {
+                            apply(routed.event());
+                            long lag = System.nanoTime() - routed.routedAtNanos();
+                            run.applied.increment();
+                            run.lagNanos.add(lag);
+                            run.maxLagNanos.accumulate(lag);
+                        }
+                    } finally {
+                        run.inFlight.release();
+                    }
+                }
+                scheduled.set(false);
+            } while (!queue.isEmpty() && scheduled.compareAndSet(false, true));
+        }
+        
+        private void apply(EventLog.Event event) {
+            String id = target.agentInstanceId();
+            try {
+                Planner.Plan plan = planner.plan(target.agentSchema(), state, List.of(event), contexts.apply(id));
+                Executor.ExecutionResult result = executor.execute(id, target.agentSchema(), plan, state, toolBoundary);
+                if (result.status() == Executor.ExecutionResult.ExecutionStatus.FAILED) {
+                    failed = true;
+                    LOGGER.log(System.Logger.Level.WARNING, "Replay of event {0} for {1} failed to execute",
+                        event.sequence(), id);
+                    return;
+                }
+                if (result.newState() != null) {
+                    state = result.newState();
+                }
+                cursor = new Cursor(event.sequence());
+                if (config.recordEvents()) {
+                    events.add(new Replayed(cursor, event, plan, result));
+                }
+            } catch (RuntimeException e) {
+                failed = true;
+                LOGGER.log(System.Logger.Level.WARNING,
+                    "Replay of event " + event.sequence() + " for " + id + " failed", e);
+            }
+        }
+        
+        ReplayEngine.ReplayResult result() {
+            return new Result(failed ? ReplayEngine.ReplayResult.ReplayStatus.FAILED
+                : ReplayEngine.ReplayResult.ReplayStatus.SUCCESS, state, cursor, List.copyOf(events));
+        }
+    }
+    
+    private record Replayed(Cursor cursor, EventLog.Event event, Planner.Plan plan,
+                            Executor.ExecutionResult executionResult) implements ReplayEngine.ReplayResult.ReplayEvent {
+    }
+    
+    private record Result(ReplayEngine.ReplayResult.ReplayStatus status, HotState.State finalState,
+                          Cursor finalCursor, List<ReplayEngine.ReplayResult.ReplayEvent> events)
+        implements ReplayEngine.ReplayResult {
+    }
+}
\ No newline at end of file
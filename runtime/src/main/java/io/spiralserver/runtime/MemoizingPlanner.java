@@ -0,0 +1,418 @@
+package io.spiralserver.runtime;
+
+import io.spiralserver.observability.Metrics;
+import io.spiralserver.schema.AgentSchema;
+import io.spiralserver.schema.Digest;
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.EventLog;
+import io.spiralserver.state.HotState;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Planner decorator that reuses earlier plans for identical inputs.
+ * 
+ * <p>{@link Planner#plan} is pure, so a plan computed once can be returned again whenever
+ * the same inputs recur, as they do when history is replayed or a step is retried. Plans
+ * are cached under:
+ * <ul>
+ *   <li>the agent schema reference and digest</li>
+ *   <li>the state version</li>
+ *   <li>a SHA-256 digest of the state data and of every new event: its sequence, schema,
+ *       timestamp, keys, source and payload</li>
+ *   <li>a fingerprint of the planning context: tools, policies, budgets and tenant</li>
+ * </ul>
+ * Since the digest covers the content of the inputs rather than where they come from,
+ * instances at the same version, batches with the same sequence range and events of
+ * different log partitions only share a plan when their inputs are identical. Keys hold
+ * the digest, not the state, so the heap a cached plan pins is its weight plus a small
+ * key. State data and payloads are streamed through the digest by the configured
+ * {@link DataCodec}, without building their encoding; inputs that cannot be encoded are
+ * planned without the cache, and equal data encoded differently (such as maps iterated
+ * in different orders) only costs a miss.
+ * 
+ * <p>{@link HotState.State} values are immutable, so the digest of a state is computed
+ * once: the digests of recently planned states are remembered by state identity and
+ * version, through weak references that do not keep the states alive. Planning the next
+ * events of an unchanged state only digests the events.
+ * 
+ * <p>The cache is bounded by the total weight of its plans and split into segments that
+ * each evict their least recently used plans. Concurrent misses for the same key may
+ * both plan; the results are interchangeable.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>A cached plan is only returned for inputs equal to those it was planned from</li>
+ *   <li>Failed planning and null plans are not cached</li>
+ *   <li>The resident weight never exceeds the bound, except for a single plan heavier
+ *       than its segment's share, which is not cached</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class MemoizingPlanner implements Planner {
+    
+    private static final String ALGORITHM = "SHA-256";
+    private static final int STATE_DIGEST_SLOTS = 1024; // power of two
+    
+    private final Planner delegate;
+    private final PlanCacheConfig config;
+    private final Segment[] segments;
+    private final AtomicReferenceArray<StateDigest> stateDigests = new AtomicReferenceArray<>(STATE_DIGEST_SLOTS);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    /**
+     * Creates a memoizing planner.
+     * 
+     * @param delegate planner whose plans are cached
+     * @param config cache configuration
+     */
+    public MemoizingPlanner(Planner delegate, PlanCacheConfig config) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate planner cannot be null");
+        }
+        if (config == null) {
+            throw new IllegalArgumentException("Config cannot be null");
+        }
+        this.delegate = delegate;
+        this.config = config;
+        long segmentBound = Math.max(1, (config.maxWeight() + config.segments() - 1) / config.segments());
+        this.segments = new Segment[config.segments()];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(segmentBound);
+        }
+    }
+    
+    @Override
+    public Plan plan(AgentSchema agentSchema, HotState.State currentState, List<EventLog.Event> newEvents,
+                     PlanningContext context) {
+        if (agentSchema == null || newEvents == null) {
+            throw new IllegalArgumentException("Agent schema and events cannot be null");
+        }
+        Key key;
+        try {
+            key = Key.of(agentSchema, currentState, stateDigest(currentState), newEvents, context, config.dataCodec());
+        } catch (IllegalArgumentException e) {
+            count(misses, "planner.cache.misses"); // not encodable, so not cacheable
+            return delegate.plan(agentSchema, currentState, newEvents, context);
+        }
+        Segment segment = segments[Math.floorMod(key.hash ^ (key.hash >>> 16), segments.length)];
+        segment.lock();
+        try {
+            Cached cached = segment.plans.get(key);
+            if (cached != null) {
+                count(hits, "planner.cache.hits");
+                return cached.plan;
+            }
+        } finally {
+            segment.unlock();
+        }
+        count(misses, "planner.cache.misses");
+        Plan plan = delegate.plan(agentSchema, currentState, newEvents, context);
+        if (plan != null) {
+            long weight = config.weigher().applyAsLong(plan);
+            if (weight <= 0) {
+                throw new IllegalStateException("Plan weight must be positive: " + weight);
+            }
+            if (weight <= segment.capacity) {
+                admit(segment, key, new Cached(plan, weight));
+            }
+        }
+        return plan;
+    }
+    
+    /**
+     * Returns the digest of the state data, reusing the one computed for the same state
+     * object at the same version.
+     */
+    private byte[] stateDigest(HotState.State state) {
+        if (state == null) {
+            return null;
+        }
+        int slot = System.identityHashCode(state) & (STATE_DIGEST_SLOTS - 1);
+        StateDigest remembered = stateDigests.get(slot);
+        if (remembered != null && remembered.state().get() == state && remembered.version() == state.version()) {
+            return remembered.digest();
+        }
+        MessageDigest digest = newMessageDigest();
+        digestData(digest, config.dataCodec(), state.data());
+        byte[] computed = digest.digest();
+        stateDigests.set(slot, new StateDigest(new WeakReference<>(state), state.version(), computed));
+        return computed;
+    }
+    
+    private void admit(Segment segment, Key key, Cached cached) {
+        int evicted = 0;
+        segment.lock();
+        try {
+            Cached previous = segment.plans.put(key, cached);
+            segment.weight += cached.weight - (previous != null ? previous.weight : 0);
+            Iterator<Cached> eldest = segment.plans.values().iterator();
+            while (segment.weight > segment.capacity) {
+                segment.weight -= eldest.next().weight;
+                eldest.remove();
+                evicted++;
+            }
+        } finally {
+            segment.unlock();
+        }
+        if (evicted > 0) {
+            evictions.add(evicted);
+            Optional<Metrics> metrics = config.metrics();
+            if (metrics.isPresent()) {
+                metrics.get().incrementCounter("planner.cache.evictions", evicted, Map.of());
+            }
+        }
+    }
+    
+    private void count(LongAdder counter, String metric) {
+        counter.increment();
+        Optional<Metrics> metrics = config.metrics();
+        if (metrics.isPresent()) {
+            metrics.get().incrementCounter(metric, 1, Map.of());
+        }
+    }
+    
+    /**
+     * Drops every cached plan.
+     */
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                segment.plans.clear();
+                segment.weight = 0;
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+    
+    public long hitCount() {
+        return hits.sum();
+    }
+    
+    public long missCount() {
+        return misses.sum();
+    }
+    
+    public long evictionCount() {
+        return evictions.sum();
+    }
+    
+    /**
+     * Returns the number of cached plans.
+     * 
+     * @return cached plans
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                size += segment.plans.size();
+            } finally {
+                segment.unlock();
+            }
+        }
+        return size;
+    }
+    
+    /**
+     * Returns the total weight of the cached plans.
+     * 
+     * @return resident weight
+     */
+    public long weight() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                weight += segment.weight;
+            } finally {
+                segment.unlock();
+            }
+        }
+        return weight;
+    }
+    
+    public PlanCacheConfig config() {
+        return config;
+    }
+    
+    @Override
+    public String toString() {
+        return "MemoizingPlanner{size=" + size() + ", hits=" + hitCount() + ", misses=" + missCount() + "}";
+    }
+    
+    private record Cached(Plan plan, long weight) {
+    }
+    
+    private record StateDigest(WeakReference<HotState.State> state, long version, byte[] digest) {
+    }
+    
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+    
+    /**
+     * Digests data as a marker byte (0 for null) followed by the digest of its encoding,
+     * which is streamed, so that adjacent values cannot run into each other.
+     * 
+     * @throws IllegalArgumentException if the data cannot be encoded
+     */
+    private static void digestData(MessageDigest digest, DataCodec dataCodec, Object data) {
+        if (data == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        MessageDigest encoded = newMessageDigest();
+        try (DigestOutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), encoded)) {
+            dataCodec.encode(data, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // not thrown by the null stream
+        }
+        digest.update((byte) 1);
+        digest.update(encoded.digest());
+    }
+    
+    /**
+     * Cached plans in access order, least recently used first, guarded by the segment.
+     */
+    private static final class Segment extends ReentrantLock {
+        private final long capacity;
+        private final LinkedHashMap<Key, Cached> plans = new LinkedHashMap<>(16, 0.75f, true);
+        private long weight;
+        
+        Segment(long capacity) {
+            this.capacity = capacity;
+        }
+    }
+    
+    /**
+     * Planning context reduced to the values a plan may depend on.
+     */
+    private record ContextFingerprint(List<SchemaRef> tools, List<SchemaRef> policies, long budgetLimit,
+                                      long remainingBudget, String tenantId) {
+        
+        static ContextFingerprint of(PlanningContext context) {
+            return context == null ? null : new ContextFingerprint(List.copyOf(context.availableTools()),
+                List.copyOf(context.applicablePolicies()), context.budgetLimit(), context.remainingBudget(),
+                context.tenantId());
+        }
+    }
+    
+    /**
+     * Cache key: the schema, state version and context, and one digest of the state data
+     * and new events.
+     */
+    private static final class Key {
+        
+        private final SchemaRef schemaRef;
+        private final Digest schemaDigest;
+        private final long stateVersion;
+        private final Digest inputDigest;
+        private final ContextFingerprint context;
+        private final int hash;
+        
+        private Key(SchemaRef schemaRef, Digest schemaDigest, long stateVersion, Digest inputDigest,
+                    ContextFingerprint context) {
+            this.schemaRef = schemaRef;
+            this.schemaDigest = schemaDigest;
+            this.stateVersion = stateVersion;
+            this.inputDigest = inputDigest;
+            this.context = context;
+            this.hash = Objects.hash(schemaRef, schemaDigest, stateVersion, inputDigest, context);
+        }
+        
+        /**
+         * @throws IllegalArgumentException if the events cannot be encoded
+         */
+        static Key of(AgentSchema agentSchema, HotState.State state, byte[] stateDigest, List<EventLog.Event> events,
+                      PlanningContext context, DataCodec dataCodec) {
+            MessageDigest digest = newMessageDigest();
+            digestBytes(digest, stateDigest);
+            digestLong(digest, events.size());
+            for (EventLog.Event event : events) {
+                digestLong(digest, event.sequence());
+                digestString(digest, Objects.toString(event.eventSchemaRef(), null));
+                Instant timestamp = event.timestamp();
+                digestLong(digest, timestamp == null ? Long.MIN_VALUE : timestamp.getEpochSecond());
+                digestLong(digest, timestamp == null ? -1 : timestamp.getNano());
+                digestString(digest, event.correlationKey());
+                digestString(digest, event.idempotencyKey());
+                digestString(digest, event.source());
+                digestData(digest, dataCodec, event.payload());
+            }
+            return new Key(
+                agentSchema.ref(),
+                agentSchema.digest(),
+                state == null ? -1 : state.version(),
+                new Digest(ALGORITHM, HexFormat.of().formatHex(digest.digest())),
+                ContextFingerprint.of(context)
+            );
+        }
+        
+        private static void digestString(MessageDigest digest, String value) {
+            digestBytes(digest, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        /**
+         * Digests values length-prefixed (-1 for null), so that adjacent values cannot
+         * run into each other.
+         */
+        private static void digestBytes(MessageDigest digest, byte[] bytes) {
+            digestLong(digest, bytes == null ? -1 : bytes.length);
+            if (bytes != null) {
+                digest.update(bytes);
+            }
+        }
+        
+        private static void digestLong(MessageDigest digest, long value) {
+            digest.update(ByteBuffer.allocate(Long.BYTES).putLong(0, value).array());
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key other)) return false;
+            return hash == other.hash
+                && stateVersion == other.stateVersion
+                && Objects.equals(inputDigest, other.inputDigest)
+                && Objects.equals(schemaRef, other.schemaRef)
+                && Objects.equals(schemaDigest, other.schemaDigest)
+                && Objects.equals(context, other.context);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
\ No newline at end of file
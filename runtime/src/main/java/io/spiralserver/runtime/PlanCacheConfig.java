@@ -0,0 +1,154 @@
+package io.spiralserver.runtime;
+
+import io.spiralserver.observability.Metrics;
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.JsonDataCodec;
+
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+
+/**
+ * Configuration of a {@link MemoizingPlanner}.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable; {@code with*} methods return modified copies</li>
+ *   <li>All values are validated when set</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class PlanCacheConfig {
+    
+    public static final long DEFAULT_MAX_WEIGHT = 100_000;
+    public static final int DEFAULT_SEGMENTS = 16;
+    
+    private long maxWeight = DEFAULT_MAX_WEIGHT;
+    private int segments = DEFAULT_SEGMENTS;
+    private ToLongFunction<Planner.Plan> weigher = plan -> 1 + plan.actions().size();
+    private DataCodec dataCodec = new JsonDataCodec();
+    private Metrics metrics; // null disables metrics
+    
+    private PlanCacheConfig() {
+    }
+    
+    private PlanCacheConfig(PlanCacheConfig other) {
+        this.maxWeight = other.maxWeight;
+        this.segments = other.segments;
+        this.weigher = other.weigher;
+        this.dataCodec = other.dataCodec;
+        this.metrics = other.metrics;
+    }
+    
+    /**
+     * Creates a configuration with default settings: plans weigh one plus their action
+     * count, up to a total weight of 100,000, and inputs are digested as JSON.
+     * 
+     * @return configuration
+     */
+    public static PlanCacheConfig defaults() {
+        return new PlanCacheConfig();
+    }
+    
+    /**
+     * Bounds the total weight of the cached plans.
+     * 
+     * @param maxWeight weight bound
+     * @return modified copy
+     */
+    public PlanCacheConfig withMaxWeight(long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Max weight must be positive");
+        }
+        PlanCacheConfig copy = new PlanCacheConfig(this);
+        copy.maxWeight = maxWeight;
+        return copy;
+    }
+    
+    /**
+     * Sets the number of independently locked segments. Each segment evicts its least
+     * recently used plans over an equal share of the bound.
+     * 
+     * @param segments segment count
+     * @return modified copy
+     */
+    public PlanCacheConfig withSegments(int segments) {
+        if (segments <= 0) {
+            throw new IllegalArgumentException("Segments must be positive");
+        }
+        PlanCacheConfig copy = new PlanCacheConfig(this);
+        copy.segments = segments;
+        return copy;
+    }
+    
+    /**
+     * Sets how plans are weighed against the bound; weights must be positive.
+     * 
+     * @param weigher plan weigher
+     * @return modified copy
+     */
+    public PlanCacheConfig withWeigher(ToLongFunction<Planner.Plan> weigher) {
+        if (weigher == null) {
+            throw new IllegalArgumentException("Weigher cannot be null");
+        }
+        PlanCacheConfig copy = new PlanCacheConfig(this);
+        copy.weigher = weigher;
+        return copy;
+    }
+    
+    /**
+     * Sets the codec state data and event payloads are encoded with to be digested into
+     * cache keys.
+     * 
+     * @param dataCodec data codec
+     * @return modified copy
+     */
+    public PlanCacheConfig withDataCodec(DataCodec dataCodec) {
+        if (dataCodec == null) {
+            throw new IllegalArgumentException("Data codec cannot be null");
+        }
+        PlanCacheConfig copy = new PlanCacheConfig(this);
+        copy.dataCodec = dataCodec;
+        return copy;
+    }
+    
+    /**
+     * Reports cache metrics ({@code planner.cache.*}).
+     * 
+     * @param metrics metrics sink
+     * @return modified copy
+     */
+    public PlanCacheConfig withMetrics(Metrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null");
+        }
+        PlanCacheConfig copy = new PlanCacheConfig(this);
+        copy.metrics = metrics;
+        return copy;
+    }
+    
+    public long maxWeight() {
+        return maxWeight;
+    }
+    
+    public int segments() {
+        return segments;
+    }
+    
+    public ToLongFunction<Planner.Plan> weigher() {
+        return weigher;
+    }
+    
+    public DataCodec dataCodec() {
+        return dataCodec;
+    }
+    
+    public Optional<Metrics> metrics() {
+        return Optional.ofNullable(metrics);
+    }
+    
+    @Override
+    public String toString() {
+        return "PlanCacheConfig{maxWeight=" + maxWeight + ", segments=" + segments + "}";
+    }
+}
\ No newline at end of file
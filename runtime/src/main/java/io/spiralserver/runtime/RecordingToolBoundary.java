@@ -0,0 +1,69 @@
+package io.spiralserver.runtime;
+
+import io.spiralserver.schema.SchemaRef;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tool boundary decorator that durably records every result for replay.
+ * 
+ * <p>Live invocations are delegated and their results written to a
+ * {@link ToolResultStore} under the agent instance, plan and action ids of the context
+ * before they are returned, so an execution never depends on a result that was not
+ * recorded. Invocations whose context {@linkplain InvocationContext#isReplay() is a
+ * replay} are served from the store by a {@link ReplayToolBoundary} and never reach the
+ * delegate.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>A live result is recorded before it is returned</li>
+ *   <li>Failed results are recorded too, so replays fail the same way</li>
+ *   <li>Replays do not invoke tools</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class RecordingToolBoundary implements ToolBoundary {
+    
+    private final ToolBoundary delegate;
+    private final ToolResultStore store;
+    private final ReplayToolBoundary replay;
+    
+    /**
+     * Creates a recording boundary.
+     * 
+     * @param delegate boundary invoking the tools
+     * @param store store the results are recorded in and replayed from
+     */
+    public RecordingToolBoundary(ToolBoundary delegate, ToolResultStore store) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate tool boundary cannot be null");
+        }
+        this.delegate = delegate;
+        this.store = store;
+        this.replay = new ReplayToolBoundary(store);
+    }
+    
+    @Override
+    public CompletableFuture<ToolResult> invoke(SchemaRef toolRef, Object parameters, InvocationContext context) {
+        ReplayToolBoundary.requireKey(context);
+        if (context.isReplay()) {
+            return replay.invoke(toolRef, parameters, context);
+        }
+        return delegate.invoke(toolRef, parameters, context).thenApply(result -> record(context, result));
+    }
+    
+    @Override
+    public ToolResult invokeSync(SchemaRef toolRef, Object parameters, InvocationContext context) {
+        ReplayToolBoundary.requireKey(context);
+        if (context.isReplay()) {
+            return replay.invokeSync(toolRef, parameters, context);
+        }
+        return record(context, delegate.invokeSync(toolRef, parameters, context));
+    }
+    
+    private ToolResult record(InvocationContext context, ToolResult result) {
+        store.put(context.agentInstanceId(), context.planId(), context.actionId(), result);
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package io.spiralserver.runtime;
+
+import io.spiralserver.schema.SchemaRef;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Replay-mode tool boundary serving recorded results from a {@link ToolResultStore}.
+ * 
+ * <p>Results are looked up by the agent instance, plan and action ids of the invocation
+ * context; no tool is invoked, so replays run at CPU speed and cannot repeat side
+ * effects. An invocation without a recorded result fails instead of reaching a tool.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Never performs IO beyond reading the store</li>
+ *   <li>Returns the result recorded for the invoking action, unchanged</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class ReplayToolBoundary implements ToolBoundary {
+    
+    private final ToolResultStore store;
+    
+    /**
+     * Creates a replay boundary.
+     * 
+     * @param store recorded results
+     */
+    public ReplayToolBoundary(ToolResultStore store) {
+        if (store == null) {
+            throw new IllegalArgumentException("Tool result store cannot be null");
+        }
+        this.store = store;
+    }
+    
+    @Override
+    public CompletableFuture<ToolResult> invoke(SchemaRef toolRef, Object parameters, InvocationContext context) {
+        try {
+            return CompletableFuture.completedFuture(invokeSync(toolRef, parameters, context));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * Returns the recorded result of the invoking action.
+     * 
+     * @throws IllegalArgumentException if the context lacks plan or action ids
+     * @throws IllegalStateException if no result was recorded for the action
+     */
+    @Override
+    public ToolResult invokeSync(SchemaRef toolRef, Object parameters, InvocationContext context) {
+        requireKey(context);
+        return store.get(context.agentInstanceId(), context.planId(), context.actionId())
+            .orElseThrow(() -> new IllegalStateException("No recorded result of " + toolRef + " for action "
+                + context.actionId() + " of plan " + context.planId() + " of " + context.agentInstanceId()));
+    }
+    
+    static void requireKey(InvocationContext context) {
+        if (context == null || context.agentInstanceId() == null || context.planId() == null
+                || context.actionId() == null) {
+            throw new IllegalArgumentException("Invocation context must name the agent instance, plan and action");
+        }
+    }
+}
\ No newline at end of file
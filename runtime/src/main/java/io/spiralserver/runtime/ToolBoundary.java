@@ -100,6 +100,25 @@ public interface ToolBoundary {
         String correlationKey();
         boolean isReplay(); // true if this is a replay
         
+        /**
+         * Returns the id of the plan whose action invokes the tool.
+         * 
+         * @return plan id (null if not invoked from a plan)
+         */
+        default String planId() {
+            return null;
+        }
+        
+        /**
+         * Returns the id of the plan action that invokes the tool. Together with the
+         * agent instance and plan ids it identifies the recorded result in replay.
+         * 
+         * @return action id (null if not invoked from a plan)
+         */
+        default String actionId() {
+            return null;
+        }
+        
         /**
          * Returns budget allocated for this tool invocation.
          * 
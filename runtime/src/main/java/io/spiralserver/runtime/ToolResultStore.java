@@ -0,0 +1,608 @@
+package io.spiralserver.runtime;
+
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.JsonDataCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable store of tool results, keyed by agent instance, plan id and action id, from
+ * which replays are served without invoking tools.
+ * 
+ * <p>Files:
+ * <pre>
+ *   tool-results.log    [int32 bodyLength][int32 crc32c(body)][body]...
+ *                       body: [agentInstanceId][planId][actionId][int8 success]
+ *                             [int64 durationMs][int64 cost][errorMessage]
+ *                             [int32 n]([key][value])*n [int32 resultLength][result]
+ *   tool-results.index  header: [int32 magic][int16 version][int16 clean][int32 slots]
+ *                               [int32 count][int64 logEnd][int64 reserved]
+ *                       slots:  [int64 keyHash][int64 position + 1]...
+ * </pre>
+ * Strings are an int32 byte length (-1 for null) followed by UTF-8 bytes; a result of
+ * length -1 is null, otherwise it is encoded with the {@link DataCodec}.
+ * 
+ * <p>The index is an open-addressing hash table in a memory-mapped file, doubled when
+ * half full. The log is read through read-only mappings of overlapping windows, each
+ * long enough to hold any record starting in it, so a lookup is a probe of mapped
+ * memory and the result is decoded from a view of the mapped record: replays touch no
+ * file descriptors once the pages are resident.
+ * 
+ * <p>A put appends its record and forces the log before the result is indexed. The
+ * index is only trusted if it was closed cleanly; otherwise it is rebuilt from the log
+ * on open, after discarding a torn record at its end.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>A result is durable once {@link #put} returns</li>
+ *   <li>Putting a key again replaces its result; the latest record wins</li>
+ *   <li>Thread-safe; lookups run concurrently with each other, puts exclusively</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class ToolResultStore implements Closeable {
+    
+    /**
+     * Largest encoded record body; larger results are rejected.
+     */
+    public static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+    
+    private static final String LOG_FILE = "tool-results.log";
+    private static final String INDEX_FILE = "tool-results.index";
+    private static final int RECORD_HEADER = 8;
+    private static final int MAGIC = 0x53505452; // "SPTR"
+    private static final short FORMAT_VERSION = 1;
+    private static final int CLEAN_OFFSET = 6;
+    private static final int SLOTS_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+    private static final int LOG_END_OFFSET = 16;
+    private static final int INDEX_HEADER = 32;
+    private static final int SLOT_BYTES = 16;
+    private static final int INITIAL_SLOTS = 1024;
+    private static final long WINDOW_STRIDE = 256L * 1024 * 1024;
+    private static final long WINDOW_BYTES = WINDOW_STRIDE + RECORD_HEADER + MAX_RECORD_BYTES;
+    
+    private final Path directory;
+    private final DataCodec dataCodec;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object windowLock = new Object();
+    private FileChannel log;
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int slots;
+    private int count;
+    private long logEnd;
+    private volatile MappedByteBuffer[] windows = new MappedByteBuffer[0];
+    
+    private ToolResultStore(Path directory, DataCodec dataCodec) {
+        this.directory = directory;
+        this.dataCodec = dataCodec;
+    }
+    
+    /**
+     * Opens (or creates) a store with JSON-encoded results.
+     * 
+     * @see #open(Path, DataCodec)
+     */
+    public static ToolResultStore open(Path directory) {
+        return open(directory, new JsonDataCodec());
+    }
+    
+    /**
+     * Opens (or creates) a store, rebuilding its index if it was not closed cleanly.
+     * 
+     * @param directory store directory
+     * @param dataCodec codec for tool outputs
+     * @return opened store
+     * @throws UncheckedIOException if the store cannot be opened
+     */
+    public static ToolResultStore open(Path directory, DataCodec dataCodec) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        if (dataCodec == null) {
+            throw new IllegalArgumentException("Data codec cannot be null");
+        }
+        ToolResultStore store = new ToolResultStore(directory, dataCodec);
+        try {
+            Files.createDirectories(directory);
+            store.log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (!store.loadIndex()) {
+                store.rebuildIndex();
+            }
+            store.index.putShort(CLEAN_OFFSET, (short) 0);
+            store.index.force();
+        } catch (IOException e) {
+            store.closeQuietly();
+            throw new UncheckedIOException("Cannot open tool result store " + directory, e);
+        }
+        return store;
+    }
+    
+    /**
+     * Maps the index file if it was closed cleanly and matches the log.
+     * 
+     * @return false if the index must be rebuilt
+     */
+    private boolean loadIndex() throws IOException {
+        Path file = directory.resolve(INDEX_FILE);
+        if (!Files.exists(file) || Files.size(file) < INDEX_HEADER) {
+            return false;
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, INDEX_HEADER);
+        int slotCount = header.getInt(SLOTS_OFFSET);
+        long end = header.getLong(LOG_END_OFFSET);
+        boolean valid = header.getInt(0) == MAGIC && header.getShort(4) == FORMAT_VERSION
+            && header.getShort(CLEAN_OFFSET) == 1 && slotCount > 0 && Integer.bitCount(slotCount) == 1
+            && channel.size() == INDEX_HEADER + (long) slotCount * SLOT_BYTES && end <= log.size();
+        if (!valid) {
+            channel.close();
+            return false;
+        }
+        indexChannel = channel;
+        index = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        slots = slotCount;
+        count = index.getInt(COUNT_OFFSET);
+        logEnd = end;
+        if (log.size() > end) {
+            log.truncate(end);
+        }
+        return true;
+    }
+    
+    /**
+     * Scans the log, discards a torn record at its end and indexes every record.
+     */
+    private void rebuildIndex() throws IOException {
+        long size = log.size();
+        long pos = 0;
+        long[] hashes = new long[64];
+        long[] positions = new long[64];
+        int records = 0;
+        CRC32C crc = new CRC32C();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        while (pos + RECORD_HEADER <= size) {
+            header.clear();
+            readFully(log, header, pos);
+            int length = header.getInt(0);
+            if (length < 1 || length > MAX_RECORD_BYTES || length > size - pos - RECORD_HEADER) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(log, body, pos + RECORD_HEADER);
+            crc.reset();
+            crc.update(body.flip());
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            if (records == hashes.length) {
+                hashes = Arrays.copyOf(hashes, records * 2);
+                positions = Arrays.copyOf(positions, records * 2);
+            }
+            body.rewind();
+            hashes[records] = hash(getString(body), getString(body), getString(body));
+            positions[records++] = pos;
+            pos += RECORD_HEADER + length;
+        }
+        if (pos < size) {
+            log.truncate(pos);
+            log.force(true);
+        }
+        logEnd = pos;
+        int slotCount = INITIAL_SLOTS;
+        while (records * 2L > slotCount) {
+            slotCount *= 2;
+        }
+        createIndex(slotCount);
+        for (int i = 0; i < records; i++) {
+            ByteBuffer body = body(positions[i]);
+            insert(hashes[i], getString(body), getString(body), getString(body), positions[i]);
+        }
+    }
+    
+    /**
+     * Replaces the index file with an empty table of the given size.
+     */
+    private void createIndex(int slotCount) throws IOException {
+        Path file = directory.resolve(INDEX_FILE);
+        Path temp = directory.resolve(INDEX_FILE + ".tmp");
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer table;
+        try {
+            table = channel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER + (long) slotCount * SLOT_BYTES);
+            table.putInt(0, MAGIC).putShort(4, FORMAT_VERSION).putShort(CLEAN_OFFSET, (short) 0);
+            table.putInt(SLOTS_OFFSET, slotCount).putInt(COUNT_OFFSET, 0).putLong(LOG_END_OFFSET, logEnd);
+            if (index != null) {
+                for (int i = 0; i < slots; i++) { // moves the entries of the current table
+                    long position = index.getLong(INDEX_HEADER + i * SLOT_BYTES + 8);
+                    if (position != 0) {
+                        long hash = index.getLong(INDEX_HEADER + i * SLOT_BYTES);
+                        int at = freeSlot(table, slotCount, hash);
+                        table.putLong(at, hash).putLong(at + 8, position);
+                    }
+                }
+                table.putInt(COUNT_OFFSET, count);
+            }
+            table.force();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        if (indexChannel != null) {
+            indexChannel.close();
+        }
+        indexChannel = channel;
+        index = table;
+        slots = slotCount;
+        count = table.getInt(COUNT_OFFSET);
+    }
+    
+    private static int freeSlot(MappedByteBuffer table, int slotCount, long hash) {
+        int mask = slotCount - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            int at = INDEX_HEADER + i * SLOT_BYTES;
+            if (table.getLong(at + 8) == 0) {
+                return at;
+            }
+        }
+    }
+    
+    /**
+     * Indexes a record, replacing the entry of an equal key.
+     */
+    private void insert(long hash, String agentInstanceId, String planId, String actionId, long position)
+            throws IOException {
+        if ((count + 1) * 2L > slots) {
+            createIndex(slots * 2);
+        }
+        int mask = slots - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            int at = INDEX_HEADER + i * SLOT_BYTES;
+            long stored = index.getLong(at + 8);
+            if (stored == 0) {
+                index.putLong(at, hash).putLong(at + 8, position + 1);
+                index.putInt(COUNT_OFFSET, ++count);
+                return;
+            }
+            if (index.getLong(at) == hash && matches(body(stored - 1), agentInstanceId, planId, actionId)) {
+                index.putLong(at + 8, position + 1);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Records the result of a tool invocation; it is durable when this returns.
+     * 
+     * @param agentInstanceId agent instance identifier
+     * @param planId id of the plan the invoking action belongs to
+     * @param actionId id of the invoking action
+     * @param result tool result
+     * @throws IllegalArgumentException if an argument is null or the result too large
+     * @throws UncheckedIOException if the result cannot be written
+     */
+    public void put(String agentInstanceId, String planId, String actionId, ToolBoundary.ToolResult result) {
+        if (agentInstanceId == null || planId == null || actionId == null || result == null) {
+            throw new IllegalArgumentException("Agent instance id, plan id, action id and result cannot be null");
+        }
+        ByteBuffer body = encode(agentInstanceId, planId, actionId, result);
+        if (body.remaining() > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Tool result of " + body.remaining() + " bytes exceeds "
+                + MAX_RECORD_BYTES + " bytes");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + body.remaining());
+        record.putInt(body.remaining()).putInt((int) crc.getValue()).put(body).flip();
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            long position = logEnd;
+            try {
+                writeFully(log, record, position);
+                log.force(false);
+            } catch (IOException e) {
+                log.truncate(position);
+                throw e;
+            }
+            logEnd = position + record.capacity();
+            index.putLong(LOG_END_OFFSET, logEnd);
+            insert(hash(agentInstanceId, planId, actionId), agentInstanceId, planId, actionId, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot record tool result of " + agentInstanceId + "/" + planId + "/"
+                + actionId, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Looks up a recorded result.
+     * 
+     * @param agentInstanceId agent instance identifier
+     * @param planId plan id
+     * @param actionId action id
+     * @return recorded result, empty if none was recorded
+     */
+    public Optional<ToolBoundary.ToolResult> get(String agentInstanceId, String planId, String actionId) {
+        if (agentInstanceId == null || planId == null || actionId == null) {
+            throw new IllegalArgumentException("Agent instance id, plan id and action id cannot be null");
+        }
+        long hash = hash(agentInstanceId, planId, actionId);
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            int mask = slots - 1;
+            for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+                int at = INDEX_HEADER + i * SLOT_BYTES;
+                long stored = index.getLong(at + 8);
+                if (stored == 0) {
+                    return Optional.empty();
+                }
+                if (index.getLong(at) == hash) {
+                    ByteBuffer body = body(stored - 1);
+                    if (matches(body, agentInstanceId, planId, actionId)) {
+                        return Optional.of(decode(body));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns a view of the body of the record at a log position.
+     */
+    private ByteBuffer body(long position) {
+        int window = (int) (position / WINDOW_STRIDE);
+        int offset = (int) (position - window * WINDOW_STRIDE);
+        MappedByteBuffer mapped = window(window, position + RECORD_HEADER);
+        int length = mapped.getInt(offset);
+        mapped = window(window, position + RECORD_HEADER + length);
+        return mapped.slice(offset + RECORD_HEADER, length);
+    }
+    
+    /**
+     * Returns the mapping of a window covering the log up to {@code end}, remapping it if
+     * the log has grown past its mapped length. The caller holds the store lock.
+     */
+    private MappedByteBuffer window(int window, long end) {
+        long base = window * WINDOW_STRIDE;
+        MappedByteBuffer[] current = windows;
+        if (window < current.length && current[window] != null && base + current[window].capacity() >= end) {
+            return current[window];
+        }
+        synchronized (windowLock) {
+            current = windows;
+            if (window < current.length && current[window] != null && base + current[window].capacity() >= end) {
+                return current[window];
+            }
+            MappedByteBuffer mapped;
+            try {
+                mapped = log.map(FileChannel.MapMode.READ_ONLY, base, Math.min(WINDOW_BYTES, logEnd - base));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot map tool result log " + directory, e);
+            }
+            MappedByteBuffer[] next = Arrays.copyOf(current, Math.max(current.length, window + 1));
+            next[window] = mapped;
+            windows = next;
+            return mapped;
+        }
+    }
+    
+    private ByteBuffer encode(String agentInstanceId, String planId, String actionId, ToolBoundary.ToolResult result) {
+        byte[] agent = utf8(agentInstanceId);
+        byte[] plan = utf8(planId);
+        byte[] action = utf8(actionId);
+        byte[] error = utf8(result.errorMessage());
+        Map<String, String> rateLimitInfo = result.rateLimitInfo() != null ? result.rateLimitInfo() : Map.of();
+        byte[][] rateLimits = new byte[rateLimitInfo.size() * 2][];
+        int size = 12 + agent.length + plan.length + action.length + 1 + 16 + 4 + bytes(error) + 4 + 4;
+        int i = 0;
+        for (Map.Entry<String, String> entry : rateLimitInfo.entrySet()) {
+            rateLimits[i] = utf8(entry.getKey());
+            rateLimits[i + 1] = utf8(entry.getValue());
+            size += 8 + bytes(rateLimits[i]) + bytes(rateLimits[i + 1]);
+            i += 2;
+        }
+        byte[] output = result.result() != null ? dataCodec.encode(result.result()) : null;
+        size += bytes(output);
+        ByteBuffer body = ByteBuffer.allocate(size);
+        putBytes(body, agent);
+        putBytes(body, plan);
+        putBytes(body, action);
+        body.put((byte) (result.success() ? 1 : 0)).putLong(result.durationMs()).putLong(result.cost());
+        putBytes(body, error);
+        body.putInt(rateLimitInfo.size());
+        for (byte[] bytes : rateLimits) {
+            putBytes(body, bytes);
+        }
+        putBytes(body, output);
+        return body.flip();
+    }
+    
+    private ToolBoundary.ToolResult decode(ByteBuffer body) {
+        boolean success = body.get() == 1;
+        long durationMs = body.getLong();
+        long cost = body.getLong();
+        String errorMessage = getString(body);
+        int n = body.getInt();
+        Map<String, String> rateLimitInfo = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            rateLimitInfo.put(getString(body), getString(body));
+        }
+        int length = body.getInt();
+        Object output = length < 0 ? null : dataCodec.decode(body.slice(body.position(), length));
+        return new RecordedResult(success, output, errorMessage, durationMs, cost, Map.copyOf(rateLimitInfo));
+    }
+    
+    /**
+     * Compares the key of a record body, leaving the body positioned after it on a match.
+     */
+    private static boolean matches(ByteBuffer body, String agentInstanceId, String planId, String actionId) {
+        return agentInstanceId.equals(getString(body)) && planId.equals(getString(body))
+            && actionId.equals(getString(body));
+    }
+    
+    /**
+     * 64-bit FNV-1a hash of the key.
+     */
+    private static long hash(String agentInstanceId, String planId, String actionId) {
+        long hash = 0xcbf29ce484222325L;
+        for (String part : new String[] {agentInstanceId, planId, actionId}) {
+            for (byte b : part.getBytes(StandardCharsets.UTF_8)) {
+                hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+            }
+            hash = (hash ^ 0xff) * 0x100000001b3L; // separator, not a valid UTF-8 byte
+        }
+        return hash;
+    }
+    
+    private static int spread(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+    
+    /**
+     * Returns the number of recorded keys.
+     * 
+     * @return key count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the size of the log, including results replaced by later puts.
+     * 
+     * @return log bytes
+     */
+    public long dataBytes() {
+        lock.readLock().lock();
+        try {
+            return logEnd;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public Path directory() {
+        return directory;
+    }
+    
+    private void ensureOpen() {
+        if (log == null || !log.isOpen()) {
+            throw new IllegalStateException("Tool result store is closed");
+        }
+    }
+    
+    /**
+     * Flushes the index, marks it clean and closes the store.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (index != null && indexChannel.isOpen()) {
+                index.force();
+                index.putShort(CLEAN_OFFSET, (short) 1);
+                index.force();
+            }
+            closeQuietly();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void closeQuietly() {
+        windows = new MappedByteBuffer[0];
+        for (FileChannel channel : new FileChannel[] {indexChannel, log}) {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+        }
+    }
+    
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static int bytes(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+    
+    private static void putBytes(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+    
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, pos);
+            if (read < 0) {
+                throw new IOException("Unexpected end of " + LOG_FILE);
+            }
+            pos += read;
+        }
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            pos += channel.write(buffer, pos);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "ToolResultStore{directory=" + directory + ", size=" + size() + "}";
+    }
+    
+    private record RecordedResult(boolean success, Object result, String errorMessage, long durationMs, long cost,
+                                  Map<String, String> rateLimitInfo) implements ToolBoundary.ToolResult {
+    }
+}
\ No newline at end of file
@@ -4,10 +4,14 @@
  * <p>This module provides:
  * <ul>
  *   <li>Deterministic executor</li>
+ *   <li>Actor engine (one mailbox and virtual thread per agent instance)</li>
  *   <li>Pure planner</li>
+ *   <li>Plan memoization for replays and retries</li>
  *   <li>Saga engine for compensation</li>
  *   <li>Tool boundary (side-effect isolation)</li>
+ *   <li>Recorded tool results for replay without tool calls</li>
  *   <li>Replay engine</li>
+ *   <li>Bulk replay of many agents from one log scan</li>
  * </ul>
  * 
  * <p><strong>Invariants:</strong>
@@ -0,0 +1,327 @@
+package io.spiralserver.runtime;
+
+import io.spiralserver.schema.AgentSchema;
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.schema.SchemaRegistry;
+import io.spiralserver.schema.ValidationResult;
+import io.spiralserver.schema.Version;
+import io.spiralserver.state.EventLog;
+import io.spiralserver.state.HotState;
+import io.spiralserver.state.hot.ConcurrentHotState;
+import io.spiralserver.state.hot.VersionedState;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ActorEngine}.
+ * 
+ * @author SpiralServer Team
+ */
+class ActorEngineTest {
+    
+    private static final SchemaRef TICK = new SchemaRef("event", "tick", new Version(1, 0, 0));
+    
+    private static final SchemaRef ORDERS = new SchemaRef("agent", "orders", new Version(1, 0, 0));
+    
+    private final ConcurrentHotState hotState = new ConcurrentHotState();
+    
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    
+    /**
+     * Records the batch size and plans a batch as a plan whose version is the last event
+     * sequence.
+     */
+    private final Planner planner = (schema, state, events, context) -> {
+        batchSizes.add(events.size());
+        return plan(events.get(events.size() - 1).sequence());
+    };
+    
+    private ActorEngine engine(Executor executor, ActorEngineConfig config) {
+        return engine(executor, config, false);
+    }
+    
+    private ActorEngine engine(Executor executor, ActorEngineConfig config, boolean batchedPlanning) {
+        AgentSchema schema = new Schema(ORDERS, batchedPlanning);
+        return new ActorEngine(hotState, planner, executor, new NoTools(), id -> schema,
+            id -> new Context(), config);
+    }
+    
+    @Test
+    void testProcessesEachAgentSeriallyInOrder() throws InterruptedException {
+        Set<String> running = ConcurrentHashMap.newKeySet();
+        Set<String> overlapping = ConcurrentHashMap.newKeySet();
+        Executor executor = (id, schema, plan, state, tools) -> {
+            if (!running.add(id)) {
+                overlapping.add(id);
+            }
+            Thread.yield();
+            List<Object> sequences = new ArrayList<>(castList(state.data()));
+            sequences.add(plan.planVersion());
+            running.remove(id);
+            return result(Executor.ExecutionResult.ExecutionStatus.SUCCESS,
+                new VersionedState(state.version() + 1, sequences, Instant.EPOCH));
+        };
+        for (int i = 0; i < 100; i++) {
+            hotState.upsert("agent-" + i, VersionedState.of(List.of()));
+        }
+        
+        ActorEngine engine = engine(executor, ActorEngineConfig.defaults().withMailboxCapacity(50));
+        for (long seq = 0; seq < 50; seq++) {
+            for (int i = 0; i < 100; i++) {
+                assertTrue(engine.offer("agent-" + i, event(seq), Duration.ofSeconds(5)));
+            }
+        }
+        engine.close();
+        assertEquals(0, engine.mailboxCount()); // drained mailboxes are dropped
+        
+        List<Long> expected = LongStream.range(0, 50).boxed().toList();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected, hotState.read("agent-" + i).orElseThrow().data());
+        }
+        assertTrue(overlapping.isEmpty());
+    }
+    
+    @Test
+    void testFullMailboxPushesBack() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Executor executor = (id, schema, plan, state, tools) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result(Executor.ExecutionResult.ExecutionStatus.SUCCESS, null);
+        };
+        hotState.upsert("agent-a", VersionedState.of("idle"));
+        
+        ActorEngine engine = engine(executor, ActorEngineConfig.defaults().withMailboxCapacity(2));
+        assertTrue(engine.offer("agent-a", event(1)));
+        started.await();
+        assertTrue(engine.offer("agent-a", event(2)));
+        assertFalse(engine.offer("agent-a", event(3)));
+        assertFalse(engine.offer("agent-a", event(3), Duration.ofMillis(20)));
+        assertEquals(2, engine.pending("agent-a"));
+        assertEquals(2, engine.rejectedCount());
+        
+        assertTrue(engine.offer("agent-b", event(1))); // other agents are not held back
+        release.countDown();
+        engine.close();
+        
+        assertEquals(2, engine.processedCount());
+        assertEquals(1, engine.failedCount()); // agent-b has no hot state
+        assertEquals(0, engine.pending("agent-a"));
+        assertEquals(0, engine.mailboxCount());
+        assertThrows(IllegalStateException.class, () -> engine.offer("agent-a", event(4)));
+    }
+    
+    @Test
+    void testFoldsQueuedEventsIntoOneBatch() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Executor executor = (id, schema, plan, state, tools) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result(Executor.ExecutionResult.ExecutionStatus.SUCCESS,
+                new VersionedState(state.version() + 1, plan.planVersion(), Instant.EPOCH));
+        };
+        hotState.upsert("agent-a", VersionedState.of(-1L));
+        long initialVersion = hotState.read("agent-a").orElseThrow().version();
+        
+        try (ActorEngine engine = engine(executor, ActorEngineConfig.defaults().withMaxBatchEvents(4), true)) {
+            assertTrue(engine.offer("agent-a", event(0)));
+            started.await();
+            for (long seq = 1; seq <= 10; seq++) {
+                assertTrue(engine.offer("agent-a", event(seq)));
+            }
+            release.countDown();
+        }
+        
+        assertEquals(List.of(1, 4, 4, 2), batchSizes);
+        HotState.State state = hotState.read("agent-a").orElseThrow();
+        assertEquals(10L, state.data());
+        assertEquals(initialVersion + 4, state.version());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static List<Object> castList(Object data) {
+        return (List<Object>) data;
+    }
+    
+    private static EventLog.Event event(long sequence) {
+        return new EventLog.Event() {
+            public long sequence() {
+                return sequence;
+            }
+            
+            public SchemaRef eventSchemaRef() {
+                return TICK;
+            }
+            
+            public Instant timestamp() {
+                return Instant.EPOCH;
+            }
+            
+            public String correlationKey() {
+                return null;
+            }
+            
+            public String idempotencyKey() {
+                return null;
+            }
+            
+            public Object payload() {
+                return null;
+            }
+            
+            public String source() {
+                return "test";
+            }
+        };
+    }
+    
+    private static Planner.Plan plan(long planVersion) {
+        return new Planner.Plan() {
+            public List<Action> actions() {
+                return List.of();
+            }
+            
+            public String planId() {
+                return "plan-" + planVersion;
+            }
+            
+            public long planVersion() {
+                return planVersion;
+            }
+        };
+    }
+    
+    private static Executor.ExecutionResult result(Executor.ExecutionResult.ExecutionStatus status, HotState.State state) {
+        return new Executor.ExecutionResult() {
+            public ExecutionStatus status() {
+                return status;
+            }
+            
+            public HotState.State newState() {
+                return state;
+            }
+            
+            public List<ExecutionEvent> events() {
+                return List.of();
+            }
+        };
+    }
+    
+    /**
+     * Agent schema with no subscriptions, tools or policies.
+     */
+    private static final class Schema implements AgentSchema {
+        
+        private final SchemaRef ref;
+        private final boolean batchedPlanning;
+        
+        Schema(SchemaRef ref, boolean batchedPlanning) {
+            this.ref = ref;
+            this.batchedPlanning = batchedPlanning;
+        }
+        
+        @Override
+        public SchemaRef ref() {
+            return ref;
+        }
+        
+        @Override
+        public String name() {
+            return ref.name();
+        }
+        
+        @Override
+        public List<EventSubscription> eventSubscriptions() {
+            return List.of();
+        }
+        
+        @Override
+        public List<SchemaRef> toolRefs() {
+            return List.of();
+        }
+        
+        @Override
+        public List<SchemaRef> policyRefs() {
+            return List.of();
+        }
+        
+        @Override
+        public boolean batchedPlanning() {
+            return batchedPlanning;
+        }
+        
+        @Override
+        public ValidationResult validate(SchemaRegistry registry) {
+            return ValidationResult.valid();
+        }
+    }
+    
+    /**
+     * Planning context with no tools, policies or budget.
+     */
+    private static final class Context implements Planner.PlanningContext {
+        
+        @Override
+        public List<SchemaRef> availableTools() {
+            return List.of();
+        }
+        
+        @Override
+        public List<SchemaRef> applicablePolicies() {
+            return List.of();
+        }
+        
+        @Override
+        public long budgetLimit() {
+            return 0;
+        }
+        
+        @Override
+        public long remainingBudget() {
+            return 0;
+        }
+        
+        @Override
+        public String tenantId() {
+            return "tenant";
+        }
+    }
+    
+    /**
+     * Tool boundary for plans that invoke no tools.
+     */
+    private static final class NoTools implements ToolBoundary {
+        
+        @Override
+        public CompletableFuture<ToolResult> invoke(SchemaRef toolRef, Object parameters, InvocationContext context) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public ToolResult invokeSync(SchemaRef toolRef, Object parameters, InvocationContext context) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,314 @@
+package io.spiralserver.runtime;
+
+import io.spiralserver.schema.AgentSchema;
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.schema.SchemaRegistry;
+import io.spiralserver.schema.ValidationResult;
+import io.spiralserver.schema.Version;
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.EventLog;
+import io.spiralserver.state.HotState;
+import io.spiralserver.state.hot.VersionedState;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link BulkReplayEngine}.
+ * 
+ * @author SpiralServer Team
+ */
+class BulkReplayEngineTest {
+    
+    private static final SchemaRef TICK = new SchemaRef("event", "tick", new Version(1, 0, 0));
+    
+    private static final AgentSchema AGENT = new Schema(new SchemaRef("agent", "orders", new Version(1, 0, 0)));
+    
+    /**
+     * Events 1..300; event n is routed to agent-(n % 3), and multiples of 50 also to
+     * agent-all.
+     */
+    private final List<EventLog.Event> log = new ArrayList<>();
+    
+    /**
+     * Plans an event as a plan whose version is its sequence.
+     */
+    private final Planner planner = (schema, state, events, context) -> plan(events.get(0).sequence());
+    
+    /**
+     * Appends the plan version to the list held in the state; fails on event 147.
+     */
+    private final Executor executor = (id, schema, plan, state, tools) -> {
+        if (plan.planVersion() == 147) {
+            throw new IllegalStateException("boom");
+        }
+        List<Object> sequences = new ArrayList<>(castList(state.data()));
+        sequences.add(plan.planVersion());
+        return result(Executor.ExecutionResult.ExecutionStatus.SUCCESS,
+            new VersionedState(state.version() + 1, sequences, Instant.EPOCH));
+    };
+    
+    BulkReplayEngineTest() {
+        for (long seq = 1; seq <= 300; seq++) {
+            log.add(event(seq));
+        }
+    }
+    
+    private BulkReplayEngine engine(BulkReplayConfig config) {
+        return new BulkReplayEngine(new ListLog(log), planner, executor, new NoTools(),
+            id -> new Context(),
+            event -> event.sequence() % 50 == 0
+                ? List.of("agent-" + event.sequence() % 3, "agent-all")
+                : List.of("agent-" + event.sequence() % 3),
+            config);
+    }
+    
+    private static BulkReplayEngine.Target target(String id, long after) {
+        return new BulkReplayEngine.Target(id, AGENT, VersionedState.of(List.of()), new Cursor(after));
+    }
+    
+    @Test
+    void testReplaysEachAgentInOrderFromOneScan() throws InterruptedException {
+        BulkReplayEngine engine = engine(BulkReplayConfig.defaults().withPageSize(7).withMaxInFlight(5)
+            .withRecordEvents(true));
+        
+        BulkReplayEngine.Report report = engine.replayAll(
+            List.of(target("agent-1", 0), target("agent-2", 200), target("agent-all", 0)), Optional.of(new Cursor(281)));
+        
+        List<Long> agent1 = new ArrayList<>();
+        List<Long> agent2 = new ArrayList<>();
+        for (long seq = 1; seq < 281; seq++) {
+            if (seq % 3 == 1) {
+                agent1.add(seq);
+            } else if (seq % 3 == 2 && seq > 200) {
+                agent2.add(seq);
+            }
+        }
+        ReplayEngine.ReplayResult all = report.results().get("agent-all");
+        assertEquals(agent1, report.results().get("agent-1").finalState().data());
+        assertEquals(agent2, report.results().get("agent-2").finalState().data());
+        assertEquals(List.of(50L, 100L, 150L, 200L, 250L), all.finalState().data());
+        assertEquals(new Cursor(250), all.finalCursor());
+        assertEquals(5, all.events().size());
+        assertEquals(280, report.eventsScanned());
+        assertEquals(agent1.size() + agent2.size() + 5, report.eventsApplied());
+        assertTrue(report.eventsPerSecond() > 0);
+        assertFalse(report.maxLag().isNegative());
+    }
+    
+    @Test
+    void testIsolatesFailedLanes() throws InterruptedException {
+        BulkReplayEngine.Report report = engine(BulkReplayConfig.defaults())
+            .replayAll(List.of(target("agent-0", 0), target("agent-1", 0)), Optional.empty());
+        
+        assertEquals(List.of("agent-0"), report.failed());
+        ReplayEngine.ReplayResult failed = report.results().get("agent-0");
+        assertEquals(ReplayEngine.ReplayResult.ReplayStatus.FAILED, failed.status());
+        assertEquals(new Cursor(144), failed.finalCursor());
+        assertEquals(100, castList(report.results().get("agent-1").finalState().data()).size());
+        assertTrue(failed.events().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> engine(BulkReplayConfig.defaults())
+            .replayAll(List.of(target("agent-0", 0), target("agent-0", 5)), Optional.empty()));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static List<Object> castList(Object data) {
+        return (List<Object>) data;
+    }
+    
+    private static EventLog.Event event(long sequence) {
+        return new EventLog.Event() {
+            public long sequence() {
+                return sequence;
+            }
+            
+            public SchemaRef eventSchemaRef() {
+                return TICK;
+            }
+            
+            public Instant timestamp() {
+                return Instant.EPOCH;
+            }
+            
+            public String correlationKey() {
+                return null;
+            }
+            
+            public String idempotencyKey() {
+                return null;
+            }
+            
+            public Object payload() {
+                return null;
+            }
+            
+            public String source() {
+                return "test";
+            }
+        };
+    }
+    
+    private static Planner.Plan plan(long planVersion) {
+        return new Planner.Plan() {
+            public List<Action> actions() {
+                return List.of();
+            }
+            
+            public String planId() {
+                return "plan-" + planVersion;
+            }
+            
+            public long planVersion() {
+                return planVersion;
+            }
+        };
+    }
+    
+    private static Executor.ExecutionResult result(Executor.ExecutionResult.ExecutionStatus status, HotState.State state) {
+        return new Executor.ExecutionResult() {
+            public ExecutionStatus status() {
+                return status;
+            }
+            
+            public HotState.State newState() {
+                return state;
+            }
+            
+            public List<ExecutionEvent> events() {
+                return List.of();
+            }
+        };
+    }
+    
+    /**
+     * Agent schema with no subscriptions, tools or policies.
+     */
+    private static final class Schema implements AgentSchema {
+        
+        private final SchemaRef ref;
+        
+        Schema(SchemaRef ref) {
+            this.ref = ref;
+        }
+        
+        @Override
+        public SchemaRef ref() {
+            return ref;
+        }
+        
+        @Override
+        public String name() {
+            return ref.name();
+        }
+        
+        @Override
+        public List<EventSubscription> eventSubscriptions() {
+            return List.of();
+        }
+        
+        @Override
+        public List<SchemaRef> toolRefs() {
+            return List.of();
+        }
+        
+        @Override
+        public List<SchemaRef> policyRefs() {
+            return List.of();
+        }
+        
+        @Override
+        public ValidationResult validate(SchemaRegistry registry) {
+            return ValidationResult.valid();
+        }
+    }
+    
+    /**
+     * Planning context with no tools, policies or budget.
+     */
+    private static final class Context implements Planner.PlanningContext {
+        
+        @Override
+        public List<SchemaRef> availableTools() {
+            return List.of();
+        }
+        
+        @Override
+        public List<SchemaRef> applicablePolicies() {
+            return List.of();
+        }
+        
+        @Override
+        public long budgetLimit() {
+            return 0;
+        }
+        
+        @Override
+        public long remainingBudget() {
+            return 0;
+        }
+        
+        @Override
+        public String tenantId() {
+            return "tenant";
+        }
+    }
+    
+    /**
+     * Tool boundary for plans that invoke no tools.
+     */
+    private static final class NoTools implements ToolBoundary {
+        
+        @Override
+        public CompletableFuture<ToolResult> invoke(SchemaRef toolRef, Object parameters, InvocationContext context) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public ToolResult invokeSync(SchemaRef toolRef, Object parameters, InvocationContext context) {
+            throw new UnsupportedOperationException();
+        }
+    }
+    
+    /**
+     * Read-only event log over a list of events in sequence order.
+     */
+    private static final class ListLog implements EventLog {
+        
+        private final List<Event> events;
+        
+        ListLog(List<Event> events) {
+            this.events = events;
+        }
+        
+        @Override
+        public long append(Event event) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public List<Event> read(Cursor cursor, int limit) {
+            return events.stream().filter(e -> e.sequence() > cursor.sequence()).limit(limit).toList();
+        }
+        
+        @Override
+        public List<Event> readByCorrelation(String correlationKey, Optional<SchemaRef> eventSchemaRef, int limit) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public Optional<Event> findByIdempotencyKey(String idempotencyKey, long dedupeWindowMs) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public Cursor currentCursor() {
+            return new Cursor(events.isEmpty() ? 0 : events.get(events.size() - 1).sequence());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,245 @@
+package io.spiralserver.runtime;
+
+import io.spiralserver.observability.Metrics;
+import io.spiralserver.schema.AgentSchema;
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.schema.SchemaRegistry;
+import io.spiralserver.schema.ValidationResult;
+import io.spiralserver.schema.Version;
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.EventLog;
+import io.spiralserver.state.JsonDataCodec;
+import io.spiralserver.state.hot.VersionedState;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link MemoizingPlanner}.
+ * 
+ * @author SpiralServer Team
+ */
+class MemoizingPlannerTest {
+    
+    private static final SchemaRef TICK = new SchemaRef("event", "tick", new Version(1, 0, 0));
+    
+    private static final AgentSchema ORDERS = new Schema(new SchemaRef("agent", "orders", new Version(1, 0, 0)));
+    
+    private final AtomicInteger planned = new AtomicInteger();
+    
+    /**
+     * Counts its calls; every plan is distinct.
+     */
+    private final Planner counting = (schema, state, events, context) -> plan(planned.incrementAndGet());
+    
+    @Test
+    void testReusesPlansForIdenticalInputs() {
+        Map<String, Long> counters = new ConcurrentHashMap<>();
+        MemoizingPlanner planner = new MemoizingPlanner(counting, PlanCacheConfig.defaults().withMetrics(metrics(counters)));
+        VersionedState state = new VersionedState(3, Map.of("step", 1), Instant.EPOCH);
+        
+        Planner.Plan first = planner.plan(ORDERS, state, List.of(event(10), event(11)), null);
+        Planner.Plan replayed = planner.plan(ORDERS, new VersionedState(3, Map.of("step", 1), Instant.EPOCH),
+            List.of(event(10), event(11)), null);
+        assertSame(first, replayed);
+        assertEquals(1, planned.get());
+        
+        // another instance at the same version, other events and a newer version all plan again
+        assertNotSame(first, planner.plan(ORDERS, new VersionedState(3, Map.of("step", 2), Instant.EPOCH),
+            List.of(event(10), event(11)), null));
+        assertNotSame(first, planner.plan(ORDERS, state, List.of(event(10)), null));
+        assertNotSame(first, planner.plan(ORDERS, new VersionedState(4, Map.of("step", 1), Instant.EPOCH),
+            List.of(event(10), event(11)), null));
+        assertEquals(4, planned.get());
+        assertEquals(1, planner.hitCount());
+        assertEquals(4, planner.missCount());
+        assertEquals(Long.valueOf(1), counters.get("planner.cache.hits"));
+        assertEquals(Long.valueOf(4), counters.get("planner.cache.misses"));
+    }
+    
+    @Test
+    void testKeysCoverEveryEvent() {
+        MemoizingPlanner planner = new MemoizingPlanner(counting, PlanCacheConfig.defaults());
+        VersionedState state = VersionedState.of("fresh");
+        
+        Planner.Plan first = planner.plan(ORDERS, state, List.of(event(3), event(5), event(9)), null);
+        // same sequence range and count, different middle event
+        assertNotSame(first, planner.plan(ORDERS, state, List.of(event(3), event(7), event(9)), null));
+        // same sequence in another partition of the log
+        Planner.Plan partitioned = planner.plan(ORDERS, state, List.of(event(3, "a")), null);
+        assertNotSame(partitioned, planner.plan(ORDERS, state, List.of(event(3, "b")), null));
+        assertSame(partitioned, planner.plan(ORDERS, VersionedState.of("fresh"), List.of(event(3, "a")), null));
+        assertEquals(4, planned.get());
+    }
+    
+    @Test
+    void testStreamsEachStateThroughTheDigestOnce() {
+        AtomicInteger encoded = new AtomicInteger();
+        JsonDataCodec json = new JsonDataCodec();
+        DataCodec streaming = new DataCodec() {
+            public byte[] encode(Object data) {
+                throw new AssertionError("whole encoding built");
+            }
+            
+            public void encode(Object data, OutputStream out) throws IOException {
+                encoded.incrementAndGet();
+                json.encode(data, out);
+            }
+            
+            public Object decode(ByteBuffer buffer) {
+                return json.decode(buffer);
+            }
+        };
+        MemoizingPlanner planner = new MemoizingPlanner(counting, PlanCacheConfig.defaults().withDataCodec(streaming));
+        VersionedState state = VersionedState.of(Map.of("step", 1));
+        
+        for (long seq = 0; seq < 5; seq++) {
+            planner.plan(ORDERS, state, List.of(event(seq)), null);
+        }
+        assertEquals(1, encoded.get());
+        Planner.Plan first = planner.plan(ORDERS, state, List.of(event(0)), null);
+        assertSame(first, planner.plan(ORDERS, VersionedState.of(Map.of("step", 1)), List.of(event(0)), null));
+        assertEquals(2, encoded.get()); // another state object is digested again
+    }
+    
+    @Test
+    void testEvictsLeastRecentlyUsedByWeight() {
+        MemoizingPlanner planner = new MemoizingPlanner(counting,
+            PlanCacheConfig.defaults().withMaxWeight(3).withSegments(1));
+        VersionedState state = VersionedState.of("s");
+        for (long seq = 0; seq < 3; seq++) {
+            planner.plan(ORDERS, state, List.of(event(seq)), null);
+        }
+        planner.plan(ORDERS, state, List.of(event(0)), null); // keeps event 0 recent
+        planner.plan(ORDERS, state, List.of(event(3)), null);
+        
+        assertEquals(3, planner.size());
+        assertEquals(3, planner.weight());
+        assertEquals(1, planner.evictionCount());
+        planner.plan(ORDERS, state, List.of(event(0)), null);
+        assertEquals(4, planned.get());
+        planner.plan(ORDERS, state, List.of(event(1)), null);
+        assertEquals(5, planned.get());
+        
+        planner.invalidateAll();
+        assertEquals(0, planner.size());
+        assertEquals(0, planner.weight());
+    }
+    
+    private static Metrics metrics(Map<String, Long> counters) {
+        return new Metrics() {
+            public void incrementCounter(String name, long value, Map<String, String> attributes) {
+                counters.merge(name, value, Long::sum);
+            }
+            
+            public void recordGauge(String name, double value, Map<String, String> attributes) {
+            }
+            
+            public void recordHistogram(String name, double value, Map<String, String> attributes) {
+            }
+        };
+    }
+    
+    private static EventLog.Event event(long sequence) {
+        return event(sequence, null);
+    }
+    
+    private static EventLog.Event event(long sequence, Object payload) {
+        return new EventLog.Event() {
+            public long sequence() {
+                return sequence;
+            }
+            
+            public SchemaRef eventSchemaRef() {
+                return TICK;
+            }
+            
+            public Instant timestamp() {
+                return Instant.EPOCH;
+            }
+            
+            public String correlationKey() {
+                return null;
+            }
+            
+            public String idempotencyKey() {
+                return null;
+            }
+            
+            public Object payload() {
+                return payload;
+            }
+            
+            public String source() {
+                return "test";
+            }
+        };
+    }
+    
+    private static Planner.Plan plan(long planVersion) {
+        return new Planner.Plan() {
+            public List<Action> actions() {
+                return List.of();
+            }
+            
+            public String planId() {
+                return "plan-" + planVersion;
+            }
+            
+            public long planVersion() {
+                return planVersion;
+            }
+        };
+    }
+    
+    /**
+     * Agent schema with no subscriptions, tools or policies.
+     */
+    private static final class Schema implements AgentSchema {
+        
+        private final SchemaRef ref;
+        
+        Schema(SchemaRef ref) {
+            this.ref = ref;
+        }
+        
+        @Override
+        public SchemaRef ref() {
+            return ref;
+        }
+        
+        @Override
+        public String name() {
+            return ref.name();
+        }
+        
+        @Override
+        public List<EventSubscription> eventSubscriptions() {
+            return List.of();
+        }
+        
+        @Override
+        public List<SchemaRef> toolRefs() {
+            return List.of();
+        }
+        
+        @Override
+        public List<SchemaRef> policyRefs() {
+            return List.of();
+        }
+        
+        @Override
+        public ValidationResult validate(SchemaRegistry registry) {
+            return ValidationResult.valid();
+        }
+    }
+}
\ No newline at end of file
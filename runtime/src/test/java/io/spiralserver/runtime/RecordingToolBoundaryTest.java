@@ -0,0 +1,98 @@
+package io.spiralserver.runtime;
+
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.schema.Version;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link RecordingToolBoundary} and {@link ReplayToolBoundary}.
+ * 
+ * @author SpiralServer Team
+ */
+class RecordingToolBoundaryTest {
+    
+    private static final SchemaRef SEARCH = new SchemaRef("tool", "search", new Version(1, 0, 0));
+    
+    @TempDir
+    Path dir;
+    
+    private final AtomicInteger invocations = new AtomicInteger();
+    
+    /**
+     * Live tool answering with the invocation count.
+     */
+    private final ToolBoundary live = new ToolBoundary() {
+        public CompletableFuture<ToolResult> invoke(SchemaRef toolRef, Object parameters, InvocationContext context) {
+            return CompletableFuture.completedFuture(invokeSync(toolRef, parameters, context));
+        }
+        
+        public ToolResult invokeSync(SchemaRef toolRef, Object parameters, InvocationContext context) {
+            return ToolResultStoreTest.result(true, invocations.incrementAndGet(), null);
+        }
+    };
+    
+    @Test
+    void testReplaysRecordedResultsWithoutInvokingTools() throws IOException, ExecutionException, InterruptedException {
+        try (ToolResultStore store = ToolResultStore.open(dir)) {
+            RecordingToolBoundary recording = new RecordingToolBoundary(live, store);
+            assertEquals(1, recording.invokeSync(SEARCH, "q", context("a-1", false)).result());
+            assertEquals(2, recording.invoke(SEARCH, "q", context("a-2", false)).get().result());
+            
+            assertEquals(1, recording.invokeSync(SEARCH, "q", context("a-1", true)).result());
+            ReplayToolBoundary replay = new ReplayToolBoundary(store);
+            assertEquals(2, replay.invokeSync(SEARCH, "q", context("a-2", true)).result());
+            assertEquals(2, invocations.get());
+            
+            assertThrows(IllegalStateException.class, () -> replay.invokeSync(SEARCH, "q", context("a-3", true)));
+            assertTrue(replay.invoke(SEARCH, "q", context("a-3", true)).isCompletedExceptionally());
+            assertThrows(IllegalArgumentException.class, () -> recording.invokeSync(SEARCH, "q", context(null, false)));
+            assertEquals(2, invocations.get());
+        }
+    }
+    
+    private static ToolBoundary.InvocationContext context(String actionId, boolean replay) {
+        return new ToolBoundary.InvocationContext() {
+            public String agentInstanceId() {
+                return "agent-a";
+            }
+            
+            public String correlationKey() {
+                return null;
+            }
+            
+            public boolean isReplay() {
+                return replay;
+            }
+            
+            public String planId() {
+                return "plan-1";
+            }
+            
+            public String actionId() {
+                return actionId;
+            }
+            
+            public long budget() {
+                return 0;
+            }
+            
+            public List<SchemaRef> policies() {
+                return List.of();
+            }
+            
+            public String tenantId() {
+                return "tenant";
+            }
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+package io.spiralserver.runtime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ToolResultStore}.
+ * 
+ * @author SpiralServer Team
+ */
+class ToolResultStoreTest {
+    
+    @TempDir
+    Path dir;
+    
+    static ToolBoundary.ToolResult result(boolean success, Object output, String error) {
+        return new ToolBoundary.ToolResult() {
+            public boolean success() {
+                return success;
+            }
+            
+            public Object result() {
+                return output;
+            }
+            
+            public String errorMessage() {
+                return error;
+            }
+            
+            public long durationMs() {
+                return 42;
+            }
+            
+            public long cost() {
+                return 7;
+            }
+            
+            public Map<String, String> rateLimitInfo() {
+                return Map.of("remaining", "99");
+            }
+        };
+    }
+    
+    @Test
+    void testRecordsAndServesResults() throws IOException {
+        try (ToolResultStore store = ToolResultStore.open(dir)) {
+            store.put("agent-a", "plan-1", "fetch", result(true, Map.of("rows", List.of(1, 2)), null));
+            store.put("agent-a", "plan-1", "charge", result(false, null, "card declined"));
+            store.put("agent-a", "plan-1", "fetch", result(true, "retried", null));
+            
+            ToolBoundary.ToolResult fetched = store.get("agent-a", "plan-1", "fetch").orElseThrow();
+            assertEquals("retried", fetched.result());
+            assertEquals(42, fetched.durationMs());
+            assertEquals(7, fetched.cost());
+            assertEquals(Map.of("remaining", "99"), fetched.rateLimitInfo());
+            ToolBoundary.ToolResult declined = store.get("agent-a", "plan-1", "charge").orElseThrow();
+            assertFalse(declined.success());
+            assertNull(declined.result());
+            assertEquals("card declined", declined.errorMessage());
+            assertTrue(store.get("agent-b", "plan-1", "fetch").isEmpty());
+            assertEquals(2, store.size());
+        }
+        try (ToolResultStore store = ToolResultStore.open(dir)) {
+            assertEquals("retried", store.get("agent-a", "plan-1", "fetch").orElseThrow().result());
+            assertEquals(2, store.size());
+        }
+    }
+    
+    @Test
+    void testGrowsIndexAndRebuildsAfterCrash() throws IOException {
+        ToolResultStore crashed = ToolResultStore.open(dir);
+        for (int i = 0; i < 3_000; i++) {
+            crashed.put("agent-" + i % 7, "plan-" + i, "action", result(true, i, null));
+        }
+        long end = crashed.dataBytes();
+        // never closed: the index stays marked dirty; a torn record follows the last one
+        try (FileChannel log = FileChannel.open(dir.resolve("tool-results.log"), StandardOpenOption.WRITE)) {
+            log.write(ByteBuffer.allocate(12).putInt(100).putInt(0).putInt(1).flip(), end);
+        }
+        
+        try (ToolResultStore store = ToolResultStore.open(dir)) {
+            assertEquals(3_000, store.size());
+            assertEquals(end, store.dataBytes());
+            assertEquals(end, Files.size(dir.resolve("tool-results.log")));
+            for (int i = 0; i < 3_000; i += 101) {
+                assertEquals(i, store.get("agent-" + i % 7, "plan-" + i, "action").orElseThrow().result());
+            }
+            store.put("agent-0", "plan-x", "action", result(true, "after", null));
+            assertEquals("after", store.get("agent-0", "plan-x", "action").orElseThrow().result());
+        }
+        crashed.close();
+    }
+}
\ No newline at end of file
@@ -65,6 +65,19 @@ public interface AgentSchema extends Schema {
      */
     List<SchemaRef> policyRefs();
     
+    /**
+     * Returns whether pending events may be planned together.
+     * 
+     * <p>When true, the runtime folds the events queued for an instance into a single
+     * planning call and commits one state version for them, instead of planning and
+     * executing each event on its own. The planner must accept several new events.
+     * 
+     * @return true to plan pending events in batches
+     */
+    default boolean batchedPlanning() {
+        return false;
+    }
+    
     /**
      * Returns the state schema reference (structure of persistent state).
      * 
@@ -0,0 +1,88 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.state.HotState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fan-out access to many agent states: one {@code readAll}/{@code updateAll} call against
+ * one {@code read}/{@code update} call per agent instance.
+ * 
+ * @author SpiralServer Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HotStateBatchBenchmark {
+    
+    @Param({"concurrent", "offheap"})
+    String store;
+    
+    @Param({"32"})
+    int fanOut;
+    
+    private HotState hotState;
+    private List<String> ids;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        hotState = store.equals("concurrent") ? new ConcurrentHotState() : new OffHeapHotState();
+        ids = new ArrayList<>(fanOut);
+        for (int i = 0; i < fanOut; i++) {
+            ids.add("agent-" + i);
+            hotState.upsert(ids.get(i), VersionedState.of(Map.of("n", 0)));
+        }
+    }
+    
+    @Benchmark
+    public int readEach() {
+        int found = 0;
+        for (String id : ids) {
+            found += hotState.read(id).isPresent() ? 1 : 0;
+        }
+        return found;
+    }
+    
+    @Benchmark
+    public int readAll() {
+        return hotState.readAll(ids).size();
+    }
+    
+    @Benchmark
+    public int updateEach() {
+        int applied = 0;
+        for (String id : ids) {
+            HotState.State current = hotState.read(id).orElseThrow();
+            applied += hotState.update(id, current.version(), VersionedState.of(Map.of("n", 1))) ? 1 : 0;
+        }
+        return applied;
+    }
+    
+    @Benchmark
+    public List<Boolean> updateAll() {
+        Map<String, HotState.State> current = hotState.readAll(ids);
+        List<HotState.Update> updates = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            updates.add(new HotState.Update(id, current.get(id).version(), VersionedState.of(Map.of("n", 1))));
+        }
+        return hotState.updateAll(updates, HotState.BatchMode.ATOMIC);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,116 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.state.HotState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contended read-modify-update throughput of {@link ConcurrentHotState} against a
+ * synchronized-map baseline, with eight threads updating random agents.
+ * 
+ * @author SpiralServer Team
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class HotStateContentionBenchmark {
+    
+    @Param({"concurrent", "synchronized"})
+    String store;
+    
+    @Param({"16", "10000"})
+    int agents;
+    
+    private HotState hotState;
+    private String[] ids;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        hotState = store.equals("concurrent") ? new ConcurrentHotState() : new SynchronizedHotState();
+        ids = new String[agents];
+        for (int i = 0; i < agents; i++) {
+            ids[i] = "agent-" + i;
+            hotState.upsert(ids[i], VersionedState.of(0));
+        }
+    }
+    
+    @Benchmark
+    public Optional<HotState.State> read() {
+        return hotState.read(ids[ThreadLocalRandom.current().nextInt(agents)]);
+    }
+    
+    @Benchmark
+    public boolean readModifyUpdate() {
+        String id = ids[ThreadLocalRandom.current().nextInt(agents)];
+        HotState.State current = hotState.read(id).orElseThrow();
+        return hotState.update(id, current.version(), VersionedState.of((Integer) current.data() + 1));
+    }
+    
+    @Benchmark
+    public long upsert() {
+        return hotState.upsert(ids[ThreadLocalRandom.current().nextInt(agents)], VersionedState.of(1));
+    }
+    
+    /**
+     * Baseline: every operation holds one monitor over a plain map.
+     */
+    static final class SynchronizedHotState implements HotState {
+        private final Map<String, VersionedState> states = new HashMap<>();
+        
+        @Override
+        public synchronized Optional<HotState.State> read(String agentInstanceId) {
+            return Optional.ofNullable(states.get(agentInstanceId));
+        }
+        
+        @Override
+        public synchronized boolean update(String agentInstanceId, long expectedVersion, HotState.State newState) {
+            VersionedState current = states.get(agentInstanceId);
+            long version = current == null ? 0 : current.version();
+            if (version != expectedVersion) {
+                return false;
+            }
+            states.put(agentInstanceId, new VersionedState(version + 1, newState.data(), Instant.now()));
+            return true;
+        }
+        
+        @Override
+        public synchronized long upsert(String agentInstanceId, HotState.State state) {
+            VersionedState current = states.get(agentInstanceId);
+            long version = (current == null ? 0 : current.version()) + 1;
+            states.put(agentInstanceId, new VersionedState(version, state.data(), Instant.now()));
+            return version;
+        }
+        
+        @Override
+        public Checkpoint checkpoint(String agentInstanceId) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public boolean restore(String agentInstanceId, Checkpoint checkpoint) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.schema.Version;
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.EventLog;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full replay throughput and data size of {@link SegmentedEventLog} with and without
+ * block compression of sealed segments.
+ * 
+ * <p>{@code dataBytes} is reported as an auxiliary counter next to the replay time.
+ * 
+ * @author SpiralServer Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressedReplayBenchmark {
+    
+    private static final SchemaRef SCHEMA = new SchemaRef("event", "order-placed", new Version(1, 0, 0));
+    private static final int EVENTS = 200_000;
+    private static final int REPLAY_BATCH = 1000;
+    
+    @Param({"0", "65536"})
+    int compressionBlockBytes;
+    
+    private Path directory;
+    private SegmentedEventLog log;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        directory = Files.createTempDirectory("event-log-replay-bench");
+        log = SegmentedEventLog.open(EventLogConfig.of(directory)
+            .withSegmentBytes(8 * 1024 * 1024)
+            .withDedupeWindowMs(0)
+            .withBlockCompression(compressionBlockBytes));
+        Instant start = Instant.now();
+        for (int i = 0; i < EVENTS; i++) {
+            Map<String, Object> payload = Map.of(
+                "orderId", "order-" + i,
+                "customerId", "customer-" + (i % 1000),
+                "status", "PLACED",
+                "amount", i % 10_000,
+                "currency", "EUR"
+            );
+            log.append(new LogEvent(SCHEMA, start.plusMillis(i), "order-" + i, "ingest-" + i, payload, "orders"));
+        }
+        log.awaitCompression();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        log.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+    
+    /**
+     * Data size of the log, reported once per iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        public long dataBytes;
+    }
+    
+    @Benchmark
+    public long replayHeaders(Size size, Blackhole blackhole) {
+        size.dataBytes = log.dataBytes();
+        long cursor = 0;
+        List<EventLog.Event> events;
+        while (!(events = log.read(new Cursor(cursor), REPLAY_BATCH)).isEmpty()) {
+            for (EventLog.Event event : events) {
+                blackhole.consume(event.correlationKey());
+            }
+            cursor = events.get(events.size() - 1).sequence();
+        }
+        return cursor;
+    }
+    
+    @Benchmark
+    public long replayPayloads(Size size, Blackhole blackhole) {
+        size.dataBytes = log.dataBytes();
+        long cursor = 0;
+        List<EventLog.Event> events;
+        while (!(events = log.read(new Cursor(cursor), REPLAY_BATCH)).isEmpty()) {
+            for (EventLog.Event event : events) {
+                blackhole.consume(event.payload());
+            }
+            cursor = events.get(events.size() - 1).sequence();
+        }
+        return cursor;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.schema.Version;
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.EventLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append and read throughput of {@link SegmentedEventLog}.
+ * 
+ * @author SpiralServer Team
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventLogBenchmark {
+    
+    private static final SchemaRef SCHEMA = new SchemaRef("event", "benchmark", new Version(1, 0, 0));
+    private static final int PRELOADED = 200_000;
+    
+    @Param({"128", "1024"})
+    int payloadBytes;
+    
+    @Param({"10", "100"})
+    int readBatch;
+    
+    private Path directory;
+    private SegmentedEventLog log;
+    private LogEvent event;
+    private List<EventLog.Event> batch;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("event-log-bench");
+        log = SegmentedEventLog.open(EventLogConfig.of(directory).withDedupeWindowMs(0));
+        event = new LogEvent(SCHEMA, Instant.now(), "order-1", null, Map.of("data", "x".repeat(payloadBytes)), "bench");
+        batch = Collections.nCopies(16, event);
+        for (int i = 0; i < PRELOADED; i++) {
+            log.append(event);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        log.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+    
+    @Benchmark
+    public long append() {
+        return log.append(event);
+    }
+    
+    @Benchmark
+    public List<Long> appendBatchOf16() {
+        return log.appendAll(batch);
+    }
+    
+    @Benchmark
+    public void readRandom(Blackhole blackhole) {
+        long from = ThreadLocalRandom.current().nextLong(PRELOADED - readBatch);
+        List<EventLog.Event> events = log.read(new Cursor(from), readBatch);
+        blackhole.consume(events);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.schema.Version;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Multi-threaded append throughput of {@link PartitionedEventLog}; each thread appends
+ * for its own correlation key, as unrelated agents do. One partition is the baseline of
+ * a single shared log.
+ * 
+ * @author SpiralServer Team
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class PartitionedAppendBenchmark {
+    
+    private static final SchemaRef SCHEMA = new SchemaRef("event", "benchmark", new Version(1, 0, 0));
+    
+    @Param({"1", "4", "8"})
+    int partitions;
+    
+    private final AtomicInteger agents = new AtomicInteger();
+    private Path directory;
+    private PartitionedEventLog log;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("partitioned-log-bench");
+        log = PartitionedEventLog.open(EventLogConfig.of(directory).withDedupeWindowMs(0), partitions);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        log.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class Agent {
+        LogEvent event;
+        
+        @Setup(Level.Trial)
+        public void setUp(PartitionedAppendBenchmark benchmark) {
+            String key = "agent-" + benchmark.agents.getAndIncrement();
+            event = new LogEvent(SCHEMA, Instant.now(), key, null, Map.of("data", "x".repeat(128)), "bench");
+        }
+    }
+    
+    @Benchmark
+    public long append(Agent agent) {
+        return log.append(agent.event);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+package io.spiralserver.state;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Codec for schema-validated data (event payloads, state data) stored by the state plane.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Encoding is deterministic for equal inputs</li>
+ *   <li>{@code decode(encode(x))} is equal to {@code x} for schema-validated data</li>
+ *   <li>Codecs are thread-safe</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public interface DataCodec {
+    
+    /**
+     * Encodes data to bytes.
+     * 
+     * @param data data to encode
+     * @return encoded bytes
+     * @throws IllegalArgumentException if data cannot be encoded
+     */
+    byte[] encode(Object data);
+    
+    /**
+     * Decodes data from the remaining bytes of a buffer.
+     * 
+     * <p>The buffer may be a view over a memory-mapped file; implementations must not
+     * retain it after returning.
+     * 
+     * @param buffer buffer positioned at the encoded data
+     * @return decoded data
+     * @throws IllegalArgumentException if bytes cannot be decoded
+     */
+    Object decode(ByteBuffer buffer);
+    
+    /**
+     * Decodes data from a byte array.
+     * 
+     * @param bytes encoded bytes
+     * @return decoded data
+     */
+    default Object decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+    
+    /**
+     * Encodes data to a stream.
+     * 
+     * <p>The default implementation encodes into a byte array first; codecs override it
+     * to write incrementally, so large data is never held in memory as a whole. The
+     * stream is not closed.
+     * 
+     * @param data data to encode
+     * @param out stream to write to
+     * @throws IllegalArgumentException if data cannot be encoded
+     * @throws IOException if the stream cannot be written
+     */
+    default void encode(Object data, OutputStream out) throws IOException {
+        out.write(encode(data));
+    }
+    
+    /**
+     * Decodes data from a stream, reading it to its end.
+     * 
+     * <p>The default implementation reads the stream into a byte array first; codecs
+     * override it to read incrementally.
+     * 
+     * @param in stream positioned at the encoded data
+     * @return decoded data
+     * @throws IllegalArgumentException if bytes cannot be decoded
+     * @throws IOException if the stream cannot be read
+     */
+    default Object decode(InputStream in) throws IOException {
+        return decode(in.readAllBytes());
+    }
+}
\ No newline at end of file
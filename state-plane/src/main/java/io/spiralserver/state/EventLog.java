@@ -4,8 +4,10 @@ import io.spiralserver.schema.EventSchema;
 import io.spiralserver.schema.SchemaRef;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Flow;
 
 /**
  * Event log abstraction for immutable event storage.
@@ -49,6 +51,28 @@ public interface EventLog {
      */
     long append(Event event);
     
+    /**
+     * Appends a batch of events.
+     * 
+     * <p>Implementations assign the batch contiguous sequence numbers and make it durable
+     * with a single storage round-trip. The default implementation appends the events one
+     * at a time.
+     * 
+     * @param events events to append, in order
+     * @return sequence numbers assigned to the events, in order
+     * @throws IllegalArgumentException if any event is invalid or duplicate
+     */
+    default List<Long> appendAll(List<Event> events) {
+        if (events == null) {
+            throw new IllegalArgumentException("Events cannot be null");
+        }
+        List<Long> sequences = new ArrayList<>(events.size());
+        for (Event event : events) {
+            sequences.add(append(event));
+        }
+        return sequences;
+    }
+    
     /**
      * Retrieves events starting from a cursor.
      * 
@@ -77,6 +101,22 @@ public interface EventLog {
      */
     Optional<Event> findByIdempotencyKey(String idempotencyKey, long dedupeWindowMs);
     
+    /**
+     * Subscribes to events appended after a cursor.
+     * 
+     * <p>The publisher first delivers the events already in the log after the cursor, then
+     * each new event as soon as its append commits. Delivery honours subscriber demand
+     * ({@link Flow.Subscription#request}); events are never dropped for a slow subscriber,
+     * which simply falls behind the head of the log.
+     * 
+     * @param cursor starting cursor (exclusive)
+     * @return publisher of events in sequence order
+     * @throws UnsupportedOperationException if the implementation cannot tail
+     */
+    default Flow.Publisher<Event> tail(Cursor cursor) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support tailing");
+    }
+    
     /**
      * Returns the current cursor (highest sequence number).
      * 
@@ -1,6 +1,11 @@
 package io.spiralserver.state;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -53,6 +58,59 @@ public interface HotState {
      */
     boolean update(String agentInstanceId, long expectedVersion, State newState);
     
+    /**
+     * Reads the current states of several agent instances.
+     * 
+     * <p>The default implementation reads them one by one; backends override it to
+     * answer in a single pass (one lock acquisition or I/O round-trip per partition).
+     * 
+     * @param agentInstanceIds agent instance identifiers
+     * @return states of the agent instances that have state, in iteration order of the ids
+     */
+    default Map<String, State> readAll(Collection<String> agentInstanceIds) {
+        if (agentInstanceIds == null) {
+            throw new IllegalArgumentException("Agent instance IDs cannot be null");
+        }
+        Map<String, State> states = new LinkedHashMap<>();
+        for (String agentInstanceId : agentInstanceIds) {
+            read(agentInstanceId).ifPresent(state -> states.put(agentInstanceId, state));
+        }
+        return states;
+    }
+    
+    /**
+     * Applies several optimistic updates.
+     * 
+     * <p>With {@link BatchMode#BEST_EFFORT} each update is applied on its own, in order,
+     * as by {@link #update}. With {@link BatchMode#ATOMIC} either all updates are applied
+     * or none is: the batch fails as a whole if any expected version does not match, and
+     * no other write to the agent instances of the batch interleaves with it.
+     * 
+     * <p>The default implementation supports best-effort batches only, applying them one
+     * update at a time; backends override it to apply a batch in a single pass.
+     * 
+     * @param updates updates to apply
+     * @param mode atomic or best-effort
+     * @return whether each update was applied, in input order
+     * @throws IllegalArgumentException if an update is invalid, or an agent instance
+     *         appears twice in an atomic batch
+     * @throws UnsupportedOperationException if the batch is atomic and the store cannot
+     *         apply batches atomically
+     */
+    default List<Boolean> updateAll(List<Update> updates, BatchMode mode) {
+        if (updates == null || mode == null) {
+            throw new IllegalArgumentException("Updates and mode cannot be null");
+        }
+        if (mode == BatchMode.ATOMIC) {
+            throw new UnsupportedOperationException("Atomic batches are not supported by " + getClass().getSimpleName());
+        }
+        List<Boolean> applied = new ArrayList<>(updates.size());
+        for (Update update : updates) {
+            applied.add(update(update.agentInstanceId(), update.expectedVersion(), update.newState()));
+        }
+        return applied;
+    }
+    
     /**
      * Creates or updates state (upsert).
      * 
@@ -80,6 +138,31 @@ public interface HotState {
      */
     boolean restore(String agentInstanceId, Checkpoint checkpoint);
     
+    /**
+     * One optimistic update of a batch.
+     * 
+     * @param agentInstanceId agent instance identifier
+     * @param expectedVersion expected current version
+     * @param newState new state value
+     */
+    record Update(String agentInstanceId, long expectedVersion, State newState) {
+        public Update {
+            if (agentInstanceId == null) {
+                throw new IllegalArgumentException("Agent instance ID cannot be null");
+            }
+        }
+    }
+    
+    /**
+     * How a batch of updates is applied.
+     */
+    enum BatchMode {
+        /** All updates are applied or none is. */
+        ATOMIC,
+        /** Each update is applied or rejected on its own. */
+        BEST_EFFORT
+    }
+    
     /**
      * State representation.
      */
@@ -0,0 +1,104 @@
+package io.spiralserver.state;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * JSON {@link DataCodec} backed by Jackson.
+ * 
+ * <p>Data is decoded into the JSON object model ({@code Map}, {@code List}, {@code String},
+ * {@code Number}, {@code Boolean}), which is the form of schema-validated data. The
+ * stream variants write through a {@link JsonGenerator} and read through a
+ * {@link JsonParser}, so only Jackson's small I/O buffers are held besides the data.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Map keys are written in sorted order (deterministic encoding)</li>
+ *   <li>Thread-safe</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class JsonDataCodec implements DataCodec {
+    
+    private final ObjectMapper mapper;
+    
+    /**
+     * Creates a codec with a default object mapper.
+     */
+    public JsonDataCodec() {
+        this(new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true));
+    }
+    
+    /**
+     * Creates a codec with a custom object mapper.
+     * 
+     * @param mapper object mapper
+     */
+    public JsonDataCodec(ObjectMapper mapper) {
+        if (mapper == null) {
+            throw new IllegalArgumentException("Object mapper cannot be null");
+        }
+        this.mapper = mapper;
+    }
+    
+    /**
+     * Returns the underlying object mapper.
+     * 
+     * @return object mapper
+     */
+    public ObjectMapper mapper() {
+        return mapper;
+    }
+    
+    @Override
+    public byte[] encode(Object data) {
+        try {
+            return mapper.writeValueAsBytes(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot encode data: " + e.getOriginalMessage(), e);
+        }
+    }
+    
+    @Override
+    public Object decode(ByteBuffer buffer) {
+        try {
+            if (buffer.hasArray()) {
+                return mapper.readValue(
+                    buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), Object.class
+                );
+            }
+            return mapper.readValue(new ByteBufferBackedInputStream(buffer.duplicate()), Object.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot decode data: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public void encode(Object data, OutputStream out) throws IOException {
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            mapper.writeValue(generator, data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot encode data: " + e.getOriginalMessage(), e);
+        }
+    }
+    
+    @Override
+    public Object decode(InputStream in) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(in)) {
+            return mapper.readValue(parser, Object.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot decode data: " + e.getOriginalMessage(), e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,157 @@
+package io.spiralserver.state;
+
+import java.util.Arrays;
+
+/**
+ * Composite cursor over a partitioned event log: one sequence per partition.
+ * 
+ * <p>Partitions have independent sequence spaces, so progress through a partitioned log
+ * is tracked per partition rather than as a single position. The string form
+ * ({@code "12,0,7"}) is stable and can be persisted next to snapshots or consumer state.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable</li>
+ *   <li>At least one partition; all sequences are non-negative</li>
+ *   <li>Each sequence is exclusive: the partition's next event has a higher sequence</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class PartitionedCursor {
+    
+    private final long[] sequences;
+    
+    private PartitionedCursor(long[] sequences) {
+        this.sequences = sequences;
+    }
+    
+    /**
+     * Creates a cursor from per-partition sequences.
+     * 
+     * @param sequences sequence per partition (non-negative)
+     * @return cursor
+     * @throws IllegalArgumentException if empty or a sequence is negative
+     */
+    public static PartitionedCursor of(long... sequences) {
+        if (sequences == null || sequences.length == 0) {
+            throw new IllegalArgumentException("Partitioned cursor needs at least one partition");
+        }
+        for (long sequence : sequences) {
+            if (sequence < 0) {
+                throw new IllegalArgumentException("Sequence must be non-negative");
+            }
+        }
+        return new PartitionedCursor(sequences.clone());
+    }
+    
+    /**
+     * Creates a cursor at the beginning of every partition.
+     * 
+     * @param partitions number of partitions
+     * @return beginning cursor
+     */
+    public static PartitionedCursor beginning(int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Partition count must be positive");
+        }
+        return new PartitionedCursor(new long[partitions]);
+    }
+    
+    /**
+     * Parses the string form produced by {@link #toString()}.
+     * 
+     * @param value comma-separated sequences
+     * @return cursor
+     * @throws IllegalArgumentException if the value is malformed
+     */
+    public static PartitionedCursor parse(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Partitioned cursor cannot be null or blank");
+        }
+        String[] parts = value.split(",", -1);
+        long[] sequences = new long[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                sequences[i] = Long.parseLong(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid partitioned cursor: " + value, e);
+        }
+        return of(sequences);
+    }
+    
+    public int partitionCount() {
+        return sequences.length;
+    }
+    
+    /**
+     * Returns the cursor of one partition.
+     * 
+     * @param partition partition index
+     * @return partition cursor
+     */
+    public Cursor partition(int partition) {
+        return new Cursor(sequences[partition]);
+    }
+    
+    /**
+     * Returns a cursor with one partition moved to a new sequence.
+     * 
+     * @param partition partition index
+     * @param sequence new sequence (non-negative)
+     * @return modified copy
+     */
+    public PartitionedCursor with(int partition, long sequence) {
+        if (sequence < 0) {
+            throw new IllegalArgumentException("Sequence must be non-negative");
+        }
+        long[] copy = sequences.clone();
+        copy[partition] = sequence;
+        return new PartitionedCursor(copy);
+    }
+    
+    /**
+     * Returns true if no partition of this cursor is behind the other cursor.
+     * 
+     * @param other cursor with the same partition count
+     * @return true if at or past the other cursor in every partition
+     */
+    public boolean covers(PartitionedCursor other) {
+        if (other.sequences.length != sequences.length) {
+            throw new IllegalArgumentException(
+                "Partition count mismatch: " + sequences.length + " vs " + other.sequences.length
+            );
+        }
+        for (int i = 0; i < sequences.length; i++) {
+            if (sequences[i] < other.sequences[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(sequences, ((PartitionedCursor) o).sequences);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(sequences);
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < sequences.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(sequences[i]);
+        }
+        return sb.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,316 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.state.HotState;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory {@link HotState} with lock-free, per-entry optimistic updates.
+ * 
+ * <p>Each agent instance has an entry holding its current {@link VersionedState}. Reads
+ * are a map lookup and a volatile read; {@link #update} compares the current version
+ * with the expected one and swaps the state with a single compare-and-set on the entry.
+ * The map itself is only written when an agent instance is first seen, so updates to
+ * different agents never contend, and updates to the same agent never block: a loser of
+ * the race observes a version mismatch and returns false.
+ * 
+ * <p>An atomic {@link #updateAll} batch first claims every entry of the batch by
+ * swapping its state for a pending marker, then publishes the new states. If a claim
+ * fails the claimed entries are put back and the batch is rejected. While an entry is
+ * claimed, reads return its previous state, updates fail as if they had lost the race
+ * and upserts wait for the batch to finish.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>An absent agent instance has version 0; the first write creates version 1</li>
+ *   <li>Every successful change increments the version by exactly one</li>
+ *   <li>Only the data of the given state is stored; version and time are assigned here</li>
+ *   <li>Thread-safe; no operation takes a lock after the entry exists</li>
+ *   <li>An atomic batch is applied completely or not at all; other threads may observe
+ *       its new states one agent instance at a time while it is published</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class ConcurrentHotState implements HotState {
+    
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Clock clock;
+    
+    public ConcurrentHotState() {
+        this(Clock.systemUTC());
+    }
+    
+    /**
+     * @param clock clock for modification and checkpoint times
+     */
+    public ConcurrentHotState(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        this.clock = clock;
+    }
+    
+    @Override
+    public Optional<State> read(String agentInstanceId) {
+        requireId(agentInstanceId);
+        Entry entry = entries.get(agentInstanceId);
+        return entry == null ? Optional.empty() : Optional.ofNullable(entry.settled());
+    }
+    
+    /**
+     * Reads several agent instances with one map lookup each.
+     */
+    @Override
+    public Map<String, State> readAll(Collection<String> agentInstanceIds) {
+        requireIds(agentInstanceIds);
+        Map<String, State> states = new LinkedHashMap<>(Math.max(16, agentInstanceIds.size() * 2));
+        for (String agentInstanceId : agentInstanceIds) {
+            requireId(agentInstanceId);
+            Entry entry = entries.get(agentInstanceId);
+            VersionedState state = entry == null ? null : entry.settled();
+            if (state != null) {
+                states.put(agentInstanceId, state);
+            }
+        }
+        return states;
+    }
+    
+    @Override
+    public boolean update(String agentInstanceId, long expectedVersion, State newState) {
+        requireId(agentInstanceId);
+        Object data = requireData(newState);
+        Entry entry = entries.get(agentInstanceId);
+        if (entry == null) {
+            return expectedVersion == 0
+                && entries.putIfAbsent(agentInstanceId, new Entry(next(0, data))) == null;
+        }
+        // a failed CAS means another writer got in first, so the version no longer matches;
+        // an entry claimed by a batch counts as changed
+        return entry.get() instanceof VersionedState current
+            && current.version() == expectedVersion
+            && entry.compareAndSet(current, next(expectedVersion, data));
+    }
+    
+    @Override
+    public List<Boolean> updateAll(List<Update> updates, BatchMode mode) {
+        requireBatch(updates, mode);
+        if (mode == BatchMode.BEST_EFFORT) {
+            List<Boolean> applied = new ArrayList<>(updates.size());
+            for (Update update : updates) {
+                applied.add(update(update.agentInstanceId(), update.expectedVersion(), update.newState()));
+            }
+            return applied;
+        }
+        // claiming in id order lets one of two overlapping batches win
+        List<Update> ordered = new ArrayList<>(updates);
+        ordered.sort(Comparator.comparing(Update::agentInstanceId));
+        List<Entry> claimed = new ArrayList<>(ordered.size());
+        for (Update update : ordered) {
+            Entry entry = claim(update);
+            if (entry == null) {
+                for (int i = 0; i < claimed.size(); i++) {
+                    release(ordered.get(i).agentInstanceId(), claimed.get(i));
+                }
+                return Collections.nCopies(updates.size(), false);
+            }
+            claimed.add(entry);
+        }
+        for (Entry entry : claimed) {
+            entry.set(((Pending) entry.get()).next());
+        }
+        return Collections.nCopies(updates.size(), true);
+    }
+    
+    /**
+     * Swaps the current state of an update's entry for a pending marker.
+     * 
+     * @return the claimed entry, or null if the version does not match or the entry is
+     *         claimed by another batch
+     */
+    private Entry claim(Update update) {
+        Object data = update.newState().data();
+        Entry entry = entries.get(update.agentInstanceId());
+        if (entry == null) {
+            if (update.expectedVersion() != 0) {
+                return null;
+            }
+            Entry created = new Entry(new Pending(null, next(0, data)));
+            return entries.putIfAbsent(update.agentInstanceId(), created) == null ? created : null;
+        }
+        if (entry.get() instanceof VersionedState current && current.version() == update.expectedVersion()
+                && entry.compareAndSet(current, new Pending(current, next(current.version(), data)))) {
+            return entry;
+        }
+        return null;
+    }
+    
+    /**
+     * Puts back the state a claimed entry had before the batch.
+     */
+    private void release(String agentInstanceId, Entry entry) {
+        Pending pending = (Pending) entry.get();
+        if (pending.previous() == null) {
+            entries.remove(agentInstanceId, entry); // the marker stays, so stale holders re-read the map
+        } else {
+            entry.set(pending.previous());
+        }
+    }
+    
+    @Override
+    public long upsert(String agentInstanceId, State state) {
+        requireId(agentInstanceId);
+        return put(agentInstanceId, requireData(state));
+    }
+    
+    private long put(String agentInstanceId, Object data) {
+        while (true) {
+            Entry entry = entries.get(agentInstanceId);
+            if (entry == null) {
+                VersionedState first = next(0, data);
+                if (entries.putIfAbsent(agentInstanceId, new Entry(first)) == null) {
+                    return first.version();
+                }
+                continue;
+            }
+            if (!(entry.get() instanceof VersionedState current)) {
+                Thread.onSpinWait(); // claimed by a batch
+                continue;
+            }
+            VersionedState next = next(current.version(), data);
+            if (entry.compareAndSet(current, next)) {
+                return next.version();
+            }
+        }
+    }
+    
+    /**
+     * Checkpoints the current state of an agent instance.
+     * 
+     * @throws IllegalArgumentException if the agent instance has no state
+     */
+    @Override
+    public Checkpoint checkpoint(String agentInstanceId) {
+        State state = read(agentInstanceId)
+            .orElseThrow(() -> new IllegalArgumentException("No state for agent instance: " + agentInstanceId));
+        return new StateCheckpoint(agentInstanceId, state, clock.instant());
+    }
+    
+    /**
+     * Restores a checkpoint taken from the same agent instance. The restored data becomes
+     * a new version, so versions keep increasing.
+     * 
+     * @return false if the checkpoint is not a {@link StateCheckpoint} of this agent instance
+     */
+    @Override
+    public boolean restore(String agentInstanceId, Checkpoint checkpoint) {
+        requireId(agentInstanceId);
+        if (!(checkpoint instanceof StateCheckpoint stateCheckpoint) || !stateCheckpoint.belongsTo(agentInstanceId)) {
+            return false;
+        }
+        put(agentInstanceId, stateCheckpoint.data());
+        return true;
+    }
+    
+    /**
+     * Returns the number of agent instances with state.
+     * 
+     * @return agent instance count
+     */
+    public int size() {
+        return entries.size();
+    }
+    
+    private VersionedState next(long version, Object data) {
+        return new VersionedState(version + 1, data, clock.instant());
+    }
+    
+    static void requireId(String agentInstanceId) {
+        if (agentInstanceId == null || agentInstanceId.isBlank()) {
+            throw new IllegalArgumentException("Agent instance ID cannot be null or blank");
+        }
+    }
+    
+    static void requireIds(Collection<String> agentInstanceIds) {
+        if (agentInstanceIds == null) {
+            throw new IllegalArgumentException("Agent instance IDs cannot be null");
+        }
+    }
+    
+    /**
+     * Validates the arguments of {@link HotState#updateAll} up front, so an invalid update
+     * fails the call before anything is applied; atomic batches must not name an agent
+     * instance twice.
+     */
+    static void requireBatch(List<Update> updates, BatchMode mode) {
+        if (updates == null || mode == null) {
+            throw new IllegalArgumentException("Updates and mode cannot be null");
+        }
+        for (Update update : updates) {
+            requireId(update.agentInstanceId());
+            requireData(update.newState());
+        }
+        if (mode == BatchMode.ATOMIC) {
+            Set<String> seen = new HashSet<>();
+            for (Update update : updates) {
+                if (!seen.add(update.agentInstanceId())) {
+                    throw new IllegalArgumentException("Duplicate agent instance in atomic batch: " + update.agentInstanceId());
+                }
+            }
+        }
+    }
+    
+    static Object requireData(State state) {
+        if (state == null) {
+            throw new IllegalArgumentException("State cannot be null");
+        }
+        if (state.data() == null) {
+            throw new IllegalArgumentException("State data cannot be null");
+        }
+        return state.data();
+    }
+    
+    @Override
+    public String toString() {
+        return "ConcurrentHotState{size=" + entries.size() + "}";
+    }
+    
+    /**
+     * Current state of one agent instance, swapped by compare-and-set. Holds a
+     * {@link VersionedState}, or a {@link Pending} marker while claimed by a batch.
+     */
+    private static final class Entry extends AtomicReference<Object> {
+        Entry(Object state) {
+            super(state);
+        }
+        
+        /**
+         * Returns the current state, or the state before the batch that claimed the entry.
+         */
+        VersionedState settled() {
+            Object state = get();
+            return state instanceof Pending pending ? pending.previous() : (VersionedState) state;
+        }
+    }
+    
+    /**
+     * Marker of an entry claimed by an atomic batch.
+     * 
+     * @param previous state before the batch, null if the batch creates the entry
+     * @param next state the batch publishes
+     */
+    private record Pending(VersionedState previous, VersionedState next) {
+    }
+}
\ No newline at end of file
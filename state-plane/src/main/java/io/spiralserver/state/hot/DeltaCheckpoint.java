@@ -0,0 +1,158 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.state.HotState;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link HotState.Checkpoint} in a chain of base and delta checkpoints.
+ * 
+ * <p>A base checkpoint holds the full state data; a delta checkpoint holds only the
+ * {@link StateDelta} from its parent. The state at a delta checkpoint is rebuilt by
+ * applying the deltas of the chain to its base, oldest first. Checkpoints are created
+ * by {@link DeltaCheckpointHotState}.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable</li>
+ *   <li>Identifier is {@code agentInstanceId@stateVersion}</li>
+ *   <li>A base has depth 0 and no parent; a delta is one deeper than its parent</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class DeltaCheckpoint implements HotState.Checkpoint {
+    
+    static final String KIND = "kind";
+    static final String PARENT = "parentCheckpointId";
+    
+    private final String agentInstanceId;
+    private final long stateVersion;
+    private final Instant timestamp;
+    private final DeltaCheckpoint parent;
+    private final int depth;
+    private final Object base; // null for deltas
+    private final StateDelta delta; // null for bases
+    
+    private DeltaCheckpoint(
+        String agentInstanceId,
+        long stateVersion,
+        Instant timestamp,
+        DeltaCheckpoint parent,
+        Object base,
+        StateDelta delta
+    ) {
+        this.agentInstanceId = agentInstanceId;
+        this.stateVersion = stateVersion;
+        this.timestamp = timestamp;
+        this.parent = parent;
+        this.depth = parent == null ? 0 : parent.depth + 1;
+        this.base = base;
+        this.delta = delta;
+    }
+    
+    static DeltaCheckpoint base(String agentInstanceId, HotState.State state, Instant timestamp) {
+        return new DeltaCheckpoint(agentInstanceId, state.version(), timestamp, null, state.data(), null);
+    }
+    
+    static DeltaCheckpoint delta(DeltaCheckpoint parent, HotState.State state, StateDelta delta, Instant timestamp) {
+        return new DeltaCheckpoint(parent.agentInstanceId, state.version(), timestamp, parent, null, delta);
+    }
+    
+    @Override
+    public String checkpointId() {
+        return agentInstanceId + "@" + stateVersion;
+    }
+    
+    public String agentInstanceId() {
+        return agentInstanceId;
+    }
+    
+    @Override
+    public long stateVersion() {
+        return stateVersion;
+    }
+    
+    @Override
+    public Instant timestamp() {
+        return timestamp;
+    }
+    
+    /**
+     * @return agent instance, kind ({@code base} or {@code delta}) and, for deltas, the
+     *         parent checkpoint id
+     */
+    @Override
+    public Map<String, String> metadata() {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put(StateCheckpoint.AGENT_INSTANCE_ID, agentInstanceId);
+        metadata.put(KIND, isBase() ? "base" : "delta");
+        if (parent != null) {
+            metadata.put(PARENT, parent.checkpointId());
+        }
+        return Map.copyOf(metadata);
+    }
+    
+    @Override
+    public String snapshotRef() {
+        return null;
+    }
+    
+    public boolean isBase() {
+        return parent == null;
+    }
+    
+    /**
+     * Returns the number of deltas between this checkpoint and its base.
+     * 
+     * @return chain depth, 0 for a base
+     */
+    public int depth() {
+        return depth;
+    }
+    
+    public Optional<DeltaCheckpoint> parent() {
+        return Optional.ofNullable(parent);
+    }
+    
+    /**
+     * Returns what this checkpoint adds to the chain: the full state data for a base,
+     * {@link StateDelta#toData()} for a delta. This is what needs to be written when
+     * persisting the checkpoint.
+     * 
+     * @return payload in the JSON object model
+     */
+    public Object payload() {
+        return isBase() ? base : delta.toData();
+    }
+    
+    /**
+     * Rebuilds the checkpointed state data by folding the chain.
+     */
+    Object materialize() {
+        Deque<StateDelta> deltas = new ArrayDeque<>(depth);
+        DeltaCheckpoint checkpoint = this;
+        for (; checkpoint.parent != null; checkpoint = checkpoint.parent) {
+            deltas.push(checkpoint.delta);
+        }
+        Object data = checkpoint.base;
+        for (StateDelta step : deltas) {
+            data = step.applyTo(data);
+        }
+        return data;
+    }
+    
+    boolean belongsTo(String agentInstanceId) {
+        return this.agentInstanceId.equals(agentInstanceId);
+    }
+    
+    @Override
+    public String toString() {
+        return "DeltaCheckpoint{checkpointId=" + checkpointId() + ", depth=" + depth + ", timestamp=" + timestamp + "}";
+    }
+}
\ No newline at end of file
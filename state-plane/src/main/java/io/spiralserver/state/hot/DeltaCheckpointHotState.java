@@ -0,0 +1,164 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.state.HotState;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link HotState} whose checkpoints are incremental.
+ * 
+ * <p>Reads and writes go to the wrapped store. {@link #checkpoint} returns a
+ * {@link DeltaCheckpoint} whose parent is the previous checkpoint of the same agent
+ * instance and which holds only the {@link StateDelta} since that parent, so its payload
+ * grows with the size of the change rather than the size of the state. After
+ * {@code baseInterval} deltas the next checkpoint is a full base again, which bounds
+ * the chain a restore has to fold. {@link #restore} rebuilds the state from the chain,
+ * writes it as a new version and continues the chain from the restored checkpoint.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>State data is treated as immutable: the data of the last checkpoint is kept to
+ *       diff the next one against, so it must not be modified in place</li>
+ *   <li>Checkpoints of one agent instance are taken one at a time</li>
+ *   <li>Versions are those of the wrapped store</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class DeltaCheckpointHotState implements HotState {
+    
+    public static final int DEFAULT_BASE_INTERVAL = 16;
+    
+    private final HotState delegate;
+    private final int baseInterval;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Head> heads = new ConcurrentHashMap<>();
+    
+    public DeltaCheckpointHotState(HotState delegate) {
+        this(delegate, DEFAULT_BASE_INTERVAL, Clock.systemUTC());
+    }
+    
+    /**
+     * @param delegate store serving reads and writes
+     * @param baseInterval number of deltas after which a full base is written
+     * @param clock clock for checkpoint times
+     */
+    public DeltaCheckpointHotState(HotState delegate, int baseInterval, Clock clock) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate cannot be null");
+        }
+        if (baseInterval < 0) {
+            throw new IllegalArgumentException("Base interval must be non-negative");
+        }
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        this.delegate = delegate;
+        this.baseInterval = baseInterval;
+        this.clock = clock;
+    }
+    
+    @Override
+    public Optional<State> read(String agentInstanceId) {
+        return delegate.read(agentInstanceId);
+    }
+    
+    @Override
+    public boolean update(String agentInstanceId, long expectedVersion, State newState) {
+        return delegate.update(agentInstanceId, expectedVersion, newState);
+    }
+    
+    @Override
+    public Map<String, State> readAll(Collection<String> agentInstanceIds) {
+        return delegate.readAll(agentInstanceIds);
+    }
+    
+    @Override
+    public List<Boolean> updateAll(List<Update> updates, BatchMode mode) {
+        return delegate.updateAll(updates, mode);
+    }
+    
+    @Override
+    public long upsert(String agentInstanceId, State state) {
+        return delegate.upsert(agentInstanceId, state);
+    }
+    
+    /**
+     * Checkpoints the current state as a delta from the previous checkpoint, or as a
+     * base if there is none or the chain has reached the base interval.
+     * 
+     * @return a {@link DeltaCheckpoint}
+     * @throws IllegalArgumentException if the agent instance has no state
+     */
+    @Override
+    public Checkpoint checkpoint(String agentInstanceId) {
+        ConcurrentHotState.requireId(agentInstanceId);
+        return heads.compute(agentInstanceId, (id, head) -> {
+            State state = delegate.read(id)
+                .orElseThrow(() -> new IllegalArgumentException("No state for agent instance: " + id));
+            DeltaCheckpoint checkpoint = head == null || head.checkpoint.depth() >= baseInterval
+                ? DeltaCheckpoint.base(id, state, clock.instant())
+                : DeltaCheckpoint.delta(head.checkpoint, state, StateDelta.between(head.data, state.data()), clock.instant());
+            return new Head(checkpoint, state.data());
+        }).checkpoint;
+    }
+    
+    /**
+     * Restores a checkpoint of the same agent instance as a new version.
+     * 
+     * <p>A {@link DeltaCheckpoint} is folded from its base and becomes the parent of the
+     * next checkpoint. Other checkpoints are passed to the wrapped store, and the next
+     * checkpoint is a base.
+     * 
+     * @return false if the checkpoint belongs to another agent instance or the wrapped
+     *         store rejects it
+     */
+    @Override
+    public boolean restore(String agentInstanceId, Checkpoint checkpoint) {
+        ConcurrentHotState.requireId(agentInstanceId);
+        if (!(checkpoint instanceof DeltaCheckpoint deltaCheckpoint)) {
+            heads.remove(agentInstanceId);
+            return delegate.restore(agentInstanceId, checkpoint);
+        }
+        if (!deltaCheckpoint.belongsTo(agentInstanceId)) {
+            return false;
+        }
+        heads.compute(agentInstanceId, (id, head) -> {
+            Object data = deltaCheckpoint.materialize();
+            delegate.upsert(id, VersionedState.of(data));
+            return new Head(deltaCheckpoint, data);
+        });
+        return true;
+    }
+    
+    /**
+     * Returns the checkpoint the next delta of an agent instance will be taken from.
+     * 
+     * @param agentInstanceId agent instance identifier
+     * @return latest checkpoint, empty if none has been taken or restored
+     */
+    public Optional<DeltaCheckpoint> latestCheckpoint(String agentInstanceId) {
+        Head head = heads.get(agentInstanceId);
+        return head == null ? Optional.empty() : Optional.of(head.checkpoint);
+    }
+    
+    public int baseInterval() {
+        return baseInterval;
+    }
+    
+    @Override
+    public String toString() {
+        return "DeltaCheckpointHotState{delegate=" + delegate + ", baseInterval=" + baseInterval + "}";
+    }
+    
+    /**
+     * Latest checkpoint of an agent instance and the state data it represents.
+     */
+    private record Head(DeltaCheckpoint checkpoint, Object data) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,372 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.state.Cursor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable, file-backed store of encoded agent states, written in batches that each
+ * record the event log cursor the states reflect.
+ * 
+ * <p>File layout:
+ * <pre>
+ *   batch    [int32 bodyLength][int32 crc32c(body)][body]...
+ *   body     [int64 cursor][int32 count][state]...
+ *   state    [int32 idLength][id][int64 version][int64 appliedSequence][int64 epochSecond][int32 nano]
+ *            [int32 dataLength][data]
+ * </pre>
+ * Batches are appended and forced to storage before {@link #write} returns. Only the
+ * position of each agent's latest state is kept in memory. When superseded states make
+ * up most of the file, the live states are rewritten to a new file that replaces the old
+ * one atomically.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>A batch is either wholly visible after a crash or not at all</li>
+ *   <li>The recorded cursor never moves backwards</li>
+ *   <li>Thread-safe</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class FileStateStore implements Closeable {
+    
+    private static final int BATCH_HEADER = 8;
+    private static final long MIN_COMPACTION_BYTES = 1024 * 1024;
+    
+    private final Path file;
+    private final Map<String, Location> locations = new HashMap<>(); // agent instance ID -> latest state
+    private FileChannel channel;
+    private long end;
+    private long liveBytes;
+    private Cursor cursor = Cursor.beginning();
+    private long batchCount;
+    
+    private FileStateStore(Path file) {
+        this.file = file;
+    }
+    
+    /**
+     * Opens (or creates) a store, discarding a torn batch at the end of the file.
+     * 
+     * @param file store file
+     * @return opened store
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public static FileStateStore open(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null");
+        }
+        FileStateStore store = new FileStateStore(file);
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            store.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            store.load();
+        } catch (IOException e) {
+            store.closeQuietly();
+            throw new UncheckedIOException("Cannot open state store " + file, e);
+        }
+        return store;
+    }
+    
+    private void load() throws IOException {
+        long size = channel.size();
+        long pos = 0;
+        CRC32C crc = new CRC32C();
+        ByteBuffer header = ByteBuffer.allocate(BATCH_HEADER);
+        while (pos + BATCH_HEADER <= size) {
+            header.clear();
+            readFully(header, pos);
+            int length = header.getInt(0);
+            if (length < 12 || length > size - pos - BATCH_HEADER) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(body, pos + BATCH_HEADER);
+            crc.reset();
+            crc.update(body.flip());
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            index(body.rewind(), pos + BATCH_HEADER);
+            pos += BATCH_HEADER + length;
+        }
+        if (pos < size) {
+            channel.truncate(pos);
+            channel.force(true);
+        }
+        end = pos;
+    }
+    
+    private void index(ByteBuffer body, long bodyPosition) {
+        cursor = new Cursor(body.getLong());
+        int count = body.getInt();
+        for (int i = 0; i < count; i++) {
+            int start = body.position();
+            byte[] id = new byte[body.getInt()];
+            body.get(id);
+            body.position(body.position() + 28); // version, appliedSequence, epochSecond, nano
+            int dataLength = body.getInt();
+            body.position(body.position() + dataLength);
+            Location previous = locations.put(
+                new String(id, StandardCharsets.UTF_8), new Location(bodyPosition + start, body.position() - start)
+            );
+            if (previous != null) {
+                liveBytes -= previous.length();
+            }
+            liveBytes += body.position() - start;
+        }
+        batchCount++;
+    }
+    
+    /**
+     * Appends a batch of states and forces it to storage.
+     * 
+     * @param states states to store; later entries for the same agent win
+     * @param cursor event log cursor the states reflect (at least the recorded cursor)
+     * @throws UncheckedIOException if the batch cannot be written
+     */
+    public synchronized void write(List<StoredState> states, Cursor cursor) {
+        if (states == null) {
+            throw new IllegalArgumentException("States cannot be null");
+        }
+        if (cursor == null) {
+            throw new IllegalArgumentException("Cursor cannot be null");
+        }
+        if (cursor.compareTo(this.cursor) < 0) {
+            throw new IllegalArgumentException("Cursor " + cursor + " is before recorded " + this.cursor);
+        }
+        ensureOpen();
+        try {
+            ByteBuffer batch = encode(states, cursor);
+            long position = end;
+            while (batch.hasRemaining()) {
+                position += channel.write(batch, position);
+            }
+            channel.force(false);
+            index(batch.position(BATCH_HEADER).slice(), end + BATCH_HEADER);
+            end = position;
+            if (end > MIN_COMPACTION_BYTES && end > 2 * liveBytes) {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write state store " + file, e);
+        }
+    }
+    
+    private static ByteBuffer encode(List<StoredState> states, Cursor cursor) {
+        List<byte[]> ids = new ArrayList<>(states.size());
+        int length = 12;
+        for (StoredState state : states) {
+            byte[] id = state.agentInstanceId().getBytes(StandardCharsets.UTF_8);
+            ids.add(id);
+            length += 4 + id.length + 32 + state.data().length;
+        }
+        ByteBuffer batch = ByteBuffer.allocate(BATCH_HEADER + length);
+        batch.putInt(length).putInt(0).putLong(cursor.sequence()).putInt(states.size());
+        for (int i = 0; i < states.size(); i++) {
+            StoredState state = states.get(i);
+            batch.putInt(ids.get(i).length).put(ids.get(i)).putLong(state.version()).putLong(state.appliedSequence());
+            batch.putLong(state.lastModified().getEpochSecond()).putInt(state.lastModified().getNano());
+            batch.putInt(state.data().length).put(state.data());
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(batch.array(), BATCH_HEADER, length);
+        return batch.putInt(4, (int) crc.getValue()).flip();
+    }
+    
+    /**
+     * Rewrites the live states into a new file and swaps it in.
+     */
+    private void compact() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        List<StoredState> live = new ArrayList<>(locations.size());
+        for (Location location : locations.values()) {
+            live.add(readAt(location));
+        }
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (int from = 0; from < live.size(); from += 1024) {
+                ByteBuffer batch = encode(live.subList(from, Math.min(live.size(), from + 1024)), cursor);
+                while (batch.hasRemaining()) {
+                    out.write(batch);
+                }
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        locations.clear();
+        liveBytes = 0;
+        batchCount = 0;
+        load();
+    }
+    
+    /**
+     * Returns the latest stored state of an agent instance.
+     * 
+     * @param agentInstanceId agent instance identifier
+     * @return stored state, empty if none
+     */
+    public synchronized Optional<StoredState> read(String agentInstanceId) {
+        ensureOpen();
+        Location location = locations.get(agentInstanceId);
+        return location == null ? Optional.empty() : Optional.of(readAt(location));
+    }
+    
+    /**
+     * Visits the latest stored state of every agent instance.
+     * 
+     * @param visitor state visitor
+     */
+    public synchronized void forEach(Consumer<StoredState> visitor) {
+        ensureOpen();
+        for (Location location : locations.values()) {
+            visitor.accept(readAt(location));
+        }
+    }
+    
+    private StoredState readAt(Location location) {
+        try {
+            ByteBuffer state = ByteBuffer.allocate(location.length());
+            readFully(state, location.position());
+            state.flip();
+            byte[] id = new byte[state.getInt()];
+            state.get(id);
+            long version = state.getLong();
+            long appliedSequence = state.getLong();
+            Instant lastModified = Instant.ofEpochSecond(state.getLong(), state.getInt());
+            byte[] data = new byte[state.getInt()];
+            state.get(data);
+            return new StoredState(new String(id, StandardCharsets.UTF_8), version, appliedSequence, lastModified, data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read state store " + file, e);
+        }
+    }
+    
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, pos);
+            if (read < 0) {
+                throw new IOException("Unexpected end of state store " + file);
+            }
+            pos += read;
+        }
+    }
+    
+    /**
+     * Returns the event log cursor recorded with the latest batch.
+     * 
+     * @return recorded cursor ({@link Cursor#beginning()} if nothing was written)
+     */
+    public synchronized Cursor cursor() {
+        return cursor;
+    }
+    
+    /**
+     * Returns the number of agent instances with a stored state.
+     * 
+     * @return agent instance count
+     */
+    public synchronized int size() {
+        return locations.size();
+    }
+    
+    /**
+     * Returns the number of batches in the file.
+     * 
+     * @return batch count
+     */
+    public synchronized long batchCount() {
+        return batchCount;
+    }
+    
+    /**
+     * Returns the file size in bytes.
+     * 
+     * @return file bytes
+     */
+    public synchronized long fileBytes() {
+        return end;
+    }
+    
+    public Path file() {
+        return file;
+    }
+    
+    private void ensureOpen() {
+        if (channel == null || !channel.isOpen()) {
+            throw new IllegalStateException("State store is closed");
+        }
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+    
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ignored) {
+            // already failing
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "FileStateStore{file=" + file + ", size=" + locations.size() + ", cursor=" + cursor + "}";
+    }
+    
+    private record Location(long position, int length) {
+    }
+    
+    /**
+     * Encoded state of one agent instance.
+     * 
+     * @param agentInstanceId agent instance identifier
+     * @param version state version
+     * @param appliedSequence position of the applied event log cursor when the state was
+     *        last written
+     * @param lastModified modification time
+     * @param data encoded state data
+     */
+    public record StoredState(String agentInstanceId, long version, long appliedSequence, Instant lastModified,
+                              byte[] data) {
+        public StoredState {
+            if (agentInstanceId == null) {
+                throw new IllegalArgumentException("Agent instance ID cannot be null");
+            }
+            if (lastModified == null) {
+                throw new IllegalArgumentException("Last modified time cannot be null");
+            }
+            if (data == null) {
+                throw new IllegalArgumentException("Data cannot be null");
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package io.spiralserver.state.hot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * {@link OffHeapHotState.ChunkAllocator} that maps chunks from a spill file.
+ * 
+ * <p>Chunks are mapped at increasing file offsets; released chunks are remembered by
+ * size and their file regions are mapped again for later allocations, so the file only
+ * grows to the peak amount of chunk space in use.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Thread-safe</li>
+ *   <li>The spill file is deleted on close; it is not durable storage</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+final class MappedChunks implements OffHeapHotState.ChunkAllocator {
+    
+    private final Path file;
+    private final FileChannel channel;
+    private final Map<ByteBuffer, Long> offsets = new IdentityHashMap<>(); // mapped chunk -> file offset
+    private final Map<Integer, Deque<Long>> free = new HashMap<>(); // chunk size -> released offsets
+    private long end;
+    
+    private MappedChunks(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+    
+    /**
+     * Creates the spill file, replacing an existing one.
+     */
+    static MappedChunks create(Path file, int chunkBytes) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            return new MappedChunks(file, FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create spill file " + file, e);
+        }
+    }
+    
+    @Override
+    public synchronized ByteBuffer allocate(int bytes) {
+        Deque<Long> released = free.get(bytes);
+        long offset = released != null && !released.isEmpty() ? released.pop() : end;
+        try {
+            ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_WRITE, offset, bytes);
+            if (offset == end) {
+                end += bytes;
+            }
+            offsets.put(chunk, offset);
+            return chunk;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map " + bytes + " bytes of spill file " + file, e);
+        }
+    }
+    
+    @Override
+    public synchronized void release(ByteBuffer chunk) {
+        Long offset = offsets.remove(chunk);
+        if (offset != null) {
+            free.computeIfAbsent(chunk.capacity(), size -> new ArrayDeque<>()).push(offset);
+        }
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+}
\ No newline at end of file
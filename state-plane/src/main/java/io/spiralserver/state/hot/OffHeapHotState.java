@@ -0,0 +1,734 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.HotState;
+import io.spiralserver.state.JsonDataCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * {@link HotState} that keeps serialized states outside the Java heap.
+ * 
+ * <p>States are encoded with a {@link DataCodec} and stored, together with the agent
+ * instance ID, version and modification time, as records in direct-memory chunks. An
+ * open-addressing index, itself in direct memory, maps the 64-bit hash of the agent
+ * instance ID to the record address; the ID stored in the record confirms the match.
+ * No Java object is retained per agent instance, so heap usage and GC work stay flat as
+ * the number of resident agents grows. States are decoded only on {@link #read}.
+ * 
+ * <p>The store is split into shards, each with its own lock, index and chunks. A record
+ * is rewritten in place when the new state fits its allocation (records are allocated
+ * with some slack); otherwise it moves to fresh space and the old space becomes garbage.
+ * A shard is compacted by copying its live records to new chunks once its garbage
+ * outweighs its live data.
+ * 
+ * <p>Chunks are anonymous direct memory by default. The package-private
+ * {@linkplain #mapped mapped} variant allocates them from a memory-mapped spill file and
+ * serves as the cold tier of {@link TieredHotState}.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Same versioning rules as {@link ConcurrentHotState}</li>
+ *   <li>Encoding happens outside the shard lock; decoding happens outside it too, from a
+ *       copy of the record</li>
+ *   <li>Thread-safe; operations on different shards never contend</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class OffHeapHotState implements HotState, Closeable {
+    
+    public static final int DEFAULT_CHUNK_BYTES = 1024 * 1024;
+    
+    // record layout: [int capacity][int keyLength][int dataLength][int nano][long version][long epochSecond][key][data]
+    private static final int CAPACITY = 0;
+    private static final int KEY_LENGTH = 4;
+    private static final int DATA_LENGTH = 8;
+    private static final int NANO = 12;
+    private static final int VERSION = 16;
+    private static final int EPOCH_SECOND = 24;
+    private static final int RECORD_HEADER = 32;
+    
+    private static final int INDEX_ENTRY = 16; // [long hash][long address]
+    private static final int INITIAL_INDEX_SLOTS = 1024;
+    
+    private final Shard[] shards;
+    private final DataCodec dataCodec;
+    private final Clock clock;
+    private final int chunkBytes;
+    private final ChunkAllocator allocator;
+    
+    /**
+     * Creates a store with JSON encoding, the system clock, four shards per processor
+     * and 1 MiB chunks.
+     */
+    public OffHeapHotState() {
+        this(new JsonDataCodec(), Clock.systemUTC(), defaultShardCount(), DEFAULT_CHUNK_BYTES);
+    }
+    
+    /**
+     * @param dataCodec codec for state data
+     * @param clock clock for modification and checkpoint times
+     * @param shardCount number of shards (a power of two)
+     * @param chunkBytes size of the direct-memory chunks records are allocated from
+     */
+    public OffHeapHotState(DataCodec dataCodec, Clock clock, int shardCount, int chunkBytes) {
+        this(dataCodec, clock, shardCount, chunkBytes, ByteBuffer::allocateDirect);
+    }
+    
+    OffHeapHotState(DataCodec dataCodec, Clock clock, int shardCount, int chunkBytes, ChunkAllocator allocator) {
+        if (dataCodec == null) {
+            throw new IllegalArgumentException("Data codec cannot be null");
+        }
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        if (shardCount <= 0 || Integer.bitCount(shardCount) != 1) {
+            throw new IllegalArgumentException("Shard count must be a positive power of two");
+        }
+        if (chunkBytes < 4096) {
+            throw new IllegalArgumentException("Chunk size must be at least 4096 bytes");
+        }
+        this.dataCodec = dataCodec;
+        this.clock = clock;
+        this.chunkBytes = chunkBytes;
+        this.allocator = allocator;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+    }
+    
+    /**
+     * Creates a store whose records live in a memory-mapped spill file instead of
+     * anonymous direct memory, so the OS can page out cold records. The file is not a
+     * durable copy: it is deleted on {@link #close()}.
+     * 
+     * @param file spill file (replaced if present)
+     */
+    static OffHeapHotState mapped(Path file, DataCodec dataCodec, Clock clock, int shardCount, int chunkBytes) {
+        return new OffHeapHotState(dataCodec, clock, shardCount, chunkBytes, MappedChunks.create(file, chunkBytes));
+    }
+    
+    static int defaultShardCount() {
+        return Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+    }
+    
+    @Override
+    public Optional<State> read(String agentInstanceId) {
+        ConcurrentHotState.requireId(agentInstanceId);
+        EncodedState encoded = readEncoded(agentInstanceId, false);
+        return encoded == null ? Optional.empty() : Optional.of(decode(encoded));
+    }
+    
+    /**
+     * Reads several agent instances taking each shard's read lock once; records are
+     * decoded after the locks are released.
+     */
+    @Override
+    public Map<String, State> readAll(Collection<String> agentInstanceIds) {
+        ConcurrentHotState.requireIds(agentInstanceIds);
+        Keyed[] keyed = new Keyed[agentInstanceIds.size()];
+        int n = 0;
+        for (String agentInstanceId : agentInstanceIds) {
+            ConcurrentHotState.requireId(agentInstanceId);
+            keyed[n] = new Keyed(agentInstanceId, n);
+            n++;
+        }
+        Keyed[] byShard = byShard(keyed);
+        EncodedState[] found = new EncodedState[keyed.length];
+        for (int start = 0, end; start < byShard.length; start = end) {
+            Shard shard = shards[byShard[start].shard];
+            end = runEnd(byShard, start);
+            shard.lock.readLock().lock();
+            try {
+                for (int i = start; i < end; i++) {
+                    found[byShard[i].index] = shard.copy(shard.find(byShard[i].hash, byShard[i].key), byShard[i].key);
+                }
+            } finally {
+                shard.lock.readLock().unlock();
+            }
+        }
+        Map<String, State> states = new LinkedHashMap<>(Math.max(16, keyed.length * 2));
+        for (int i = 0; i < keyed.length; i++) {
+            if (found[i] != null) {
+                states.put(keyed[i].id, decode(found[i]));
+            }
+        }
+        return states;
+    }
+    
+    /**
+     * Applies a batch taking each involved shard's write lock once. Data is encoded
+     * before any lock is taken. An atomic batch holds the write locks of all its shards,
+     * taken in shard order, while it checks every version and writes.
+     */
+    @Override
+    public List<Boolean> updateAll(List<Update> updates, BatchMode mode) {
+        ConcurrentHotState.requireBatch(updates, mode);
+        Keyed[] keyed = new Keyed[updates.size()];
+        byte[][] data = new byte[updates.size()][];
+        for (int i = 0; i < keyed.length; i++) {
+            keyed[i] = new Keyed(updates.get(i).agentInstanceId(), i);
+            data[i] = dataCodec.encode(updates.get(i).newState().data());
+        }
+        Keyed[] byShard = byShard(keyed);
+        Boolean[] applied = new Boolean[keyed.length];
+        Instant now = clock.instant();
+        if (mode == BatchMode.BEST_EFFORT) {
+            for (int start = 0, end; start < byShard.length; start = end) {
+                Shard shard = shards[byShard[start].shard];
+                end = runEnd(byShard, start);
+                shard.lock.writeLock().lock();
+                try {
+                    for (int i = start; i < end; i++) {
+                        Keyed k = byShard[i];
+                        applied[k.index] = shard.write(k, updates.get(k.index).expectedVersion(), now, data[k.index]) > 0;
+                    }
+                } finally {
+                    shard.lock.writeLock().unlock();
+                }
+            }
+            return Arrays.asList(applied);
+        }
+        List<Shard> locked = new ArrayList<>();
+        try {
+            for (int start = 0, end; start < byShard.length; start = end) {
+                end = runEnd(byShard, start);
+                Shard shard = shards[byShard[start].shard];
+                shard.lock.writeLock().lock();
+                locked.add(shard);
+            }
+            for (Keyed k : byShard) {
+                if (shards[k.shard].version(k) != updates.get(k.index).expectedVersion()) {
+                    Arrays.fill(applied, false);
+                    return Arrays.asList(applied);
+                }
+            }
+            for (Keyed k : byShard) {
+                shards[k.shard].write(k, updates.get(k.index).expectedVersion(), now, data[k.index]);
+            }
+            Arrays.fill(applied, true);
+            return Arrays.asList(applied);
+        } finally {
+            for (Shard shard : locked) {
+                shard.lock.writeLock().unlock();
+            }
+        }
+    }
+    
+    /**
+     * Returns the keys sorted by shard, keeping input order within a shard.
+     */
+    private static Keyed[] byShard(Keyed[] keyed) {
+        Keyed[] sorted = keyed.clone();
+        Arrays.sort(sorted, (a, b) -> Integer.compare(a.shard, b.shard));
+        return sorted;
+    }
+    
+    private static int runEnd(Keyed[] byShard, int start) {
+        int end = start + 1;
+        while (end < byShard.length && byShard[end].shard == byShard[start].shard) {
+            end++;
+        }
+        return end;
+    }
+    
+    VersionedState decode(EncodedState encoded) {
+        return new VersionedState(encoded.version(), dataCodec.decode(encoded.data()), encoded.lastModified());
+    }
+    
+    /**
+     * Copies a record out of the store, optionally removing it.
+     * 
+     * @return the record, or null if absent
+     */
+    EncodedState readEncoded(String agentInstanceId, boolean remove) {
+        byte[] key = agentInstanceId.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(key);
+        Shard shard = shardFor(hash);
+        Lock lock = remove ? shard.lock.writeLock() : shard.lock.readLock();
+        lock.lock();
+        try {
+            int slot = shard.find(hash, key);
+            EncodedState encoded = shard.copy(slot, key);
+            if (remove && encoded != null) {
+                shard.remove(slot);
+            }
+            return encoded;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the version of an agent instance's state without copying it.
+     * 
+     * @return version, 0 if absent
+     */
+    long version(String agentInstanceId) {
+        byte[] key = agentInstanceId.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(key);
+        Shard shard = shardFor(hash);
+        shard.lock.readLock().lock();
+        try {
+            int slot = shard.find(hash, key);
+            return slot < 0 ? 0 : shard.chunk(shard.addressAt(slot)).getLong(offset(shard.addressAt(slot)) + VERSION);
+        } finally {
+            shard.lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Stores an encoded state with its version and time as given, e.g. when moving it
+     * here from another tier.
+     */
+    void put(String agentInstanceId, EncodedState state) {
+        byte[] key = agentInstanceId.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(key);
+        Shard shard = shardFor(hash);
+        shard.lock.writeLock().lock();
+        try {
+            shard.put(shard.find(hash, key), hash, key, state.version(), state.lastModified(), state.data());
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public boolean update(String agentInstanceId, long expectedVersion, State newState) {
+        ConcurrentHotState.requireId(agentInstanceId);
+        byte[] data = dataCodec.encode(ConcurrentHotState.requireData(newState));
+        return write(agentInstanceId, expectedVersion, data) > 0;
+    }
+    
+    @Override
+    public long upsert(String agentInstanceId, State state) {
+        ConcurrentHotState.requireId(agentInstanceId);
+        return write(agentInstanceId, -1, dataCodec.encode(ConcurrentHotState.requireData(state)));
+    }
+    
+    /**
+     * Writes encoded data as the next version.
+     * 
+     * @param expectedVersion required current version, or -1 for any
+     * @return new version, or 0 on a version mismatch
+     */
+    private long write(String agentInstanceId, long expectedVersion, byte[] data) {
+        Keyed keyed = new Keyed(agentInstanceId, 0);
+        Shard shard = shards[keyed.shard];
+        Instant now = clock.instant();
+        shard.lock.writeLock().lock();
+        try {
+            return shard.write(keyed, expectedVersion, now, data);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Checkpoints the current state of an agent instance; the checkpoint holds the
+     * decoded state on the heap.
+     * 
+     * @throws IllegalArgumentException if the agent instance has no state
+     */
+    @Override
+    public Checkpoint checkpoint(String agentInstanceId) {
+        State state = read(agentInstanceId)
+            .orElseThrow(() -> new IllegalArgumentException("No state for agent instance: " + agentInstanceId));
+        return new StateCheckpoint(agentInstanceId, state, clock.instant());
+    }
+    
+    @Override
+    public boolean restore(String agentInstanceId, Checkpoint checkpoint) {
+        ConcurrentHotState.requireId(agentInstanceId);
+        if (!(checkpoint instanceof StateCheckpoint stateCheckpoint) || !stateCheckpoint.belongsTo(agentInstanceId)) {
+            return false;
+        }
+        write(agentInstanceId, -1, dataCodec.encode(stateCheckpoint.data()));
+        return true;
+    }
+    
+    /**
+     * Returns the number of agent instances with state.
+     * 
+     * @return agent instance count
+     */
+    public long size() {
+        long total = 0;
+        for (Shard shard : shards) {
+            shard.lock.readLock().lock();
+            try {
+                total += shard.size;
+            } finally {
+                shard.lock.readLock().unlock();
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Returns the direct memory held by the indexes and chunks.
+     * 
+     * @return off-heap bytes
+     */
+    public long offHeapBytes() {
+        long total = 0;
+        for (Shard shard : shards) {
+            shard.lock.readLock().lock();
+            try {
+                total += shard.index.capacity();
+                for (ByteBuffer chunk : shard.chunks) {
+                    total += chunk.capacity();
+                }
+            } finally {
+                shard.lock.readLock().unlock();
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Releases the chunk memory (and deletes the spill file of a mapped store). The
+     * store must not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        allocator.close();
+    }
+    
+    private Shard shardFor(long hash) {
+        return shards[shardIndex(hash)];
+    }
+    
+    private int shardIndex(long hash) {
+        return (int) (hash >>> 32) & (shards.length - 1);
+    }
+    
+    private static int chunkIndex(long address) {
+        return (int) (address >>> 32) - 1;
+    }
+    
+    private static int offset(long address) {
+        return (int) address;
+    }
+    
+    private static long address(int chunkIndex, int offset) {
+        return (long) (chunkIndex + 1) << 32 | offset; // never 0, which marks an empty slot
+    }
+    
+    /**
+     * 64-bit FNV-1a with a final avalanche step, so both halves are well mixed.
+     */
+    static long hash(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+    
+    @Override
+    public String toString() {
+        return "OffHeapHotState{shards=" + shards.length + ", chunkBytes=" + chunkBytes + "}";
+    }
+    
+    /**
+     * Agent instance with its encoded key, hash and shard; {@code index} is its position
+     * in a batch.
+     */
+    private final class Keyed {
+        final String id;
+        final int index; // position in the batch
+        final byte[] key;
+        final long hash;
+        final int shard;
+        
+        Keyed(String id, int index) {
+            this.id = id;
+            this.index = index;
+            this.key = id.getBytes(StandardCharsets.UTF_8);
+            this.hash = hash(key);
+            this.shard = shardIndex(hash);
+        }
+    }
+    
+    /**
+     * Record of a state as stored: version, time and encoded data.
+     */
+    record EncodedState(long version, Instant lastModified, byte[] data) {
+    }
+    
+    /**
+     * Source of the memory chunks records are stored in.
+     */
+    @FunctionalInterface
+    interface ChunkAllocator extends Closeable {
+        
+        ByteBuffer allocate(int bytes);
+        
+        /**
+         * Returns a chunk that no longer holds live records.
+         */
+        default void release(ByteBuffer chunk) {
+            // direct buffers are freed once unreachable
+        }
+        
+        @Override
+        default void close() throws IOException {
+        }
+    }
+    
+    /**
+     * One lock, one index and one set of chunks. All fields are guarded by the lock.
+     */
+    private final class Shard {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        ByteBuffer index = ByteBuffer.allocateDirect(INITIAL_INDEX_SLOTS * INDEX_ENTRY);
+        int mask = INITIAL_INDEX_SLOTS - 1;
+        int size;
+        List<ByteBuffer> chunks = new ArrayList<>();
+        int current = -1; // chunk receiving new records
+        int chunkPosition;
+        long liveBytes;
+        long garbageBytes;
+        
+        /**
+         * Returns the slot of a key, or {@code -(free slot) - 1} if absent.
+         */
+        int find(long hash, byte[] key) {
+            int slot = (int) hash & mask;
+            while (true) {
+                long address = addressAt(slot);
+                if (address == 0) {
+                    return -slot - 1;
+                }
+                if (index.getLong(slot * INDEX_ENTRY) == hash && keyMatches(address, key)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+        
+        long addressAt(int slot) {
+            return index.getLong(slot * INDEX_ENTRY + 8);
+        }
+        
+        ByteBuffer chunk(long address) {
+            return chunks.get(chunkIndex(address));
+        }
+        
+        /**
+         * Copies the record at a slot out of the chunk.
+         * 
+         * @return the record, or null if the slot is negative (not found)
+         */
+        EncodedState copy(int slot, byte[] key) {
+            if (slot < 0) {
+                return null;
+            }
+            ByteBuffer chunk = chunk(addressAt(slot));
+            int record = offset(addressAt(slot));
+            byte[] data = new byte[chunk.getInt(record + DATA_LENGTH)];
+            chunk.get(record + RECORD_HEADER + key.length, data);
+            return new EncodedState(
+                chunk.getLong(record + VERSION),
+                Instant.ofEpochSecond(chunk.getLong(record + EPOCH_SECOND), chunk.getInt(record + NANO)),
+                data
+            );
+        }
+        
+        long version(Keyed k) {
+            int slot = find(k.hash, k.key);
+            return slot < 0 ? 0 : chunk(addressAt(slot)).getLong(offset(addressAt(slot)) + VERSION);
+        }
+        
+        /**
+         * Writes encoded data as the next version. The caller holds the write lock.
+         * 
+         * @param expectedVersion required current version, or -1 for any
+         * @return new version, or 0 on a version mismatch
+         */
+        long write(Keyed k, long expectedVersion, Instant now, byte[] data) {
+            int slot = find(k.hash, k.key);
+            long current = slot < 0 ? 0 : chunk(addressAt(slot)).getLong(offset(addressAt(slot)) + VERSION);
+            if (expectedVersion >= 0 && current != expectedVersion) {
+                return 0;
+            }
+            put(slot, k.hash, k.key, current + 1, now, data);
+            return current + 1;
+        }
+        
+        long hashAt(int slot) {
+            return index.getLong(slot * INDEX_ENTRY);
+        }
+        
+        /**
+         * Removes the record at a slot, shifting later entries of the probe run back so
+         * lookups need no tombstones.
+         */
+        void remove(int slot) {
+            long address = addressAt(slot);
+            int capacity = chunk(address).getInt(offset(address) + CAPACITY);
+            garbageBytes += capacity;
+            liveBytes -= capacity;
+            int hole = slot;
+            for (int next = (hole + 1) & mask; addressAt(next) != 0; next = (next + 1) & mask) {
+                int home = (int) hashAt(next) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    index.putLong(hole * INDEX_ENTRY, hashAt(next));
+                    index.putLong(hole * INDEX_ENTRY + 8, addressAt(next));
+                    hole = next;
+                }
+            }
+            index.putLong(hole * INDEX_ENTRY, 0);
+            index.putLong(hole * INDEX_ENTRY + 8, 0);
+            size--;
+            maybeCompact();
+        }
+        
+        private boolean keyMatches(long address, byte[] key) {
+            ByteBuffer chunk = chunk(address);
+            int record = offset(address);
+            if (chunk.getInt(record + KEY_LENGTH) != key.length) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (chunk.get(record + RECORD_HEADER + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Stores a record for a key found at {@code slot} (or absent if negative).
+         */
+        void put(int slot, long hash, byte[] key, long version, Instant time, byte[] data) {
+            int needed = RECORD_HEADER + key.length + data.length;
+            if (slot >= 0) {
+                long address = addressAt(slot);
+                ByteBuffer chunk = chunk(address);
+                int record = offset(address);
+                int capacity = chunk.getInt(record + CAPACITY);
+                if (needed <= capacity) {
+                    writeRecord(chunk, record, capacity, key, version, time, data);
+                    return;
+                }
+                garbageBytes += capacity;
+                liveBytes -= capacity;
+            }
+            int capacity = (needed + needed / 8 + 7) & ~7;
+            long address = allocate(capacity);
+            writeRecord(chunk(address), offset(address), capacity, key, version, time, data);
+            liveBytes += capacity;
+            if (slot >= 0) {
+                index.putLong(slot * INDEX_ENTRY + 8, address);
+            } else {
+                int free = -slot - 1;
+                index.putLong(free * INDEX_ENTRY, hash);
+                index.putLong(free * INDEX_ENTRY + 8, address);
+                if (++size > (mask + 1) * 3L / 4) {
+                    growIndex();
+                }
+            }
+            maybeCompact();
+        }
+        
+        private void maybeCompact() {
+            if (garbageBytes > chunkBytes && garbageBytes > liveBytes) {
+                compact();
+            }
+        }
+        
+        private void writeRecord(ByteBuffer chunk, int record, int capacity, byte[] key, long version, Instant time,
+                byte[] data) {
+            chunk.putInt(record + CAPACITY, capacity);
+            chunk.putInt(record + KEY_LENGTH, key.length);
+            chunk.putInt(record + DATA_LENGTH, data.length);
+            chunk.putInt(record + NANO, time.getNano());
+            chunk.putLong(record + VERSION, version);
+            chunk.putLong(record + EPOCH_SECOND, time.getEpochSecond());
+            chunk.put(record + RECORD_HEADER, key);
+            chunk.put(record + RECORD_HEADER + key.length, data);
+        }
+        
+        private long allocate(int capacity) {
+            if (capacity > chunkBytes) {
+                chunks.add(allocator.allocate(capacity)); // oversized record gets its own chunk
+                return address(chunks.size() - 1, 0);
+            }
+            if (current < 0 || chunkPosition + capacity > chunkBytes) {
+                chunks.add(allocator.allocate(chunkBytes));
+                current = chunks.size() - 1;
+                chunkPosition = 0;
+            }
+            long address = address(current, chunkPosition);
+            chunkPosition += capacity;
+            return address;
+        }
+        
+        private void growIndex() {
+            ByteBuffer old = index;
+            int oldSlots = mask + 1;
+            index = ByteBuffer.allocateDirect(oldSlots * 2 * INDEX_ENTRY);
+            mask = oldSlots * 2 - 1;
+            for (int i = 0; i < oldSlots; i++) {
+                long address = old.getLong(i * INDEX_ENTRY + 8);
+                if (address != 0) {
+                    long hash = old.getLong(i * INDEX_ENTRY);
+                    int slot = (int) hash & mask;
+                    while (addressAt(slot) != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    index.putLong(slot * INDEX_ENTRY, hash);
+                    index.putLong(slot * INDEX_ENTRY + 8, address);
+                }
+            }
+        }
+        
+        /**
+         * Copies the live records to new chunks and releases the old ones.
+         */
+        private void compact() {
+            List<ByteBuffer> old = chunks;
+            chunks = new ArrayList<>();
+            current = -1;
+            for (int slot = 0; slot <= mask; slot++) {
+                long address = addressAt(slot);
+                if (address != 0) {
+                    ByteBuffer source = old.get(chunkIndex(address));
+                    int record = offset(address);
+                    int capacity = source.getInt(record + CAPACITY);
+                    long moved = allocate(capacity);
+                    chunk(moved).put(offset(moved), source, record, capacity);
+                    index.putLong(slot * INDEX_ENTRY + 8, moved);
+                }
+            }
+            garbageBytes = 0;
+            for (ByteBuffer chunk : old) {
+                allocator.release(chunk);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.state.HotState;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * {@link HotState.Checkpoint} holding a copy of the checkpointed state.
+ * 
+ * <p>The state travels with the checkpoint, so stores keep no checkpoint history of
+ * their own; a checkpoint can only be restored to the agent instance it was taken from.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable</li>
+ *   <li>Identifier is {@code agentInstanceId@stateVersion}</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class StateCheckpoint implements HotState.Checkpoint {
+    
+    static final String AGENT_INSTANCE_ID = "agentInstanceId";
+    
+    private final String agentInstanceId;
+    private final long stateVersion;
+    private final Object data;
+    private final Instant timestamp;
+    
+    StateCheckpoint(String agentInstanceId, HotState.State state, Instant timestamp) {
+        this.agentInstanceId = agentInstanceId;
+        this.stateVersion = state.version();
+        this.data = state.data();
+        this.timestamp = timestamp;
+    }
+    
+    @Override
+    public String checkpointId() {
+        return agentInstanceId + "@" + stateVersion;
+    }
+    
+    public String agentInstanceId() {
+        return agentInstanceId;
+    }
+    
+    @Override
+    public long stateVersion() {
+        return stateVersion;
+    }
+    
+    @Override
+    public Instant timestamp() {
+        return timestamp;
+    }
+    
+    @Override
+    public Map<String, String> metadata() {
+        return Map.of(AGENT_INSTANCE_ID, agentInstanceId);
+    }
+    
+    @Override
+    public String snapshotRef() {
+        return null;
+    }
+    
+    /**
+     * Returns the checkpointed state data.
+     */
+    Object data() {
+        return data;
+    }
+    
+    /**
+     * Returns whether this checkpoint can be restored to an agent instance.
+     */
+    boolean belongsTo(String agentInstanceId) {
+        return this.agentInstanceId.equals(agentInstanceId);
+    }
+    
+    @Override
+    public String toString() {
+        return "StateCheckpoint{checkpointId=" + checkpointId() + ", timestamp=" + timestamp + "}";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,212 @@
+package io.spiralserver.state.hot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Structural difference between two states in the JSON object model.
+ * 
+ * <p>Objects ({@code Map}s) are compared key by key: added and changed keys are set,
+ * missing keys are removed, and a key whose old and new values are both objects is
+ * described by a nested delta. Any other change (lists, scalars, a change of type) sets
+ * the new value as a whole. A delta therefore holds only the changed sub-trees, and
+ * unchanged sub-trees are skipped by identity before they are compared by value.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable</li>
+ *   <li>{@code between(a, b).applyTo(a)} is equal to {@code b}</li>
+ *   <li>{@link #applyTo} never modifies its argument; changed objects are copied</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class StateDelta {
+    
+    private static final String REPLACE = "replace";
+    private static final String SET = "set";
+    private static final String REMOVE = "remove";
+    private static final String NESTED = "nested";
+    private static final StateDelta EMPTY = new StateDelta(null, false, Map.of(), List.of(), Map.of());
+    
+    private final Object replacement;
+    private final boolean replaces;
+    private final Map<String, Object> set;
+    private final List<String> removed;
+    private final Map<String, StateDelta> nested;
+    
+    private StateDelta(
+        Object replacement,
+        boolean replaces,
+        Map<String, Object> set,
+        List<String> removed,
+        Map<String, StateDelta> nested
+    ) {
+        this.replacement = replacement;
+        this.replaces = replaces;
+        this.set = set;
+        this.removed = removed;
+        this.nested = nested;
+    }
+    
+    /**
+     * Computes the delta that turns one state into another.
+     * 
+     * @param from previous state data
+     * @param to new state data
+     * @return delta, empty if the states are equal
+     */
+    public static StateDelta between(Object from, Object to) {
+        if (from == to || Objects.equals(from, to)) {
+            return EMPTY;
+        }
+        if (!(from instanceof Map<?, ?> before) || !(to instanceof Map<?, ?> after)) {
+            return new StateDelta(to, true, Map.of(), List.of(), Map.of());
+        }
+        Map<String, Object> set = new LinkedHashMap<>();
+        List<String> removed = new ArrayList<>();
+        Map<String, StateDelta> nested = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : after.entrySet()) {
+            String key = String.valueOf(entry.getKey());
+            Object value = entry.getValue();
+            if (!before.containsKey(entry.getKey())) {
+                set.put(key, value);
+                continue;
+            }
+            Object previous = before.get(entry.getKey());
+            if (previous == value || Objects.equals(previous, value)) {
+                continue;
+            }
+            if (previous instanceof Map && value instanceof Map) {
+                nested.put(key, between(previous, value));
+            } else {
+                set.put(key, value);
+            }
+        }
+        for (Object key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                removed.add(String.valueOf(key));
+            }
+        }
+        return new StateDelta(null, false, Collections.unmodifiableMap(set),
+            Collections.unmodifiableList(removed), Collections.unmodifiableMap(nested));
+    }
+    
+    /**
+     * Applies this delta to a state.
+     * 
+     * @param base state data the delta was computed from
+     * @return new state data
+     * @throws IllegalArgumentException if the delta describes an object but the base is not one
+     */
+    public Object applyTo(Object base) {
+        if (replaces) {
+            return replacement;
+        }
+        if (isEmpty()) {
+            return base;
+        }
+        if (!(base instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("Delta applies to an object, not " + describe(base));
+        }
+        Map<Object, Object> result = new LinkedHashMap<>(map);
+        removed.forEach(result::remove);
+        result.putAll(set);
+        nested.forEach((key, delta) -> result.put(key, delta.applyTo(map.get(key))));
+        return result;
+    }
+    
+    /**
+     * Returns whether this delta changes nothing.
+     * 
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return !replaces && set.isEmpty() && removed.isEmpty() && nested.isEmpty();
+    }
+    
+    /**
+     * Returns this delta in the JSON object model, e.g. to encode it with a
+     * {@link io.spiralserver.state.DataCodec}.
+     * 
+     * @return {@code {"replace": value}} or {@code {"set": {..}, "remove": [..], "nested": {..}}}
+     */
+    public Map<String, Object> toData() {
+        if (replaces) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put(REPLACE, replacement); // may be null
+            return data;
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        if (!set.isEmpty()) {
+            data.put(SET, set);
+        }
+        if (!removed.isEmpty()) {
+            data.put(REMOVE, removed);
+        }
+        if (!nested.isEmpty()) {
+            Map<String, Object> children = new LinkedHashMap<>();
+            nested.forEach((key, delta) -> children.put(key, delta.toData()));
+            data.put(NESTED, children);
+        }
+        return data;
+    }
+    
+    /**
+     * Reads a delta from the form produced by {@link #toData()}.
+     * 
+     * @param data delta data
+     * @return delta
+     * @throws IllegalArgumentException if the data is not a delta
+     */
+    @SuppressWarnings("unchecked")
+    public static StateDelta fromData(Object data) {
+        if (!(data instanceof Map<?, ?>)) {
+            throw new IllegalArgumentException("Delta must be an object, not " + describe(data));
+        }
+        Map<String, Object> map = (Map<String, Object>) data;
+        if (map.containsKey(REPLACE)) {
+            return new StateDelta(map.get(REPLACE), true, Map.of(), List.of(), Map.of());
+        }
+        try {
+            Map<String, Object> set = (Map<String, Object>) map.getOrDefault(SET, Map.of());
+            List<String> removed = (List<String>) map.getOrDefault(REMOVE, List.of());
+            Map<String, StateDelta> nested = new LinkedHashMap<>();
+            ((Map<String, Object>) map.getOrDefault(NESTED, Map.of()))
+                .forEach((key, child) -> nested.put(key, fromData(child)));
+            return new StateDelta(null, false, Collections.unmodifiableMap(new LinkedHashMap<>(set)),
+                List.copyOf(removed), Collections.unmodifiableMap(nested));
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException("Malformed delta: " + e.getMessage(), e);
+        }
+    }
+    
+    private static String describe(Object value) {
+        return value == null ? "null" : value.getClass().getSimpleName();
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StateDelta that = (StateDelta) o;
+        return replaces == that.replaces && Objects.equals(replacement, that.replacement)
+            && set.equals(that.set) && removed.equals(that.removed) && nested.equals(that.nested);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(replacement, replaces, set, removed, nested);
+    }
+    
+    @Override
+    public String toString() {
+        return replaces
+            ? "StateDelta{replace}"
+            : "StateDelta{set=" + set.keySet() + ", removed=" + removed + ", nested=" + nested.keySet() + "}";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,211 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.observability.Metrics;
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.JsonDataCodec;
+
+import java.time.Clock;
+import java.util.Optional;
+
+/**
+ * Configuration of a {@link TieredHotState}.
+ * 
+ * <p>The memory tier is bounded either by entry count or by the encoded size of the
+ * resident states; setting one bound replaces the other.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable; {@code with*} methods return modified copies</li>
+ *   <li>All values are validated when set</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class TieredConfig {
+    
+    public static final long DEFAULT_MAX_ENTRIES = 100_000;
+    public static final int DEFAULT_SEGMENTS = 16;
+    
+    private long maxEntries = DEFAULT_MAX_ENTRIES;
+    private long maxBytes; // 0 when bounded by entries
+    private int segments = DEFAULT_SEGMENTS;
+    private int coldChunkBytes = OffHeapHotState.DEFAULT_CHUNK_BYTES;
+    private DataCodec dataCodec = new JsonDataCodec();
+    private Clock clock = Clock.systemUTC();
+    private Metrics metrics; // null disables metrics
+    
+    private TieredConfig() {
+    }
+    
+    private TieredConfig(TieredConfig other) {
+        this.maxEntries = other.maxEntries;
+        this.maxBytes = other.maxBytes;
+        this.segments = other.segments;
+        this.coldChunkBytes = other.coldChunkBytes;
+        this.dataCodec = other.dataCodec;
+        this.clock = other.clock;
+        this.metrics = other.metrics;
+    }
+    
+    /**
+     * Creates a configuration with default settings.
+     * 
+     * @return configuration
+     */
+    public static TieredConfig defaults() {
+        return new TieredConfig();
+    }
+    
+    /**
+     * Bounds the memory tier by the number of resident agent instances.
+     * 
+     * @param maxEntries resident entry bound
+     * @return modified copy
+     */
+    public TieredConfig withMaxEntries(long maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        TieredConfig copy = new TieredConfig(this);
+        copy.maxEntries = maxEntries;
+        copy.maxBytes = 0;
+        return copy;
+    }
+    
+    /**
+     * Bounds the memory tier by the total encoded size of the resident states.
+     * 
+     * @param maxBytes resident byte bound
+     * @return modified copy
+     */
+    public TieredConfig withMaxBytes(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Max bytes must be positive");
+        }
+        TieredConfig copy = new TieredConfig(this);
+        copy.maxBytes = maxBytes;
+        copy.maxEntries = 0;
+        return copy;
+    }
+    
+    /**
+     * Sets the number of independently locked segments of the memory tier. Each segment
+     * runs its own eviction over an equal share of the bound.
+     * 
+     * @param segments segment count
+     * @return modified copy
+     */
+    public TieredConfig withSegments(int segments) {
+        if (segments <= 0) {
+            throw new IllegalArgumentException("Segments must be positive");
+        }
+        TieredConfig copy = new TieredConfig(this);
+        copy.segments = segments;
+        return copy;
+    }
+    
+    /**
+     * Sets the chunk size of the cold tier's spill file.
+     * 
+     * @param coldChunkBytes chunk size, at least 4096
+     * @return modified copy
+     */
+    public TieredConfig withColdChunkBytes(int coldChunkBytes) {
+        if (coldChunkBytes < 4096) {
+            throw new IllegalArgumentException("Cold chunk bytes must be at least 4096");
+        }
+        TieredConfig copy = new TieredConfig(this);
+        copy.coldChunkBytes = coldChunkBytes;
+        return copy;
+    }
+    
+    /**
+     * Sets the codec states are encoded with in the cold tier (and weighed with when
+     * bounded by bytes).
+     * 
+     * @param dataCodec data codec
+     * @return modified copy
+     */
+    public TieredConfig withDataCodec(DataCodec dataCodec) {
+        if (dataCodec == null) {
+            throw new IllegalArgumentException("Data codec cannot be null");
+        }
+        TieredConfig copy = new TieredConfig(this);
+        copy.dataCodec = dataCodec;
+        return copy;
+    }
+    
+    /**
+     * Sets the clock for modification and checkpoint times.
+     * 
+     * @param clock clock
+     * @return modified copy
+     */
+    public TieredConfig withClock(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        TieredConfig copy = new TieredConfig(this);
+        copy.clock = clock;
+        return copy;
+    }
+    
+    /**
+     * Reports tier metrics ({@code hotstate.tiered.*}).
+     * 
+     * @param metrics metrics sink
+     * @return modified copy
+     */
+    public TieredConfig withMetrics(Metrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null");
+        }
+        TieredConfig copy = new TieredConfig(this);
+        copy.metrics = metrics;
+        return copy;
+    }
+    
+    /**
+     * @return resident entry bound, 0 when bounded by bytes
+     */
+    public long maxEntries() {
+        return maxEntries;
+    }
+    
+    /**
+     * @return resident byte bound, 0 when bounded by entries
+     */
+    public long maxBytes() {
+        return maxBytes;
+    }
+    
+    public boolean boundedByBytes() {
+        return maxBytes > 0;
+    }
+    
+    public int segments() {
+        return segments;
+    }
+    
+    public int coldChunkBytes() {
+        return coldChunkBytes;
+    }
+    
+    public DataCodec dataCodec() {
+        return dataCodec;
+    }
+    
+    public Clock clock() {
+        return clock;
+    }
+    
+    public Optional<Metrics> metrics() {
+        return Optional.ofNullable(metrics);
+    }
+    
+    @Override
+    public String toString() {
+        return "TieredConfig{" + (boundedByBytes() ? "maxBytes=" + maxBytes : "maxEntries=" + maxEntries)
+            + ", segments=" + segments + "}";
+    }
+}
\ No newline at end of file
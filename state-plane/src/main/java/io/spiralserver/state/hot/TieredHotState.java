@@ -0,0 +1,579 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.observability.Metrics;
+import io.spiralserver.state.HotState;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * Two-tier {@link HotState}: a bounded memory tier in front of a memory-mapped cold tier.
+ * 
+ * <p>The memory tier keeps states as objects and is bounded by entry count or by encoded
+ * bytes ({@link TieredConfig}). When it is full, states are encoded and demoted to the
+ * cold tier, an {@link OffHeapHotState} whose chunks are mapped from a spill file, so
+ * the OS can page them out. A read that misses memory removes the state from the cold
+ * tier and promotes it back. A state lives in exactly one tier, with its version and
+ * modification time preserved across moves.
+ * 
+ * <p>Eviction follows ARC (adaptive replacement cache). Each segment of the memory tier
+ * keeps a recency list (states seen once since they were admitted) and a frequency list
+ * (states seen again), plus ghost lists remembering the keys recently evicted from each.
+ * A miss on a ghost key shifts the target size of the recency list towards the list that
+ * would have kept it. A one-off scan therefore only displaces other once-seen states,
+ * while the frequently used ones stay resident. Sizes are weights: 1 per state when
+ * bounded by entries, the encoded data length when bounded by bytes.
+ * 
+ * <p>Reads are counted as hits (served from memory) or misses (everything else, of
+ * which promotions are the ones served from the cold tier). Counts are available from
+ * the accessors and, if configured, reported as the counters
+ * {@code hotstate.tiered.hits}, {@code .misses}, {@code .promotions} and
+ * {@code .demotions}.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>An absent agent instance has version 0; every change increments the version by one</li>
+ *   <li>Operations on one agent instance are serialized by its segment lock; batches
+ *       take each segment lock once</li>
+ *   <li>The spill file is scratch space, deleted on close; durability is the job of
+ *       {@link WriteBehindHotState}</li>
+ *   <li>Thread-safe</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class TieredHotState implements HotState, Closeable {
+    
+    private final TieredConfig config;
+    private final OffHeapHotState cold;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder promotions = new LongAdder();
+    private final LongAdder demotions = new LongAdder();
+    
+    /**
+     * Creates a tiered store with an empty cold tier.
+     * 
+     * @param spillFile file backing the cold tier (replaced if present, deleted on close)
+     * @param config configuration
+     * @throws java.io.UncheckedIOException if the spill file cannot be created
+     */
+    public TieredHotState(Path spillFile, TieredConfig config) {
+        if (spillFile == null) {
+            throw new IllegalArgumentException("Spill file cannot be null");
+        }
+        if (config == null) {
+            throw new IllegalArgumentException("Config cannot be null");
+        }
+        this.config = config;
+        this.cold = OffHeapHotState.mapped(spillFile, config.dataCodec(), config.clock(),
+            OffHeapHotState.defaultShardCount(), config.coldChunkBytes());
+        long bound = config.boundedByBytes() ? config.maxBytes() : config.maxEntries();
+        long segmentBound = Math.max(1, (bound + config.segments() - 1) / config.segments());
+        this.segments = new Segment[config.segments()];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(segmentBound);
+        }
+    }
+    
+    @Override
+    public Optional<State> read(String agentInstanceId) {
+        ConcurrentHotState.requireId(agentInstanceId);
+        Segment segment = segmentFor(agentInstanceId);
+        segment.lock();
+        try {
+            return Optional.ofNullable(read(segment, agentInstanceId));
+        } finally {
+            segment.unlock();
+        }
+    }
+    
+    /**
+     * Reads several agent instances taking each segment lock once.
+     */
+    @Override
+    public Map<String, State> readAll(Collection<String> agentInstanceIds) {
+        ConcurrentHotState.requireIds(agentInstanceIds);
+        List<String> ids = new ArrayList<>(agentInstanceIds);
+        ids.forEach(ConcurrentHotState::requireId);
+        State[] found = new State[ids.size()];
+        int[] order = bySegment(ids);
+        for (int start = 0, end; start < order.length; start = end) {
+            Segment segment = segmentFor(ids.get(order[start]));
+            end = runEnd(ids, order, start);
+            segment.lock();
+            try {
+                for (int i = start; i < end; i++) {
+                    found[order[i]] = read(segment, ids.get(order[i]));
+                }
+            } finally {
+                segment.unlock();
+            }
+        }
+        Map<String, State> states = new LinkedHashMap<>(Math.max(16, ids.size() * 2));
+        for (int i = 0; i < found.length; i++) {
+            if (found[i] != null) {
+                states.put(ids.get(i), found[i]);
+            }
+        }
+        return states;
+    }
+    
+    /**
+     * Reads from memory, promoting from the cold tier on a miss. The caller holds the
+     * segment lock.
+     * 
+     * @return state, or null if absent
+     */
+    private VersionedState read(Segment segment, String agentInstanceId) {
+        HotEntry entry = segment.touch(agentInstanceId);
+        if (entry != null) {
+            count(hits, "hotstate.tiered.hits");
+            return entry.state;
+        }
+        count(misses, "hotstate.tiered.misses");
+        OffHeapHotState.EncodedState encoded = cold.readEncoded(agentInstanceId, true);
+        if (encoded == null) {
+            return null;
+        }
+        count(promotions, "hotstate.tiered.promotions");
+        VersionedState state = cold.decode(encoded);
+        segment.admit(agentInstanceId, new HotEntry(state, encoded.data(), weightOf(encoded.data())));
+        return state;
+    }
+    
+    @Override
+    public boolean update(String agentInstanceId, long expectedVersion, State newState) {
+        ConcurrentHotState.requireId(agentInstanceId);
+        Object data = ConcurrentHotState.requireData(newState);
+        Segment segment = segmentFor(agentInstanceId);
+        segment.lock();
+        try {
+            if (currentVersion(segment, agentInstanceId) != expectedVersion) {
+                return false;
+            }
+            write(segment, agentInstanceId, expectedVersion, data);
+            return true;
+        } finally {
+            segment.unlock();
+        }
+    }
+    
+    /**
+     * Applies a batch taking each involved segment lock once. An atomic batch holds the
+     * locks of all its segments, taken in segment order, while it checks every version
+     * and writes.
+     */
+    @Override
+    public List<Boolean> updateAll(List<Update> updates, BatchMode mode) {
+        ConcurrentHotState.requireBatch(updates, mode);
+        List<String> ids = new ArrayList<>(updates.size());
+        for (Update update : updates) {
+            ids.add(update.agentInstanceId());
+        }
+        int[] order = bySegment(ids);
+        Boolean[] applied = new Boolean[ids.size()];
+        if (mode == BatchMode.BEST_EFFORT) {
+            for (int start = 0, end; start < order.length; start = end) {
+                Segment segment = segmentFor(ids.get(order[start]));
+                end = runEnd(ids, order, start);
+                segment.lock();
+                try {
+                    for (int i = start; i < end; i++) {
+                        Update update = updates.get(order[i]);
+                        applied[order[i]] = currentVersion(segment, update.agentInstanceId()) == update.expectedVersion();
+                        if (applied[order[i]]) {
+                            write(segment, update.agentInstanceId(), update.expectedVersion(), update.newState().data());
+                        }
+                    }
+                } finally {
+                    segment.unlock();
+                }
+            }
+            return Arrays.asList(applied);
+        }
+        List<Segment> locked = new ArrayList<>();
+        try {
+            for (int start = 0, end; start < order.length; start = end) {
+                end = runEnd(ids, order, start);
+                Segment segment = segmentFor(ids.get(order[start]));
+                segment.lock();
+                locked.add(segment);
+            }
+            boolean matches = true;
+            for (Update update : updates) {
+                matches &= currentVersion(segmentFor(update.agentInstanceId()), update.agentInstanceId())
+                    == update.expectedVersion();
+            }
+            if (matches) {
+                for (Update update : updates) {
+                    write(segmentFor(update.agentInstanceId()), update.agentInstanceId(),
+                        update.expectedVersion(), update.newState().data());
+                }
+            }
+            Arrays.fill(applied, matches);
+            return Arrays.asList(applied);
+        } finally {
+            for (Segment segment : locked) {
+                segment.unlock();
+            }
+        }
+    }
+    
+    @Override
+    public long upsert(String agentInstanceId, State state) {
+        ConcurrentHotState.requireId(agentInstanceId);
+        Object data = ConcurrentHotState.requireData(state);
+        Segment segment = segmentFor(agentInstanceId);
+        segment.lock();
+        try {
+            return write(segment, agentInstanceId, currentVersion(segment, agentInstanceId), data);
+        } finally {
+            segment.unlock();
+        }
+    }
+    
+    /**
+     * Checkpoints the current state of an agent instance.
+     * 
+     * @throws IllegalArgumentException if the agent instance has no state
+     */
+    @Override
+    public Checkpoint checkpoint(String agentInstanceId) {
+        State state = read(agentInstanceId)
+            .orElseThrow(() -> new IllegalArgumentException("No state for agent instance: " + agentInstanceId));
+        return new StateCheckpoint(agentInstanceId, state, config.clock().instant());
+    }
+    
+    /**
+     * Restores a checkpoint taken from the same agent instance as a new version.
+     * 
+     * @return false if the checkpoint is not a {@link StateCheckpoint} of this agent instance
+     */
+    @Override
+    public boolean restore(String agentInstanceId, Checkpoint checkpoint) {
+        ConcurrentHotState.requireId(agentInstanceId);
+        if (!(checkpoint instanceof StateCheckpoint stateCheckpoint) || !stateCheckpoint.belongsTo(agentInstanceId)) {
+            return false;
+        }
+        Segment segment = segmentFor(agentInstanceId);
+        segment.lock();
+        try {
+            write(segment, agentInstanceId, currentVersion(segment, agentInstanceId), stateCheckpoint.data());
+        } finally {
+            segment.unlock();
+        }
+        return true;
+    }
+    
+    /**
+     * Returns the version of an agent instance in whichever tier holds it.
+     */
+    private long currentVersion(Segment segment, String agentInstanceId) {
+        HotEntry entry = segment.get(agentInstanceId);
+        return entry != null ? entry.state.version() : cold.version(agentInstanceId);
+    }
+    
+    /**
+     * Stores the next version in the memory tier and drops any cold copy.
+     * 
+     * @return new version
+     */
+    private long write(Segment segment, String agentInstanceId, long version, Object data) {
+        VersionedState next = new VersionedState(version + 1, data, config.clock().instant());
+        byte[] encoded = config.boundedByBytes() ? config.dataCodec().encode(data) : null;
+        HotEntry entry = new HotEntry(next, encoded, weightOf(encoded));
+        if (segment.get(agentInstanceId) != null) {
+            segment.replace(agentInstanceId, entry);
+        } else {
+            if (version > 0) {
+                cold.readEncoded(agentInstanceId, true);
+            }
+            segment.admit(agentInstanceId, entry);
+        }
+        return next.version();
+    }
+    
+    private long weightOf(byte[] encoded) {
+        return config.boundedByBytes() ? encoded.length : 1;
+    }
+    
+    private void demote(String agentInstanceId, HotEntry entry) {
+        byte[] data = entry.encoded != null ? entry.encoded : config.dataCodec().encode(entry.state.data());
+        cold.put(agentInstanceId, new OffHeapHotState.EncodedState(
+            entry.state.version(), entry.state.lastModified(), data
+        ));
+        count(demotions, "hotstate.tiered.demotions");
+    }
+    
+    private void count(LongAdder counter, String metric) {
+        counter.increment();
+        Optional<Metrics> metrics = config.metrics();
+        if (metrics.isPresent()) {
+            metrics.get().incrementCounter(metric, 1, Map.of());
+        }
+    }
+    
+    private Segment segmentFor(String agentInstanceId) {
+        return segments[segmentIndex(agentInstanceId)];
+    }
+    
+    private int segmentIndex(String agentInstanceId) {
+        int h = agentInstanceId.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), segments.length);
+    }
+    
+    /**
+     * Returns the positions of the ids sorted by segment, keeping input order within a
+     * segment.
+     */
+    private int[] bySegment(List<String> ids) {
+        return IntStream.range(0, ids.size()).boxed()
+            .sorted(Comparator.comparingInt(i -> segmentIndex(ids.get(i))))
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+    
+    private int runEnd(List<String> ids, int[] order, int start) {
+        int segment = segmentIndex(ids.get(order[start]));
+        int end = start + 1;
+        while (end < order.length && segmentIndex(ids.get(order[end])) == segment) {
+            end++;
+        }
+        return end;
+    }
+    
+    /**
+     * Returns the number of agent instances with state in either tier.
+     * 
+     * @return agent instance count
+     */
+    public long size() {
+        return residentCount() + cold.size();
+    }
+    
+    /**
+     * Returns the number of agent instances held in the memory tier.
+     * 
+     * @return resident count
+     */
+    public long residentCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                count += segment.t1.size() + segment.t2.size();
+            } finally {
+                segment.unlock();
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Returns the total weight of the memory tier: entries, or encoded bytes when
+     * bounded by bytes.
+     * 
+     * @return resident weight
+     */
+    public long residentWeight() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                weight += segment.t1Weight + segment.t2Weight;
+            } finally {
+                segment.unlock();
+            }
+        }
+        return weight;
+    }
+    
+    /**
+     * Returns the number of agent instances held in the cold tier.
+     * 
+     * @return cold count
+     */
+    public long coldCount() {
+        return cold.size();
+    }
+    
+    public long hits() {
+        return hits.sum();
+    }
+    
+    public long misses() {
+        return misses.sum();
+    }
+    
+    public long promotions() {
+        return promotions.sum();
+    }
+    
+    public long demotions() {
+        return demotions.sum();
+    }
+    
+    public TieredConfig config() {
+        return config;
+    }
+    
+    /**
+     * Releases the cold tier and deletes its spill file; all state is discarded.
+     */
+    @Override
+    public void close() throws IOException {
+        cold.close();
+    }
+    
+    @Override
+    public String toString() {
+        return "TieredHotState{resident=" + residentCount() + ", cold=" + cold.size() + "}";
+    }
+    
+    private static <V> Map.Entry<String, V> removeEldest(LinkedHashMap<String, V> list) {
+        Iterator<Map.Entry<String, V>> it = list.entrySet().iterator();
+        Map.Entry<String, V> eldest = it.next();
+        Map.Entry<String, V> removed = Map.entry(eldest.getKey(), eldest.getValue());
+        it.remove();
+        return removed;
+    }
+    
+    /**
+     * Resident state with its weight; the encoded form is kept when bounded by bytes.
+     */
+    private record HotEntry(VersionedState state, byte[] encoded, long weight) {
+    }
+    
+    /**
+     * ARC lists over one share of the memory bound, guarded by the segment itself.
+     */
+    private final class Segment extends ReentrantLock {
+        private final long capacity;
+        private final LinkedHashMap<String, HotEntry> t1 = new LinkedHashMap<>(); // seen once, oldest first
+        private final LinkedHashMap<String, HotEntry> t2 = new LinkedHashMap<>(); // seen again, oldest first
+        private final LinkedHashMap<String, Long> b1 = new LinkedHashMap<>(); // ghosts evicted from t1
+        private final LinkedHashMap<String, Long> b2 = new LinkedHashMap<>(); // ghosts evicted from t2
+        private long t1Weight;
+        private long t2Weight;
+        private long b1Weight;
+        private long b2Weight;
+        private long target; // ARC's p: target weight of t1
+        
+        Segment(long capacity) {
+            this.capacity = capacity;
+        }
+        
+        HotEntry get(String key) {
+            HotEntry entry = t1.get(key);
+            return entry != null ? entry : t2.get(key);
+        }
+        
+        /**
+         * Moves a resident entry to the most recent end of t2.
+         * 
+         * @return the entry, or null if not resident
+         */
+        HotEntry touch(String key) {
+            HotEntry entry = t1.remove(key);
+            if (entry != null) {
+                t1Weight -= entry.weight;
+            } else if ((entry = t2.remove(key)) != null) {
+                t2Weight -= entry.weight;
+            } else {
+                return null;
+            }
+            t2.put(key, entry);
+            t2Weight += entry.weight;
+            return entry;
+        }
+        
+        /**
+         * Replaces a resident entry, counting the write as a use.
+         */
+        void replace(String key, HotEntry entry) {
+            touch(key);
+            t2Weight += entry.weight - t2.put(key, entry).weight;
+            evict(false);
+        }
+        
+        /**
+         * Admits a non-resident entry, adapting the t1 target if the key is a ghost.
+         */
+        void admit(String key, HotEntry entry) {
+            Long ghost;
+            if ((ghost = b1.remove(key)) != null) {
+                b1Weight -= ghost;
+                long delta = b1Weight >= b2Weight || b1Weight == 0 ? entry.weight : entry.weight * b2Weight / b1Weight;
+                target = Math.min(capacity, target + delta);
+                t2.put(key, entry);
+                t2Weight += entry.weight;
+                evict(false);
+            } else if ((ghost = b2.remove(key)) != null) {
+                b2Weight -= ghost;
+                long delta = b2Weight >= b1Weight || b2Weight == 0 ? entry.weight : entry.weight * b1Weight / b2Weight;
+                target = Math.max(0, target - delta);
+                t2.put(key, entry);
+                t2Weight += entry.weight;
+                evict(true);
+            } else {
+                t1.put(key, entry);
+                t1Weight += entry.weight;
+                evict(false);
+            }
+            trimGhosts();
+        }
+        
+        /**
+         * Demotes the oldest entries until the segment fits its share, keeping at least
+         * one entry.
+         * 
+         * @param ghostOfT2 true if the miss that triggered eviction hit a t2 ghost
+         */
+        private void evict(boolean ghostOfT2) {
+            while (t1Weight + t2Weight > capacity && t1.size() + t2.size() > 1) {
+                boolean fromT1 = !t1.isEmpty()
+                    && (t1Weight > target || (ghostOfT2 && t1Weight == target) || t2.isEmpty());
+                Map.Entry<String, HotEntry> eldest = fromT1 ? removeEldest(t1) : removeEldest(t2);
+                long weight = eldest.getValue().weight;
+                if (fromT1) {
+                    t1Weight -= weight;
+                    b1.put(eldest.getKey(), weight);
+                    b1Weight += weight;
+                } else {
+                    t2Weight -= weight;
+                    b2.put(eldest.getKey(), weight);
+                    b2Weight += weight;
+                }
+                demote(eldest.getKey(), eldest.getValue());
+            }
+        }
+        
+        /**
+         * Keeps t1 plus its ghosts within one share, and all lists within two.
+         */
+        private void trimGhosts() {
+            while (t1Weight + b1Weight > capacity && !b1.isEmpty()) {
+                b1Weight -= removeEldest(b1).getValue();
+            }
+            while (t1Weight + t2Weight + b1Weight + b2Weight > 2 * capacity && !b2.isEmpty()) {
+                b2Weight -= removeEldest(b2).getValue();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.state.HotState;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Immutable {@link HotState.State} value.
+ * 
+ * <p>When passed to {@link HotState#update} or {@link HotState#upsert}, only the data is
+ * used; the store assigns the version and modification time.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable</li>
+ *   <li>Data is never null</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class VersionedState implements HotState.State {
+    
+    private final long version;
+    private final Object data;
+    private final Instant lastModified;
+    
+    /**
+     * Creates a state value.
+     * 
+     * @param version state version (non-negative)
+     * @param data state data
+     * @param lastModified modification time
+     */
+    public VersionedState(long version, Object data, Instant lastModified) {
+        if (version < 0) {
+            throw new IllegalArgumentException("Version must be non-negative");
+        }
+        if (data == null) {
+            throw new IllegalArgumentException("State data cannot be null");
+        }
+        if (lastModified == null) {
+            throw new IllegalArgumentException("Last modified time cannot be null");
+        }
+        this.version = version;
+        this.data = data;
+        this.lastModified = lastModified;
+    }
+    
+    /**
+     * Creates a state value to pass to {@link HotState#update} or {@link HotState#upsert}.
+     * 
+     * @param data state data
+     * @return state with version 0
+     */
+    public static VersionedState of(Object data) {
+        return new VersionedState(0, data, Instant.EPOCH);
+    }
+    
+    @Override
+    public long version() {
+        return version;
+    }
+    
+    @Override
+    public Object data() {
+        return data;
+    }
+    
+    @Override
+    public Instant lastModified() {
+        return lastModified;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        VersionedState that = (VersionedState) o;
+        return version == that.version && data.equals(that.data) && lastModified.equals(that.lastModified);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(version, data, lastModified);
+    }
+    
+    @Override
+    public String toString() {
+        return "VersionedState{version=" + version + ", lastModified=" + lastModified + "}";
+    }
+}
\ No newline at end of file
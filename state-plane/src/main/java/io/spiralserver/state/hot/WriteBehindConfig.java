@@ -0,0 +1,176 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.observability.Metrics;
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.JsonDataCodec;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Configuration of a {@link WriteBehindHotState}.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable; {@code with*} methods return modified copies</li>
+ *   <li>All values are validated when set</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class WriteBehindConfig {
+    
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+    public static final int DEFAULT_MAX_DIRTY_ENTRIES = 10_000;
+    public static final int DEFAULT_FLUSH_BATCH_ENTRIES = 1_000;
+    
+    private Duration flushInterval = DEFAULT_FLUSH_INTERVAL;
+    private int maxDirtyEntries = DEFAULT_MAX_DIRTY_ENTRIES;
+    private int flushBatchEntries = DEFAULT_FLUSH_BATCH_ENTRIES;
+    private DataCodec dataCodec = new JsonDataCodec();
+    private Clock clock = Clock.systemUTC();
+    private Metrics metrics; // null disables metrics
+    
+    private WriteBehindConfig() {
+    }
+    
+    private WriteBehindConfig(WriteBehindConfig other) {
+        this.flushInterval = other.flushInterval;
+        this.maxDirtyEntries = other.maxDirtyEntries;
+        this.flushBatchEntries = other.flushBatchEntries;
+        this.dataCodec = other.dataCodec;
+        this.clock = other.clock;
+        this.metrics = other.metrics;
+    }
+    
+    /**
+     * Creates a configuration with default settings.
+     * 
+     * @return configuration
+     */
+    public static WriteBehindConfig defaults() {
+        return new WriteBehindConfig();
+    }
+    
+    /**
+     * Sets the delay between two background flushes.
+     * 
+     * @param flushInterval delay between flushes
+     * @return modified copy
+     */
+    public WriteBehindConfig withFlushInterval(Duration flushInterval) {
+        if (flushInterval == null || flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Flush interval must be positive");
+        }
+        WriteBehindConfig copy = new WriteBehindConfig(this);
+        copy.flushInterval = flushInterval;
+        return copy;
+    }
+    
+    /**
+     * Sets how many agent instances may have unflushed changes at once. A write that
+     * reaches the bound flushes on the writing thread before it returns.
+     * 
+     * @param maxDirtyEntries dirty entry bound
+     * @return modified copy
+     */
+    public WriteBehindConfig withMaxDirtyEntries(int maxDirtyEntries) {
+        if (maxDirtyEntries <= 0) {
+            throw new IllegalArgumentException("Max dirty entries must be positive");
+        }
+        WriteBehindConfig copy = new WriteBehindConfig(this);
+        copy.maxDirtyEntries = maxDirtyEntries;
+        return copy;
+    }
+    
+    /**
+     * Sets how many states are written per batch of a flush.
+     * 
+     * @param flushBatchEntries states per batch
+     * @return modified copy
+     */
+    public WriteBehindConfig withFlushBatchEntries(int flushBatchEntries) {
+        if (flushBatchEntries <= 0) {
+            throw new IllegalArgumentException("Flush batch entries must be positive");
+        }
+        WriteBehindConfig copy = new WriteBehindConfig(this);
+        copy.flushBatchEntries = flushBatchEntries;
+        return copy;
+    }
+    
+    /**
+     * Sets the codec states are persisted with.
+     * 
+     * @param dataCodec data codec
+     * @return modified copy
+     */
+    public WriteBehindConfig withDataCodec(DataCodec dataCodec) {
+        if (dataCodec == null) {
+            throw new IllegalArgumentException("Data codec cannot be null");
+        }
+        WriteBehindConfig copy = new WriteBehindConfig(this);
+        copy.dataCodec = dataCodec;
+        return copy;
+    }
+    
+    /**
+     * Sets the clock flush lag is measured with.
+     * 
+     * @param clock clock
+     * @return modified copy
+     */
+    public WriteBehindConfig withClock(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        WriteBehindConfig copy = new WriteBehindConfig(this);
+        copy.clock = clock;
+        return copy;
+    }
+    
+    /**
+     * Reports flush metrics ({@code hotstate.flush.*}, {@code hotstate.dirty.entries}).
+     * 
+     * @param metrics metrics sink
+     * @return modified copy
+     */
+    public WriteBehindConfig withMetrics(Metrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null");
+        }
+        WriteBehindConfig copy = new WriteBehindConfig(this);
+        copy.metrics = metrics;
+        return copy;
+    }
+    
+    public Duration flushInterval() {
+        return flushInterval;
+    }
+    
+    public int maxDirtyEntries() {
+        return maxDirtyEntries;
+    }
+    
+    public int flushBatchEntries() {
+        return flushBatchEntries;
+    }
+    
+    public DataCodec dataCodec() {
+        return dataCodec;
+    }
+    
+    public Clock clock() {
+        return clock;
+    }
+    
+    public Optional<Metrics> metrics() {
+        return Optional.ofNullable(metrics);
+    }
+    
+    @Override
+    public String toString() {
+        return "WriteBehindConfig{flushInterval=" + flushInterval + ", maxDirtyEntries=" + maxDirtyEntries
+            + ", flushBatchEntries=" + flushBatchEntries + "}";
+    }
+}
\ No newline at end of file
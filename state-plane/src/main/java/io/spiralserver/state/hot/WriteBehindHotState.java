@@ -0,0 +1,493 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.observability.Metrics;
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.EventLog;
+import io.spiralserver.state.HotState;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Write-behind persistence around any {@link HotState}.
+ * 
+ * <p>Reads and writes are served by the wrapped (in-memory) store. A successful write
+ * only marks the agent instance dirty; repeated writes to the same agent before the
+ * next flush coalesce into one. Flushes run in the background every
+ * {@link WriteBehindConfig#flushInterval()} and write the current state of each dirty
+ * agent to a {@link FileStateStore} in batches, recording the event log cursor the
+ * states reflect.
+ * 
+ * <p><strong>Cursor contract:</strong> the {@code appliedCursor} supplier returns the
+ * position of the last event whose effects have been written to this store; events are
+ * applied one at a time, in log order. A flush holds off writes while it samples the
+ * cursor and reads the dirty states, so the flushed states include every event up to
+ * the recorded cursor. They may also include later events: the one being applied at
+ * that moment, or, when a flush fails after writing some batches, any event up to its
+ * cursor. Each state is therefore stored with the applied cursor at its last write.
+ * After a crash, {@link #recover} loads the flushed states and replays the events after
+ * the recorded cursor, skipping the writes a loaded state already reflects.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>At most {@link WriteBehindConfig#maxDirtyEntries()} agents are dirty at once; a
+ *       write reaching the bound flushes before it returns</li>
+ *   <li>One flush at a time; writes wait while it collects the dirty states, not while it
+ *       encodes or stores them</li>
+ *   <li>Versions are those of the wrapped store</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class WriteBehindHotState implements HotState, Closeable {
+    
+    private static final System.Logger LOGGER = System.getLogger(WriteBehindHotState.class.getName());
+    private static final int REPLAY_BATCH = 1024;
+    
+    private final HotState delegate;
+    private final FileStateStore store;
+    private final Supplier<Cursor> appliedCursor;
+    private final WriteBehindConfig config;
+    private final ConcurrentHashMap<String, Long> dirty = new ConcurrentHashMap<>(); // agent -> first dirty millis
+    private final ConcurrentHashMap<String, Long> writtenAt = new ConcurrentHashMap<>(); // agent -> write cursor
+    private final ReentrantReadWriteLock captureLock = new ReentrantReadWriteLock(); // writes share, capture excludes
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedEntries = new AtomicLong();
+    private volatile long lastFlushLagMillis;
+    private volatile Map<String, Long> recovered = Map.of(); // agent -> loaded applied sequence, while recovering
+    private volatile long replayingAfter; // cursor before the event being replayed
+    private ScheduledExecutorService flusher; // guarded by this
+    
+    /**
+     * Creates a write-behind store; call {@link #start()} to flush in the background.
+     * 
+     * @param delegate store serving reads and writes
+     * @param store durable store flushed to
+     * @param appliedCursor position of the last event applied to this store
+     * @param config write-behind configuration
+     */
+    public WriteBehindHotState(
+        HotState delegate,
+        FileStateStore store,
+        Supplier<Cursor> appliedCursor,
+        WriteBehindConfig config
+    ) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate cannot be null");
+        }
+        if (store == null) {
+            throw new IllegalArgumentException("State store cannot be null");
+        }
+        if (appliedCursor == null) {
+            throw new IllegalArgumentException("Applied cursor cannot be null");
+        }
+        if (config == null) {
+            throw new IllegalArgumentException("Config cannot be null");
+        }
+        this.delegate = delegate;
+        this.store = store;
+        this.appliedCursor = appliedCursor;
+        this.config = config;
+    }
+    
+    /**
+     * Starts flushing every {@link WriteBehindConfig#flushInterval()} on a daemon thread.
+     * 
+     * @return this store
+     * @throws IllegalStateException if already started
+     */
+    public synchronized WriteBehindHotState start() {
+        if (flusher != null) {
+            throw new IllegalStateException("Write-behind flusher already started");
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hot-state-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = config.flushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        return this;
+    }
+    
+    /**
+     * Loads the flushed states into the wrapped store and replays the events after the
+     * recorded cursor. Call before serving traffic and before {@link #start()}.
+     * 
+     * <p>The loaded states get new versions in the wrapped store. {@code apply} must
+     * apply an event through this store (so the replayed changes are flushed again) and
+     * advance the applied cursor. While the event after cursor {@code c} is replayed,
+     * writes to an agent whose loaded state was written at cursor {@code c} or later are
+     * skipped and reported as applied, since that state already reflects the event.
+     * 
+     * @param eventLog log to replay from
+     * @param apply applies one event
+     * @return cursor of the last replayed event
+     */
+    public Cursor recover(EventLog eventLog, Consumer<EventLog.Event> apply) {
+        if (eventLog == null) {
+            throw new IllegalArgumentException("Event log cannot be null");
+        }
+        if (apply == null) {
+            throw new IllegalArgumentException("Apply function cannot be null");
+        }
+        Map<String, Long> loaded = new HashMap<>();
+        store.forEach(state -> {
+            delegate.upsert(state.agentInstanceId(), VersionedState.of(config.dataCodec().decode(state.data())));
+            loaded.put(state.agentInstanceId(), state.appliedSequence());
+        });
+        Cursor cursor = store.cursor();
+        recovered = loaded;
+        try {
+            while (true) {
+                List<EventLog.Event> events = eventLog.read(cursor, REPLAY_BATCH);
+                long after = cursor.sequence();
+                for (EventLog.Event event : events) {
+                    replayingAfter = after;
+                    apply.accept(event);
+                    after = event.sequence();
+                }
+                if (events.isEmpty()) {
+                    return cursor;
+                }
+                cursor = new Cursor(after);
+            }
+        } finally {
+            recovered = Map.of();
+        }
+    }
+    
+    /**
+     * Returns whether the loaded state of an agent instance already reflects the event
+     * being replayed; always false outside {@link #recover}.
+     */
+    private boolean replayed(String agentInstanceId) {
+        Long appliedSequence = recovered.get(agentInstanceId);
+        return appliedSequence != null && appliedSequence >= replayingAfter;
+    }
+    
+    @Override
+    public Optional<State> read(String agentInstanceId) {
+        return delegate.read(agentInstanceId);
+    }
+    
+    @Override
+    public boolean update(String agentInstanceId, long expectedVersion, State newState) {
+        boolean updated;
+        captureLock.readLock().lock();
+        try {
+            if (replayed(agentInstanceId)) {
+                return true;
+            }
+            updated = delegate.update(agentInstanceId, expectedVersion, newState);
+            if (updated) {
+                markDirty(agentInstanceId);
+            }
+        } finally {
+            captureLock.readLock().unlock();
+        }
+        flushIfFull();
+        return updated;
+    }
+    
+    /**
+     * Applies the batch to the wrapped store and marks the updated agent instances dirty,
+     * checking the dirty bound once for the whole batch.
+     */
+    @Override
+    public List<Boolean> updateAll(List<Update> updates, BatchMode mode) {
+        List<Boolean> applied;
+        captureLock.readLock().lock();
+        try {
+            List<Update> pending = updates;
+            if (!recovered.isEmpty() && updates != null) {
+                pending = new ArrayList<>(updates.size());
+                for (Update update : updates) {
+                    if (!replayed(update.agentInstanceId())) {
+                        pending.add(update);
+                    }
+                }
+            }
+            List<Boolean> results = delegate.updateAll(pending, mode);
+            applied = new ArrayList<>(results.size());
+            Iterator<Boolean> result = results.iterator();
+            for (Update update : updates) {
+                if (pending != updates && replayed(update.agentInstanceId())) {
+                    applied.add(true);
+                } else if (result.next()) {
+                    applied.add(true);
+                    markDirty(update.agentInstanceId());
+                } else {
+                    applied.add(false);
+                }
+            }
+        } finally {
+            captureLock.readLock().unlock();
+        }
+        flushIfFull();
+        return applied;
+    }
+    
+    @Override
+    public Map<String, State> readAll(Collection<String> agentInstanceIds) {
+        return delegate.readAll(agentInstanceIds);
+    }
+    
+    @Override
+    public long upsert(String agentInstanceId, State state) {
+        long version;
+        captureLock.readLock().lock();
+        try {
+            if (replayed(agentInstanceId)) {
+                return delegate.read(agentInstanceId).map(State::version).orElse(0L);
+            }
+            version = delegate.upsert(agentInstanceId, state);
+            markDirty(agentInstanceId);
+        } finally {
+            captureLock.readLock().unlock();
+        }
+        flushIfFull();
+        return version;
+    }
+    
+    @Override
+    public Checkpoint checkpoint(String agentInstanceId) {
+        return delegate.checkpoint(agentInstanceId);
+    }
+    
+    @Override
+    public boolean restore(String agentInstanceId, Checkpoint checkpoint) {
+        boolean restored;
+        captureLock.readLock().lock();
+        try {
+            if (replayed(agentInstanceId)) {
+                return true;
+            }
+            restored = delegate.restore(agentInstanceId, checkpoint);
+            if (restored) {
+                markDirty(agentInstanceId);
+            }
+        } finally {
+            captureLock.readLock().unlock();
+        }
+        flushIfFull();
+        return restored;
+    }
+    
+    /**
+     * Records a write; called holding the capture read lock, so that a flush collects the
+     * state together with the cursor recorded for it.
+     */
+    private void markDirty(String agentInstanceId) {
+        writes.incrementAndGet();
+        dirty.putIfAbsent(agentInstanceId, config.clock().millis());
+        writtenAt.merge(agentInstanceId, appliedCursor.get().sequence(), Math::max);
+    }
+    
+    private void flushIfFull() {
+        if (dirty.size() >= config.maxDirtyEntries()) {
+            flush();
+        }
+    }
+    
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Hot state flush failed", e);
+        }
+    }
+    
+    /**
+     * Writes the current state of every dirty agent instance to the file store.
+     * 
+     * @return number of states written
+     * @throws java.io.UncheckedIOException if the file store cannot be written; the
+     *         agents not yet written stay dirty
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            Cursor cursor;
+            List<Captured> captured;
+            captureLock.writeLock().lock();
+            try {
+                cursor = appliedCursor.get(); // no write in flight: every event up to it is in the states read
+                captured = new ArrayList<>(dirty.size());
+                for (Map.Entry<String, Long> entry : dirty.entrySet()) {
+                    String agentInstanceId = entry.getKey();
+                    captured.add(new Captured(agentInstanceId, entry.getValue(), writtenAt.remove(agentInstanceId),
+                        delegate.read(agentInstanceId).orElse(null)));
+                }
+                dirty.clear();
+            } finally {
+                captureLock.writeLock().unlock();
+            }
+            if (captured.isEmpty()) {
+                if (cursor.compareTo(store.cursor()) > 0) {
+                    store.write(List.of(), cursor); // events without state changes still shorten replay
+                }
+                return 0;
+            }
+            long now = config.clock().millis();
+            long oldestDirty = now;
+            int written = 0;
+            for (int from = 0; from < captured.size(); from += config.flushBatchEntries()) {
+                int to = Math.min(captured.size(), from + config.flushBatchEntries());
+                try {
+                    List<FileStateStore.StoredState> states = encode(captured.subList(from, to));
+                    // intermediate batches keep the recorded cursor: agents after them are not stored yet
+                    store.write(states, to == captured.size() ? cursor : store.cursor());
+                    written += states.size();
+                } catch (RuntimeException e) {
+                    for (Captured agent : captured.subList(from, captured.size())) {
+                        dirty.merge(agent.agentInstanceId(), agent.dirtySince(), Math::min);
+                        writtenAt.merge(agent.agentInstanceId(), agent.appliedSequence(), Math::max);
+                    }
+                    throw e;
+                }
+            }
+            for (Captured agent : captured) {
+                oldestDirty = Math.min(oldestDirty, agent.dirtySince());
+            }
+            lastFlushLagMillis = now - oldestDirty;
+            flushes.incrementAndGet();
+            flushedEntries.addAndGet(written);
+            report(written);
+            return written;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    private List<FileStateStore.StoredState> encode(List<Captured> agents) {
+        List<FileStateStore.StoredState> states = new ArrayList<>(agents.size());
+        for (Captured agent : agents) {
+            if (agent.state() != null) {
+                states.add(new FileStateStore.StoredState(
+                    agent.agentInstanceId(),
+                    agent.state().version(),
+                    agent.appliedSequence(),
+                    agent.state().lastModified(),
+                    config.dataCodec().encode(agent.state().data())
+                ));
+            }
+        }
+        return states;
+    }
+    
+    private void report(int written) {
+        Optional<Metrics> metrics = config.metrics();
+        if (metrics.isPresent()) {
+            metrics.get().incrementCounter("hotstate.flush.entries", written, Map.of());
+            metrics.get().recordHistogram("hotstate.flush.lag_ms", lastFlushLagMillis, Map.of());
+            metrics.get().recordGauge("hotstate.dirty.entries", dirty.size(), Map.of());
+        }
+    }
+    
+    public WriteBehindConfig config() {
+        return config;
+    }
+    
+    /**
+     * Returns the number of agent instances with unflushed changes.
+     * 
+     * @return dirty entry count
+     */
+    public int dirtyCount() {
+        return dirty.size();
+    }
+    
+    /**
+     * Returns how long the oldest unflushed change has been waiting.
+     * 
+     * @return current flush lag in milliseconds (0 if nothing is dirty)
+     */
+    public long flushLagMillis() {
+        long now = config.clock().millis();
+        long oldest = now;
+        for (Long since : dirty.values()) {
+            oldest = Math.min(oldest, since);
+        }
+        return now - oldest;
+    }
+    
+    /**
+     * Returns the age of the oldest change written by the last flush.
+     * 
+     * @return last flush lag in milliseconds
+     */
+    public long lastFlushLagMillis() {
+        return lastFlushLagMillis;
+    }
+    
+    /**
+     * Returns the number of successful writes, before coalescing.
+     * 
+     * @return write count
+     */
+    public long writeCount() {
+        return writes.get();
+    }
+    
+    public long flushCount() {
+        return flushes.get();
+    }
+    
+    /**
+     * Returns the number of states written to the file store, after coalescing.
+     * 
+     * @return flushed entry count
+     */
+    public long flushedEntries() {
+        return flushedEntries.get();
+    }
+    
+    /**
+     * Stops background flushing and flushes the remaining dirty agents. Closes neither
+     * the wrapped store nor the file store.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (flusher != null) {
+                flusher.shutdown();
+                try {
+                    flusher.awaitTermination(config.flushInterval().toMillis() + 10_000, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        flush();
+    }
+    
+    /**
+     * Dirty agent instance collected by a flush.
+     */
+    private record Captured(String agentInstanceId, long dirtySince, long appliedSequence, State state) {
+    }
+    
+    @Override
+    public String toString() {
+        return "WriteBehindHotState{delegate=" + delegate + ", store=" + store + ", dirty=" + dirty.size() + "}";
+    }
+}
\ No newline at end of file
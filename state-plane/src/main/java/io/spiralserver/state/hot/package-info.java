@@ -0,0 +1,22 @@
+/**
+ * Hot state implementations for the state plane.
+ * 
+ * <p>This package provides:
+ * <ul>
+ *   <li>Lock-free in-memory hot state with optimistic versioned updates</li>
+ *   <li>Off-heap hot state for large numbers of resident agents</li>
+ *   <li>Write-behind persistence to a local file store</li>
+ *   <li>Tiered hot state with adaptive eviction to a memory-mapped cold tier</li>
+ *   <li>Incremental checkpoints recording structural deltas between states</li>
+ * </ul>
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Implementations honour the {@link io.spiralserver.state.HotState} contract</li>
+ *   <li>Versions are assigned by the store and increase by one per change</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ * @version 1.0
+ */
+package io.spiralserver.state.hot;
\ No newline at end of file
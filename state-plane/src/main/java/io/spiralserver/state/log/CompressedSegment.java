@@ -0,0 +1,326 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.state.EventLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+/**
+ * Sealed segment whose records are stored in independently compressed blocks.
+ * 
+ * <p>File layout:
+ * <pre>
+ *   header   magic, format version, base/last sequence, timestamp base, max timestamp,
+ *            block count, schema dictionary, crc32c(header)
+ *   blocks   [int64 firstSequence][int32 recordCount][int32 rawLength]
+ *            [int32 compressedLength][int32 crc32c(compressed)][LZ4 block]...
+ * </pre>
+ * A block holds whole records in the {@link LogSegment} framing. The block headers are
+ * stored uncompressed, so opening the segment only hops from header to header to build
+ * the block index, and a read decompresses just the blocks it touches.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable once written; created from a sealed {@link LogSegment}</li>
+ *   <li>Blocks hold consecutive sequences, in order</li>
+ *   <li>Every block is checksum-verified before it is decompressed</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+final class CompressedSegment implements Segment {
+    
+    static final String SUFFIX = ".clog";
+    
+    private static final int MAGIC = 0x5350434C; // "SPCL"
+    private static final short FORMAT_VERSION = 1;
+    private static final int BLOCK_HEADER_BYTES = 24;
+    
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long baseSequence;
+    private final long lastSequence;
+    private final long maxTimestampMillis;
+    private final SegmentDictionary dictionary;
+    private final long[] blockFirstSequences;
+    private final int[] blockPositions;
+    private volatile RawBlock lastBlock; // most recently decompressed block, for sequential reads
+    
+    private CompressedSegment(Path file, FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        if (buffer.capacity() < 48 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a compressed event log segment: " + file);
+        }
+        if (buffer.getShort(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported compressed segment format " + buffer.getShort(4) + ": " + file);
+        }
+        ByteBuffer header = buffer.duplicate().position(8);
+        this.baseSequence = header.getLong();
+        this.lastSequence = header.getLong();
+        this.dictionary = new SegmentDictionary(header.getLong());
+        this.maxTimestampMillis = header.getLong();
+        int blockCount = header.getInt();
+        int refCount = header.getInt();
+        List<String> refs = new ArrayList<>(refCount);
+        for (int i = 0; i < refCount; i++) {
+            byte[] ref = new byte[header.getInt()];
+            header.get(ref);
+            refs.add(new String(ref, StandardCharsets.UTF_8));
+        }
+        int headerEnd = header.position();
+        if (crc(buffer, 0, headerEnd) != header.getInt()) {
+            throw new IOException("Corrupt compressed segment header: " + file);
+        }
+        dictionary.addAll(refs);
+        this.blockFirstSequences = new long[blockCount];
+        this.blockPositions = new int[blockCount];
+        int pos = header.position();
+        for (int i = 0; i < blockCount; i++) {
+            if (pos + BLOCK_HEADER_BYTES > buffer.capacity()) {
+                throw new IOException("Truncated compressed segment: " + file);
+            }
+            blockFirstSequences[i] = buffer.getLong(pos);
+            blockPositions[i] = pos;
+            pos += BLOCK_HEADER_BYTES + buffer.getInt(pos + 16);
+        }
+        if (pos != buffer.capacity()) {
+            throw new IOException("Truncated compressed segment: " + file);
+        }
+    }
+    
+    /**
+     * Opens a compressed segment file.
+     */
+    static CompressedSegment open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid compressed segment size " + size + ": " + file);
+            }
+            return new CompressedSegment(file, channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Writes a compressed copy of a sealed segment next to it and opens it. The file is
+     * written under a temporary name and moved into place once complete, so a compressed
+     * segment file is either absent or whole.
+     * 
+     * @param source sealed segment
+     * @param blockBytes target uncompressed block size
+     */
+    static CompressedSegment write(LogSegment source, int blockBytes) throws IOException {
+        if (!source.isSealed()) {
+            throw new IllegalStateException("Only sealed segments can be compressed: " + source);
+        }
+        Path target = source.companion(SUFFIX);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        ByteBuffer records = source.records();
+        List<ByteBuffer> blocks = new ArrayList<>();
+        byte[] raw = new byte[blockBytes];
+        byte[] compressed = new byte[Lz4BlockCodec.maxCompressedLength(blockBytes)];
+        int pos = 0;
+        long sequence = source.baseSequence();
+        while (pos < records.limit()) {
+            int start = pos;
+            long firstSequence = sequence;
+            int count = 0;
+            do {
+                pos += LogSegment.RECORD_OVERHEAD + records.getInt(pos);
+                count++;
+            } while (pos < records.limit() && nextRecordEnd(records, pos) - start <= blockBytes);
+            int rawLength = pos - start;
+            if (rawLength > raw.length) {
+                raw = new byte[rawLength];
+                compressed = new byte[Lz4BlockCodec.maxCompressedLength(rawLength)];
+            }
+            records.get(start, raw, 0, rawLength);
+            int compressedLength = Lz4BlockCodec.compress(raw, 0, rawLength, compressed, 0);
+            ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_BYTES + compressedLength);
+            block.putLong(firstSequence).putInt(count).putInt(rawLength).putInt(compressedLength);
+            block.putInt(crc(ByteBuffer.wrap(compressed), 0, compressedLength));
+            block.put(compressed, 0, compressedLength).flip();
+            blocks.add(block);
+            sequence += count;
+        }
+        
+        List<String> refs = source.dictionary().toStrings();
+        ByteBuffer header = ByteBuffer.allocate(4096);
+        header.putInt(MAGIC).putShort(FORMAT_VERSION).putShort((short) 0);
+        header.putLong(source.baseSequence()).putLong(source.lastSequence());
+        header.putLong(source.dictionary().timestampBaseMillis()).putLong(source.maxTimestampMillis());
+        header.putInt(blocks.size()).putInt(refs.size());
+        for (String ref : refs) {
+            byte[] bytes = ref.getBytes(StandardCharsets.UTF_8);
+            if (header.remaining() < bytes.length + 8) {
+                header = ByteBuffer.allocate(header.capacity() * 2 + bytes.length).put(header.flip());
+            }
+            header.putInt(bytes.length).put(bytes);
+        }
+        header.putInt(crc(header, 0, header.position())).flip();
+        
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(out, header);
+            for (ByteBuffer block : blocks) {
+                writeFully(out, block);
+            }
+            out.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(target);
+    }
+    
+    private static int nextRecordEnd(ByteBuffer records, int position) {
+        return position + LogSegment.RECORD_OVERHEAD + records.getInt(position);
+    }
+    
+    @Override
+    public int read(long afterSequence, int limit, List<EventLog.Event> out, EventCodec codec) {
+        int[] added = {0};
+        if (limit > 0) {
+            visit(afterSequence, codec, event -> {
+                out.add(event);
+                return ++added[0] < limit;
+            });
+        }
+        return added[0];
+    }
+    
+    @Override
+    public boolean scan(long afterSequence, EventCodec codec, Predicate<LogEvent> visitor) {
+        return visit(afterSequence, codec, visitor);
+    }
+    
+    private boolean visit(long afterSequence, EventCodec codec, Predicate<LogEvent> visitor) {
+        int index = Arrays.binarySearch(blockFirstSequences, afterSequence + 1);
+        if (index < 0) {
+            index = Math.max(0, -index - 2);
+        }
+        for (int i = index; i < blockFirstSequences.length; i++) {
+            ByteBuffer raw = block(i);
+            int pos = 0;
+            while (pos < raw.limit()) {
+                int length = raw.getInt(pos);
+                int body = pos + LogSegment.RECORD_OVERHEAD;
+                if (raw.getLong(body + EventCodec.SEQUENCE_OFFSET) > afterSequence
+                        && !visitor.test(codec.decode(raw, body, dictionary))) {
+                    return false;
+                }
+                pos = body + length;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Returns the decompressed records of a block.
+     * 
+     * @throws IllegalStateException if the block fails its checksum
+     */
+    private ByteBuffer block(int index) {
+        RawBlock cached = lastBlock;
+        if (cached != null && cached.index == index) {
+            return cached.records;
+        }
+        int pos = blockPositions[index];
+        int rawLength = buffer.getInt(pos + 12);
+        int compressedLength = buffer.getInt(pos + 16);
+        byte[] compressed = new byte[compressedLength];
+        buffer.get(pos + BLOCK_HEADER_BYTES, compressed);
+        if (crc(ByteBuffer.wrap(compressed), 0, compressedLength) != buffer.getInt(pos + 20)) {
+            throw new IllegalStateException("Corrupt block " + index + " in " + file);
+        }
+        byte[] raw = new byte[rawLength];
+        Lz4BlockCodec.decompress(compressed, 0, compressedLength, raw, 0, rawLength);
+        ByteBuffer records = ByteBuffer.wrap(raw).asReadOnlyBuffer();
+        lastBlock = new RawBlock(index, records);
+        return records;
+    }
+    
+    int blockCount() {
+        return blockPositions.length;
+    }
+    
+    @Override
+    public Path file() {
+        return file;
+    }
+    
+    @Override
+    public long baseSequence() {
+        return baseSequence;
+    }
+    
+    @Override
+    public long lastSequence() {
+        return lastSequence;
+    }
+    
+    @Override
+    public long maxTimestampMillis() {
+        return maxTimestampMillis;
+    }
+    
+    @Override
+    public boolean isSealed() {
+        return true;
+    }
+    
+    @Override
+    public long dataBytes() {
+        return buffer.capacity();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    @Override
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(companion(CorrelationIndex.SUFFIX));
+        Files.deleteIfExists(file);
+    }
+    
+    private static int crc(ByteBuffer buffer, int position, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(position, length));
+        return (int) crc.getValue();
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "CompressedSegment{file=" + file.getFileName() + ", baseSequence=" + baseSequence
+            + ", lastSequence=" + lastSequence + ", blocks=" + blockPositions.length + "}";
+    }
+    
+    private record RawBlock(int index, ByteBuffer records) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,325 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.schema.SchemaRef;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Posting-list index from correlation key (optionally combined with event schema) to
+ * event sequences.
+ * 
+ * <p>Postings are kept in memory and maintained on append. Each sealed segment persists
+ * the postings it contributed to a {@code .corr} file next to it; on open the files are
+ * loaded in segment order and any segment without a valid file is rescanned, so the index
+ * can always be rebuilt from the segments alone.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Every posting list is in ascending sequence order</li>
+ *   <li>Single writer (the log appender), concurrent readers</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+final class CorrelationIndex {
+    
+    static final String SUFFIX = ".corr";
+    
+    private static final int MAGIC = 0x53504358; // "SPCX"
+    
+    private final ConcurrentHashMap<String, Postings> postings = new ConcurrentHashMap<>();
+    private SegmentPostings active = new SegmentPostings(); // guarded by the append lock
+    
+    /**
+     * Indexes an appended event.
+     */
+    void add(String correlationKey, SchemaRef eventSchemaRef, long sequence) {
+        postingsFor(correlationKey).add(sequence);
+        postingsFor(compositeKey(correlationKey, eventSchemaRef)).add(sequence);
+        active.add(correlationKey, eventSchemaRef, sequence);
+    }
+    
+    private Postings postingsFor(String key) {
+        return postings.computeIfAbsent(key, k -> new Postings());
+    }
+    
+    /**
+     * Visits the sequences indexed for a key, in ascending order, starting at
+     * {@code fromSequence}, until the visitor returns false.
+     * 
+     * @param correlationKey correlation key
+     * @param eventSchemaRef event schema to restrict to (nullable)
+     */
+    void forEach(String correlationKey, SchemaRef eventSchemaRef, long fromSequence, LongPredicate visitor) {
+        String key = eventSchemaRef == null ? correlationKey : compositeKey(correlationKey, eventSchemaRef);
+        Postings list = postings.get(key);
+        if (list != null) {
+            list.forEachFrom(fromSequence, visitor);
+        }
+    }
+    
+    private static String compositeKey(String correlationKey, SchemaRef eventSchemaRef) {
+        return correlationKey + '\u0000' + eventSchemaRef;
+    }
+    
+    /**
+     * Persists the postings of the segment being sealed and starts a new segment.
+     */
+    void seal(Path file) throws IOException {
+        SegmentPostings sealed = active;
+        active = new SegmentPostings();
+        sealed.writeTo(file);
+    }
+    
+    /**
+     * Loads the persisted postings of a sealed segment.
+     * 
+     * @return false if the file is missing or corrupt (the segment must be rescanned)
+     */
+    boolean load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        SegmentPostings loaded = SegmentPostings.readFrom(file);
+        if (loaded == null) {
+            return false;
+        }
+        loaded.forEach((key, ref, sequence) -> {
+            postingsFor(key).add(sequence);
+            postingsFor(compositeKey(key, ref)).add(sequence);
+        });
+        return true;
+    }
+    
+    /**
+     * Returns the indexed keys (correlation keys and composite keys); weakly consistent.
+     */
+    Iterable<String> keys() {
+        return postings.keySet();
+    }
+    
+    /**
+     * Drops the postings of a key below a sequence, removing the key if none remain. The
+     * trimmed list replaces the old one, so concurrent readers keep a consistent view;
+     * must be called under the append lock.
+     */
+    void pruneBefore(String key, long sequence) {
+        Postings list = postings.get(key);
+        if (list == null) {
+            return;
+        }
+        Postings trimmed = list.trimmedBefore(sequence);
+        if (trimmed == null) {
+            postings.remove(key);
+        } else if (trimmed != list) {
+            postings.put(key, trimmed);
+        }
+    }
+    
+    int keyCount() {
+        return postings.size();
+    }
+    
+    /**
+     * Ascending sequence list; single writer, concurrent readers.
+     */
+    private static final class Postings {
+        private volatile long[] sequences = new long[2];
+        private volatile int size;
+        
+        void add(long sequence) {
+            long[] current = sequences;
+            int n = size;
+            if (n == current.length) {
+                current = Arrays.copyOf(current, n * 2);
+                sequences = current;
+            }
+            current[n] = sequence;
+            size = n + 1;
+        }
+        
+        /**
+         * Returns this list without the sequences below {@code sequence}: itself if none
+         * are, null if all are.
+         */
+        Postings trimmedBefore(long sequence) {
+            int n = size;
+            long[] current = sequences;
+            int start = Arrays.binarySearch(current, 0, n, sequence);
+            if (start < 0) {
+                start = -start - 1;
+            }
+            if (start == 0) {
+                return this;
+            }
+            if (start == n) {
+                return null;
+            }
+            Postings trimmed = new Postings();
+            trimmed.sequences = Arrays.copyOfRange(current, start, Math.max(n, start + 2));
+            trimmed.size = n - start;
+            return trimmed;
+        }
+        
+        void forEachFrom(long fromSequence, LongPredicate visitor) {
+            int n = size;
+            long[] current = sequences;
+            int start = Arrays.binarySearch(current, 0, n, fromSequence);
+            if (start < 0) {
+                start = -start - 1;
+            }
+            for (int i = start; i < n; i++) {
+                if (!visitor.test(current[i])) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Postings contributed by one segment, in the form persisted to its {@code .corr} file:
+     * a schema reference dictionary followed by, per correlation key, (sequence, schema id)
+     * pairs.
+     */
+    private static final class SegmentPostings {
+        private final Map<SchemaRef, Integer> refIds = new HashMap<>();
+        private final List<SchemaRef> refs = new ArrayList<>();
+        private final Map<String, long[]> entries = new LinkedHashMap<>(); // key -> [count, seq, refId, seq, refId, ...]
+        
+        void add(String key, SchemaRef ref, long sequence) {
+            Integer refId = refIds.get(ref);
+            if (refId == null) {
+                refId = refs.size();
+                refIds.put(ref, refId);
+                refs.add(ref);
+            }
+            long[] list = entries.get(key);
+            if (list == null) {
+                list = new long[5];
+            } else if ((int) list[0] * 2 + 3 > list.length) {
+                list = Arrays.copyOf(list, list.length * 2 + 1);
+            }
+            int n = (int) list[0];
+            list[1 + n * 2] = sequence;
+            list[2 + n * 2] = refId;
+            list[0] = n + 1;
+            entries.put(key, list);
+        }
+        
+        void forEach(PostingVisitor visitor) {
+            for (Map.Entry<String, long[]> entry : entries.entrySet()) {
+                long[] list = entry.getValue();
+                for (int i = 0; i < (int) list[0]; i++) {
+                    visitor.visit(entry.getKey(), refs.get((int) list[2 + i * 2]), list[1 + i * 2]);
+                }
+            }
+        }
+        
+        void writeTo(Path file) throws IOException {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            CRC32C crc = new CRC32C();
+            try (OutputStream raw = Files.newOutputStream(tmp);
+                 CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(raw), crc);
+                 DataOutputStream out = new DataOutputStream(checked)) {
+                out.writeInt(MAGIC);
+                out.writeInt(refs.size());
+                for (SchemaRef ref : refs) {
+                    writeString(out, ref.toString());
+                }
+                out.writeInt(entries.size());
+                for (Map.Entry<String, long[]> entry : entries.entrySet()) {
+                    long[] list = entry.getValue();
+                    int n = (int) list[0];
+                    writeString(out, entry.getKey());
+                    out.writeInt(n);
+                    for (int i = 0; i < n; i++) {
+                        out.writeLong(list[1 + i * 2]);
+                        out.writeInt((int) list[2 + i * 2]);
+                    }
+                }
+                out.flush();
+                raw.write(intBytes((int) crc.getValue()));
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        
+        static SegmentPostings readFrom(Path file) throws IOException {
+            byte[] bytes = Files.readAllBytes(file);
+            if (bytes.length < 8) {
+                return null;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(bytes, 0, bytes.length - 4);
+            int stored = ((bytes[bytes.length - 4] & 0xFF) << 24) | ((bytes[bytes.length - 3] & 0xFF) << 16)
+                | ((bytes[bytes.length - 2] & 0xFF) << 8) | (bytes[bytes.length - 1] & 0xFF);
+            if ((int) crc.getValue() != stored) {
+                return null;
+            }
+            SegmentPostings postings = new SegmentPostings();
+            try (InputStream raw = new ByteArrayInputStream(bytes, 0, bytes.length - 4);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+                if (in.readInt() != MAGIC) {
+                    return null;
+                }
+                int refCount = in.readInt();
+                List<SchemaRef> refs = new ArrayList<>(refCount);
+                for (int i = 0; i < refCount; i++) {
+                    refs.add(SchemaRef.parse(readString(in)));
+                }
+                int keyCount = in.readInt();
+                for (int k = 0; k < keyCount; k++) {
+                    String key = readString(in);
+                    int n = in.readInt();
+                    for (int i = 0; i < n; i++) {
+                        long sequence = in.readLong();
+                        postings.add(key, refs.get(in.readInt()), sequence);
+                    }
+                }
+            }
+            return postings;
+        }
+        
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        
+        private static String readString(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        
+        private static byte[] intBytes(int value) {
+            return new byte[] {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+        }
+    }
+    
+    @FunctionalInterface
+    private interface PostingVisitor {
+        void visit(String correlationKey, SchemaRef eventSchemaRef, long sequence);
+    }
+}
\ No newline at end of file
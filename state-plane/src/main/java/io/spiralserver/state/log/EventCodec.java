@@ -0,0 +1,294 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.EventLog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact binary encoding of event record bodies.
+ * 
+ * <p>Body layout:
+ * <pre>
+ *   sequence        int64 (big-endian)
+ *   flags           int8: SCHEMA_DEFINED | HAS_CORRELATION_KEY | HAS_IDEMPOTENCY_KEY
+ *   timeDelta       zig-zag varint, event millis minus the segment timestamp base
+ *   nanoOfMilli     varint
+ *   schemaId        varint, id in the segment's {@link SegmentDictionary}
+ *   schemaRef       string, only if SCHEMA_DEFINED (first use in the segment)
+ *   correlationKey  string, only if HAS_CORRELATION_KEY
+ *   idempotencyKey  string, only if HAS_IDEMPOTENCY_KEY
+ *   source          string
+ *   payload         varint length + bytes
+ * </pre>
+ * Strings are a varint byte length followed by UTF-8 bytes.
+ * 
+ * <p>Events are encoded in two steps: {@link #encode} serializes all variable-length
+ * fields without holding the append lock, {@link #write} adds the segment-dependent
+ * fields (time delta, schema id) and copies the body into the segment once the sequence
+ * is assigned. {@link #decode} materializes the header fields only; the payload is
+ * decoded on first access.
+ * 
+ * @author SpiralServer Team
+ */
+final class EventCodec {
+    
+    static final int SEQUENCE_OFFSET = 0;
+    private static final int FLAGS_OFFSET = 8;
+    private static final int TIME_OFFSET = 9;
+    
+    private static final int SCHEMA_DEFINED = 1;
+    private static final int HAS_CORRELATION_KEY = 1 << 1;
+    private static final int HAS_IDEMPOTENCY_KEY = 1 << 2;
+    
+    private final DataCodec dataCodec;
+    private final Map<SchemaRef, byte[]> schemaRefBytes = new ConcurrentHashMap<>();
+    
+    EventCodec(DataCodec dataCodec) {
+        this.dataCodec = dataCodec;
+    }
+    
+    /**
+     * Serializes the variable-length fields of an event.
+     */
+    Encoded encode(EventLog.Event event) {
+        return new Encoded(
+            event.eventSchemaRef(),
+            schemaRefBytes.computeIfAbsent(event.eventSchemaRef(), ref -> utf8(ref.toString())),
+            event.timestamp(),
+            utf8(event.correlationKey()),
+            utf8(event.idempotencyKey()),
+            utf8(event.source()),
+            dataCodec.encode(event.payload())
+        );
+    }
+    
+    /**
+     * Returns the body size of an encoded event in a segment.
+     */
+    int bodyBytes(Encoded event, SegmentDictionary dictionary) {
+        int id = dictionary.idOf(event.schemaRef);
+        int schemaBytes = id >= 0
+            ? varintSize(id)
+            : varintSize(dictionary.size()) + stringSize(event.schemaRefBytes);
+        return TIME_OFFSET
+            + varintSize(zigZag(event.timestampMillis - dictionary.timestampBaseMillis()))
+            + varintSize(event.nanoOfMilli)
+            + schemaBytes
+            + event.fieldBytes;
+    }
+    
+    /**
+     * Writes an encoded body at an absolute buffer position, registering the event's
+     * schema reference in the dictionary on first use.
+     */
+    void write(ByteBuffer buffer, int position, long sequence, Encoded event, SegmentDictionary dictionary) {
+        int id = dictionary.idOf(event.schemaRef);
+        int flags = (id < 0 ? SCHEMA_DEFINED : 0)
+            | (event.correlationKey != null ? HAS_CORRELATION_KEY : 0)
+            | (event.idempotencyKey != null ? HAS_IDEMPOTENCY_KEY : 0);
+        buffer.putLong(position + SEQUENCE_OFFSET, sequence);
+        buffer.put(position + FLAGS_OFFSET, (byte) flags);
+        int pos = position + TIME_OFFSET;
+        pos = putVarint(buffer, pos, zigZag(event.timestampMillis - dictionary.timestampBaseMillis()));
+        pos = putVarint(buffer, pos, event.nanoOfMilli);
+        if (id < 0) {
+            pos = putVarint(buffer, pos, dictionary.add(event.schemaRef));
+            pos = putString(buffer, pos, event.schemaRefBytes);
+        } else {
+            pos = putVarint(buffer, pos, id);
+        }
+        if (event.correlationKey != null) {
+            pos = putString(buffer, pos, event.correlationKey);
+        }
+        if (event.idempotencyKey != null) {
+            pos = putString(buffer, pos, event.idempotencyKey);
+        }
+        pos = putString(buffer, pos, event.source);
+        putString(buffer, pos, event.payload);
+    }
+    
+    /**
+     * Decodes the header of a body at an absolute buffer position; the payload is decoded
+     * from the buffer when it is first accessed.
+     */
+    LogEvent decode(ByteBuffer buffer, int position, SegmentDictionary dictionary) {
+        long sequence = buffer.getLong(position + SEQUENCE_OFFSET);
+        int flags = buffer.get(position + FLAGS_OFFSET);
+        int[] pos = {position + TIME_OFFSET};
+        long millis = dictionary.timestampBaseMillis() + unZigZag(getVarint(buffer, pos));
+        long nanoOfMilli = getVarint(buffer, pos);
+        SchemaRef schemaRef = dictionary.get((int) getVarint(buffer, pos));
+        if ((flags & SCHEMA_DEFINED) != 0) {
+            pos[0] = skipString(buffer, pos[0]);
+        }
+        String correlationKey = (flags & HAS_CORRELATION_KEY) != 0 ? getString(buffer, pos) : null;
+        String idempotencyKey = (flags & HAS_IDEMPOTENCY_KEY) != 0 ? getString(buffer, pos) : null;
+        String source = getString(buffer, pos);
+        int payloadLength = (int) getVarint(buffer, pos);
+        Instant timestamp = Instant.ofEpochSecond(
+            Math.floorDiv(millis, 1000), Math.floorMod(millis, 1000) * 1_000_000L + nanoOfMilli
+        );
+        return LogEvent.lazy(
+            sequence,
+            schemaRef,
+            timestamp,
+            correlationKey,
+            idempotencyKey,
+            buffer.slice(pos[0], payloadLength),
+            dataCodec,
+            source
+        );
+    }
+    
+    /**
+     * Registers the schema reference defined by a body, if any; used when rebuilding a
+     * dictionary by scanning a segment.
+     * 
+     * @return false if the body defines an id out of order (corrupt segment)
+     */
+    static boolean restoreSchema(ByteBuffer buffer, int position, SegmentDictionary dictionary) {
+        if ((buffer.get(position + FLAGS_OFFSET) & SCHEMA_DEFINED) == 0) {
+            return true;
+        }
+        int[] pos = {position + TIME_OFFSET};
+        getVarint(buffer, pos);
+        getVarint(buffer, pos);
+        long id = getVarint(buffer, pos);
+        if (id != dictionary.size()) {
+            return false;
+        }
+        dictionary.add(SchemaRef.parse(getString(buffer, pos)));
+        return true;
+    }
+    
+    /**
+     * Reads the event time of a body in epoch milliseconds without decoding it.
+     */
+    static long timestampMillis(ByteBuffer buffer, int position, SegmentDictionary dictionary) {
+        int[] pos = {position + TIME_OFFSET};
+        return dictionary.timestampBaseMillis() + unZigZag(getVarint(buffer, pos));
+    }
+    
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    private static int varintSize(long value) {
+        return value == 0 ? 1 : (63 - Long.numberOfLeadingZeros(value)) / 7 + 1;
+    }
+    
+    private static int putVarint(ByteBuffer buffer, int position, long value) {
+        int pos = position;
+        while ((value & ~0x7FL) != 0) {
+            buffer.put(pos++, (byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put(pos++, (byte) value);
+        return pos;
+    }
+    
+    private static long getVarint(ByteBuffer buffer, int[] position) {
+        int pos = position[0];
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get(pos++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                position[0] = pos;
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint at position " + position[0]);
+    }
+    
+    private static int stringSize(byte[] bytes) {
+        return varintSize(bytes.length) + bytes.length;
+    }
+    
+    private static int putString(ByteBuffer buffer, int position, byte[] bytes) {
+        int pos = putVarint(buffer, position, bytes.length);
+        buffer.put(pos, bytes);
+        return pos + bytes.length;
+    }
+    
+    private static String getString(ByteBuffer buffer, int[] position) {
+        int length = (int) getVarint(buffer, position);
+        byte[] bytes = new byte[length];
+        buffer.get(position[0], bytes);
+        position[0] += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static int skipString(ByteBuffer buffer, int position) {
+        int[] pos = {position};
+        int length = (int) getVarint(buffer, pos);
+        return pos[0] + length;
+    }
+    
+    /**
+     * Event with variable-length fields already serialized.
+     */
+    static final class Encoded {
+        private final SchemaRef schemaRef;
+        private final byte[] schemaRefBytes; // written on first use in a segment
+        private final long timestampMillis;
+        private final int nanoOfMilli;
+        private final byte[] correlationKey;
+        private final byte[] idempotencyKey;
+        private final byte[] source;
+        private final byte[] payload;
+        private final int fieldBytes; // keys, source and payload
+        
+        private Encoded(
+            SchemaRef schemaRef,
+            byte[] schemaRefBytes,
+            Instant timestamp,
+            byte[] correlationKey,
+            byte[] idempotencyKey,
+            byte[] source,
+            byte[] payload
+        ) {
+            this.schemaRef = schemaRef;
+            this.schemaRefBytes = schemaRefBytes;
+            this.timestampMillis = timestamp.toEpochMilli();
+            this.nanoOfMilli = timestamp.getNano() % 1_000_000;
+            this.correlationKey = correlationKey;
+            this.idempotencyKey = idempotencyKey;
+            this.source = source;
+            this.payload = payload;
+            this.fieldBytes = (correlationKey == null ? 0 : stringSize(correlationKey))
+                + (idempotencyKey == null ? 0 : stringSize(idempotencyKey))
+                + stringSize(source) + stringSize(payload);
+        }
+        
+        /**
+         * Upper bound of the body size in any segment (schema defined inline, widest
+         * time delta).
+         */
+        int maxBodyBytes() {
+            return TIME_OFFSET + 10 + 3 + 5 + stringSize(schemaRefBytes) + fieldBytes;
+        }
+        
+        long timestampMillis() {
+            return timestampMillis;
+        }
+        
+        byte[] payloadBytes() {
+            return payload;
+        }
+    }
+}
\ No newline at end of file
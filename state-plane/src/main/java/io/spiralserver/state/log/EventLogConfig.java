@@ -0,0 +1,318 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.JsonDataCodec;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Configuration of a {@link SegmentedEventLog}.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable; {@code with*} methods return modified copies</li>
+ *   <li>All values are validated when set</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class EventLogConfig {
+    
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+    public static final int DEFAULT_INDEX_INTERVAL_BYTES = 4096;
+    public static final long DEFAULT_DEDUPE_WINDOW_MS = 5 * 60 * 1000L;
+    public static final long DEFAULT_IDEMPOTENCY_RETENTION_MS = 60 * 60 * 1000L;
+    public static final int DEFAULT_IDEMPOTENCY_BUCKETS = 60;
+    public static final int DEFAULT_TAIL_BUFFER_EVENTS = 4096;
+    public static final int DEFAULT_COMPRESSION_BLOCK_BYTES = 64 * 1024;
+    
+    private static final int MIN_SEGMENT_BYTES = 4096;
+    
+    private final Path directory;
+    private int segmentBytes = DEFAULT_SEGMENT_BYTES;
+    private int indexIntervalBytes = DEFAULT_INDEX_INTERVAL_BYTES;
+    private long dedupeWindowMs = DEFAULT_DEDUPE_WINDOW_MS; // duplicate rejection window on append (0 disables)
+    private long idempotencyRetentionMs = DEFAULT_IDEMPOTENCY_RETENTION_MS;
+    private int idempotencyBuckets = DEFAULT_IDEMPOTENCY_BUCKETS;
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.osManaged();
+    private DataCodec dataCodec = new JsonDataCodec();
+    private Clock clock = Clock.systemUTC();
+    private Executor tailExecutor = ForkJoinPool.commonPool();
+    private int tailBufferEvents = DEFAULT_TAIL_BUFFER_EVENTS;
+    private int compressionBlockBytes; // 0 keeps sealed segments uncompressed
+    
+    private EventLogConfig(Path directory) {
+        this.directory = directory;
+    }
+    
+    private EventLogConfig(EventLogConfig other) {
+        this(other.directory, other);
+    }
+    
+    private EventLogConfig(Path directory, EventLogConfig other) {
+        this.directory = directory;
+        this.segmentBytes = other.segmentBytes;
+        this.indexIntervalBytes = other.indexIntervalBytes;
+        this.dedupeWindowMs = other.dedupeWindowMs;
+        this.idempotencyRetentionMs = other.idempotencyRetentionMs;
+        this.idempotencyBuckets = other.idempotencyBuckets;
+        this.fsyncPolicy = other.fsyncPolicy;
+        this.dataCodec = other.dataCodec;
+        this.clock = other.clock;
+        this.tailExecutor = other.tailExecutor;
+        this.tailBufferEvents = other.tailBufferEvents;
+        this.compressionBlockBytes = other.compressionBlockBytes;
+    }
+    
+    /**
+     * Creates a configuration with default settings.
+     * 
+     * @param directory directory holding the segment files
+     * @return configuration
+     * @throws IllegalArgumentException if directory is null
+     */
+    public static EventLogConfig of(Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        return new EventLogConfig(directory);
+    }
+    
+    /**
+     * Returns this configuration for another directory.
+     * 
+     * @param directory directory holding the segment files
+     * @return modified copy
+     */
+    public EventLogConfig withDirectory(Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        return new EventLogConfig(directory, this);
+    }
+    
+    /**
+     * Sets the size of each segment file.
+     * 
+     * @param segmentBytes segment size in bytes (at least 4 KiB)
+     * @return modified copy
+     */
+    public EventLogConfig withSegmentBytes(int segmentBytes) {
+        if (segmentBytes < MIN_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("Segment size must be at least " + MIN_SEGMENT_BYTES + " bytes");
+        }
+        EventLogConfig copy = new EventLogConfig(this);
+        copy.segmentBytes = segmentBytes;
+        return copy;
+    }
+    
+    /**
+     * Sets how many bytes of records separate two sparse index entries.
+     * 
+     * @param indexIntervalBytes index interval in bytes
+     * @return modified copy
+     */
+    public EventLogConfig withIndexIntervalBytes(int indexIntervalBytes) {
+        if (indexIntervalBytes <= 0) {
+            throw new IllegalArgumentException("Index interval must be positive");
+        }
+        EventLogConfig copy = new EventLogConfig(this);
+        copy.indexIntervalBytes = indexIntervalBytes;
+        return copy;
+    }
+    
+    /**
+     * Sets the window in which {@code append} rejects a repeated idempotency key.
+     * 
+     * @param dedupeWindowMs window in milliseconds (0 disables the check)
+     * @return modified copy
+     */
+    public EventLogConfig withDedupeWindowMs(long dedupeWindowMs) {
+        if (dedupeWindowMs < 0) {
+            throw new IllegalArgumentException("Dedupe window must be non-negative");
+        }
+        EventLogConfig copy = new EventLogConfig(this);
+        copy.dedupeWindowMs = dedupeWindowMs;
+        return copy;
+    }
+    
+    /**
+     * Sets how long idempotency keys stay in the in-memory index and how many time
+     * buckets that period is divided into.
+     * 
+     * <p>Lookups with a window longer than the retention fall back to scanning the
+     * segments for the uncovered part of the window.
+     * 
+     * @param retentionMs index retention in milliseconds
+     * @param buckets number of buckets (expiry granularity is retention / buckets)
+     * @return modified copy
+     */
+    public EventLogConfig withIdempotencyIndex(long retentionMs, int buckets) {
+        if (retentionMs <= 0) {
+            throw new IllegalArgumentException("Idempotency retention must be positive");
+        }
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("Idempotency bucket count must be positive");
+        }
+        EventLogConfig copy = new EventLogConfig(this);
+        copy.idempotencyRetentionMs = retentionMs;
+        copy.idempotencyBuckets = buckets;
+        return copy;
+    }
+    
+    /**
+     * Sets when appended events are forced to storage.
+     * 
+     * @param fsyncPolicy fsync policy
+     * @return modified copy
+     */
+    public EventLogConfig withFsyncPolicy(FsyncPolicy fsyncPolicy) {
+        if (fsyncPolicy == null) {
+            throw new IllegalArgumentException("Fsync policy cannot be null");
+        }
+        EventLogConfig copy = new EventLogConfig(this);
+        copy.fsyncPolicy = fsyncPolicy;
+        return copy;
+    }
+    
+    /**
+     * Sets the codec for event payloads.
+     * 
+     * @param dataCodec payload codec
+     * @return modified copy
+     */
+    public EventLogConfig withDataCodec(DataCodec dataCodec) {
+        if (dataCodec == null) {
+            throw new IllegalArgumentException("Data codec cannot be null");
+        }
+        EventLogConfig copy = new EventLogConfig(this);
+        copy.dataCodec = dataCodec;
+        return copy;
+    }
+    
+    /**
+     * Sets the clock used for time windows.
+     * 
+     * @param clock clock
+     * @return modified copy
+     */
+    public EventLogConfig withClock(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        EventLogConfig copy = new EventLogConfig(this);
+        copy.clock = clock;
+        return copy;
+    }
+    
+    /**
+     * Sets the executor that delivers events to tail subscribers.
+     * 
+     * <p>Defaults to the common fork-join pool, as for {@link java.util.concurrent.SubmissionPublisher};
+     * subscribers that block in {@code onNext} should use a dedicated executor.
+     * 
+     * @param tailExecutor delivery executor
+     * @return modified copy
+     */
+    public EventLogConfig withTailExecutor(Executor tailExecutor) {
+        if (tailExecutor == null) {
+            throw new IllegalArgumentException("Tail executor cannot be null");
+        }
+        EventLogConfig copy = new EventLogConfig(this);
+        copy.tailExecutor = tailExecutor;
+        return copy;
+    }
+    
+    /**
+     * Sets how many recently appended events are kept for tail subscribers. Subscribers
+     * further behind read from the segments instead.
+     * 
+     * @param tailBufferEvents number of events (rounded up to a power of two)
+     * @return modified copy
+     */
+    public EventLogConfig withTailBufferEvents(int tailBufferEvents) {
+        if (tailBufferEvents < 1) {
+            throw new IllegalArgumentException("Tail buffer must hold at least one event");
+        }
+        EventLogConfig copy = new EventLogConfig(this);
+        copy.tailBufferEvents = tailBufferEvents;
+        return copy;
+    }
+    
+    /**
+     * Enables block compression of sealed segments.
+     * 
+     * <p>Segments are compressed in the background once sealed; reads decompress only the
+     * blocks they touch. {@link #DEFAULT_COMPRESSION_BLOCK_BYTES} balances ratio against
+     * the cost of a random read.
+     * 
+     * @param blockBytes uncompressed block size (0 disables compression)
+     * @return modified copy
+     */
+    public EventLogConfig withBlockCompression(int blockBytes) {
+        if (blockBytes < 0) {
+            throw new IllegalArgumentException("Compression block size must be non-negative");
+        }
+        EventLogConfig copy = new EventLogConfig(this);
+        copy.compressionBlockBytes = blockBytes;
+        return copy;
+    }
+    
+    public Path directory() {
+        return directory;
+    }
+    
+    public int segmentBytes() {
+        return segmentBytes;
+    }
+    
+    public int indexIntervalBytes() {
+        return indexIntervalBytes;
+    }
+    
+    public long dedupeWindowMs() {
+        return dedupeWindowMs;
+    }
+    
+    public long idempotencyRetentionMs() {
+        return idempotencyRetentionMs;
+    }
+    
+    public int idempotencyBuckets() {
+        return idempotencyBuckets;
+    }
+    
+    public FsyncPolicy fsyncPolicy() {
+        return fsyncPolicy;
+    }
+    
+    public DataCodec dataCodec() {
+        return dataCodec;
+    }
+    
+    public Clock clock() {
+        return clock;
+    }
+    
+    public Executor tailExecutor() {
+        return tailExecutor;
+    }
+    
+    public int tailBufferEvents() {
+        return tailBufferEvents;
+    }
+    
+    public int compressionBlockBytes() {
+        return compressionBlockBytes;
+    }
+    
+    @Override
+    public String toString() {
+        return "EventLogConfig{directory=" + directory + ", segmentBytes=" + segmentBytes
+            + ", indexIntervalBytes=" + indexIntervalBytes + ", dedupeWindowMs=" + dedupeWindowMs
+            + ", fsyncPolicy=" + fsyncPolicy + ", compressionBlockBytes=" + compressionBlockBytes + "}";
+    }
+}
\ No newline at end of file
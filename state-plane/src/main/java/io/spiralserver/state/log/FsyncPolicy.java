@@ -0,0 +1,105 @@
+package io.spiralserver.state.log;
+
+import java.util.Objects;
+
+/**
+ * When appended events are forced to storage.
+ * 
+ * <p>Policies:
+ * <ul>
+ *   <li>{@link Mode#PER_BATCH} - an append returns only once its events are durable;
+ *       concurrent appenders share one fsync (group commit)</li>
+ *   <li>{@link Mode#INTERVAL} - a background flusher forces the log every interval;
+ *       up to one interval of acknowledged events can be lost on power failure</li>
+ *   <li>{@link Mode#OS_MANAGED} - the operating system writes back dirty pages; the log
+ *       only forces on segment roll-over and close</li>
+ * </ul>
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable</li>
+ *   <li>Interval is positive for {@link Mode#INTERVAL} and zero otherwise</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class FsyncPolicy {
+    
+    private static final FsyncPolicy PER_BATCH = new FsyncPolicy(Mode.PER_BATCH, 0);
+    private static final FsyncPolicy OS_MANAGED = new FsyncPolicy(Mode.OS_MANAGED, 0);
+    
+    private final Mode mode;
+    private final long intervalMs;
+    
+    private FsyncPolicy(Mode mode, long intervalMs) {
+        this.mode = mode;
+        this.intervalMs = intervalMs;
+    }
+    
+    /**
+     * Forces every append (batch) before acknowledging it.
+     * 
+     * @return per-batch policy
+     */
+    public static FsyncPolicy perBatch() {
+        return PER_BATCH;
+    }
+    
+    /**
+     * Forces the log periodically in the background.
+     * 
+     * @param intervalMs flush interval in milliseconds
+     * @return interval policy
+     * @throws IllegalArgumentException if interval is not positive
+     */
+    public static FsyncPolicy interval(long intervalMs) {
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException("Fsync interval must be positive");
+        }
+        return new FsyncPolicy(Mode.INTERVAL, intervalMs);
+    }
+    
+    /**
+     * Leaves write-back to the operating system.
+     * 
+     * @return OS-managed policy
+     */
+    public static FsyncPolicy osManaged() {
+        return OS_MANAGED;
+    }
+    
+    public Mode mode() {
+        return mode;
+    }
+    
+    public long intervalMs() {
+        return intervalMs;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FsyncPolicy that = (FsyncPolicy) o;
+        return intervalMs == that.intervalMs && mode == that.mode;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(mode, intervalMs);
+    }
+    
+    @Override
+    public String toString() {
+        return mode == Mode.INTERVAL ? "FsyncPolicy{INTERVAL, " + intervalMs + "ms}" : "FsyncPolicy{" + mode + "}";
+    }
+    
+    /**
+     * Fsync modes.
+     */
+    public enum Mode {
+        PER_BATCH,
+        INTERVAL,
+        OS_MANAGED
+    }
+}
\ No newline at end of file
@@ -0,0 +1,142 @@
+package io.spiralserver.state.log;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Merges the durability requests of concurrent appenders into shared fsyncs.
+ * 
+ * <p>Leader/follower protocol: the first appender that needs durability becomes the
+ * leader, samples the highest written sequence and forces the log outside the lock.
+ * Appenders arriving meanwhile wait; when the leader finishes, all of them whose
+ * events were covered return, and the next uncovered one leads the following fsync
+ * for everything written in the meantime.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>The durable sequence never decreases</li>
+ *   <li>At most one fsync is in progress at a time</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+final class GroupCommitter implements Closeable {
+    
+    private static final System.Logger LOGGER = System.getLogger(GroupCommitter.class.getName());
+    
+    private final FsyncPolicy policy;
+    private final LongSupplier writtenSequence;
+    private final Runnable force;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition synced = lock.newCondition();
+    private final AtomicLong syncCount = new AtomicLong();
+    private final ScheduledExecutorService flusher; // INTERVAL only
+    private long durableSequence; // guarded by lock
+    private boolean syncing; // guarded by lock
+    
+    /**
+     * @param policy fsync policy
+     * @param writtenSequence highest sequence written to the log
+     * @param force forces all written records to storage
+     */
+    GroupCommitter(FsyncPolicy policy, LongSupplier writtenSequence, Runnable force) {
+        this.policy = policy;
+        this.writtenSequence = writtenSequence;
+        this.force = force;
+        this.durableSequence = writtenSequence.getAsLong();
+        if (policy.mode() == FsyncPolicy.Mode.INTERVAL) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "event-log-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushInBackground, policy.intervalMs(), policy.intervalMs(), TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+    
+    /**
+     * Called after events up to {@code sequence} were written; blocks until they are
+     * durable if the policy requires it.
+     */
+    void committed(long sequence) {
+        if (policy.mode() == FsyncPolicy.Mode.PER_BATCH) {
+            sync(sequence);
+        }
+    }
+    
+    /**
+     * Blocks until all events up to {@code sequence} are durable.
+     */
+    void sync(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                long target = writtenSequence.getAsLong();
+                boolean done = false;
+                lock.unlock();
+                try {
+                    force.run();
+                    syncCount.incrementAndGet();
+                    done = true;
+                } finally {
+                    lock.lock();
+                    syncing = false;
+                    if (done) {
+                        durableSequence = Math.max(durableSequence, target);
+                    }
+                    synced.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void flushInBackground() {
+        try {
+            sync(writtenSequence.getAsLong());
+        } catch (RuntimeException e) {
+            // keep the flusher alive; the next tick retries
+            LOGGER.log(System.Logger.Level.WARNING, "Background event log flush failed", e);
+        }
+    }
+    
+    /**
+     * Returns the highest sequence known to be durable.
+     */
+    long durableSequence() {
+        lock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the number of fsyncs performed.
+     */
+    long syncCount() {
+        return syncCount.get();
+    }
+    
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+    }
+}
\ No newline at end of file
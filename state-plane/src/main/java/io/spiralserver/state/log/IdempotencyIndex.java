@@ -0,0 +1,237 @@
+package io.spiralserver.state.log;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Idempotency key index made of rotating time buckets.
+ * 
+ * <p>Each bucket covers a fixed slice of event time and holds an open-addressing table of
+ * (key hash, sequence, timestamp) entries fronted by a Bloom filter, so a miss - the
+ * common case on ingest - usually costs one filter probe per bucket. Buckets that fall
+ * out of the retention period are dropped as a whole, which keeps memory proportional to
+ * the number of keys seen in the retention period.
+ * 
+ * <p>Only 64-bit key hashes are stored; candidates are confirmed by the caller (by reading
+ * the event at the candidate sequence) to rule out hash collisions.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Events older than the retention period are not indexed</li>
+ *   <li>Single writer (the log appender), concurrent readers</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+final class IdempotencyIndex {
+    
+    private final long retentionMs;
+    private final long bucketWidthMs;
+    private final NavigableMap<Long, Bucket> buckets = new TreeMap<>(); // bucket number -> bucket
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    /**
+     * @param retentionMs how long keys stay indexed
+     * @param bucketCount number of buckets the retention period is divided into
+     */
+    IdempotencyIndex(long retentionMs, int bucketCount) {
+        this.retentionMs = retentionMs;
+        this.bucketWidthMs = Math.max(1, retentionMs / bucketCount);
+    }
+    
+    /**
+     * Indexes a key.
+     * 
+     * @param key idempotency key
+     * @param sequence event sequence
+     * @param timestampMillis event time
+     * @param nowMillis current time
+     */
+    void add(String key, long sequence, long timestampMillis, long nowMillis) {
+        long oldest = nowMillis - retentionMs;
+        if (timestampMillis < oldest) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            expire(oldest);
+            buckets.computeIfAbsent(timestampMillis / bucketWidthMs, n -> new Bucket())
+                .add(hash(key), sequence, timestampMillis);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Drops buckets entirely older than {@code oldestMillis}.
+     */
+    private void expire(long oldestMillis) {
+        Map<Long, Bucket> expired = buckets.headMap(oldestMillis / bucketWidthMs, false);
+        if (!expired.isEmpty()) {
+            expired.clear();
+        }
+    }
+    
+    /**
+     * Finds the most recent indexed event for a key at or after a cutoff time.
+     * 
+     * @param key idempotency key
+     * @param cutoffMillis oldest event time of interest
+     * @param confirm confirms that the event at a candidate sequence has the key
+     * @return sequence of the event, or -1 if none
+     */
+    long find(String key, long cutoffMillis, LongPredicate confirm) {
+        long hash = hash(key);
+        lock.readLock().lock();
+        try {
+            for (Bucket bucket : buckets.tailMap(cutoffMillis / bucketWidthMs, true).descendingMap().values()) {
+                if (!bucket.mightContain(hash)) {
+                    continue;
+                }
+                long sequence = bucket.find(hash, cutoffMillis, confirm);
+                if (sequence > 0) {
+                    return sequence;
+                }
+            }
+            return -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the oldest event time this index can answer for.
+     */
+    long coverageStartMillis(long nowMillis) {
+        return nowMillis - retentionMs;
+    }
+    
+    int bucketCount() {
+        lock.readLock().lock();
+        try {
+            return buckets.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    int size() {
+        lock.readLock().lock();
+        try {
+            int size = 0;
+            for (Bucket bucket : buckets.values()) {
+                size += bucket.size;
+            }
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 64-bit FNV-1a over the key's characters, finished with the MurmurHash3 mixer.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+    
+    /**
+     * One time slice: open-addressing table (linear probing) plus Bloom filter.
+     */
+    private static final class Bucket {
+        private static final int INITIAL_CAPACITY = 256; // power of two
+        private static final int BLOOM_BITS_PER_ENTRY = 8; // x capacity, ~10 bits per key at max load
+        private static final int BLOOM_HASHES = 4;
+        
+        private long[] hashes;
+        private long[] sequences; // 0 marks an empty slot
+        private long[] timestamps;
+        private long[] bloom;
+        private int size;
+        
+        Bucket() {
+            allocate(INITIAL_CAPACITY);
+        }
+        
+        private void allocate(int capacity) {
+            hashes = new long[capacity];
+            sequences = new long[capacity];
+            timestamps = new long[capacity];
+            bloom = new long[capacity * BLOOM_BITS_PER_ENTRY / 64];
+        }
+        
+        void add(long hash, long sequence, long timestampMillis) {
+            if ((size + 1) * 4 > hashes.length * 3) {
+                grow();
+            }
+            insert(hash, sequence, timestampMillis);
+            size++;
+        }
+        
+        private void insert(long hash, long sequence, long timestampMillis) {
+            int mask = hashes.length - 1;
+            int slot = (int) hash & mask;
+            while (sequences[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            sequences[slot] = sequence;
+            timestamps[slot] = timestampMillis;
+            int bloomMask = bloom.length * 64 - 1;
+            long h2 = Long.rotateLeft(hash, 32) | 1;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (int) (hash + i * h2) & bloomMask;
+                bloom[bit >>> 6] |= 1L << bit;
+            }
+        }
+        
+        private void grow() {
+            long[] oldHashes = hashes;
+            long[] oldSequences = sequences;
+            long[] oldTimestamps = timestamps;
+            allocate(oldHashes.length * 2);
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (oldSequences[i] != 0) {
+                    insert(oldHashes[i], oldSequences[i], oldTimestamps[i]);
+                }
+            }
+        }
+        
+        boolean mightContain(long hash) {
+            int bloomMask = bloom.length * 64 - 1;
+            long h2 = Long.rotateLeft(hash, 32) | 1;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (int) (hash + i * h2) & bloomMask;
+                if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        long find(long hash, long cutoffMillis, LongPredicate confirm) {
+            int mask = hashes.length - 1;
+            long best = -1;
+            for (int slot = (int) hash & mask; sequences[slot] != 0; slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash && timestamps[slot] >= cutoffMillis && sequences[slot] > best
+                        && confirm.test(sequences[slot])) {
+                    best = sequences[slot];
+                }
+            }
+            return best;
+        }
+    }
+}
\ No newline at end of file
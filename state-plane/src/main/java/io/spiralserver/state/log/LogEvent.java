@@ -0,0 +1,223 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.EventLog;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Immutable {@link EventLog.Event} value.
+ * 
+ * <p>Used both to submit events for appending (the sequence is assigned by the log)
+ * and to return events read back from a log. Events read from a log decode their payload
+ * on first access, so code that only inspects the header never pays for it.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable</li>
+ *   <li>Schema reference, timestamp, payload and source are always present</li>
+ *   <li>Correlation and idempotency keys are optional</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class LogEvent implements EventLog.Event {
+    
+    private final long sequence;
+    private final SchemaRef eventSchemaRef;
+    private final Instant timestamp;
+    private final String correlationKey; // nullable
+    private final String idempotencyKey; // nullable
+    private final String source;
+    private final ByteBuffer encodedPayload; // null unless the payload is decoded lazily
+    private final DataCodec dataCodec; // null unless the payload is decoded lazily
+    private volatile Object payload; // racy single-check when decoded lazily: decodes are equal
+    
+    /**
+     * Creates an event.
+     * 
+     * @param sequence sequence number (0 if not yet assigned)
+     * @param eventSchemaRef event schema reference
+     * @param timestamp event time
+     * @param correlationKey correlation key (nullable)
+     * @param idempotencyKey idempotency key (nullable)
+     * @param payload schema-validated event data
+     * @param source event source identifier
+     * @throws IllegalArgumentException if a required field is missing
+     */
+    public LogEvent(
+        long sequence,
+        SchemaRef eventSchemaRef,
+        Instant timestamp,
+        String correlationKey,
+        String idempotencyKey,
+        Object payload,
+        String source
+    ) {
+        if (sequence < 0) {
+            throw new IllegalArgumentException("Sequence must be non-negative");
+        }
+        if (eventSchemaRef == null) {
+            throw new IllegalArgumentException("Event schema reference cannot be null");
+        }
+        if (timestamp == null) {
+            throw new IllegalArgumentException("Timestamp cannot be null");
+        }
+        if (payload == null) {
+            throw new IllegalArgumentException("Payload cannot be null");
+        }
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("Source cannot be null or blank");
+        }
+        this.sequence = sequence;
+        this.eventSchemaRef = eventSchemaRef;
+        this.timestamp = timestamp;
+        this.correlationKey = correlationKey;
+        this.idempotencyKey = idempotencyKey;
+        this.payload = payload;
+        this.source = source;
+        this.encodedPayload = null;
+        this.dataCodec = null;
+    }
+    
+    private LogEvent(
+        long sequence,
+        SchemaRef eventSchemaRef,
+        Instant timestamp,
+        String correlationKey,
+        String idempotencyKey,
+        ByteBuffer encodedPayload,
+        DataCodec dataCodec,
+        String source
+    ) {
+        this.sequence = sequence;
+        this.eventSchemaRef = eventSchemaRef;
+        this.timestamp = timestamp;
+        this.correlationKey = correlationKey;
+        this.idempotencyKey = idempotencyKey;
+        this.encodedPayload = encodedPayload;
+        this.dataCodec = dataCodec;
+        this.source = source;
+    }
+    
+    /**
+     * Creates an event whose sequence is assigned on append.
+     */
+    public LogEvent(
+        SchemaRef eventSchemaRef,
+        Instant timestamp,
+        String correlationKey,
+        String idempotencyKey,
+        Object payload,
+        String source
+    ) {
+        this(0, eventSchemaRef, timestamp, correlationKey, idempotencyKey, payload, source);
+    }
+    
+    /**
+     * Copies an event, assigning the given sequence.
+     * 
+     * @param event event to copy
+     * @param sequence sequence number
+     * @return event with sequence
+     */
+    public static LogEvent withSequence(EventLog.Event event, long sequence) {
+        return new LogEvent(
+            sequence,
+            event.eventSchemaRef(),
+            event.timestamp(),
+            event.correlationKey(),
+            event.idempotencyKey(),
+            event.payload(),
+            event.source()
+        );
+    }
+    
+    /**
+     * Creates an event read from a log, whose payload is decoded on first access.
+     * The header fields are trusted (they were validated on append).
+     */
+    static LogEvent lazy(
+        long sequence,
+        SchemaRef eventSchemaRef,
+        Instant timestamp,
+        String correlationKey,
+        String idempotencyKey,
+        ByteBuffer encodedPayload,
+        DataCodec dataCodec,
+        String source
+    ) {
+        return new LogEvent(
+            sequence, eventSchemaRef, timestamp, correlationKey, idempotencyKey, encodedPayload, dataCodec, source
+        );
+    }
+    
+    @Override
+    public long sequence() {
+        return sequence;
+    }
+    
+    @Override
+    public SchemaRef eventSchemaRef() {
+        return eventSchemaRef;
+    }
+    
+    @Override
+    public Instant timestamp() {
+        return timestamp;
+    }
+    
+    @Override
+    public String correlationKey() {
+        return correlationKey;
+    }
+    
+    @Override
+    public String idempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    @Override
+    public Object payload() {
+        Object decoded = payload;
+        if (decoded == null) {
+            decoded = dataCodec.decode(encodedPayload.duplicate());
+            payload = decoded;
+        }
+        return decoded;
+    }
+    
+    @Override
+    public String source() {
+        return source;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LogEvent event = (LogEvent) o;
+        return sequence == event.sequence
+            && eventSchemaRef.equals(event.eventSchemaRef)
+            && timestamp.equals(event.timestamp)
+            && Objects.equals(correlationKey, event.correlationKey)
+            && Objects.equals(idempotencyKey, event.idempotencyKey)
+            && payload().equals(event.payload())
+            && source.equals(event.source);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(sequence, eventSchemaRef, timestamp, correlationKey, idempotencyKey, payload(), source);
+    }
+    
+    @Override
+    public String toString() {
+        return "LogEvent{sequence=" + sequence + ", eventSchemaRef=" + eventSchemaRef
+            + ", timestamp=" + timestamp + ", correlationKey='" + correlationKey
+            + "', idempotencyKey='" + idempotencyKey + "', source='" + source + "'}";
+    }
+}
\ No newline at end of file
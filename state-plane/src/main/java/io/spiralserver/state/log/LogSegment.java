@@ -0,0 +1,370 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.state.EventLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+/**
+ * Fixed-size, memory-mapped segment of an event log.
+ * 
+ * <p>File layout:
+ * <pre>
+ *   header   64 bytes: magic, format version, base sequence, timestamp base
+ *   records  [int32 bodyLength][int32 crc32c(body)][body]...
+ *   tail     zero-filled (a zero length marks the end of the segment)
+ * </pre>
+ * 
+ * <p>Bodies use the compact {@link EventCodec} format: schema references are ids into the
+ * segment's {@link SegmentDictionary} and event times are deltas from the header's
+ * timestamp base (the segment creation time). A sealed segment persists its dictionary
+ * with its index; the active segment rebuilds it from the defining records on recovery.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Records hold consecutive sequences starting at the base sequence</li>
+ *   <li>Single writer; readers only see records below the published end position</li>
+ *   <li>The length field is written last, so a torn record fails its checksum</li>
+ *   <li>A sealed segment is never written again</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+final class LogSegment implements Segment {
+    
+    static final String LOG_SUFFIX = ".log";
+    static final String INDEX_SUFFIX = ".index";
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_OVERHEAD = 8;
+    
+    private static final int MAGIC = 0x5350454C; // "SPEL"
+    private static final short FORMAT_VERSION = 2;
+    
+    private final Path file;
+    private final long baseSequence;
+    private final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final SparseIndex index;
+    private final SegmentDictionary dictionary;
+    private volatile int endPosition;
+    private volatile long lastSequence;
+    private volatile long maxTimestampMillis = Long.MIN_VALUE;
+    private volatile boolean sealed;
+    private int flushedPosition; // guarded by this
+    
+    private LogSegment(Path file, FileChannel channel, MappedByteBuffer buffer, int indexIntervalBytes) {
+        this.file = file;
+        this.baseSequence = buffer.getLong(8);
+        this.capacity = buffer.capacity();
+        this.channel = channel;
+        this.buffer = buffer;
+        this.index = new SparseIndex(baseSequence, indexIntervalBytes);
+        this.dictionary = new SegmentDictionary(buffer.getLong(16));
+        this.endPosition = HEADER_BYTES;
+        this.flushedPosition = HEADER_BYTES;
+        this.lastSequence = baseSequence - 1;
+    }
+    
+    /**
+     * Creates a new, empty segment file.
+     * 
+     * @param createdMillis creation time, used as the timestamp base of the records
+     */
+    static LogSegment create(
+        Path directory,
+        long baseSequence,
+        int capacity,
+        int indexIntervalBytes,
+        long createdMillis
+    ) throws IOException {
+        Path file = directory.resolve(fileName(baseSequence));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.putInt(0, MAGIC);
+            buffer.putShort(4, FORMAT_VERSION);
+            buffer.putLong(8, baseSequence);
+            buffer.putLong(16, createdMillis);
+            buffer.force(0, HEADER_BYTES);
+            return new LogSegment(file, channel, buffer, indexIntervalBytes);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Opens an existing segment file.
+     * 
+     * <p>Sealed segments load their persisted index. The active (last) segment, or a
+     * segment whose index is missing, is scanned record by record: the scan stops at the
+     * first record with a bad length, checksum or sequence, and for the active segment
+     * everything after that point is zeroed so a later crash cannot resurrect stale bytes.
+     * 
+     * @param file segment file
+     * @param indexIntervalBytes sparse index interval
+     * @param active true for the segment that will receive appends
+     */
+    static LogSegment open(Path file, int indexIntervalBytes, boolean active) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid segment size " + size + ": " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not an event log segment: " + file);
+            }
+            if (buffer.getShort(4) != FORMAT_VERSION) {
+                throw new IOException("Unsupported segment format " + buffer.getShort(4) + ": " + file);
+            }
+            LogSegment segment = new LogSegment(file, channel, buffer, indexIntervalBytes);
+            segment.load(active);
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    static String fileName(long baseSequence) {
+        return String.format("%020d", baseSequence) + LOG_SUFFIX;
+    }
+    
+    private void load(boolean active) throws IOException {
+        if (!active) {
+            SparseIndex.SegmentSummary summary = index.readFrom(indexFile());
+            if (summary != null) {
+                lastSequence = summary.lastSequence();
+                maxTimestampMillis = summary.maxTimestampMillis();
+                endPosition = summary.endPosition();
+                dictionary.addAll(summary.schemaRefs());
+                flushedPosition = endPosition;
+                sealed = true;
+                return;
+            }
+        }
+        recover(active);
+        sealed = !active;
+    }
+    
+    private void recover(boolean zeroTail) {
+        CRC32C crc = new CRC32C();
+        int pos = HEADER_BYTES;
+        long expected = baseSequence;
+        long maxTimestamp = Long.MIN_VALUE;
+        while (pos + RECORD_OVERHEAD <= capacity) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || length > capacity - pos - RECORD_OVERHEAD) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(pos + RECORD_OVERHEAD, length));
+            if ((int) crc.getValue() != buffer.getInt(pos + 4)) {
+                break;
+            }
+            int body = pos + RECORD_OVERHEAD;
+            if (buffer.getLong(body + EventCodec.SEQUENCE_OFFSET) != expected
+                    || !EventCodec.restoreSchema(buffer, body, dictionary)) {
+                break;
+            }
+            index.maybeAdd(expected, pos);
+            maxTimestamp = Math.max(maxTimestamp, EventCodec.timestampMillis(buffer, body, dictionary));
+            expected++;
+            pos += RECORD_OVERHEAD + length;
+        }
+        if (zeroTail && pos + 4 <= capacity && buffer.getInt(pos) != 0) {
+            int end = pos;
+            byte[] zeros = new byte[Math.min(64 * 1024, capacity - end)];
+            for (int p = end; p < capacity; p += zeros.length) {
+                buffer.put(p, zeros, 0, Math.min(zeros.length, capacity - p));
+            }
+            buffer.force(end, capacity - end);
+        }
+        lastSequence = expected - 1;
+        maxTimestampMillis = maxTimestamp;
+        endPosition = pos;
+        flushedPosition = pos;
+    }
+    
+    /**
+     * Appends a record. Must only be called by the single log writer.
+     * 
+     * @return false if the segment has no room for the record
+     */
+    boolean append(long sequence, EventCodec codec, EventCodec.Encoded event, CRC32C crc) {
+        if (sealed) {
+            throw new IllegalStateException("Segment is sealed: " + file);
+        }
+        int length = codec.bodyBytes(event, dictionary);
+        int pos = endPosition;
+        if (length > capacity - pos - RECORD_OVERHEAD) {
+            return false;
+        }
+        int body = pos + RECORD_OVERHEAD;
+        codec.write(buffer, body, sequence, event, dictionary);
+        crc.reset();
+        crc.update(buffer.slice(body, length));
+        buffer.putInt(pos + 4, (int) crc.getValue());
+        buffer.putInt(pos, length);
+        index.maybeAdd(sequence, pos);
+        maxTimestampMillis = Math.max(maxTimestampMillis, event.timestampMillis());
+        lastSequence = sequence;
+        endPosition = body + length; // publishes the record to readers
+        return true;
+    }
+    
+    @Override
+    public int read(long afterSequence, int limit, List<EventLog.Event> out, EventCodec codec) {
+        int end = endPosition;
+        int pos = index.floorPosition(afterSequence + 1, HEADER_BYTES);
+        int added = 0;
+        while (pos < end && added < limit) {
+            int length = buffer.getInt(pos);
+            int body = pos + RECORD_OVERHEAD;
+            if (buffer.getLong(body + EventCodec.SEQUENCE_OFFSET) > afterSequence) {
+                out.add(codec.decode(buffer, body, dictionary));
+                added++;
+            }
+            pos = body + length;
+        }
+        return added;
+    }
+    
+    @Override
+    public boolean scan(long afterSequence, EventCodec codec, Predicate<LogEvent> visitor) {
+        int end = endPosition;
+        int pos = index.floorPosition(afterSequence + 1, HEADER_BYTES);
+        while (pos < end) {
+            int length = buffer.getInt(pos);
+            int body = pos + RECORD_OVERHEAD;
+            if (buffer.getLong(body + EventCodec.SEQUENCE_OFFSET) > afterSequence
+                    && !visitor.test(codec.decode(buffer, body, dictionary))) {
+                return false;
+            }
+            pos = body + length;
+        }
+        return true;
+    }
+    
+    /**
+     * Forces written records to storage.
+     */
+    synchronized void flush() {
+        int end = endPosition;
+        if (end > flushedPosition) {
+            buffer.force(flushedPosition, end - flushedPosition);
+            flushedPosition = end;
+        }
+    }
+    
+    /**
+     * Seals the segment: flushes it and persists its sparse index.
+     */
+    void seal() throws IOException {
+        flush();
+        index.writeTo(indexFile(), new SparseIndex.SegmentSummary(
+            lastSequence, endPosition, maxTimestampMillis, dictionary.toStrings()
+        ));
+        sealed = true;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    @Override
+    public void delete() throws IOException {
+        deleteLogFiles();
+        Files.deleteIfExists(companion(CorrelationIndex.SUFFIX));
+    }
+    
+    /**
+     * Closes the segment and removes the segment and index files, keeping other
+     * companions; used once the segment has been replaced by a compressed copy.
+     */
+    void deleteLogFiles() throws IOException {
+        close();
+        deleteFiles(file);
+    }
+    
+    /**
+     * Removes a segment file and its index without opening it.
+     */
+    static void deleteFiles(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        Files.deleteIfExists(file.resolveSibling(name.substring(0, name.length() - LOG_SUFFIX.length()) + INDEX_SUFFIX));
+        Files.deleteIfExists(file);
+    }
+    
+    /**
+     * Returns the published records ({@code [length][crc][body]...}) as a read-only view.
+     */
+    ByteBuffer records() {
+        return buffer.slice(HEADER_BYTES, endPosition - HEADER_BYTES).asReadOnlyBuffer();
+    }
+    
+    SegmentDictionary dictionary() {
+        return dictionary;
+    }
+    
+    private Path indexFile() {
+        return companion(INDEX_SUFFIX);
+    }
+    
+    @Override
+    public Path file() {
+        return file;
+    }
+    
+    @Override
+    public long baseSequence() {
+        return baseSequence;
+    }
+    
+    @Override
+    public long lastSequence() {
+        return lastSequence;
+    }
+    
+    boolean isEmpty() {
+        return lastSequence < baseSequence;
+    }
+    
+    @Override
+    public long maxTimestampMillis() {
+        return maxTimestampMillis;
+    }
+    
+    @Override
+    public long dataBytes() {
+        return endPosition;
+    }
+    
+    int capacity() {
+        return capacity;
+    }
+    
+    @Override
+    public boolean isSealed() {
+        return sealed;
+    }
+    
+    @Override
+    public String toString() {
+        return "LogSegment{file=" + file.getFileName() + ", baseSequence=" + baseSequence
+            + ", lastSequence=" + lastSequence + ", sealed=" + sealed + "}";
+    }
+}
\ No newline at end of file
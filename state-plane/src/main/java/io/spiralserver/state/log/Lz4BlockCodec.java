@@ -0,0 +1,218 @@
+package io.spiralserver.state.log;
+
+import java.util.Arrays;
+
+/**
+ * Pure-Java compressor for the LZ4 block format.
+ * 
+ * <p>Output is a standard LZ4 block (sequences of literals and back-references with
+ * 16-bit offsets), so it can be read by any LZ4 implementation. Compression is greedy
+ * with a single-entry hash table of 4-byte sequences and skips ahead faster through
+ * incompressible input, trading ratio for speed as LZ4 does.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>The last 5 bytes of a block are always literals (LZ4 end-of-block rule)</li>
+ *   <li>Decompression never reads or writes outside the given ranges</li>
+ *   <li>Stateless and thread-safe</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+final class Lz4BlockCodec {
+    
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_OFFSET = 65535;
+    private static final int HASH_BITS = 14;
+    private static final int SKIP_TRIGGER = 6;
+    
+    private Lz4BlockCodec() {
+    }
+    
+    /**
+     * Returns the worst-case compressed size of {@code length} input bytes.
+     */
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+    
+    /**
+     * Compresses a range into a destination array.
+     * 
+     * @param dst destination with at least {@link #maxCompressedLength} bytes after {@code dstOffset}
+     * @return compressed length
+     */
+    static int compress(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset) {
+        int end = srcOffset + length;
+        int anchor = srcOffset;
+        int op = dstOffset;
+        if (length >= MF_LIMIT + 1) {
+            int[] table = new int[1 << HASH_BITS];
+            Arrays.fill(table, -1);
+            int matchLimit = end - LAST_LITERALS;
+            int mfLimit = end - MF_LIMIT;
+            int ip = srcOffset;
+            int misses = 0;
+            while (ip < mfLimit) {
+                int sequence = readInt(src, ip);
+                int h = hash(sequence);
+                int ref = table[h];
+                table[h] = ip;
+                if (ref < 0 || ip - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                    ip += 1 + (misses++ >>> SKIP_TRIGGER);
+                    continue;
+                }
+                misses = 0;
+                while (ip > anchor && ref > srcOffset && src[ip - 1] == src[ref - 1]) {
+                    ip--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength]) {
+                    matchLength++;
+                }
+                op = writeSequence(src, anchor, ip - anchor, ip - ref, matchLength, dst, op);
+                ip += matchLength;
+                anchor = ip;
+                if (ip - 2 >= srcOffset && ip < mfLimit) {
+                    table[hash(readInt(src, ip - 2))] = ip - 2;
+                }
+            }
+        }
+        return writeLastLiterals(src, anchor, end - anchor, dst, op) - dstOffset;
+    }
+    
+    /**
+     * Decompresses a block into an exactly sized destination range.
+     * 
+     * @throws IllegalStateException if the block is malformed or does not decompress to
+     *         exactly {@code length} bytes
+     */
+    static void decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int length) {
+        int ip = srcOffset;
+        int srcEnd = srcOffset + srcLength;
+        int op = dstOffset;
+        int dstEnd = dstOffset + length;
+        try {
+            while (true) {
+                int token = src[ip++] & 0xFF;
+                int literals = token >>> 4;
+                if (literals == 15) {
+                    int b;
+                    do {
+                        b = src[ip++] & 0xFF;
+                        literals += b;
+                    } while (b == 255);
+                }
+                if (literals > srcEnd - ip || literals > dstEnd - op) {
+                    throw malformed("literal run overflows block");
+                }
+                System.arraycopy(src, ip, dst, op, literals);
+                ip += literals;
+                op += literals;
+                if (ip == srcEnd) {
+                    break;
+                }
+                int offset = (src[ip] & 0xFF) | (src[ip + 1] & 0xFF) << 8;
+                ip += 2;
+                if (offset == 0 || offset > op - dstOffset) {
+                    throw malformed("invalid match offset " + offset);
+                }
+                int matchLength = token & 0x0F;
+                if (matchLength == 15) {
+                    int b;
+                    do {
+                        b = src[ip++] & 0xFF;
+                        matchLength += b;
+                    } while (b == 255);
+                }
+                matchLength += MIN_MATCH;
+                if (matchLength > dstEnd - op) {
+                    throw malformed("match overflows block");
+                }
+                if (offset >= matchLength) {
+                    System.arraycopy(dst, op - offset, dst, op, matchLength);
+                    op += matchLength;
+                } else {
+                    for (int i = 0; i < matchLength; i++, op++) {
+                        dst[op] = dst[op - offset];
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw malformed("truncated block");
+        }
+        if (op != dstEnd) {
+            throw malformed("decompressed " + (op - dstOffset) + " bytes, expected " + length);
+        }
+    }
+    
+    private static int writeSequence(
+        byte[] src,
+        int literalStart,
+        int literals,
+        int offset,
+        int matchLength,
+        byte[] dst,
+        int op
+    ) {
+        int tokenPosition = op++;
+        int token;
+        if (literals >= 15) {
+            token = 15 << 4;
+            op = writeLength(dst, op, literals - 15);
+        } else {
+            token = literals << 4;
+        }
+        System.arraycopy(src, literalStart, dst, op, literals);
+        op += literals;
+        dst[op++] = (byte) offset;
+        dst[op++] = (byte) (offset >>> 8);
+        int extra = matchLength - MIN_MATCH;
+        if (extra >= 15) {
+            token |= 15;
+            op = writeLength(dst, op, extra - 15);
+        } else {
+            token |= extra;
+        }
+        dst[tokenPosition] = (byte) token;
+        return op;
+    }
+    
+    private static int writeLastLiterals(byte[] src, int literalStart, int literals, byte[] dst, int op) {
+        if (literals >= 15) {
+            dst[op++] = (byte) (15 << 4);
+            op = writeLength(dst, op, literals - 15);
+        } else {
+            dst[op++] = (byte) (literals << 4);
+        }
+        System.arraycopy(src, literalStart, dst, op, literals);
+        return op + literals;
+    }
+    
+    private static int writeLength(byte[] dst, int op, int length) {
+        while (length >= 255) {
+            dst[op++] = (byte) 255;
+            length -= 255;
+        }
+        dst[op++] = (byte) length;
+        return op;
+    }
+    
+    private static int readInt(byte[] src, int position) {
+        return (src[position] & 0xFF)
+            | (src[position + 1] & 0xFF) << 8
+            | (src[position + 2] & 0xFF) << 16
+            | (src[position + 3] & 0xFF) << 24;
+    }
+    
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_BITS);
+    }
+    
+    private static IllegalStateException malformed(String reason) {
+        return new IllegalStateException("Malformed LZ4 block: " + reason);
+    }
+}
\ No newline at end of file
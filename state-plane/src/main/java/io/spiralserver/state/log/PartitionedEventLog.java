@@ -0,0 +1,344 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.EventLog;
+import io.spiralserver.state.PartitionedCursor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Event log split into independent {@link SegmentedEventLog} partitions, selected by
+ * hashing the correlation key.
+ * 
+ * <p>Each partition has its own append lock, group commit and sequence space, so appends
+ * for unrelated correlation keys proceed in parallel. All events of one correlation key
+ * land in the same partition, which keeps their relative order. Progress through the
+ * whole log is tracked with a {@link PartitionedCursor}.
+ * 
+ * <p>Routing:
+ * <ul>
+ *   <li>Events with a correlation key go to {@code hash(correlationKey) mod N}</li>
+ *   <li>Events without one but with an idempotency key go to {@code hash(idempotencyKey) mod N},
+ *       so retries of the same event meet the same duplicate check</li>
+ *   <li>Other events go to a partition chosen by the appending thread, which keeps each
+ *       thread's unkeyed events in order without a shared counter</li>
+ * </ul>
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>The partition count is fixed when the log is created; reopening with a different
+ *       count is rejected because it would reroute existing keys</li>
+ *   <li>Events are totally ordered within a partition only</li>
+ *   <li>Duplicate rejection covers events routed to the same partition</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class PartitionedEventLog implements Closeable {
+    
+    private static final String PARTITION_PREFIX = "partition-";
+    
+    private final SegmentedEventLog[] partitions;
+    
+    private PartitionedEventLog(SegmentedEventLog[] partitions) {
+        this.partitions = partitions;
+    }
+    
+    /**
+     * Opens (or creates) a partitioned log. Partition {@code i} lives in the subdirectory
+     * {@code partition-i} of the configured directory and uses the rest of the
+     * configuration as is.
+     * 
+     * @param config configuration shared by all partitions
+     * @param partitionCount number of partitions
+     * @return opened log
+     * @throws IllegalArgumentException if the directory holds a different number of partitions
+     * @throws UncheckedIOException if a partition cannot be opened
+     */
+    public static PartitionedEventLog open(EventLogConfig config, int partitionCount) {
+        if (config == null) {
+            throw new IllegalArgumentException("Config cannot be null");
+        }
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("Partition count must be positive");
+        }
+        int existing = existingPartitions(config.directory());
+        if (existing != 0 && existing != partitionCount) {
+            throw new IllegalArgumentException(
+                "Event log in " + config.directory() + " has " + existing + " partitions, not " + partitionCount
+            );
+        }
+        SegmentedEventLog[] partitions = new SegmentedEventLog[partitionCount];
+        try {
+            for (int i = 0; i < partitionCount; i++) {
+                partitions[i] = SegmentedEventLog.open(
+                    config.withDirectory(config.directory().resolve(PARTITION_PREFIX + i))
+                );
+            }
+        } catch (RuntimeException e) {
+            closeAll(partitions, e);
+            throw e;
+        }
+        return new PartitionedEventLog(partitions);
+    }
+    
+    private static int existingPartitions(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        try (Stream<Path> listing = Files.list(directory)) {
+            return (int) listing
+                .filter(p -> Files.isDirectory(p) && p.getFileName().toString().startsWith(PARTITION_PREFIX))
+                .count();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list event log partitions in " + directory, e);
+        }
+    }
+    
+    /**
+     * Returns the partition an event is appended to.
+     * 
+     * @param event event
+     * @return partition index
+     */
+    public int partitionOf(EventLog.Event event) {
+        if (event == null) {
+            throw new IllegalArgumentException("Event cannot be null");
+        }
+        if (event.correlationKey() != null) {
+            return partitionOfKey(event.correlationKey());
+        }
+        if (event.idempotencyKey() != null) {
+            return partitionOfKey(event.idempotencyKey());
+        }
+        return (int) (Thread.currentThread().threadId() % partitions.length);
+    }
+    
+    /**
+     * Returns the partition a routing key (correlation or idempotency key) hashes to.
+     * 
+     * @param key routing key
+     * @return partition index
+     */
+    public int partitionOfKey(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        return (int) Long.remainderUnsigned(IdempotencyIndex.hash(key), partitions.length);
+    }
+    
+    /**
+     * Appends an event to its partition.
+     * 
+     * @param event event to append
+     * @return sequence within partition {@link #partitionOf(EventLog.Event)}
+     * @throws IllegalArgumentException if the event is invalid or duplicate
+     */
+    public long append(EventLog.Event event) {
+        return partitions[partitionOf(event)].append(event);
+    }
+    
+    /**
+     * Appends a batch of events. The batch is split by partition and each partition's share
+     * is appended with {@link SegmentedEventLog#appendAll}, under one lock acquisition of
+     * that partition; shares of different partitions are appended independently.
+     * 
+     * @param events events to append, in order
+     * @return sequence of each event within its partition, in input order
+     */
+    public List<Long> appendAll(List<EventLog.Event> events) {
+        if (events == null) {
+            throw new IllegalArgumentException("Events cannot be null");
+        }
+        int[] routes = new int[events.size()];
+        List<List<EventLog.Event>> byPartition = new ArrayList<>(partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            byPartition.add(new ArrayList<>());
+        }
+        for (int i = 0; i < events.size(); i++) {
+            routes[i] = partitionOf(events.get(i));
+            byPartition.get(routes[i]).add(events.get(i));
+        }
+        List<List<Long>> assigned = new ArrayList<>(partitions.length);
+        for (int p = 0; p < partitions.length; p++) {
+            assigned.add(byPartition.get(p).isEmpty() ? List.of() : partitions[p].appendAll(byPartition.get(p)));
+        }
+        int[] next = new int[partitions.length];
+        List<Long> sequences = new ArrayList<>(events.size());
+        for (int route : routes) {
+            sequences.add(assigned.get(route).get(next[route]++));
+        }
+        return sequences;
+    }
+    
+    /**
+     * Reads events after a cursor from all partitions.
+     * 
+     * <p>Every partition with pending events gets a fair share of the limit before any
+     * partition gets more, so a busy partition cannot starve the others. Events of one
+     * partition are returned in sequence order; there is no order across partitions.
+     * 
+     * @param cursor starting cursor (exclusive per partition)
+     * @param limit maximum number of events
+     * @return events read and the cursor after them
+     */
+    public Batch read(PartitionedCursor cursor, int limit) {
+        requireMatching(cursor);
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must be non-negative");
+        }
+        List<EventLog.Event> events = new ArrayList<>();
+        long[] positions = new long[partitions.length];
+        for (int p = 0; p < partitions.length; p++) {
+            positions[p] = cursor.partition(p).sequence();
+        }
+        int share = Math.max(1, limit / partitions.length);
+        boolean[] exhausted = new boolean[partitions.length];
+        boolean progress = true;
+        while (events.size() < limit && progress) {
+            progress = false;
+            for (int p = 0; p < partitions.length && events.size() < limit; p++) {
+                if (exhausted[p]) {
+                    continue;
+                }
+                int wanted = Math.min(share, limit - events.size());
+                List<EventLog.Event> read = partitions[p].read(new Cursor(positions[p]), wanted);
+                events.addAll(read);
+                if (!read.isEmpty()) {
+                    positions[p] = read.get(read.size() - 1).sequence();
+                    progress = true;
+                }
+                exhausted[p] = read.size() < wanted;
+            }
+        }
+        return new Batch(events, PartitionedCursor.of(positions));
+    }
+    
+    /**
+     * Retrieves events by correlation key from the key's partition.
+     * 
+     * @see EventLog#readByCorrelation
+     */
+    public List<EventLog.Event> readByCorrelation(String correlationKey, Optional<SchemaRef> eventSchemaRef, int limit) {
+        return partitions[partitionOfKey(correlationKey)].readByCorrelation(correlationKey, eventSchemaRef, limit);
+    }
+    
+    /**
+     * Looks an idempotency key up in all partitions (one index probe each).
+     * 
+     * @see EventLog#findByIdempotencyKey
+     */
+    public Optional<EventLog.Event> findByIdempotencyKey(String idempotencyKey, long dedupeWindowMs) {
+        for (SegmentedEventLog partition : partitions) {
+            Optional<EventLog.Event> found = partition.findByIdempotencyKey(idempotencyKey, dedupeWindowMs);
+            if (found.isPresent()) {
+                return found;
+            }
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * Returns the cursor at the head of every partition.
+     * 
+     * @return current cursor
+     */
+    public PartitionedCursor currentCursor() {
+        long[] sequences = new long[partitions.length];
+        for (int p = 0; p < partitions.length; p++) {
+            sequences[p] = partitions[p].currentCursor().sequence();
+        }
+        return PartitionedCursor.of(sequences);
+    }
+    
+    public int partitionCount() {
+        return partitions.length;
+    }
+    
+    /**
+     * Returns one partition, e.g. to tail or consume it on a dedicated thread.
+     * 
+     * @param partition partition index
+     * @return partition log
+     */
+    public SegmentedEventLog partition(int partition) {
+        return partitions[partition];
+    }
+    
+    /**
+     * Forces all partitions to storage.
+     */
+    public void flush() {
+        for (SegmentedEventLog partition : partitions) {
+            partition.flush();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (SegmentedEventLog partition : partitions) {
+            try {
+                partition.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    private void requireMatching(PartitionedCursor cursor) {
+        if (cursor == null) {
+            throw new IllegalArgumentException("Cursor cannot be null");
+        }
+        if (cursor.partitionCount() != partitions.length) {
+            throw new IllegalArgumentException(
+                "Cursor has " + cursor.partitionCount() + " partitions, log has " + partitions.length
+            );
+        }
+    }
+    
+    private static void closeAll(SegmentedEventLog[] partitions, RuntimeException cause) {
+        for (SegmentedEventLog partition : partitions) {
+            if (partition != null) {
+                try {
+                    partition.close();
+                } catch (IOException e) {
+                    cause.addSuppressed(e);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "PartitionedEventLog{partitions=" + partitions.length + ", cursor=" + currentCursor() + "}";
+    }
+    
+    /**
+     * Result of {@link #read}: the events and the cursor to continue from.
+     * 
+     * @param events events read
+     * @param next cursor after the last event read from each partition
+     */
+    public record Batch(List<EventLog.Event> events, PartitionedCursor next) {
+        public Batch {
+            events = List.copyOf(events);
+        }
+    }
+}
\ No newline at end of file
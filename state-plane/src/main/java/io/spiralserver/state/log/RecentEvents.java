@@ -0,0 +1,64 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.EventLog;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ring of the most recently appended events, shared by all tail subscriptions.
+ * 
+ * <p>Subscribers that keep up with the head of the log take events from the ring instead
+ * of reading them from the segments. Each entry keeps the payload bytes that were written
+ * to the segment and decodes them on first access, so subscribers see the same payload
+ * representation as {@link EventLog#read} and share one instance of each event.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Slot {@code sequence & mask} holds the entry with that sequence or a later one</li>
+ *   <li>Single writer (the appender, under the append lock), concurrent readers</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+final class RecentEvents {
+    
+    private final AtomicReferenceArray<LogEvent> ring;
+    private final int mask;
+    private final DataCodec dataCodec;
+    
+    /**
+     * @param capacity ring size (rounded up to a power of two)
+     * @param dataCodec codec of the payload bytes
+     */
+    RecentEvents(int capacity, DataCodec dataCodec) {
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.dataCodec = dataCodec;
+    }
+    
+    /**
+     * Records an appended event.
+     * 
+     * @param sequence assigned sequence
+     * @param event appended event (its payload is not retained)
+     * @param payload encoded payload as written to the segment
+     */
+    void put(long sequence, EventLog.Event event, byte[] payload) {
+        ring.set((int) sequence & mask, LogEvent.lazy(
+            sequence, event.eventSchemaRef(), event.timestamp(), event.correlationKey(),
+            event.idempotencyKey(), ByteBuffer.wrap(payload), dataCodec, event.source()
+        ));
+    }
+    
+    /**
+     * Returns the event with the given sequence, or null if it is no longer (or not yet)
+     * in the ring.
+     */
+    LogEvent get(long sequence) {
+        LogEvent event = ring.get((int) sequence & mask);
+        return event != null && event.sequence() == sequence ? event : null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,128 @@
+package io.spiralserver.state.log;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Configuration of a {@link RetentionService}.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable; {@code with*} methods return modified copies</li>
+ *   <li>All values are validated when set</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class RetentionPolicy {
+    
+    public static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(30);
+    public static final int DEFAULT_SEGMENTS_PER_RUN = 1;
+    
+    private Duration interval = DEFAULT_INTERVAL;
+    private int segmentsPerRun = DEFAULT_SEGMENTS_PER_RUN;
+    private Path archiveDirectory; // null deletes removed segments
+    private boolean removeWithoutAgents;
+    
+    private RetentionPolicy() {
+    }
+    
+    private RetentionPolicy(RetentionPolicy other) {
+        this.interval = other.interval;
+        this.segmentsPerRun = other.segmentsPerRun;
+        this.archiveDirectory = other.archiveDirectory;
+        this.removeWithoutAgents = other.removeWithoutAgents;
+    }
+    
+    /**
+     * Creates a policy with default settings: one segment deleted every 30 seconds at most.
+     * 
+     * @return policy
+     */
+    public static RetentionPolicy defaults() {
+        return new RetentionPolicy();
+    }
+    
+    /**
+     * Sets the delay between two retention runs.
+     * 
+     * @param interval delay between runs
+     * @return modified copy
+     */
+    public RetentionPolicy withInterval(Duration interval) {
+        if (interval == null || interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        RetentionPolicy copy = new RetentionPolicy(this);
+        copy.interval = interval;
+        return copy;
+    }
+    
+    /**
+     * Sets how many segments one run removes at most, which bounds the work done per run.
+     * 
+     * @param segmentsPerRun segments per run
+     * @return modified copy
+     */
+    public RetentionPolicy withSegmentsPerRun(int segmentsPerRun) {
+        if (segmentsPerRun <= 0) {
+            throw new IllegalArgumentException("Segments per run must be positive");
+        }
+        RetentionPolicy copy = new RetentionPolicy(this);
+        copy.segmentsPerRun = segmentsPerRun;
+        return copy;
+    }
+    
+    /**
+     * Moves removed segments to a directory instead of deleting them.
+     * 
+     * @param archiveDirectory archive directory (created if missing)
+     * @return modified copy
+     */
+    public RetentionPolicy withArchiveDirectory(Path archiveDirectory) {
+        if (archiveDirectory == null) {
+            throw new IllegalArgumentException("Archive directory cannot be null");
+        }
+        RetentionPolicy copy = new RetentionPolicy(this);
+        copy.archiveDirectory = archiveDirectory;
+        return copy;
+    }
+    
+    /**
+     * Sets whether segments may be removed while no agent is known. By default an empty
+     * agent set keeps the whole log, since it usually means the agents are not loaded yet
+     * (for example at startup) rather than that no agent needs the events.
+     * 
+     * @param removeWithoutAgents true to remove segments outside the dedupe window when
+     *        there are no agents
+     * @return modified copy
+     */
+    public RetentionPolicy withRemoveWithoutAgents(boolean removeWithoutAgents) {
+        RetentionPolicy copy = new RetentionPolicy(this);
+        copy.removeWithoutAgents = removeWithoutAgents;
+        return copy;
+    }
+    
+    public Duration interval() {
+        return interval;
+    }
+    
+    public int segmentsPerRun() {
+        return segmentsPerRun;
+    }
+    
+    public Optional<Path> archiveDirectory() {
+        return Optional.ofNullable(archiveDirectory);
+    }
+    
+    public boolean removeWithoutAgents() {
+        return removeWithoutAgents;
+    }
+    
+    @Override
+    public String toString() {
+        return "RetentionPolicy{interval=" + interval + ", segmentsPerRun=" + segmentsPerRun
+            + ", archiveDirectory=" + archiveDirectory + ", removeWithoutAgents=" + removeWithoutAgents + "}";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,183 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.Snapshot;
+import io.spiralserver.state.SnapshotStore;
+
+import java.io.Closeable;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Background retention for a {@link SegmentedEventLog}, coordinated with a
+ * {@link SnapshotStore}.
+ * 
+ * <p>An agent is rebuilt from its latest snapshot plus the events after the snapshot's
+ * cursor, so events at or before the oldest such cursor across all agents are no longer
+ * needed. Each run computes that cursor and removes (deletes or archives) whole sealed
+ * segments below it, oldest first.
+ * 
+ * <p>A segment is kept while:
+ * <ul>
+ *   <li>it holds an event after the oldest needed snapshot cursor</li>
+ *   <li>it holds an event inside the log's dedupe window, so idempotency keys that may
+ *       still be retried stay readable</li>
+ *   <li>it is the active segment</li>
+ * </ul>
+ * An agent without a snapshot needs the whole log, so nothing is removed until every
+ * agent has one. Nothing is removed either while the agent supplier returns no agents,
+ * unless the policy {@linkplain RetentionPolicy#withRemoveWithoutAgents allows it}.
+ * 
+ * <p>Runs are incremental and throttled: each removes at most
+ * {@link RetentionPolicy#segmentsPerRun()} segments, and the append lock is only taken
+ * for short, bounded steps, so appends are never stalled behind a large cleanup.
+ * 
+ * @author SpiralServer Team
+ */
+public final class RetentionService implements Closeable {
+    
+    private static final System.Logger LOGGER = System.getLogger(RetentionService.class.getName());
+    
+    private final SegmentedEventLog log;
+    private final SnapshotStore snapshotStore;
+    private final Supplier<? extends Collection<String>> agentInstanceIds;
+    private final RetentionPolicy policy;
+    private final AtomicLong removedSegments = new AtomicLong();
+    private ScheduledExecutorService scheduler; // guarded by this
+    
+    /**
+     * Creates a retention service; call {@link #start()} to run it in the background or
+     * {@link #runOnce()} to run it on demand.
+     * 
+     * @param log event log to bound
+     * @param snapshotStore snapshots the agents are rebuilt from
+     * @param agentInstanceIds supplies the agents whose events the log holds
+     * @param policy retention policy
+     */
+    public RetentionService(
+        SegmentedEventLog log,
+        SnapshotStore snapshotStore,
+        Supplier<? extends Collection<String>> agentInstanceIds,
+        RetentionPolicy policy
+    ) {
+        if (log == null) {
+            throw new IllegalArgumentException("Event log cannot be null");
+        }
+        if (snapshotStore == null) {
+            throw new IllegalArgumentException("Snapshot store cannot be null");
+        }
+        if (agentInstanceIds == null) {
+            throw new IllegalArgumentException("Agent instance IDs cannot be null");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Policy cannot be null");
+        }
+        this.log = log;
+        this.snapshotStore = snapshotStore;
+        this.agentInstanceIds = agentInstanceIds;
+        this.policy = policy;
+    }
+    
+    /**
+     * Starts running retention every {@link RetentionPolicy#interval()} on a daemon thread.
+     * 
+     * @return this service
+     * @throws IllegalStateException if already started
+     */
+    public synchronized RetentionService start() {
+        if (scheduler != null) {
+            throw new IllegalStateException("Retention service already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "event-log-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = policy.interval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::runQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        return this;
+    }
+    
+    private void runQuietly() {
+        try {
+            runOnce();
+        } catch (RuntimeException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Event log retention run failed", e);
+        }
+    }
+    
+    /**
+     * Runs retention once.
+     * 
+     * @return number of segments removed
+     * @throws UncheckedIOException if a segment cannot be removed
+     */
+    public int runOnce() {
+        if (!log.hasSealedSegments()) {
+            return 0; // nothing to remove; skip the snapshot lookups
+        }
+        long neededAfter = oldestNeededSequence();
+        long protectedFromMillis = log.config().clock().millis() - log.config().dedupeWindowMs();
+        int removed = 0;
+        while (removed < policy.segmentsPerRun()
+                && log.removeOldestSegment(neededAfter, protectedFromMillis, policy.archiveDirectory().orElse(null))) {
+            removed++;
+        }
+        if (removed > 0) {
+            removedSegments.addAndGet(removed);
+            LOGGER.log(System.Logger.Level.DEBUG, "Removed {0} event log segment(s), log now starts at {1}",
+                removed, log.firstSequence());
+        }
+        return removed;
+    }
+    
+    /**
+     * Returns the oldest cursor any agent replays from: the minimum over all agents of
+     * the latest snapshot cursor.
+     */
+    private long oldestNeededSequence() {
+        Collection<String> agents = agentInstanceIds.get();
+        if (agents.isEmpty() && !policy.removeWithoutAgents()) {
+            return 0; // agents not known (yet); keep everything
+        }
+        Cursor head = log.currentCursor();
+        long oldest = head.sequence();
+        for (String agentInstanceId : agents) {
+            Optional<Snapshot> latest = snapshotStore.findLatestBefore(agentInstanceId, head);
+            if (latest.isEmpty()) {
+                return 0;
+            }
+            oldest = Math.min(oldest, latest.get().cursor().sequence());
+        }
+        return oldest;
+    }
+    
+    /**
+     * Returns the number of segments removed since the service was created.
+     * 
+     * @return removed segment count
+     */
+    public long removedSegments() {
+        return removedSegments.get();
+    }
+    
+    public RetentionPolicy policy() {
+        return policy;
+    }
+    
+    /**
+     * Stops background runs; a run in progress completes. Does not close the log.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+}
\ No newline at end of file
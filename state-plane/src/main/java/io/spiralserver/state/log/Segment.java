@@ -0,0 +1,89 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.state.EventLog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Read view of one segment of a {@link SegmentedEventLog}, independent of how its
+ * records are stored.
+ * 
+ * <p>Implemented by {@link LogSegment} (memory-mapped, appendable) and by
+ * {@link CompressedSegment} (sealed, block-compressed).
+ * 
+ * @author SpiralServer Team
+ */
+interface Segment extends Closeable {
+    
+    /**
+     * Returns the main file of the segment; its name (without suffix) is the zero-padded
+     * base sequence.
+     */
+    Path file();
+    
+    long baseSequence();
+    
+    long lastSequence();
+    
+    long maxTimestampMillis();
+    
+    boolean isSealed();
+    
+    /**
+     * Returns the number of bytes of header and record data in the segment file, not
+     * counting preallocated space.
+     */
+    long dataBytes();
+    
+    /**
+     * Reads events with sequence greater than {@code afterSequence}.
+     * 
+     * @return number of events added to {@code out}
+     */
+    int read(long afterSequence, int limit, List<EventLog.Event> out, EventCodec codec);
+    
+    /**
+     * Visits events in order until the visitor returns false.
+     * 
+     * @return false if the visitor stopped the scan
+     */
+    boolean scan(long afterSequence, EventCodec codec, Predicate<LogEvent> visitor);
+    
+    /**
+     * Closes the segment and removes its files, including companions.
+     */
+    void delete() throws IOException;
+    
+    /**
+     * Closes the segment and moves its files, including companions, to a directory. The
+     * main file is moved first, so an interrupted move leaves at most orphaned companions.
+     * 
+     * @param directory archive directory (created if missing)
+     */
+    default void archiveTo(Path directory) throws IOException {
+        close();
+        Files.createDirectories(directory);
+        Path main = file();
+        for (Path file : List.of(main, companion(LogSegment.INDEX_SUFFIX), companion(CorrelationIndex.SUFFIX))) {
+            if (file.equals(main) || Files.exists(file)) {
+                Files.move(file, directory.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+    
+    /**
+     * Returns the path of a file stored alongside this segment.
+     * 
+     * @param suffix file suffix (e.g. {@code .index})
+     */
+    default Path companion(String suffix) {
+        String name = file().getFileName().toString();
+        return file().resolveSibling(name.substring(0, name.lastIndexOf('.')) + suffix);
+    }
+}
\ No newline at end of file
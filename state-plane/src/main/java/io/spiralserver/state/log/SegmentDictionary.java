@@ -0,0 +1,100 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.schema.SchemaRef;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-segment context of the compact record format: the {@link SchemaRef} dictionary and
+ * the timestamp base.
+ * 
+ * <p>A segment stores each distinct schema reference once, in the first record that uses
+ * it; every record refers to its schema by a small id. Event times are stored as deltas
+ * from the segment's timestamp base.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Ids are assigned densely from 0 in order of first use</li>
+ *   <li>An id is registered before the record defining it is published to readers</li>
+ *   <li>Single writer (the segment appender), any number of concurrent readers</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+final class SegmentDictionary {
+    
+    private final long timestampBaseMillis;
+    private final Map<SchemaRef, Integer> ids = new HashMap<>(); // writer only
+    private volatile SchemaRef[] refs = new SchemaRef[0];
+    
+    SegmentDictionary(long timestampBaseMillis) {
+        this.timestampBaseMillis = timestampBaseMillis;
+    }
+    
+    long timestampBaseMillis() {
+        return timestampBaseMillis;
+    }
+    
+    /**
+     * Returns the id of a schema reference, or -1 if the segment does not use it yet.
+     */
+    int idOf(SchemaRef ref) {
+        Integer id = ids.get(ref);
+        return id == null ? -1 : id;
+    }
+    
+    /**
+     * Registers the next schema reference.
+     * 
+     * @return assigned id
+     */
+    int add(SchemaRef ref) {
+        SchemaRef[] current = refs;
+        SchemaRef[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = ref;
+        ids.put(ref, current.length);
+        refs = grown;
+        return current.length;
+    }
+    
+    /**
+     * Returns the schema reference with the given id.
+     * 
+     * @throws IllegalStateException if the id is unknown (corrupt record)
+     */
+    SchemaRef get(int id) {
+        SchemaRef[] current = refs;
+        if (id < 0 || id >= current.length) {
+            throw new IllegalStateException("Unknown schema id " + id + " (dictionary has " + current.length + ")");
+        }
+        return current[id];
+    }
+    
+    int size() {
+        return refs.length;
+    }
+    
+    /**
+     * Returns the dictionary in id order, for persisting with a sealed segment.
+     */
+    List<String> toStrings() {
+        List<String> strings = new ArrayList<>(refs.length);
+        for (SchemaRef ref : refs) {
+            strings.add(ref.toString());
+        }
+        return strings;
+    }
+    
+    /**
+     * Restores a persisted dictionary.
+     */
+    void addAll(List<String> strings) {
+        for (String string : strings) {
+            add(SchemaRef.parse(string));
+        }
+    }
+}
\ No newline at end of file
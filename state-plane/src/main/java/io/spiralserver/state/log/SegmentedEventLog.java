@@ -0,0 +1,727 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.EventLog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable {@link EventLog} backed by fixed-size, memory-mapped segment files.
+ * 
+ * <p>Appends are bump-pointer writes into the active segment; when it is full the segment
+ * is sealed (flushed, sparse index persisted) and a new one is created whose file name is
+ * its base sequence. Reads locate the segment by base sequence and the record position by
+ * the segment's sparse index, so they never scan from the start of the log.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Sequences start at 1 and are assigned contiguously by the log</li>
+ *   <li>Appends are serialized; reads are lock-free and concurrent with appends</li>
+ *   <li>An event is visible to readers once {@link #append} returns</li>
+ *   <li>After a crash, the log recovers to the longest valid prefix of the active segment</li>
+ * </ul>
+ * 
+ * <p>Idempotency keys are kept in a time-bucketed in-memory {@link IdempotencyIndex}
+ * that is rebuilt from the recent segments on open, so duplicate checks on the ingest
+ * path cost O(1) instead of a scan. Correlation lookups use a {@link CorrelationIndex} of
+ * posting lists, persisted per sealed segment, so they cost time proportional to the
+ * number of matching events rather than the size of the log.
+ * 
+ * <p>{@link #tail} subscribers are woken once an append has been committed under the
+ * fsync policy, and never receive events past the committed sequence, so with
+ * {@link FsyncPolicy#perBatch()} they only see durable events. Recently appended events
+ * are kept in a shared ring, so subscribers at the head of the log receive the appended
+ * instances without decoding or copying them.
+ * 
+ * <p>With {@linkplain EventLogConfig#withBlockCompression block compression} enabled,
+ * sealed segments are rewritten in the background as {@link CompressedSegment}s and
+ * swapped in atomically; readers of the uncompressed copy are unaffected by the swap.
+ * 
+ * <p>The log grows without bound unless old segments are removed by a
+ * {@link RetentionService}; {@link #firstSequence()} tells where the retained log starts.
+ * 
+ * <p><strong>Durability:</strong> records reach the page cache on append; when they are
+ * forced to storage is governed by the configured {@link FsyncPolicy}. Batches appended
+ * with {@link #appendAll} are written under one lock acquisition, and with
+ * {@link FsyncPolicy#perBatch()} concurrent appenders share fsyncs through group commit.
+ * 
+ * @author SpiralServer Team
+ */
+public final class SegmentedEventLog implements EventLog, Closeable {
+    
+    private static final System.Logger LOGGER = System.getLogger(SegmentedEventLog.class.getName());
+    private static final int PRUNE_BATCH_KEYS = 512; // correlation keys pruned per append lock hold
+    
+    private final EventLogConfig config;
+    private final EventCodec codec;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final CRC32C crc = new CRC32C(); // guarded by appendLock
+    private final IdempotencyIndex idempotencyIndex;
+    private final CorrelationIndex correlationIndex = new CorrelationIndex();
+    private final RecentEvents recentEvents;
+    private final TailPublisher.Source tailSource;
+    private final AtomicLong committedSequence = new AtomicLong(); // highest sequence published to tails
+    private final ExecutorService compressor; // null when compression is disabled
+    private volatile GroupCommitter committer;
+    private volatile LogSegment activeSegment;
+    private volatile long lastSequence;
+    private volatile boolean closed;
+    
+    private SegmentedEventLog(EventLogConfig config) {
+        this.config = config;
+        this.codec = new EventCodec(config.dataCodec());
+        this.idempotencyIndex = new IdempotencyIndex(config.idempotencyRetentionMs(), config.idempotencyBuckets());
+        this.recentEvents = new RecentEvents(config.tailBufferEvents(), config.dataCodec());
+        this.tailSource = new TailPublisher.Source(this, recentEvents, committedSequence::get, config.tailExecutor());
+        this.compressor = config.compressionBlockBytes() == 0 ? null : Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "event-log-compressor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Opens (or creates) the event log in the configured directory, recovering the tail
+     * of the last segment if the previous process did not shut down cleanly.
+     * 
+     * @param config log configuration
+     * @return opened log
+     * @throws UncheckedIOException if the segments cannot be opened
+     */
+    public static SegmentedEventLog open(EventLogConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Config cannot be null");
+        }
+        SegmentedEventLog log = new SegmentedEventLog(config);
+        try {
+            log.load();
+        } catch (IOException e) {
+            log.closeQuietly();
+            throw new UncheckedIOException("Cannot open event log in " + config.directory(), e);
+        }
+        return log;
+    }
+    
+    private void load() throws IOException {
+        Path directory = config.directory();
+        Files.createDirectories(directory);
+        Map<Long, Path> logFiles = new TreeMap<>();
+        Map<Long, Path> compressedFiles = new TreeMap<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            for (Path file : listing.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(LogSegment.LOG_SUFFIX)) {
+                    logFiles.put(baseSequenceOf(name), file);
+                } else if (name.endsWith(CompressedSegment.SUFFIX)) {
+                    compressedFiles.put(baseSequenceOf(name), file);
+                }
+            }
+        }
+        for (Long base : compressedFiles.keySet()) {
+            Path logFile = logFiles.remove(base);
+            if (logFile != null) {
+                // the compressed copy is complete, but the original survived a crash
+                LogSegment.deleteFiles(logFile);
+            }
+        }
+        TreeMap<Long, Path> files = new TreeMap<>(compressedFiles);
+        files.putAll(logFiles);
+        for (Map.Entry<Long, Path> entry : files.entrySet()) {
+            boolean last = entry.getKey().equals(files.lastKey());
+            Path file = entry.getValue();
+            Segment segment = file.getFileName().toString().endsWith(CompressedSegment.SUFFIX)
+                ? CompressedSegment.open(file)
+                : LogSegment.open(file, config.indexIntervalBytes(), last);
+            Segment previous = segments.isEmpty() ? null : segments.lastEntry().getValue();
+            if (previous != null && previous.lastSequence() + 1 != segment.baseSequence()) {
+                segment.close();
+                throw new IOException("Sequence gap between " + previous + " and " + segment);
+            }
+            segments.put(segment.baseSequence(), segment);
+        }
+        if (segments.isEmpty() || !(segments.lastEntry().getValue() instanceof LogSegment)) {
+            long base = segments.isEmpty() ? 1 : segments.lastEntry().getValue().lastSequence() + 1;
+            LogSegment next = LogSegment.create(
+                directory, base, config.segmentBytes(), config.indexIntervalBytes(), config.clock().millis()
+            );
+            segments.put(next.baseSequence(), next);
+        }
+        activeSegment = (LogSegment) segments.lastEntry().getValue();
+        lastSequence = activeSegment.lastSequence();
+        committedSequence.set(lastSequence);
+        rebuildIndexes();
+        committer = new GroupCommitter(config.fsyncPolicy(), () -> lastSequence, () -> activeSegment.flush());
+        for (Segment segment : segments.values()) {
+            if (segment != activeSegment && segment instanceof LogSegment sealed) {
+                scheduleCompression(sealed);
+            }
+        }
+    }
+    
+    private static long baseSequenceOf(String fileName) throws IOException {
+        try {
+            return Long.parseLong(fileName.substring(0, fileName.indexOf('.')));
+        } catch (NumberFormatException e) {
+            throw new IOException("Unexpected segment file name: " + fileName, e);
+        }
+    }
+    
+    /**
+     * Rebuilds the in-memory indexes: correlation postings come from the persisted
+     * {@code .corr} files where available, everything else from scanning segments.
+     */
+    private void rebuildIndexes() throws IOException {
+        long now = config.clock().millis();
+        long idempotencyStart = idempotencyIndex.coverageStartMillis(now);
+        for (Segment segment : segments.values()) {
+            boolean scanCorrelation = !segment.isSealed() || !correlationIndex.load(segment.companion(CorrelationIndex.SUFFIX));
+            boolean scanIdempotency = segment.maxTimestampMillis() >= idempotencyStart;
+            if (!scanCorrelation && !scanIdempotency) {
+                continue;
+            }
+            segment.scan(0, codec, event -> {
+                if (scanCorrelation && event.correlationKey() != null) {
+                    correlationIndex.add(event.correlationKey(), event.eventSchemaRef(), event.sequence());
+                }
+                if (scanIdempotency && event.idempotencyKey() != null) {
+                    idempotencyIndex.add(event.idempotencyKey(), event.sequence(), event.timestamp().toEpochMilli(), now);
+                }
+                return true;
+            });
+            if (scanCorrelation && segment.isSealed()) {
+                correlationIndex.seal(segment.companion(CorrelationIndex.SUFFIX));
+            }
+        }
+    }
+    
+    @Override
+    public long append(Event event) {
+        validate(event);
+        EventCodec.Encoded encoded = encode(event);
+        long sequence;
+        appendLock.lock();
+        try {
+            ensureOpen();
+            rejectDuplicates(List.of(event));
+            sequence = write(event, encoded);
+        } finally {
+            appendLock.unlock();
+        }
+        commit(sequence);
+        return sequence;
+    }
+    
+    /**
+     * Appends a batch of events with contiguous sequences.
+     * 
+     * <p>All events are validated and encoded before the append lock is taken, and checked
+     * for duplicates before the first one is written, so an invalid or duplicate batch is
+     * rejected without appending anything. The batch is not written atomically, though: if
+     * an I/O error interrupts it (for example while rolling to a new segment), the events
+     * written before the failure stay appended and visible.
+     * 
+     * @throws UncheckedIOException if the batch could not be written completely
+     */
+    @Override
+    public List<Long> appendAll(List<Event> events) {
+        if (events == null) {
+            throw new IllegalArgumentException("Events cannot be null");
+        }
+        if (events.isEmpty()) {
+            return List.of();
+        }
+        List<EventCodec.Encoded> encoded = new ArrayList<>(events.size());
+        for (Event event : events) {
+            validate(event);
+            encoded.add(encode(event));
+        }
+        long first;
+        long last;
+        appendLock.lock();
+        try {
+            ensureOpen();
+            rejectDuplicates(events);
+            first = lastSequence + 1;
+            for (int i = 0; i < events.size(); i++) {
+                write(events.get(i), encoded.get(i));
+            }
+            last = lastSequence;
+        } finally {
+            appendLock.unlock();
+        }
+        commit(last);
+        return LongStream.rangeClosed(first, last).boxed().toList();
+    }
+    
+    /**
+     * Waits for the fsync policy, then publishes the events up to {@code sequence} to tail
+     * subscribers. Appenders may finish out of order; the committed sequence only grows.
+     */
+    private void commit(long sequence) {
+        committer.committed(sequence);
+        if (committedSequence.accumulateAndGet(sequence, Math::max) == sequence) {
+            tailSource.committed();
+        }
+    }
+    
+    private EventCodec.Encoded encode(Event event) {
+        EventCodec.Encoded encoded = codec.encode(event);
+        if (encoded.maxBodyBytes() > config.segmentBytes() - LogSegment.HEADER_BYTES - LogSegment.RECORD_OVERHEAD) {
+            throw new IllegalArgumentException(
+                "Event of " + encoded.maxBodyBytes() + " bytes exceeds segment size " + config.segmentBytes()
+            );
+        }
+        return encoded;
+    }
+    
+    private long write(Event event, EventCodec.Encoded encoded) {
+        long sequence = lastSequence + 1;
+        if (!activeSegment.append(sequence, codec, encoded, crc)) {
+            roll(sequence);
+            activeSegment.append(sequence, codec, encoded, crc);
+        }
+        recentEvents.put(sequence, event, encoded.payloadBytes());
+        lastSequence = sequence;
+        if (event.idempotencyKey() != null) {
+            idempotencyIndex.add(event.idempotencyKey(), sequence, encoded.timestampMillis(), config.clock().millis());
+        }
+        if (event.correlationKey() != null) {
+            correlationIndex.add(event.correlationKey(), event.eventSchemaRef(), sequence);
+        }
+        return sequence;
+    }
+    
+    private void roll(long nextSequence) {
+        try {
+            activeSegment.seal();
+            correlationIndex.seal(activeSegment.companion(CorrelationIndex.SUFFIX));
+            LogSegment next = LogSegment.create(
+                config.directory(), nextSequence, config.segmentBytes(), config.indexIntervalBytes(),
+                config.clock().millis()
+            );
+            LogSegment sealed = activeSegment;
+            segments.put(nextSequence, next);
+            activeSegment = next;
+            scheduleCompression(sealed);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot roll event log segment at sequence " + nextSequence, e);
+        }
+    }
+    
+    private void scheduleCompression(LogSegment segment) {
+        if (compressor != null) {
+            compressor.execute(() -> compress(segment));
+        }
+    }
+    
+    /**
+     * Writes a compressed copy of a sealed segment and swaps it in. Readers that already
+     * hold the uncompressed segment keep using its mapping.
+     */
+    private void compress(LogSegment segment) {
+        if (closed) {
+            return;
+        }
+        try {
+            CompressedSegment compressed = CompressedSegment.write(segment, config.compressionBlockBytes());
+            appendLock.lock();
+            try {
+                if (closed) {
+                    compressed.close(); // resolved on the next open
+                    return;
+                }
+                if (!segments.replace(segment.baseSequence(), segment, compressed)) {
+                    compressed.delete(); // removed by retention in the meantime
+                    return;
+                }
+            } finally {
+                appendLock.unlock();
+            }
+            segment.deleteLogFiles();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Cannot compress event log segment " + segment, e);
+        }
+    }
+    
+    /**
+     * Waits until all segments sealed so far have been compressed.
+     */
+    void awaitCompression() throws InterruptedException {
+        if (compressor != null) {
+            try {
+                compressor.submit(() -> { }).get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+    
+    /**
+     * Returns whether the log holds a sealed segment, i.e. one that retention may remove.
+     */
+    boolean hasSealedSegments() {
+        return segments.firstEntry().getValue() != activeSegment;
+    }
+    
+    /**
+     * Removes the oldest segment if it is sealed, holds no event after
+     * {@code neededAfterSequence} and no event at or after {@code protectedFromMillis}.
+     * 
+     * <p>The segment is unlinked from the log first, so new reads no longer see it; reads
+     * that already hold it keep their mapping. Its correlation postings are then pruned in
+     * small batches under the append lock.
+     * 
+     * @param archiveDirectory directory to move the segment files to, or null to delete them
+     * @return true if a segment was removed
+     * @throws UncheckedIOException if the segment files cannot be removed
+     */
+    boolean removeOldestSegment(long neededAfterSequence, long protectedFromMillis, Path archiveDirectory) {
+        Segment segment;
+        appendLock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            segment = segments.firstEntry().getValue();
+            if (segment == activeSegment
+                    || !segment.isSealed()
+                    || segment.lastSequence() > neededAfterSequence
+                    || segment.maxTimestampMillis() >= protectedFromMillis) {
+                return false;
+            }
+            segments.remove(segment.baseSequence(), segment);
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            if (archiveDirectory == null) {
+                segment.delete();
+            } else {
+                segment.archiveTo(archiveDirectory);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot remove event log segment " + segment, e);
+        } finally {
+            pruneCorrelationIndex(segment.lastSequence() + 1);
+        }
+        return true;
+    }
+    
+    private void pruneCorrelationIndex(long firstSequence) {
+        Iterator<String> keys = correlationIndex.keys().iterator();
+        while (keys.hasNext()) {
+            appendLock.lock();
+            try {
+                for (int i = 0; i < PRUNE_BATCH_KEYS && keys.hasNext(); i++) {
+                    correlationIndex.pruneBefore(keys.next(), firstSequence);
+                }
+            } finally {
+                appendLock.unlock();
+            }
+        }
+    }
+    
+    private void rejectDuplicates(List<Event> events) {
+        if (config.dedupeWindowMs() == 0) {
+            return;
+        }
+        Set<String> batchKeys = events.size() > 1 ? new HashSet<>() : Set.of();
+        for (Event event : events) {
+            String key = event.idempotencyKey();
+            if (key == null) {
+                continue;
+            }
+            Optional<Event> existing = findByIdempotencyKey(key, config.dedupeWindowMs());
+            if (existing.isPresent()) {
+                throw new IllegalArgumentException(
+                    "Duplicate event for idempotency key '" + key + "' (sequence " + existing.get().sequence() + ")"
+                );
+            }
+            if (events.size() > 1 && !batchKeys.add(key)) {
+                throw new IllegalArgumentException("Duplicate idempotency key '" + key + "' within batch");
+            }
+        }
+    }
+    
+    private static void validate(Event event) {
+        if (event == null) {
+            throw new IllegalArgumentException("Event cannot be null");
+        }
+        if (event.eventSchemaRef() == null) {
+            throw new IllegalArgumentException("Event schema reference cannot be null");
+        }
+        if (event.timestamp() == null) {
+            throw new IllegalArgumentException("Event timestamp cannot be null");
+        }
+        if (event.payload() == null) {
+            throw new IllegalArgumentException("Event payload cannot be null");
+        }
+        if (event.source() == null || event.source().isBlank()) {
+            throw new IllegalArgumentException("Event source cannot be null or blank");
+        }
+    }
+    
+    @Override
+    public List<Event> read(Cursor cursor, int limit) {
+        if (cursor == null) {
+            throw new IllegalArgumentException("Cursor cannot be null");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must be non-negative");
+        }
+        long after = cursor.sequence();
+        if (limit == 0 || after >= lastSequence) {
+            return List.of();
+        }
+        List<Event> events = new ArrayList<>(Math.min(limit, 1024));
+        for (Segment segment : segmentsFrom(after + 1).values()) {
+            segment.read(after, limit - events.size(), events, codec);
+            if (events.size() >= limit) {
+                break;
+            }
+        }
+        return events;
+    }
+    
+    @Override
+    public List<Event> readByCorrelation(String correlationKey, Optional<SchemaRef> eventSchemaRef, int limit) {
+        if (correlationKey == null) {
+            throw new IllegalArgumentException("Correlation key cannot be null");
+        }
+        if (eventSchemaRef == null) {
+            throw new IllegalArgumentException("Event schema filter cannot be null (use Optional.empty())");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must be non-negative");
+        }
+        List<Event> events = new ArrayList<>();
+        if (limit == 0) {
+            return events;
+        }
+        correlationIndex.forEach(correlationKey, eventSchemaRef.orElse(null), segments.firstKey(), sequence -> {
+            LogEvent event = readAt(sequence);
+            if (event != null) {
+                events.add(event);
+            }
+            return events.size() < limit;
+        });
+        return events;
+    }
+    
+    @Override
+    public Optional<Event> findByIdempotencyKey(String idempotencyKey, long dedupeWindowMs) {
+        if (idempotencyKey == null) {
+            throw new IllegalArgumentException("Idempotency key cannot be null");
+        }
+        if (dedupeWindowMs < 0) {
+            throw new IllegalArgumentException("Dedupe window must be non-negative");
+        }
+        long now = config.clock().millis();
+        long cutoff = now - dedupeWindowMs;
+        LogEvent[] match = new LogEvent[1];
+        long sequence = idempotencyIndex.find(idempotencyKey, cutoff, candidate -> {
+            LogEvent event = readAt(candidate);
+            if (event != null && idempotencyKey.equals(event.idempotencyKey())) {
+                match[0] = event;
+                return true;
+            }
+            return false;
+        });
+        if (sequence > 0) {
+            return Optional.of(match[0]);
+        }
+        long coverageStart = idempotencyIndex.coverageStartMillis(now);
+        if (cutoff < coverageStart) {
+            return scanForIdempotencyKey(idempotencyKey, cutoff, coverageStart);
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * Scans segments for a key with event time in {@code [fromMillis, toMillis)}; used for
+     * windows reaching past the idempotency index retention.
+     */
+    private Optional<Event> scanForIdempotencyKey(String idempotencyKey, long fromMillis, long toMillis) {
+        for (Segment segment : segments.descendingMap().values()) {
+            if (segment.maxTimestampMillis() < fromMillis) {
+                continue;
+            }
+            LogEvent[] latest = new LogEvent[1];
+            segment.scan(0, codec, event -> {
+                long timestamp = event.timestamp().toEpochMilli();
+                if (timestamp >= fromMillis && timestamp < toMillis && idempotencyKey.equals(event.idempotencyKey())) {
+                    latest[0] = event;
+                }
+                return true;
+            });
+            if (latest[0] != null) {
+                return Optional.of(latest[0]);
+            }
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * Reads the event with the given sequence, or null if it is not in the log.
+     */
+    private LogEvent readAt(long sequence) {
+        Segment segment = segmentFor(sequence);
+        if (segment == null || sequence > segment.lastSequence()) {
+            return null;
+        }
+        List<Event> events = new ArrayList<>(1);
+        segment.read(sequence - 1, 1, events, codec);
+        return events.isEmpty() ? null : (LogEvent) events.get(0);
+    }
+    
+    private Segment segmentFor(long sequence) {
+        Map.Entry<Long, Segment> floor = segments.floorEntry(sequence);
+        return floor == null ? null : floor.getValue();
+    }
+    
+    /**
+     * Publishes the events appended after a cursor, including those appended in future.
+     * 
+     * <p>Each subscriber receives events in sequence order, as many as it requested, on
+     * the configured {@linkplain EventLogConfig#withTailExecutor tail executor}. Closing
+     * the log completes all subscriptions.
+     */
+    @Override
+    public Flow.Publisher<Event> tail(Cursor cursor) {
+        if (cursor == null) {
+            throw new IllegalArgumentException("Cursor cannot be null");
+        }
+        return new TailPublisher(tailSource, cursor);
+    }
+    
+    @Override
+    public Cursor currentCursor() {
+        return new Cursor(lastSequence);
+    }
+    
+    /**
+     * Forces all appended events to storage, regardless of the fsync policy.
+     */
+    public void flush() {
+        committer.sync(lastSequence);
+    }
+    
+    /**
+     * Returns the number of fsyncs issued by group commit and background flushing.
+     * 
+     * @return fsync count
+     */
+    public long syncCount() {
+        return committer.syncCount();
+    }
+    
+    /**
+     * Returns the sequence of the oldest event still held by the log. Older events have
+     * been removed by retention; reads from an earlier cursor start here.
+     * 
+     * @return first retained sequence
+     */
+    public long firstSequence() {
+        return segments.firstKey();
+    }
+    
+    /**
+     * Returns the number of segment files.
+     * 
+     * @return segment count
+     */
+    public int segmentCount() {
+        return segments.size();
+    }
+    
+    /**
+     * Returns the bytes of header and event data held in the segment files; compressed
+     * segments count with their compressed size.
+     * 
+     * @return data bytes
+     */
+    public long dataBytes() {
+        long total = 0;
+        for (Segment segment : segments.values()) {
+            total += segment.dataBytes();
+        }
+        return total;
+    }
+    
+    /**
+     * Returns the log configuration.
+     * 
+     * @return configuration
+     */
+    public EventLogConfig config() {
+        return config;
+    }
+    
+    private ConcurrentNavigableMap<Long, Segment> segmentsFrom(long sequence) {
+        Map.Entry<Long, Segment> floor = segments.floorEntry(sequence);
+        return floor == null ? segments : segments.tailMap(floor.getKey(), true);
+    }
+    
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Event log is closed");
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            tailSource.close();
+            if (compressor != null) {
+                compressor.shutdown();
+            }
+            committer.close();
+            activeSegment.flush();
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    private void closeQuietly() {
+        for (Segment segment : segments.values()) {
+            try {
+                segment.close();
+            } catch (IOException ignored) {
+                // already failing
+            }
+        }
+    }
+}
\ No newline at end of file
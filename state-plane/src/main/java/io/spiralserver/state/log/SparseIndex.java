@@ -0,0 +1,198 @@
+package io.spiralserver.state.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Sparse sequence to file position index for one segment.
+ * 
+ * <p>An entry is added at most once every {@code intervalBytes} of log data, so a lookup
+ * lands within one interval of the requested record and the index stays small enough to
+ * keep in memory.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Entries are strictly increasing in both sequence and position</li>
+ *   <li>Single writer (the segment appender), any number of concurrent readers</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+final class SparseIndex {
+    
+    private static final int MAGIC = 0x53504958; // "SPIX"
+    private static final int TRAILER_BYTES = 4;
+    
+    private final long baseSequence;
+    private final int intervalBytes;
+    private volatile long[] entries; // (sequence - base) << 32 | position
+    private volatile int size;
+    private int lastIndexedPosition = -1;
+    
+    SparseIndex(long baseSequence, int intervalBytes) {
+        this.baseSequence = baseSequence;
+        this.intervalBytes = intervalBytes;
+        this.entries = new long[64];
+    }
+    
+    /**
+     * Indexes a record if it is at least one interval past the last indexed record.
+     */
+    void maybeAdd(long sequence, int position) {
+        if (lastIndexedPosition >= 0 && position - lastIndexedPosition < intervalBytes) {
+            return;
+        }
+        add(sequence, position);
+    }
+    
+    private void add(long sequence, int position) {
+        long[] current = entries;
+        int n = size;
+        if (n == current.length) {
+            current = Arrays.copyOf(current, n * 2);
+            entries = current;
+        }
+        current[n] = ((sequence - baseSequence) << 32) | (position & 0xFFFFFFFFL);
+        lastIndexedPosition = position;
+        size = n + 1;
+    }
+    
+    /**
+     * Returns the position of the last indexed record at or before a sequence.
+     * 
+     * @param sequence target sequence
+     * @param defaultPosition position to return if no entry qualifies
+     * @return file position to start scanning from
+     */
+    int floorPosition(long sequence, int defaultPosition) {
+        int n = size;
+        long[] current = entries;
+        long relative = sequence - baseSequence;
+        int low = 0;
+        int high = n - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if ((current[mid] >>> 32) <= relative) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found < 0 ? defaultPosition : (int) current[found];
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Persists the index together with segment end metadata.
+     */
+    void writeTo(Path file, SegmentSummary summary) throws IOException {
+        int n = size;
+        List<byte[]> schemaRefs = new ArrayList<>();
+        int schemaBytes = 4;
+        for (String ref : summary.schemaRefs()) {
+            byte[] bytes = ref.getBytes(StandardCharsets.UTF_8);
+            schemaRefs.add(bytes);
+            schemaBytes += 4 + bytes.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 8 + 4 + 8 + 4 + n * 8 + schemaBytes + TRAILER_BYTES);
+        buffer.putInt(MAGIC);
+        buffer.putLong(summary.lastSequence());
+        buffer.putInt(summary.endPosition());
+        buffer.putLong(summary.maxTimestampMillis());
+        buffer.putInt(n);
+        for (int i = 0; i < n; i++) {
+            buffer.putLong(entries[i]);
+        }
+        buffer.putInt(schemaRefs.size());
+        for (byte[] ref : schemaRefs) {
+            buffer.putInt(ref.length);
+            buffer.put(ref);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Loads a persisted index.
+     * 
+     * @return segment end metadata, or null if the file is missing or corrupt
+     */
+    SegmentSummary readFrom(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < 4 + 8 + 4 + 8 + 4 + TRAILER_BYTES || buffer.getInt() != MAGIC) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.limit() - TRAILER_BYTES);
+        if ((int) crc.getValue() != buffer.getInt(buffer.limit() - TRAILER_BYTES)) {
+            return null;
+        }
+        buffer.limit(buffer.limit() - TRAILER_BYTES);
+        try {
+            long lastSequence = buffer.getLong();
+            int endPosition = buffer.getInt();
+            long maxTimestampMillis = buffer.getLong();
+            int n = buffer.getInt();
+            if (n < 0 || n * 8L > buffer.remaining()) {
+                return null;
+            }
+            long[] loaded = new long[Math.max(64, n)];
+            for (int i = 0; i < n; i++) {
+                loaded[i] = buffer.getLong();
+            }
+            int refCount = buffer.getInt();
+            List<String> schemaRefs = new ArrayList<>();
+            for (int i = 0; i < refCount; i++) {
+                byte[] ref = new byte[buffer.getInt()];
+                buffer.get(ref);
+                schemaRefs.add(new String(ref, StandardCharsets.UTF_8));
+            }
+            if (buffer.hasRemaining()) {
+                return null;
+            }
+            entries = loaded;
+            size = n;
+            lastIndexedPosition = n == 0 ? -1 : (int) loaded[n - 1];
+            return new SegmentSummary(lastSequence, endPosition, maxTimestampMillis, schemaRefs);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * End-of-segment metadata stored alongside a sealed index, including the segment's
+     * schema dictionary in id order.
+     */
+    record SegmentSummary(long lastSequence, int endPosition, long maxTimestampMillis, List<String> schemaRefs) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,234 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.EventLog;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link Flow.Publisher} of the events appended to a log after a cursor.
+ * 
+ * <p>Each subscription keeps only its position and outstanding demand; events are read
+ * from the shared {@link RecentEvents} ring or, for subscribers that fell behind, from the
+ * segments. A subscription is woken when an append commits and delivers as many events as
+ * requested on the configured executor, never past the committed sequence: events that
+ * are written but not yet committed stay invisible even when they are already in the ring.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Events are delivered in sequence order, without gaps, at most as many as requested</li>
+ *   <li>Signals to one subscriber are serialized (Reactive Streams rule 1.3)</li>
+ *   <li>No per-subscriber buffering of events</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+final class TailPublisher implements Flow.Publisher<EventLog.Event> {
+    
+    private static final int READ_BATCH = 256;
+    
+    private final Source source;
+    private final long fromSequence;
+    
+    TailPublisher(Source source, Cursor from) {
+        this.source = source;
+        this.fromSequence = from.sequence();
+    }
+    
+    @Override
+    public void subscribe(Flow.Subscriber<? super EventLog.Event> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        TailSubscription subscription = new TailSubscription(source, subscriber, fromSequence);
+        subscriber.onSubscribe(subscription);
+        source.register(subscription);
+    }
+    
+    /**
+     * The log as seen by tail subscriptions.
+     */
+    static final class Source {
+        private final EventLog log;
+        private final RecentEvents recent;
+        private final LongSupplier committedSequence;
+        private final Executor executor;
+        private final List<TailSubscription> subscriptions = new CopyOnWriteArrayList<>();
+        private volatile boolean closed;
+        
+        /**
+         * @param log log read by subscriptions that fell behind the ring
+         * @param recent ring of recently appended events
+         * @param committedSequence highest sequence subscriptions may deliver
+         * @param executor executor subscriptions are drained on
+         */
+        Source(EventLog log, RecentEvents recent, LongSupplier committedSequence, Executor executor) {
+            this.log = log;
+            this.recent = recent;
+            this.committedSequence = committedSequence;
+            this.executor = executor;
+        }
+        
+        private void register(TailSubscription subscription) {
+            subscriptions.add(subscription);
+            if (closed) {
+                subscription.complete();
+            } else {
+                subscription.signal();
+            }
+        }
+        
+        /**
+         * Wakes all subscriptions after an append committed.
+         */
+        void committed() {
+            for (TailSubscription subscription : subscriptions) {
+                subscription.signal();
+            }
+        }
+        
+        /**
+         * Completes all subscriptions when the log closes.
+         */
+        void close() {
+            closed = true;
+            for (TailSubscription subscription : subscriptions) {
+                subscription.complete();
+            }
+        }
+        
+        int subscriberCount() {
+            return subscriptions.size();
+        }
+    }
+    
+    /**
+     * One subscriber's position and demand, drained with the usual work-in-progress loop.
+     */
+    static final class TailSubscription implements Flow.Subscription, Runnable {
+        private final Source source;
+        private final Flow.Subscriber<? super EventLog.Event> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private long position; // last delivered sequence; only touched by the drain loop
+        private volatile boolean cancelled;
+        private volatile boolean completed;
+        private volatile Throwable error;
+        
+        TailSubscription(Source source, Flow.Subscriber<? super EventLog.Event> subscriber, long fromSequence) {
+            this.source = source;
+            this.subscriber = subscriber;
+            this.position = fromSequence;
+        }
+        
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Requested " + n + " events; demand must be positive (rule 3.9)");
+            } else {
+                demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            signal();
+        }
+        
+        @Override
+        public void cancel() {
+            cancelled = true;
+            source.subscriptions.remove(this);
+        }
+        
+        void complete() {
+            completed = true;
+            signal();
+        }
+        
+        void signal() {
+            if (wip.getAndIncrement() == 0) {
+                try {
+                    source.executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    wip.set(0);
+                    terminate(e);
+                }
+            }
+        }
+        
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+        
+        private void drain() {
+            while (!cancelled) {
+                if (error != null) {
+                    terminate(error);
+                    return;
+                }
+                if (completed) {
+                    cancel();
+                    subscriber.onComplete();
+                    return;
+                }
+                long requested = demand.get();
+                long committed = source.committedSequence.getAsLong();
+                if (requested == 0 || position >= committed) {
+                    return;
+                }
+                long delivered = deliver(Math.min(requested, committed - position));
+                if (delivered == 0) {
+                    return;
+                }
+                if (requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-delivered);
+                }
+            }
+        }
+        
+        /**
+         * Delivers up to {@code requested} events after the current position; the caller
+         * bounds the count by the committed sequence.
+         */
+        private long deliver(long requested) {
+            long delivered = 0;
+            try {
+                LogEvent shared;
+                while (delivered < requested && !cancelled && (shared = source.recent.get(position + 1)) != null) {
+                    subscriber.onNext(shared);
+                    position++;
+                    delivered++;
+                }
+                if (delivered == 0) {
+                    int limit = (int) Math.min(requested, READ_BATCH);
+                    for (EventLog.Event event : source.log.read(new Cursor(position), limit)) {
+                        if (cancelled) {
+                            break;
+                        }
+                        subscriber.onNext(event);
+                        position = event.sequence();
+                        delivered++;
+                    }
+                }
+            } catch (RuntimeException e) {
+                terminate(e);
+            }
+            return delivered;
+        }
+        
+        private void terminate(Throwable failure) {
+            if (!cancelled) {
+                cancel();
+                subscriber.onError(failure);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+/**
+ * Event log implementations for the state plane.
+ * 
+ * <p>This package provides:
+ * <ul>
+ *   <li>Segmented, memory-mapped event log</li>
+ *   <li>Sparse sequence to file position indexing</li>
+ *   <li>Crash-safe tail recovery</li>
+ *   <li>Partitioning by correlation key for parallel appends</li>
+ *   <li>Snapshot-aware retention of old segments</li>
+ * </ul>
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Implementations honour the {@link io.spiralserver.state.EventLog} contract</li>
+ *   <li>On-disk formats are versioned and checksummed</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ * @version 1.0
+ */
+package io.spiralserver.state.log;
\ No newline at end of file
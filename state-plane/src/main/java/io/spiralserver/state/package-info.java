@@ -3,9 +3,9 @@
  * 
  * <p>This module provides:
  * <ul>
- *   <li>Hot state management</li>
+ *   <li>Hot state management (implementations in {@code io.spiralserver.state.hot})</li>
  *   <li>Event log abstraction</li>
- *   <li>Snapshot & cursor management</li>
+ *   <li>Snapshot & cursor management (file-backed store in {@code io.spiralserver.state.snapshot})</li>
  * </ul>
  * 
  * <p><strong>Invariants:</strong>
@@ -0,0 +1,132 @@
+package io.spiralserver.state.snapshot;
+
+import io.spiralserver.schema.Digest;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Reference-counted table of the content-addressed payloads of a snapshot data file.
+ * 
+ * <p>Payloads are keyed by the {@link Digest} of their encoded bytes, so snapshots with
+ * identical state share one payload record. A payload is live while at least one indexed
+ * snapshot references it; once released by the last one its bytes are left for compaction
+ * to reclaim.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Two payloads with the same digest are byte-for-byte identical</li>
+ *   <li>Every blob in the table has at least one reference</li>
+ *   <li>Not thread-safe; guarded by the owning store</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+final class BlobTable {
+    
+    static final String ALGORITHM = "SHA-256";
+    static final int DIGEST_BYTES = 32;
+    
+    private static final HexFormat HEX = HexFormat.of();
+    
+    private final Map<Digest, Blob> blobs = new HashMap<>();
+    private long bytes;
+    
+    /**
+     * Creates a message digest that computes payload digests incrementally.
+     */
+    static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+    
+    static Digest fromBytes(byte[] raw) {
+        return new Digest(ALGORITHM, HEX.formatHex(raw));
+    }
+    
+    static byte[] toBytes(Digest digest) {
+        return HEX.parseHex(digest.value());
+    }
+    
+    /**
+     * Returns the live blob with a digest, or {@code null} if its content is not stored.
+     */
+    Blob find(Digest digest) {
+        return blobs.get(digest);
+    }
+    
+    /**
+     * Adds a reference to a blob, registering it at the given payload record if it is new.
+     */
+    void retain(Digest digest, long position, long length) {
+        Blob blob = blobs.get(digest);
+        if (blob == null) {
+            blob = new Blob(digest, position, length);
+            blobs.put(digest, blob);
+            bytes += length;
+        }
+        blob.refs++;
+    }
+    
+    /**
+     * Drops a reference to a blob.
+     * 
+     * @return {@code true} if this was the last reference and the blob was freed
+     */
+    boolean release(Digest digest) {
+        Blob blob = blobs.get(digest);
+        if (blob == null) {
+            return false;
+        }
+        if (--blob.refs > 0) {
+            return false;
+        }
+        blobs.remove(digest);
+        bytes -= blob.length;
+        return true;
+    }
+    
+    Collection<Blob> blobs() {
+        return blobs.values();
+    }
+    
+    /**
+     * Returns the payload record bytes of live blobs.
+     */
+    long bytes() {
+        return bytes;
+    }
+    
+    int size() {
+        return blobs.size();
+    }
+    
+    void clear() {
+        blobs.clear();
+        bytes = 0;
+    }
+    
+    /**
+     * One stored payload record and the number of snapshots referencing it.
+     */
+    static final class Blob {
+        
+        final Digest digest;
+        final long position;
+        final long length;
+        int refs;
+        
+        private Blob(Digest digest, long position, long length) {
+            this.digest = digest;
+            this.position = position;
+            this.length = length;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,624 @@
+package io.spiralserver.state.snapshot;
+
+import io.spiralserver.schema.Digest;
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.JsonDataCodec;
+import io.spiralserver.state.Snapshot;
+import io.spiralserver.state.SnapshotStore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * File-backed {@link SnapshotStore} with a per-agent index ordered by cursor.
+ * 
+ * <p>Files (generation {@code g}):
+ * <pre>
+ *   snapshots-g.index   [int32 bodyLength][int32 crc32c(body)][body]...
+ *                       ADD:    [int8 1][id][agentInstanceId][int64 sequence][int64 epochSecond]
+ *                               [int32 nano][int64 stateVersion][byte[32] sha256(payload)]
+ *                               [int64 payloadPosition][int64 payloadLength]
+ *                       DELETE: [int8 2][agentInstanceId][int64 beforeSequence]
+ *   snapshots-g.data    payloads, each a {@link StreamingSnapshotCodec} chunk stream
+ * </pre>
+ * Strings are an int32 byte length followed by UTF-8 bytes.
+ * 
+ * <p>State is streamed in bounded chunks: a save encodes it straight into the data file
+ * and a read decodes it straight from there, so neither holds the encoded state as a
+ * whole, whatever its size.
+ * 
+ * <p>Opening the store replays only the index file into a navigable map per agent
+ * instance, so {@link #findLatestBefore} is a floor lookup and {@link #deleteBefore} a
+ * range removal. Payloads stay in the data file until a snapshot is requested. A save
+ * forces the payload before the index record that references it, and a torn record at
+ * the end of the index is discarded on open.
+ * 
+ * <p>Payloads are content-addressed: a save first streams the encoded state through a
+ * {@link Digest} only, which costs CPU but no I/O. If a live payload with that digest is
+ * already stored, the snapshot references it and nothing is written to the data file;
+ * otherwise the state is streamed to the data file.
+ * Payloads are reference-counted, so {@link #deleteBefore} frees only those no longer
+ * referenced by any snapshot. When freed payloads make up most of the data file, the
+ * live payloads are copied once each to the next generation; its index file is moved
+ * into place last, which makes the switch atomic.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Snapshot ids are unique; saving a snapshot at the cursor of an existing snapshot
+ *       of the same agent instance replaces it</li>
+ *   <li>Each distinct payload is stored once among the live snapshots</li>
+ *   <li>Payloads are checksum-verified chunk by chunk when read</li>
+ *   <li>Thread-safe; saves and deletions are serialized on an append lock, and payloads
+ *       are encoded and decoded outside the store lock, so lookups are not held up by
+ *       the write of a large payload</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class FileSnapshotStore implements SnapshotStore, Closeable {
+    
+    private static final String PREFIX = "snapshots-";
+    private static final String INDEX_SUFFIX = ".index";
+    private static final String DATA_SUFFIX = ".data";
+    private static final int RECORD_HEADER = 8;
+    private static final byte ADD = 1;
+    private static final byte DELETE = 2;
+    private static final long MIN_COMPACTION_BYTES = 1024 * 1024;
+    
+    private final Path directory;
+    private final StreamingSnapshotCodec codec;
+    private final Map<String, NavigableMap<Long, Entry>> byAgent = new HashMap<>();
+    private final Map<String, Entry> byId = new HashMap<>();
+    private long generation;
+    private FileChannel index;
+    private FileChannel data;
+    private long indexEnd;
+    private long dataEnd;
+    private final BlobTable blobs = new BlobTable();
+    private final Object appendLock = new Object(); // taken before the store lock; guards the data file's end
+    
+    private FileSnapshotStore(Path directory, StreamingSnapshotCodec codec) {
+        this.directory = directory;
+        this.codec = codec;
+    }
+    
+    /**
+     * Opens (or creates) a store with JSON-encoded payloads.
+     * 
+     * @see #open(Path, DataCodec)
+     */
+    public static FileSnapshotStore open(Path directory) {
+        return open(directory, new JsonDataCodec());
+    }
+    
+    /**
+     * Opens (or creates) a store streaming state in chunks of
+     * {@link StreamingSnapshotCodec#DEFAULT_CHUNK_BYTES}.
+     * 
+     * @see #open(Path, StreamingSnapshotCodec)
+     */
+    public static FileSnapshotStore open(Path directory, DataCodec dataCodec) {
+        if (dataCodec == null) {
+            throw new IllegalArgumentException("Data codec cannot be null");
+        }
+        return open(directory, new StreamingSnapshotCodec(dataCodec, StreamingSnapshotCodec.DEFAULT_CHUNK_BYTES));
+    }
+    
+    /**
+     * Opens (or creates) a store, loading its index.
+     * 
+     * @param directory store directory
+     * @param codec codec streaming state to and from the data file
+     * @return opened store
+     * @throws UncheckedIOException if the store cannot be opened
+     */
+    public static FileSnapshotStore open(Path directory, StreamingSnapshotCodec codec) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        if (codec == null) {
+            throw new IllegalArgumentException("Codec cannot be null");
+        }
+        FileSnapshotStore store = new FileSnapshotStore(directory, codec);
+        try {
+            Files.createDirectories(directory);
+            store.generation = latestGeneration(directory);
+            store.deleteOtherGenerations();
+            store.openFiles();
+            store.load();
+        } catch (IOException e) {
+            store.closeQuietly();
+            throw new UncheckedIOException("Cannot open snapshot store " + directory, e);
+        }
+        return store;
+    }
+    
+    private static long latestGeneration(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(p -> p.getFileName().toString())
+                .filter(name -> name.matches(PREFIX + "\\d+\\" + INDEX_SUFFIX))
+                .mapToLong(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - INDEX_SUFFIX.length())))
+                .max()
+                .orElse(0);
+        }
+    }
+    
+    /**
+     * Removes files of older generations and unfinished compactions.
+     */
+    private void deleteOtherGenerations() throws IOException {
+        List<Path> current = List.of(file(generation, INDEX_SUFFIX), file(generation, DATA_SUFFIX));
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(p -> p.getFileName().toString().startsWith(PREFIX)).toList()) {
+                if (!current.contains(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+    
+    private Path file(long generation, String suffix) {
+        return directory.resolve(PREFIX + generation + suffix);
+    }
+    
+    private void openFiles() throws IOException {
+        index = FileChannel.open(file(generation, INDEX_SUFFIX), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        data = FileChannel.open(file(generation, DATA_SUFFIX), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+    
+    private void load() throws IOException {
+        long size = index.size();
+        long pos = 0;
+        CRC32C crc = new CRC32C();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        while (pos + RECORD_HEADER <= size) {
+            header.clear();
+            readFully(index, header, pos);
+            int length = header.getInt(0);
+            if (length < 1 || length > size - pos - RECORD_HEADER) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(index, body, pos + RECORD_HEADER);
+            crc.reset();
+            crc.update(body.flip());
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            apply(body.rewind());
+            pos += RECORD_HEADER + length;
+        }
+        if (pos < size) {
+            index.truncate(pos);
+            index.force(true);
+        }
+        indexEnd = pos;
+        dataEnd = data.size();
+    }
+    
+    private void apply(ByteBuffer body) {
+        if (body.get() == ADD) {
+            String snapshotId = getString(body);
+            String agentInstanceId = getString(body);
+            long sequence = body.getLong();
+            Instant timestamp = Instant.ofEpochSecond(body.getLong(), body.getInt());
+            long stateVersion = body.getLong();
+            byte[] digest = new byte[BlobTable.DIGEST_BYTES];
+            body.get(digest);
+            add(new Entry(snapshotId, agentInstanceId, sequence, timestamp, stateVersion,
+                BlobTable.fromBytes(digest), body.getLong(), body.getLong()));
+        } else {
+            removeBefore(getString(body), body.getLong());
+        }
+    }
+    
+    private void add(Entry entry) {
+        NavigableMap<Long, Entry> snapshots = byAgent.computeIfAbsent(entry.agentInstanceId(), id -> new TreeMap<>());
+        Entry replaced = snapshots.put(entry.sequence(), entry);
+        blobs.retain(entry.digest(), entry.position(), entry.length());
+        if (replaced != null) {
+            byId.remove(replaced.snapshotId());
+            blobs.release(replaced.digest());
+        }
+        byId.put(entry.snapshotId(), entry);
+    }
+    
+    private int removeBefore(String agentInstanceId, long sequence) {
+        NavigableMap<Long, Entry> snapshots = byAgent.get(agentInstanceId);
+        if (snapshots == null) {
+            return 0;
+        }
+        NavigableMap<Long, Entry> removed = snapshots.headMap(sequence, false);
+        int count = removed.size();
+        for (Entry entry : removed.values()) {
+            byId.remove(entry.snapshotId());
+            blobs.release(entry.digest());
+        }
+        removed.clear();
+        if (snapshots.isEmpty()) {
+            byAgent.remove(agentInstanceId);
+        }
+        return count;
+    }
+    
+    /**
+     * Saves a snapshot. The state is digested first; unless its digest matches a live
+     * payload, it is then streamed to the end of the data file, outside the store lock,
+     * and forced before its index record is.
+     * 
+     * @throws IllegalArgumentException if the snapshot is null, its id already exists or
+     *         its state cannot be encoded
+     * @throws UncheckedIOException if the snapshot cannot be written
+     */
+    @Override
+    public void save(Snapshot snapshot) {
+        if (snapshot == null) {
+            throw new IllegalArgumentException("Snapshot cannot be null");
+        }
+        StreamingSnapshotCodec.Written probe = codec.digest(snapshot.stateData());
+        synchronized (appendLock) {
+            long position;
+            FileChannel file;
+            synchronized (this) {
+                ensureOpen();
+                if (byId.containsKey(snapshot.snapshotId())) {
+                    throw new IllegalArgumentException("Snapshot already exists: " + snapshot.snapshotId());
+                }
+                BlobTable.Blob blob = blobs.find(probe.digest());
+                if (blob != null) {
+                    record(snapshot, probe.digest(), blob.position, blob.length);
+                    return;
+                }
+                position = dataEnd;
+                file = data;
+            }
+            StreamingSnapshotCodec.Written written;
+            try {
+                try {
+                    written = codec.write(snapshot.stateData(), file.position(position));
+                    file.force(false);
+                } catch (IOException | RuntimeException e) {
+                    file.truncate(position);
+                    throw e;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot save snapshot " + snapshot.snapshotId(), e);
+            }
+            synchronized (this) {
+                dataEnd = position + written.bytes();
+                record(snapshot, written.digest(), position, written.bytes());
+            }
+        }
+    }
+    
+    private void record(Snapshot snapshot, Digest digest, long position, long length) {
+        Entry entry = new Entry(snapshot.snapshotId(), snapshot.agentInstanceId(), snapshot.cursor().sequence(),
+            snapshot.timestamp(), snapshot.stateVersion(), digest, position, length);
+        try {
+            appendIndex(encodeAdd(entry));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot save snapshot " + snapshot.snapshotId(), e);
+        }
+        add(entry);
+    }
+    
+    @Override
+    public Optional<Snapshot> findById(String snapshotId) {
+        if (snapshotId == null) {
+            throw new IllegalArgumentException("Snapshot ID cannot be null");
+        }
+        while (true) {
+            Entry entry;
+            FileChannel file;
+            synchronized (this) {
+                ensureOpen();
+                entry = byId.get(snapshotId);
+                file = data;
+            }
+            if (entry == null) {
+                return Optional.empty();
+            }
+            Snapshot snapshot = read(entry, file);
+            if (snapshot != null) {
+                return Optional.of(snapshot);
+            }
+        }
+    }
+    
+    /**
+     * Finds the latest snapshot at or before a cursor with one floor lookup in the
+     * agent's index; only that snapshot's payload is read.
+     */
+    @Override
+    public Optional<Snapshot> findLatestBefore(String agentInstanceId, Cursor maxCursor) {
+        if (agentInstanceId == null) {
+            throw new IllegalArgumentException("Agent instance ID cannot be null");
+        }
+        if (maxCursor == null) {
+            throw new IllegalArgumentException("Cursor cannot be null");
+        }
+        while (true) {
+            Map.Entry<Long, Entry> floor;
+            FileChannel file;
+            synchronized (this) {
+                ensureOpen();
+                NavigableMap<Long, Entry> snapshots = byAgent.get(agentInstanceId);
+                floor = snapshots == null ? null : snapshots.floorEntry(maxCursor.sequence());
+                file = data;
+            }
+            if (floor == null) {
+                return Optional.empty();
+            }
+            Snapshot snapshot = read(floor.getValue(), file);
+            if (snapshot != null) {
+                return Optional.of(snapshot);
+            }
+        }
+    }
+    
+    /**
+     * Removes the snapshots of an agent instance before a cursor as one range of its
+     * index, recorded with a single index record. Payloads still referenced by other
+     * snapshots stay live.
+     * 
+     * @throws UncheckedIOException if the deletion cannot be recorded
+     */
+    @Override
+    public int deleteBefore(String agentInstanceId, Cursor beforeCursor) {
+        if (agentInstanceId == null) {
+            throw new IllegalArgumentException("Agent instance ID cannot be null");
+        }
+        if (beforeCursor == null) {
+            throw new IllegalArgumentException("Cursor cannot be null");
+        }
+        synchronized (appendLock) { // a compaction replaces the data file a save may be streaming to
+            synchronized (this) {
+                ensureOpen();
+                NavigableMap<Long, Entry> snapshots = byAgent.get(agentInstanceId);
+                if (snapshots == null || snapshots.headMap(beforeCursor.sequence(), false).isEmpty()) {
+                    return 0;
+                }
+                try {
+                    appendIndex(encodeDelete(agentInstanceId, beforeCursor.sequence()));
+                    int removed = removeBefore(agentInstanceId, beforeCursor.sequence());
+                    if (dataEnd > MIN_COMPACTION_BYTES && dataEnd > 2 * blobs.bytes()) {
+                        compact();
+                    }
+                    return removed;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot delete snapshots of " + agentInstanceId, e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Copies each live payload once to the next generation, rewrites the index entries
+     * that reference it, and switches to the new generation.
+     */
+    private void compact() throws IOException {
+        long next = generation + 1;
+        Path tmpIndex = file(next, INDEX_SUFFIX + ".tmp");
+        try (FileChannel newData = FileChannel.open(file(next, DATA_SUFFIX), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             FileChannel newIndex = FileChannel.open(tmpIndex, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Map<BlobTable.Blob, Long> moved = new IdentityHashMap<>();
+            long dataPosition = 0;
+            for (BlobTable.Blob blob : blobs.blobs()) {
+                for (long copied = 0; copied < blob.length; ) {
+                    copied += data.transferTo(blob.position + copied, blob.length - copied, newData);
+                }
+                moved.put(blob, dataPosition);
+                dataPosition += blob.length;
+            }
+            long indexPosition = 0;
+            for (NavigableMap<Long, Entry> snapshots : byAgent.values()) {
+                for (Entry entry : snapshots.values()) {
+                    ByteBuffer add = encodeAdd(entry.movedTo(moved.get(blobs.find(entry.digest()))));
+                    indexPosition += writeFully(newIndex, add, indexPosition);
+                }
+            }
+            newData.force(true);
+            newIndex.force(true);
+        }
+        Files.move(tmpIndex, file(next, INDEX_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        close();
+        generation = next;
+        deleteOtherGenerations();
+        byAgent.clear();
+        byId.clear();
+        blobs.clear();
+        openFiles();
+        load();
+    }
+    
+    /**
+     * Streams a snapshot's payload from the data file outside the store lock.
+     * 
+     * @return the snapshot, or {@code null} if a compaction replaced the data file
+     *         meanwhile and the lookup must be repeated
+     */
+    private Snapshot read(Entry entry, FileChannel file) {
+        Object state;
+        try {
+            state = codec.read(file, entry.position(), entry.length());
+        } catch (ClosedByInterruptException e) {
+            throw new UncheckedIOException("Interrupted reading snapshot " + entry.snapshotId(), e);
+        } catch (ClosedChannelException e) {
+            return null;
+        } catch (StreamCorruptedException e) {
+            throw new IllegalStateException("Corrupt payload of snapshot " + entry.snapshotId() + " in " + directory, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read snapshot " + entry.snapshotId(), e);
+        }
+        return new Snapshot(entry.snapshotId(), entry.agentInstanceId(), new Cursor(entry.sequence()), state,
+            entry.timestamp(), entry.stateVersion());
+    }
+    
+    private void appendIndex(ByteBuffer body) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + body.remaining());
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+        record.putInt(body.remaining()).putInt((int) crc.getValue()).put(body).flip();
+        indexEnd += writeFully(index, record, indexEnd);
+        index.force(false);
+    }
+    
+    private static ByteBuffer encodeAdd(Entry entry) {
+        byte[] id = entry.snapshotId().getBytes(StandardCharsets.UTF_8);
+        byte[] agent = entry.agentInstanceId().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(1 + 8 + id.length + agent.length + 52 + BlobTable.DIGEST_BYTES);
+        body.put(ADD).putInt(id.length).put(id).putInt(agent.length).put(agent).putLong(entry.sequence());
+        body.putLong(entry.timestamp().getEpochSecond()).putInt(entry.timestamp().getNano());
+        body.putLong(entry.stateVersion()).put(BlobTable.toBytes(entry.digest()));
+        body.putLong(entry.position()).putLong(entry.length());
+        return body.flip();
+    }
+    
+    private static ByteBuffer encodeDelete(String agentInstanceId, long beforeSequence) {
+        byte[] agent = agentInstanceId.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + 4 + agent.length + 8)
+            .put(DELETE).putInt(agent.length).put(agent).putLong(beforeSequence).flip();
+    }
+    
+    /**
+     * Returns the number of stored snapshots.
+     * 
+     * @return snapshot count
+     */
+    public synchronized int size() {
+        return byId.size();
+    }
+    
+    /**
+     * Returns the number of agent instances with snapshots.
+     * 
+     * @return agent instance count
+     */
+    public synchronized int agentCount() {
+        return byAgent.size();
+    }
+    
+    /**
+     * Returns the number of distinct live payloads; snapshots with identical state share one.
+     * 
+     * @return payload count
+     */
+    public synchronized int blobCount() {
+        return blobs.size();
+    }
+    
+    /**
+     * Returns the size of the data file, including freed payloads not yet compacted.
+     * 
+     * @return data file bytes
+     */
+    public synchronized long dataBytes() {
+        return dataEnd;
+    }
+    
+    public Path directory() {
+        return directory;
+    }
+    
+    private void ensureOpen() {
+        if (index == null || !index.isOpen()) {
+            throw new IllegalStateException("Snapshot store is closed");
+        }
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (index != null) {
+                index.close();
+            }
+        } finally {
+            if (data != null) {
+                data.close();
+            }
+        }
+    }
+    
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ignored) {
+            // already failing
+        }
+    }
+    
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, pos);
+            if (read < 0) {
+                throw new IOException("Unexpected end of snapshot store file");
+            }
+            pos += read;
+        }
+    }
+    
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+    
+    @Override
+    public String toString() {
+        return "FileSnapshotStore{directory=" + directory + ", generation=" + generation + "}";
+    }
+    
+    /**
+     * Index entry of one snapshot; the payload stays in the data file and may be shared.
+     */
+    private record Entry(
+        String snapshotId,
+        String agentInstanceId,
+        long sequence,
+        Instant timestamp,
+        long stateVersion,
+        Digest digest,
+        long position,
+        long length
+    ) {
+        Entry movedTo(long newPosition) {
+            return new Entry(snapshotId, agentInstanceId, sequence, timestamp, stateVersion, digest, newPosition, length);
+        }
+    }
+
+}
\ No newline at end of file
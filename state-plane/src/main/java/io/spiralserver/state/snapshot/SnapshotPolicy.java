@@ -0,0 +1,179 @@
+package io.spiralserver.state.snapshot;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Configuration of a {@link SnapshotScheduler}.
+ * 
+ * <p>An agent instance is due for a snapshot as soon as any trigger fires: enough events
+ * applied since its last snapshot, enough event bytes to replay (replay debt), or its
+ * oldest unsnapshotted event being older than the maximum age.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Immutable; {@code with*} methods return modified copies</li>
+ *   <li>All values are validated when set</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class SnapshotPolicy {
+    
+    public static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(1);
+    public static final long DEFAULT_MAX_EVENTS = 1_000;
+    public static final long DEFAULT_MAX_REPLAY_BYTES = 1024 * 1024;
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(5);
+    public static final int DEFAULT_SNAPSHOTS_PER_SECOND = 100;
+    
+    private Duration interval = DEFAULT_INTERVAL;
+    private long maxEvents = DEFAULT_MAX_EVENTS;
+    private long maxReplayBytes = DEFAULT_MAX_REPLAY_BYTES;
+    private Duration maxAge = DEFAULT_MAX_AGE;
+    private int snapshotsPerSecond = DEFAULT_SNAPSHOTS_PER_SECOND;
+    private Clock clock = Clock.systemUTC();
+    
+    private SnapshotPolicy() {
+    }
+    
+    private SnapshotPolicy(SnapshotPolicy other) {
+        this.interval = other.interval;
+        this.maxEvents = other.maxEvents;
+        this.maxReplayBytes = other.maxReplayBytes;
+        this.maxAge = other.maxAge;
+        this.snapshotsPerSecond = other.snapshotsPerSecond;
+        this.clock = other.clock;
+    }
+    
+    /**
+     * Creates a policy with default settings: a snapshot after 1000 events, 1 MiB of
+     * replay debt or 5 minutes, checked every second, at most 100 snapshots per second.
+     * 
+     * @return policy
+     */
+    public static SnapshotPolicy defaults() {
+        return new SnapshotPolicy();
+    }
+    
+    /**
+     * Sets the delay between two scheduler runs.
+     * 
+     * @param interval delay between runs
+     * @return modified copy
+     */
+    public SnapshotPolicy withInterval(Duration interval) {
+        if (interval == null || interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        SnapshotPolicy copy = new SnapshotPolicy(this);
+        copy.interval = interval;
+        return copy;
+    }
+    
+    /**
+     * Sets how many events may be applied to an agent instance since its last snapshot.
+     * 
+     * @param maxEvents events since the last snapshot
+     * @return modified copy
+     */
+    public SnapshotPolicy withMaxEvents(long maxEvents) {
+        if (maxEvents <= 0) {
+            throw new IllegalArgumentException("Max events must be positive");
+        }
+        SnapshotPolicy copy = new SnapshotPolicy(this);
+        copy.maxEvents = maxEvents;
+        return copy;
+    }
+    
+    /**
+     * Sets how many bytes of events an agent instance may have to replay from its last
+     * snapshot.
+     * 
+     * @param maxReplayBytes replay debt in bytes
+     * @return modified copy
+     */
+    public SnapshotPolicy withMaxReplayBytes(long maxReplayBytes) {
+        if (maxReplayBytes <= 0) {
+            throw new IllegalArgumentException("Max replay bytes must be positive");
+        }
+        SnapshotPolicy copy = new SnapshotPolicy(this);
+        copy.maxReplayBytes = maxReplayBytes;
+        return copy;
+    }
+    
+    /**
+     * Sets how long an applied event may stay without a snapshot covering it.
+     * 
+     * @param maxAge maximum age of the oldest unsnapshotted event
+     * @return modified copy
+     */
+    public SnapshotPolicy withMaxAge(Duration maxAge) {
+        if (maxAge == null || maxAge.isNegative() || maxAge.isZero()) {
+            throw new IllegalArgumentException("Max age must be positive");
+        }
+        SnapshotPolicy copy = new SnapshotPolicy(this);
+        copy.maxAge = maxAge;
+        return copy;
+    }
+    
+    /**
+     * Sets the global snapshot write budget shared by all agent instances. Due snapshots
+     * beyond it wait for a later run, so snapshot I/O cannot crowd out event appends.
+     * 
+     * @param snapshotsPerSecond snapshot writes per second (also the burst size)
+     * @return modified copy
+     */
+    public SnapshotPolicy withSnapshotsPerSecond(int snapshotsPerSecond) {
+        if (snapshotsPerSecond <= 0) {
+            throw new IllegalArgumentException("Snapshots per second must be positive");
+        }
+        SnapshotPolicy copy = new SnapshotPolicy(this);
+        copy.snapshotsPerSecond = snapshotsPerSecond;
+        return copy;
+    }
+    
+    /**
+     * Sets the clock event ages and the write budget are measured with.
+     * 
+     * @param clock clock
+     * @return modified copy
+     */
+    public SnapshotPolicy withClock(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        SnapshotPolicy copy = new SnapshotPolicy(this);
+        copy.clock = clock;
+        return copy;
+    }
+    
+    public Duration interval() {
+        return interval;
+    }
+    
+    public long maxEvents() {
+        return maxEvents;
+    }
+    
+    public long maxReplayBytes() {
+        return maxReplayBytes;
+    }
+    
+    public Duration maxAge() {
+        return maxAge;
+    }
+    
+    public int snapshotsPerSecond() {
+        return snapshotsPerSecond;
+    }
+    
+    public Clock clock() {
+        return clock;
+    }
+    
+    @Override
+    public String toString() {
+        return "SnapshotPolicy{interval=" + interval + ", maxEvents=" + maxEvents + ", maxReplayBytes=" + maxReplayBytes
+            + ", maxAge=" + maxAge + ", snapshotsPerSecond=" + snapshotsPerSecond + "}";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,320 @@
+package io.spiralserver.state.snapshot;
+
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.HotState;
+import io.spiralserver.state.Snapshot;
+import io.spiralserver.state.SnapshotStore;
+
+import java.io.Closeable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background, policy-driven snapshotting of the agent instances of a {@link HotState}.
+ * 
+ * <p>The execution path reports each applied event with {@link #recordApplied}, which
+ * only updates a per-agent counter. Snapshots are taken on the scheduler thread: each run
+ * selects the agent instances for which a {@link SnapshotPolicy} trigger fired, most
+ * replay debt first, reads their current state and saves it together with the cursor of
+ * the last event applied to it. {@link HotState.State} values are immutable, so the
+ * state is serialized by the store without holding up the writers of that agent.
+ * 
+ * <p>A state whose version differs from the version reported with the last applied
+ * event is mid-update; the agent is skipped and retried on the next run, so a snapshot
+ * always matches its cursor. Runs share a global write budget of
+ * {@link SnapshotPolicy#snapshotsPerSecond()}; due agents beyond it keep their debt and
+ * are snapshotted by later runs. An agent whose snapshot cannot be saved (its state
+ * cannot be encoded, or the store fails) is logged and skipped, and retried after a
+ * back-off that doubles with each consecutive failure, up to 64 intervals; the other
+ * agents are not held up.
+ * 
+ * @author SpiralServer Team
+ */
+public final class SnapshotScheduler implements Closeable {
+    
+    private static final System.Logger LOGGER = System.getLogger(SnapshotScheduler.class.getName());
+    private static final int MAX_BACKOFF_INTERVALS = 64;
+    
+    private final HotState hotState;
+    private final SnapshotStore snapshotStore;
+    private final SnapshotPolicy policy;
+    private final ConcurrentHashMap<String, Debt> debts = new ConcurrentHashMap<>();
+    private final AtomicLong snapshotsTaken = new AtomicLong();
+    private final Object runLock = new Object();
+    private double budget; // guarded by runLock
+    private long budgetRefilledAt; // guarded by runLock
+    private ScheduledExecutorService scheduler; // guarded by this
+    
+    /**
+     * Creates a scheduler; call {@link #start()} to run it in the background or
+     * {@link #runOnce()} to run it on demand.
+     * 
+     * @param hotState state the snapshots are taken of
+     * @param snapshotStore store the snapshots are saved to
+     * @param policy snapshot policy
+     */
+    public SnapshotScheduler(HotState hotState, SnapshotStore snapshotStore, SnapshotPolicy policy) {
+        if (hotState == null) {
+            throw new IllegalArgumentException("Hot state cannot be null");
+        }
+        if (snapshotStore == null) {
+            throw new IllegalArgumentException("Snapshot store cannot be null");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Policy cannot be null");
+        }
+        this.hotState = hotState;
+        this.snapshotStore = snapshotStore;
+        this.policy = policy;
+        this.budget = policy.snapshotsPerSecond();
+        this.budgetRefilledAt = policy.clock().millis();
+    }
+    
+    /**
+     * Records that an event has been applied to the state of an agent instance. Call it
+     * after the state update, for every event, in cursor order.
+     * 
+     * @param agentInstanceId agent instance identifier
+     * @param cursor cursor of the applied event
+     * @param stateVersion state version the event produced
+     * @param eventBytes encoded size of the event, counted as replay debt
+     */
+    public void recordApplied(String agentInstanceId, Cursor cursor, long stateVersion, int eventBytes) {
+        if (agentInstanceId == null) {
+            throw new IllegalArgumentException("Agent instance ID cannot be null");
+        }
+        if (cursor == null) {
+            throw new IllegalArgumentException("Cursor cannot be null");
+        }
+        debts.computeIfAbsent(agentInstanceId, id -> new Debt())
+            .add(cursor.sequence(), stateVersion, eventBytes, policy.clock().millis());
+    }
+    
+    /**
+     * Stops tracking an agent instance, e.g. when it is unloaded or terminated.
+     * 
+     * @param agentInstanceId agent instance identifier
+     */
+    public void forget(String agentInstanceId) {
+        if (agentInstanceId == null) {
+            throw new IllegalArgumentException("Agent instance ID cannot be null");
+        }
+        debts.remove(agentInstanceId);
+    }
+    
+    /**
+     * Starts running the scheduler every {@link SnapshotPolicy#interval()} on a daemon thread.
+     * 
+     * @return this scheduler
+     * @throws IllegalStateException if already started
+     */
+    public synchronized SnapshotScheduler start() {
+        if (scheduler != null) {
+            throw new IllegalStateException("Snapshot scheduler already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "snapshot-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = policy.interval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::runQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        return this;
+    }
+    
+    private void runQuietly() {
+        try {
+            runOnce();
+        } catch (RuntimeException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Snapshot scheduler run failed", e);
+        }
+    }
+    
+    /**
+     * Takes the snapshots that are due, within the write budget.
+     * 
+     * @return number of snapshots saved
+     */
+    public int runOnce() {
+        synchronized (runLock) {
+            long now = policy.clock().millis();
+            refillBudget(now);
+            List<Due> due = new ArrayList<>();
+            debts.forEach((agentInstanceId, debt) -> {
+                Mark mark = debt.markIfDue(policy, now);
+                if (mark != null) {
+                    due.add(new Due(agentInstanceId, debt, mark));
+                }
+            });
+            due.sort(Comparator.comparingLong((Due d) -> d.mark().bytes()).reversed());
+            int taken = 0;
+            for (Due d : due) {
+                if (budget < 1) {
+                    break;
+                }
+                try {
+                    if (snapshot(d, now)) {
+                        budget--;
+                        taken++;
+                    }
+                } catch (RuntimeException e) {
+                    long retryAt = d.debt().failed(policy, now);
+                    LOGGER.log(System.Logger.Level.WARNING, "Snapshot of " + d.agentInstanceId()
+                        + " failed; retrying after " + Instant.ofEpochMilli(retryAt), e);
+                }
+            }
+            if (taken > 0) {
+                snapshotsTaken.addAndGet(taken);
+                LOGGER.log(System.Logger.Level.DEBUG, "Saved {0} of {1} due snapshot(s)", taken, due.size());
+            }
+            return taken;
+        }
+    }
+    
+    private void refillBudget(long now) {
+        long elapsed = Math.max(0, now - budgetRefilledAt);
+        budget = Math.min(policy.snapshotsPerSecond(), budget + elapsed * policy.snapshotsPerSecond() / 1000.0);
+        budgetRefilledAt = now;
+    }
+    
+    private boolean snapshot(Due due, long now) {
+        Mark mark = due.mark();
+        Optional<HotState.State> state = hotState.read(due.agentInstanceId());
+        if (state.isEmpty() || state.get().version() != mark.stateVersion()) {
+            return false; // mid-update or gone; retried on the next run
+        }
+        String snapshotId = due.agentInstanceId() + "@" + mark.sequence() + "." + mark.stateVersion();
+        if (snapshotStore.findById(snapshotId).isEmpty()) {
+            snapshotStore.save(new Snapshot(snapshotId, due.agentInstanceId(), new Cursor(mark.sequence()),
+                state.get().data(), Instant.ofEpochMilli(now), mark.stateVersion()));
+        }
+        due.debt().pay(mark, now);
+        return true;
+    }
+    
+    /**
+     * Returns the number of agent instances with events not covered by a snapshot.
+     * 
+     * @return indebted agent instance count
+     */
+    public int pendingCount() {
+        int pending = 0;
+        for (Debt debt : debts.values()) {
+            if (debt.hasEvents()) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+    
+    /**
+     * Returns the number of snapshots saved since the scheduler was created.
+     * 
+     * @return snapshot count
+     */
+    public long snapshotsTaken() {
+        return snapshotsTaken.get();
+    }
+    
+    public SnapshotPolicy policy() {
+        return policy;
+    }
+    
+    /**
+     * Stops background runs; a run in progress completes. Does not close the store.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+    
+    /**
+     * Events applied to one agent instance since its last snapshot.
+     */
+    private static final class Debt {
+        
+        private long sequence;
+        private long stateVersion;
+        private long events;
+        private long bytes;
+        private long oldestMillis;
+        private long markedEvents = -1; // events covered by the outstanding mark, -1 if none
+        private long afterMarkMillis; // time of the first event after the outstanding mark
+        private int failures;
+        private long retryAtMillis;
+        
+        synchronized void add(long sequence, long stateVersion, int eventBytes, long now) {
+            if (events == 0) {
+                oldestMillis = now;
+            }
+            if (events == markedEvents) {
+                afterMarkMillis = now;
+            }
+            this.sequence = sequence;
+            this.stateVersion = stateVersion;
+            events++;
+            bytes += eventBytes;
+        }
+        
+        synchronized Mark markIfDue(SnapshotPolicy policy, long now) {
+            if (events == 0 || now < retryAtMillis) {
+                return null;
+            }
+            if (events >= policy.maxEvents() || bytes >= policy.maxReplayBytes()
+                    || now - oldestMillis >= policy.maxAge().toMillis()) {
+                markedEvents = events;
+                return new Mark(sequence, stateVersion, events, bytes);
+            }
+            return null;
+        }
+        
+        /**
+         * Removes the debt covered by a snapshot; events recorded after the mark remain,
+         * aged from the first of them.
+         */
+        synchronized void pay(Mark mark, long now) {
+            events -= mark.events();
+            bytes -= mark.bytes();
+            oldestMillis = events > 0 ? afterMarkMillis : now;
+            markedEvents = -1;
+            failures = 0;
+            retryAtMillis = 0;
+        }
+        
+        /**
+         * Backs off after a failed snapshot; the debt is kept.
+         * 
+         * @return time of the next attempt
+         */
+        synchronized long failed(SnapshotPolicy policy, long now) {
+            markedEvents = -1;
+            failures++;
+            long intervals = Math.min(1L << Math.min(failures - 1, 30), MAX_BACKOFF_INTERVALS);
+            retryAtMillis = now + intervals * policy.interval().toMillis();
+            return retryAtMillis;
+        }
+        
+        synchronized boolean hasEvents() {
+            return events > 0;
+        }
+    }
+    
+    /**
+     * Debt of an agent instance at the time it was found due.
+     */
+    private record Mark(long sequence, long stateVersion, long events, long bytes) {
+    }
+    
+    private record Due(String agentInstanceId, Debt debt, Mark mark) {
+    }
+}
\ No newline at end of file
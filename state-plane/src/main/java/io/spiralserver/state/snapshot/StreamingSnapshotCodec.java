@@ -0,0 +1,400 @@
+package io.spiralserver.state.snapshot;
+
+import io.spiralserver.schema.Digest;
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.JsonDataCodec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.util.zip.CRC32C;
+
+/**
+ * Streams snapshot state to and from channels as a sequence of checksummed chunks.
+ * 
+ * <p>Format:
+ * <pre>
+ *   [int32 length][int32 crc32c(chunk)][chunk]... [int32 0][int32 0]
+ * </pre>
+ * The state is encoded with {@link DataCodec#encode(Object, java.io.OutputStream)} (a
+ * Jackson {@code JsonGenerator} for {@link JsonDataCodec}) into a buffer of one chunk,
+ * which is written out whenever it fills. Reading verifies each chunk before handing its
+ * bytes to {@link DataCodec#decode(java.io.InputStream)}. Besides the state itself, a
+ * write or read holds one chunk and the codec's own I/O buffers, never the whole
+ * encoded state. A reader also accepts a stream that ends at a chunk boundary without
+ * the end marker, e.g. a single-chunk record of known length. It rejects a chunk longer
+ * than its own chunk size as corrupt before allocating for it, so state must be read
+ * with a chunk size at least as large as the one it was written with.
+ * 
+ * <p>The {@link Digest} of the encoded bytes (excluding framing) is computed while
+ * writing, so content addressing needs no second pass. {@link #digest} computes it
+ * without writing, to look up a stored payload before paying for the write.
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Chunk framing does not affect the digest: the same state yields the same digest
+ *       at any chunk size</li>
+ *   <li>Thread-safe; each call uses its own buffers</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ */
+public final class StreamingSnapshotCodec {
+    
+    public static final int DEFAULT_CHUNK_BYTES = 64 * 1024;
+    
+    private static final int CHUNK_HEADER = 8;
+    
+    private final DataCodec dataCodec;
+    private final int chunkBytes;
+    
+    /**
+     * Creates a codec for JSON state with 64 KiB chunks.
+     */
+    public StreamingSnapshotCodec() {
+        this(new JsonDataCodec(), DEFAULT_CHUNK_BYTES);
+    }
+    
+    /**
+     * Creates a codec.
+     * 
+     * @param dataCodec codec for state data
+     * @param chunkBytes maximum payload bytes per chunk
+     */
+    public StreamingSnapshotCodec(DataCodec dataCodec, int chunkBytes) {
+        if (dataCodec == null) {
+            throw new IllegalArgumentException("Data codec cannot be null");
+        }
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("Chunk bytes must be positive");
+        }
+        this.dataCodec = dataCodec;
+        this.chunkBytes = chunkBytes;
+    }
+    
+    /**
+     * Writes state to a channel at its current position.
+     * 
+     * @param state state to write
+     * @param channel channel to write to
+     * @return digest of the encoded state and bytes written, including framing
+     * @throws IllegalArgumentException if the state cannot be encoded
+     * @throws IOException if the channel cannot be written
+     */
+    public Written write(Object state, WritableByteChannel channel) throws IOException {
+        if (state == null) {
+            throw new IllegalArgumentException("State cannot be null");
+        }
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel cannot be null");
+        }
+        ChunkedOutput out = new ChunkedOutput(channel, chunkBytes);
+        dataCodec.encode(state, out);
+        return out.finish();
+    }
+    
+    /**
+     * Computes the result a {@link #write} of the state would have, encoding it into a
+     * sink that discards each chunk after digesting it.
+     * 
+     * @param state state to digest
+     * @return digest of the encoded state and the bytes a write would take
+     * @throws IllegalArgumentException if the state cannot be encoded
+     */
+    public Written digest(Object state) {
+        if (state == null) {
+            throw new IllegalArgumentException("State cannot be null");
+        }
+        ChunkedOutput out = new ChunkedOutput(new DiscardingChannel(), chunkBytes);
+        try {
+            dataCodec.encode(state, out);
+            return out.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // not thrown by the discarding channel
+        }
+    }
+    
+    /**
+     * Reads state from a channel, up to the end marker or the end of the channel.
+     * 
+     * @param channel channel positioned at the first chunk
+     * @return decoded state
+     * @throws IllegalArgumentException if the state cannot be decoded
+     * @throws StreamCorruptedException if a chunk is too long, fails its checksum or is
+     *         truncated
+     * @throws IOException if the channel cannot be read
+     */
+    public Object read(ReadableByteChannel channel) throws IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel cannot be null");
+        }
+        return dataCodec.decode(new ChunkedInput(channel, chunkBytes));
+    }
+    
+    /**
+     * Reads state from a range of a file with positional reads, leaving the channel's
+     * position untouched so the range can be read concurrently with appends.
+     * 
+     * @param channel file to read
+     * @param position position of the first chunk
+     * @param length bytes of the range
+     * @return decoded state
+     * @throws IOException if the range cannot be read or is corrupt
+     */
+    Object read(FileChannel channel, long position, long length) throws IOException {
+        return read(new RangeChannel(channel, position, position + length));
+    }
+    
+    public DataCodec dataCodec() {
+        return dataCodec;
+    }
+    
+    public int chunkBytes() {
+        return chunkBytes;
+    }
+    
+    @Override
+    public String toString() {
+        return "StreamingSnapshotCodec{chunkBytes=" + chunkBytes + "}";
+    }
+    
+    /**
+     * Result of a write.
+     * 
+     * @param digest digest of the encoded state
+     * @param bytes bytes written, including framing
+     */
+    public record Written(Digest digest, long bytes) {
+    }
+    
+    /**
+     * Buffers one chunk and writes it out, framed, when it fills.
+     */
+    private static final class ChunkedOutput extends OutputStream {
+        
+        private final WritableByteChannel channel;
+        private final ByteBuffer chunk;
+        private final CRC32C crc = new CRC32C();
+        private final MessageDigest digest;
+        private long written;
+        
+        ChunkedOutput(WritableByteChannel channel, int chunkBytes) {
+            this.channel = channel;
+            this.chunk = ByteBuffer.allocate(CHUNK_HEADER + chunkBytes).position(CHUNK_HEADER);
+            this.digest = BlobTable.newMessageDigest();
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            if (!chunk.hasRemaining()) {
+                emit();
+            }
+            chunk.put((byte) b);
+        }
+        
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            int off = offset;
+            int remaining = length;
+            while (remaining > 0) {
+                if (!chunk.hasRemaining()) {
+                    emit();
+                }
+                int n = Math.min(remaining, chunk.remaining());
+                chunk.put(bytes, off, n);
+                off += n;
+                remaining -= n;
+            }
+        }
+        
+        @Override
+        public void flush() {
+            // chunks are emitted when full, so encoder flushes do not fragment the stream
+        }
+        
+        private void emit() throws IOException {
+            int length = chunk.position() - CHUNK_HEADER;
+            if (length == 0) {
+                return;
+            }
+            crc.reset();
+            crc.update(chunk.array(), CHUNK_HEADER, length);
+            digest.update(chunk.array(), CHUNK_HEADER, length);
+            chunk.putInt(0, length).putInt(4, (int) crc.getValue()).flip();
+            writeFully(chunk);
+            chunk.clear().position(CHUNK_HEADER);
+        }
+        
+        Written finish() throws IOException {
+            emit();
+            writeFully(ByteBuffer.allocate(CHUNK_HEADER));
+            return new Written(BlobTable.fromBytes(digest.digest()), written);
+        }
+        
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+        }
+    }
+    
+    private static final class DiscardingChannel implements WritableByteChannel {
+        
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+        
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+        
+        @Override
+        public void close() {
+        }
+    }
+    
+    /**
+     * Reads framed chunks, verifying each before its bytes are returned.
+     */
+    private static final class ChunkedInput extends InputStream {
+        
+        private final ReadableByteChannel channel;
+        private final int maxChunkBytes;
+        private final ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER);
+        private final CRC32C crc = new CRC32C();
+        private ByteBuffer chunk = ByteBuffer.allocate(0);
+        private boolean ended;
+        
+        ChunkedInput(ReadableByteChannel channel, int maxChunkBytes) {
+            this.channel = channel;
+            this.maxChunkBytes = maxChunkBytes;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return chunk.get() & 0xFF;
+        }
+        
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(length, chunk.remaining());
+            chunk.get(bytes, offset, n);
+            return n;
+        }
+        
+        private boolean fill() throws IOException {
+            while (!chunk.hasRemaining()) {
+                if (ended) {
+                    return false;
+                }
+                header.clear();
+                if (!readFully(header, true)) {
+                    ended = true;
+                    return false;
+                }
+                int length = header.getInt(0);
+                if (length == 0) {
+                    ended = true;
+                    return false;
+                }
+                if (length < 0 || length > maxChunkBytes) {
+                    throw new StreamCorruptedException("Invalid snapshot chunk length " + length);
+                }
+                if (chunk.capacity() < length) {
+                    chunk = ByteBuffer.allocate(length);
+                }
+                chunk.clear().limit(length);
+                readFully(chunk, false);
+                crc.reset();
+                crc.update(chunk.array(), 0, length);
+                if ((int) crc.getValue() != header.getInt(4)) {
+                    throw new StreamCorruptedException("Snapshot chunk checksum mismatch");
+                }
+                chunk.flip();
+            }
+            return true;
+        }
+        
+        /**
+         * Fills a buffer; returns {@code false} if the channel ends before the first byte
+         * and that is allowed.
+         */
+        private boolean readFully(ByteBuffer buffer, boolean endAllowed) throws IOException {
+            boolean first = true;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    if (first && endAllowed) {
+                        return false;
+                    }
+                    throw new EOFException("Truncated snapshot chunk");
+                }
+                first = buffer.position() == 0;
+            }
+            return true;
+        }
+    }
+    
+    /**
+     * Sequential view of a file range backed by positional reads.
+     */
+    private static final class RangeChannel implements ReadableByteChannel {
+        
+        private final FileChannel file;
+        private final long end;
+        private long position;
+        
+        RangeChannel(FileChannel file, long position, long end) {
+            this.file = file;
+            this.position = position;
+            this.end = end;
+        }
+        
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            ByteBuffer view = dst.remaining() > end - position ? dst.slice(dst.position(), (int) (end - position)) : dst;
+            int read = file.read(view, position);
+            if (read < 0) {
+                return -1;
+            }
+            if (view != dst) {
+                dst.position(dst.position() + read);
+            }
+            position += read;
+            return read;
+        }
+        
+        @Override
+        public boolean isOpen() {
+            return file.isOpen();
+        }
+        
+        @Override
+        public void close() {
+            // the file is owned by the caller
+        }
+    }
+}
\ No newline at end of file
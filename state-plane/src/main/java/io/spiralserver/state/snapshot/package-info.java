@@ -0,0 +1,22 @@
+/**
+ * Snapshot storage for the state plane.
+ * 
+ * <p>This package provides:
+ * <ul>
+ *   <li>File-backed snapshot store with a per-agent index ordered by cursor and
+ *       content-addressed, reference-counted payloads</li>
+ *   <li>Streaming snapshot codec that moves state through channels in checksummed chunks</li>
+ *   <li>Background snapshot scheduler driven by per-agent event, replay-debt and age
+ *       triggers under a global write budget</li>
+ * </ul>
+ * 
+ * <p><strong>Invariants:</strong>
+ * <ul>
+ *   <li>Implementations honour the {@link io.spiralserver.state.SnapshotStore} contract</li>
+ *   <li>On-disk formats are checksummed</li>
+ * </ul>
+ * 
+ * @author SpiralServer Team
+ * @version 1.0
+ */
+package io.spiralserver.state.snapshot;
\ No newline at end of file
@@ -0,0 +1,42 @@
+package io.spiralserver.state;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link PartitionedCursor}.
+ * 
+ * @author SpiralServer Team
+ */
+class PartitionedCursorTest {
+    
+    @Test
+    void testBeginningAndWith() {
+        PartitionedCursor cursor = PartitionedCursor.beginning(3);
+        assertEquals(3, cursor.partitionCount());
+        assertEquals(Cursor.beginning(), cursor.partition(2));
+        
+        PartitionedCursor advanced = cursor.with(1, 42);
+        assertEquals(new Cursor(42), advanced.partition(1));
+        assertEquals(Cursor.beginning(), cursor.partition(1));
+        assertTrue(advanced.covers(cursor));
+        assertFalse(cursor.covers(advanced));
+    }
+    
+    @Test
+    void testStringFormRoundTrips() {
+        PartitionedCursor cursor = PartitionedCursor.of(12, 0, 7);
+        assertEquals("12,0,7", cursor.toString());
+        assertEquals(cursor, PartitionedCursor.parse("12,0,7"));
+        assertThrows(IllegalArgumentException.class, () -> PartitionedCursor.parse("12,,7"));
+        assertThrows(IllegalArgumentException.class, () -> PartitionedCursor.parse("-1"));
+    }
+    
+    @Test
+    void testInvalidCursors() {
+        assertThrows(IllegalArgumentException.class, () -> PartitionedCursor.of());
+        assertThrows(IllegalArgumentException.class, () -> PartitionedCursor.beginning(0));
+        assertThrows(IllegalArgumentException.class, () -> PartitionedCursor.of(1, 2).covers(PartitionedCursor.of(1)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,182 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.state.HotState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ConcurrentHotState}.
+ * 
+ * @author SpiralServer Team
+ */
+class ConcurrentHotStateTest {
+    
+    @Test
+    void testOptimisticUpdate() {
+        ConcurrentHotState state = new ConcurrentHotState();
+        assertTrue(state.read("agent-1").isEmpty());
+        assertFalse(state.update("agent-1", 1, VersionedState.of(Map.of("n", 1))));
+        assertTrue(state.update("agent-1", 0, VersionedState.of(Map.of("n", 1))));
+        assertFalse(state.update("agent-1", 0, VersionedState.of(Map.of("n", 2))));
+        
+        HotState.State current = state.read("agent-1").orElseThrow();
+        assertEquals(1, current.version());
+        assertEquals(Map.of("n", 1), current.data());
+        assertTrue(state.update("agent-1", 1, VersionedState.of(Map.of("n", 2))));
+        assertEquals(2, state.read("agent-1").orElseThrow().version());
+        
+        assertEquals(3, state.upsert("agent-1", VersionedState.of(Map.of("n", 3))));
+        assertEquals(1, state.upsert("agent-2", VersionedState.of(Map.of("n", 1))));
+        assertEquals(2, state.size());
+    }
+    
+    @Test
+    void testInvalidArguments() {
+        ConcurrentHotState state = new ConcurrentHotState();
+        assertThrows(IllegalArgumentException.class, () -> state.read(" "));
+        assertThrows(IllegalArgumentException.class, () -> state.upsert("agent-1", null));
+        assertThrows(IllegalArgumentException.class, () -> state.checkpoint("agent-1"));
+    }
+    
+    @Test
+    void testBatchReadAndUpdate() {
+        ConcurrentHotState state = new ConcurrentHotState();
+        state.upsert("agent-1", VersionedState.of(Map.of("n", 1)));
+        state.upsert("agent-2", VersionedState.of(Map.of("n", 2)));
+        Map<String, HotState.State> read = state.readAll(List.of("agent-2", "agent-9", "agent-1"));
+        assertEquals(List.of("agent-2", "agent-1"), new ArrayList<>(read.keySet()));
+        assertEquals(Map.of("n", 1), read.get("agent-1").data());
+        
+        List<HotState.Update> stale = List.of(
+            new HotState.Update("agent-1", 1, VersionedState.of(Map.of("n", 10))),
+            new HotState.Update("agent-3", 0, VersionedState.of(Map.of("n", 30))),
+            new HotState.Update("agent-2", 0, VersionedState.of(Map.of("n", 20)))
+        );
+        assertEquals(List.of(false, false, false), state.updateAll(stale, HotState.BatchMode.ATOMIC));
+        assertEquals(1, state.read("agent-1").orElseThrow().version());
+        assertTrue(state.read("agent-3").isEmpty());
+        
+        assertEquals(List.of(true, true, false), state.updateAll(stale, HotState.BatchMode.BEST_EFFORT));
+        assertEquals(Map.of("n", 10), state.read("agent-1").orElseThrow().data());
+        assertEquals(1, state.read("agent-3").orElseThrow().version());
+        
+        List<HotState.Update> current = List.of(
+            new HotState.Update("agent-1", 2, VersionedState.of(Map.of("n", 11))),
+            new HotState.Update("agent-2", 1, VersionedState.of(Map.of("n", 21)))
+        );
+        assertEquals(List.of(true, true), state.updateAll(current, HotState.BatchMode.ATOMIC));
+        assertEquals(3, state.read("agent-1").orElseThrow().version());
+        assertEquals(Map.of("n", 21), state.read("agent-2").orElseThrow().data());
+        
+        List<HotState.Update> duplicate = List.of(current.get(0), current.get(0));
+        assertThrows(IllegalArgumentException.class, () -> state.updateAll(duplicate, HotState.BatchMode.ATOMIC));
+    }
+    
+    @Test
+    void testCheckpointAndRestore() {
+        ConcurrentHotState state = new ConcurrentHotState();
+        state.upsert("agent-1", VersionedState.of(Map.of("step", 1)));
+        HotState.Checkpoint checkpoint = state.checkpoint("agent-1");
+        assertEquals("agent-1@1", checkpoint.checkpointId());
+        assertEquals(1, checkpoint.stateVersion());
+        
+        state.upsert("agent-1", VersionedState.of(Map.of("step", 2)));
+        assertFalse(state.restore("agent-2", checkpoint));
+        assertTrue(state.restore("agent-1", checkpoint));
+        HotState.State restored = state.read("agent-1").orElseThrow();
+        assertEquals(Map.of("step", 1), restored.data());
+        assertEquals(3, restored.version());
+    }
+    
+    @Test
+    void testConcurrentUpdatesLoseNothing() throws Exception {
+        ConcurrentHotState state = new ConcurrentHotState();
+        int threads = 8;
+        int increments = 2_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < increments; i++) {
+                        for (String agent : List.of("shared", "agent-" + Thread.currentThread().threadId())) {
+                            while (true) {
+                                HotState.State current = state.read(agent).orElse(null);
+                                long version = current == null ? 0 : current.version();
+                                int count = current == null ? 0 : (Integer) current.data();
+                                if (state.update(agent, version, VersionedState.of(count + 1))) {
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        HotState.State shared = state.read("shared").orElseThrow();
+        assertEquals(threads * increments, shared.data());
+        assertEquals(threads * increments, shared.version());
+    }
+    
+    @Test
+    void testConcurrentAtomicTransfersKeepTotal() throws Exception {
+        ConcurrentHotState state = new ConcurrentHotState();
+        List<String> accounts = List.of("agent-a", "agent-b", "agent-c");
+        for (String account : accounts) {
+            state.upsert(account, VersionedState.of(1_000));
+        }
+        int threads = 4;
+        int transfers = 2_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < transfers; i++) {
+                        String from = accounts.get((i + offset) % 3);
+                        String to = accounts.get((i + offset + 1) % 3);
+                        while (true) {
+                            Map<String, HotState.State> current = state.readAll(List.of(from, to));
+                            HotState.State source = current.get(from);
+                            HotState.State target = current.get(to);
+                            List<HotState.Update> transfer = List.of(
+                                new HotState.Update(from, source.version(), VersionedState.of((Integer) source.data() - 1)),
+                                new HotState.Update(to, target.version(), VersionedState.of((Integer) target.data() + 1))
+                            );
+                            if (state.updateAll(transfer, HotState.BatchMode.ATOMIC).get(0)) {
+                                break;
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        int total = 0;
+        long versions = 0;
+        for (HotState.State account : state.readAll(accounts).values()) {
+            total += (Integer) account.data();
+            versions += account.version();
+        }
+        assertEquals(3_000, total);
+        assertEquals(3 + 2L * threads * transfers, versions);
+    }
+}
\ No newline at end of file
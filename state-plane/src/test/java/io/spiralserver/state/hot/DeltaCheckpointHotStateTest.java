@@ -0,0 +1,99 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.state.HotState;
+import io.spiralserver.state.JsonDataCodec;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link DeltaCheckpointHotState}.
+ * 
+ * @author SpiralServer Team
+ */
+class DeltaCheckpointHotStateTest {
+    
+    private static Map<String, Object> largeState(int step) {
+        Map<String, Object> memory = new LinkedHashMap<>();
+        for (int i = 0; i < 500; i++) {
+            memory.put("fact-" + i, "observation number " + i);
+        }
+        return Map.of("memory", memory, "plan", Map.of("step", step));
+    }
+    
+    @Test
+    void testDeltaPayloadScalesWithChange() {
+        DeltaCheckpointHotState state = new DeltaCheckpointHotState(new ConcurrentHotState());
+        JsonDataCodec codec = new JsonDataCodec();
+        state.upsert("agent-1", VersionedState.of(largeState(0)));
+        DeltaCheckpoint base = (DeltaCheckpoint) state.checkpoint("agent-1");
+        state.upsert("agent-1", VersionedState.of(largeState(1)));
+        DeltaCheckpoint delta = (DeltaCheckpoint) state.checkpoint("agent-1");
+        
+        assertTrue(base.isBase());
+        assertFalse(delta.isBase());
+        assertEquals(1, delta.depth());
+        assertEquals(base, delta.parent().orElseThrow());
+        assertEquals("agent-1@1", delta.metadata().get(DeltaCheckpoint.PARENT));
+        int baseBytes = codec.encode(base.payload()).length;
+        int deltaBytes = codec.encode(delta.payload()).length;
+        assertTrue(deltaBytes * 100 < baseBytes, "base " + baseBytes + " bytes, delta " + deltaBytes + " bytes");
+    }
+    
+    @Test
+    void testRestoreFoldsChain() {
+        DeltaCheckpointHotState state = new DeltaCheckpointHotState(new ConcurrentHotState());
+        List<HotState.Checkpoint> checkpoints = new ArrayList<>();
+        for (int step = 0; step < 5; step++) {
+            state.upsert("agent-1", VersionedState.of(largeState(step)));
+            checkpoints.add(state.checkpoint("agent-1"));
+        }
+        assertTrue(state.restore("agent-1", checkpoints.get(2)));
+        HotState.State restored = state.read("agent-1").orElseThrow();
+        assertEquals(largeState(2), restored.data());
+        assertEquals(6, restored.version());
+        
+        // the chain continues from the restored checkpoint
+        state.upsert("agent-1", VersionedState.of(largeState(9)));
+        DeltaCheckpoint next = (DeltaCheckpoint) state.checkpoint("agent-1");
+        assertEquals(checkpoints.get(2), next.parent().orElseThrow());
+        assertEquals(Map.of("nested", Map.of("plan", Map.of("set", Map.of("step", 9)))), next.payload());
+        
+        assertTrue(state.restore("agent-1", checkpoints.get(4)));
+        assertEquals(largeState(4), state.read("agent-1").orElseThrow().data());
+        assertFalse(state.restore("agent-2", checkpoints.get(4)));
+    }
+    
+    @Test
+    void testBaseEveryIntervalDeltas() {
+        DeltaCheckpointHotState state = new DeltaCheckpointHotState(new ConcurrentHotState(), 3, Clock.systemUTC());
+        List<Integer> depths = new ArrayList<>();
+        for (int step = 0; step < 9; step++) {
+            state.upsert("agent-1", VersionedState.of(Map.of("step", step)));
+            depths.add(((DeltaCheckpoint) state.checkpoint("agent-1")).depth());
+        }
+        assertEquals(List.of(0, 1, 2, 3, 0, 1, 2, 3, 0), depths);
+        assertEquals(0, state.latestCheckpoint("agent-1").orElseThrow().depth());
+    }
+    
+    @Test
+    void testForeignCheckpointsAndMissingState() {
+        ConcurrentHotState delegate = new ConcurrentHotState();
+        DeltaCheckpointHotState state = new DeltaCheckpointHotState(delegate);
+        assertThrows(IllegalArgumentException.class, () -> state.checkpoint("agent-1"));
+        
+        state.upsert("agent-1", VersionedState.of(Map.of("n", 1)));
+        state.checkpoint("agent-1");
+        HotState.Checkpoint plain = delegate.checkpoint("agent-1");
+        state.upsert("agent-1", VersionedState.of(Map.of("n", 2)));
+        assertTrue(state.restore("agent-1", plain));
+        assertEquals(Map.of("n", 1), state.read("agent-1").orElseThrow().data());
+        assertTrue(((DeltaCheckpoint) state.checkpoint("agent-1")).isBase());
+    }
+}
\ No newline at end of file
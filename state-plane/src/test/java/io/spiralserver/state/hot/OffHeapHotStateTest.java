@@ -0,0 +1,173 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.state.HotState;
+import io.spiralserver.state.JsonDataCodec;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link OffHeapHotState}.
+ * 
+ * @author SpiralServer Team
+ */
+class OffHeapHotStateTest {
+    
+    private static OffHeapHotState smallStore() {
+        return new OffHeapHotState(new JsonDataCodec(), Clock.systemUTC(), 4, 4096);
+    }
+    
+    @Test
+    void testReadWriteAndVersions() {
+        OffHeapHotState state = smallStore();
+        assertTrue(state.read("agent-1").isEmpty());
+        assertTrue(state.update("agent-1", 0, VersionedState.of(Map.of("step", "plan"))));
+        assertFalse(state.update("agent-1", 0, VersionedState.of(Map.of("step", "act"))));
+        assertEquals(2, state.upsert("agent-1", VersionedState.of(Map.of("step", "act"))));
+        
+        HotState.State current = state.read("agent-1").orElseThrow();
+        assertEquals(2, current.version());
+        assertEquals(Map.of("step", "act"), current.data());
+        assertNotNull(current.lastModified());
+        assertEquals(1, state.size());
+    }
+    
+    @Test
+    void testManyAgentsGrowIndexes() {
+        OffHeapHotState state = smallStore();
+        long empty = state.offHeapBytes();
+        for (int i = 0; i < 20_000; i++) {
+            state.upsert("agent-" + i, VersionedState.of(Map.of("n", i)));
+        }
+        assertEquals(20_000, state.size());
+        assertTrue(state.offHeapBytes() > empty);
+        for (int i = 0; i < 20_000; i += 97) {
+            assertEquals(Map.of("n", i), state.read("agent-" + i).orElseThrow().data());
+        }
+        assertTrue(state.read("agent-20000").isEmpty());
+    }
+    
+    @Test
+    void testGrowingStatesRelocateAndCompact() {
+        OffHeapHotState state = smallStore();
+        for (int round = 1; round <= 50; round++) {
+            for (int i = 0; i < 40; i++) {
+                state.upsert("agent-" + i, VersionedState.of(Map.of("log", "x".repeat(round * 10 + i))));
+            }
+        }
+        for (int i = 0; i < 40; i++) {
+            HotState.State current = state.read("agent-" + i).orElseThrow();
+            assertEquals(50, current.version());
+            assertEquals(Map.of("log", "x".repeat(500 + i)), current.data());
+        }
+        // garbage is reclaimed: far less than the ~1 MB written in total
+        assertTrue(state.offHeapBytes() < 200_000, "off-heap bytes: " + state.offHeapBytes());
+        
+        state.upsert("agent-big", VersionedState.of(Map.of("blob", "y".repeat(10_000))));
+        assertEquals(Map.of("blob", "y".repeat(10_000)), state.read("agent-big").orElseThrow().data());
+    }
+    
+    @Test
+    void testRemoveKeepsProbeChainsIntact() {
+        OffHeapHotState state = smallStore();
+        for (int i = 0; i < 5_000; i++) {
+            state.upsert("agent-" + i, VersionedState.of(Map.of("n", i)));
+        }
+        for (int i = 0; i < 5_000; i += 2) {
+            assertEquals(1, state.readEncoded("agent-" + i, true).version());
+        }
+        assertEquals(2_500, state.size());
+        for (int i = 0; i < 5_000; i++) {
+            assertEquals(i % 2 == 1, state.read("agent-" + i).isPresent(), "agent-" + i);
+        }
+        assertEquals(0, state.version("agent-0"));
+        assertEquals(1, state.version("agent-1"));
+    }
+    
+    @Test
+    void testBatchReadAndUpdate() {
+        OffHeapHotState state = smallStore();
+        state.upsert("agent-1", VersionedState.of(Map.of("n", 1)));
+        state.upsert("agent-2", VersionedState.of(Map.of("n", 2)));
+        Map<String, HotState.State> read = state.readAll(List.of("agent-2", "agent-9", "agent-1"));
+        assertEquals(List.of("agent-2", "agent-1"), new ArrayList<>(read.keySet()));
+        assertEquals(Map.of("n", 1), read.get("agent-1").data());
+        
+        List<HotState.Update> stale = List.of(
+            new HotState.Update("agent-1", 1, VersionedState.of(Map.of("n", 10))),
+            new HotState.Update("agent-3", 0, VersionedState.of(Map.of("n", 30))),
+            new HotState.Update("agent-2", 0, VersionedState.of(Map.of("n", 20)))
+        );
+        assertEquals(List.of(false, false, false), state.updateAll(stale, HotState.BatchMode.ATOMIC));
+        assertEquals(1, state.read("agent-1").orElseThrow().version());
+        assertTrue(state.read("agent-3").isEmpty());
+        
+        assertEquals(List.of(true, true, false), state.updateAll(stale, HotState.BatchMode.BEST_EFFORT));
+        assertEquals(Map.of("n", 10), state.read("agent-1").orElseThrow().data());
+        assertEquals(1, state.read("agent-3").orElseThrow().version());
+        
+        List<HotState.Update> current = List.of(
+            new HotState.Update("agent-1", 2, VersionedState.of(Map.of("n", 11))),
+            new HotState.Update("agent-2", 1, VersionedState.of(Map.of("n", 21)))
+        );
+        assertEquals(List.of(true, true), state.updateAll(current, HotState.BatchMode.ATOMIC));
+        assertEquals(3, state.read("agent-1").orElseThrow().version());
+        assertEquals(Map.of("n", 21), state.read("agent-2").orElseThrow().data());
+        
+        List<HotState.Update> duplicate = List.of(current.get(0), current.get(0));
+        assertThrows(IllegalArgumentException.class, () -> state.updateAll(duplicate, HotState.BatchMode.ATOMIC));
+    }
+    
+    @Test
+    void testCheckpointAndRestore() {
+        OffHeapHotState state = smallStore();
+        state.upsert("agent-1", VersionedState.of(Map.of("step", 1)));
+        HotState.Checkpoint checkpoint = state.checkpoint("agent-1");
+        state.upsert("agent-1", VersionedState.of(Map.of("step", 2)));
+        assertTrue(state.restore("agent-1", checkpoint));
+        assertEquals(Map.of("step", 1), state.read("agent-1").orElseThrow().data());
+        assertEquals(3, state.read("agent-1").orElseThrow().version());
+    }
+    
+    @Test
+    void testConcurrentUpdates() throws Exception {
+        OffHeapHotState state = smallStore();
+        int threads = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        String agent = "agent-" + (i % 10);
+                        while (true) {
+                            HotState.State current = state.read(agent).orElse(null);
+                            long version = current == null ? 0 : current.version();
+                            if (state.update(agent, version, VersionedState.of(version + 1))) {
+                                break;
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < 10; i++) {
+            HotState.State current = state.read("agent-" + i).orElseThrow();
+            assertEquals(threads * 100, current.version());
+            assertEquals(threads * 100, ((Number) current.data()).intValue());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.state.JsonDataCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link StateDelta}.
+ * 
+ * @author SpiralServer Team
+ */
+class StateDeltaTest {
+    
+    @Test
+    void testNestedChangesRoundTrip() {
+        Map<String, Object> before = Map.of(
+            "plan", Map.of("step", 1, "goal", "ship", "notes", List.of("a")),
+            "memory", Map.of("facts", List.of("x", "y")),
+            "obsolete", true
+        );
+        Map<String, Object> after = Map.of(
+            "plan", Map.of("step", 2, "goal", "ship", "notes", List.of("a"), "owner", "ops"),
+            "memory", Map.of("facts", List.of("x", "y")),
+            "result", "ok"
+        );
+        StateDelta delta = StateDelta.between(before, after);
+        assertFalse(delta.isEmpty());
+        assertEquals(after, delta.applyTo(before));
+        assertEquals(Map.of("step", 1, "goal", "ship", "notes", List.of("a")), before.get("plan"));
+        
+        Map<String, Object> data = delta.toData();
+        assertEquals(Map.of("result", "ok"), data.get("set"));
+        assertEquals(List.of("obsolete"), data.get("remove"));
+        assertEquals(Map.of("plan", Map.of("set", Map.of("step", 2, "owner", "ops"))), data.get("nested"));
+    }
+    
+    @Test
+    void testReplacementAndEmptyDelta() {
+        assertTrue(StateDelta.between(Map.of("a", 1), Map.of("a", 1)).isEmpty());
+        assertEquals(List.of(1, 2), StateDelta.between(Map.of("a", 1), List.of(1, 2)).applyTo(Map.of("a", 1)));
+        assertEquals(Map.of("replace", 7), StateDelta.between(6, 7).toData());
+        
+        Map<String, Object> withNull = new HashMap<>();
+        withNull.put("a", null);
+        assertEquals(withNull, StateDelta.between(Map.of("a", 1), withNull).applyTo(Map.of("a", 1)));
+        
+        assertThrows(IllegalArgumentException.class, () -> StateDelta.between(Map.of("a", 1), Map.of()).applyTo("text"));
+    }
+    
+    @Test
+    void testEncodedFormDecodes() {
+        JsonDataCodec codec = new JsonDataCodec();
+        Map<String, Object> before = Map.of("a", Map.of("b", 1, "c", 2), "d", "e");
+        Map<String, Object> after = Map.of("a", Map.of("b", 1, "c", 3), "f", List.of());
+        StateDelta delta = StateDelta.between(before, after);
+        
+        StateDelta decoded = StateDelta.fromData(codec.decode(codec.encode(delta.toData())));
+        assertEquals(delta, decoded);
+        assertEquals(after, decoded.applyTo(before));
+        assertThrows(IllegalArgumentException.class, () -> StateDelta.fromData(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> StateDelta.fromData(Map.of("remove", "x")));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,187 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.observability.Metrics;
+import io.spiralserver.state.HotState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link TieredHotState}.
+ * 
+ * @author SpiralServer Team
+ */
+class TieredHotStateTest {
+    
+    @TempDir
+    Path dir;
+    
+    private TieredHotState tiered(TieredConfig config) {
+        return new TieredHotState(dir.resolve("cold.spill"), config.withColdChunkBytes(4096));
+    }
+    
+    @Test
+    void testSpillAndPromoteKeepData() throws IOException {
+        try (TieredHotState state = tiered(TieredConfig.defaults().withMaxEntries(100).withSegments(4))) {
+            for (int i = 0; i < 1_000; i++) {
+                state.upsert("agent-" + i, VersionedState.of(Map.of("n", i)));
+                state.upsert("agent-" + i, VersionedState.of(Map.of("n", i + 1)));
+            }
+            assertEquals(1_000, state.size());
+            assertTrue(state.residentCount() <= 100, "resident: " + state.residentCount());
+            assertTrue(state.coldCount() >= 900);
+            assertTrue(Files.size(dir.resolve("cold.spill")) > 0);
+            
+            for (int i = 0; i < 1_000; i++) {
+                HotState.State current = state.read("agent-" + i).orElseThrow();
+                assertEquals(2, current.version());
+                assertEquals(Map.of("n", i + 1), current.data());
+            }
+            assertEquals(1_000, state.size());
+            assertTrue(state.promotions() >= 900);
+            assertTrue(state.read("agent-1000").isEmpty());
+        }
+    }
+    
+    @Test
+    void testVersionsCheckedAcrossTiers() throws IOException {
+        try (TieredHotState state = tiered(TieredConfig.defaults().withMaxEntries(1).withSegments(1))) {
+            state.upsert("agent-1", VersionedState.of("a"));
+            state.upsert("agent-2", VersionedState.of("b")); // demotes agent-1
+            assertEquals(1, state.coldCount());
+            
+            assertFalse(state.update("agent-1", 0, VersionedState.of("stale")));
+            assertTrue(state.update("agent-1", 1, VersionedState.of("a2")));
+            assertEquals(3, state.upsert("agent-1", VersionedState.of("a3")));
+            assertEquals(2, state.size());
+            
+            HotState.Checkpoint checkpoint = state.checkpoint("agent-2");
+            state.upsert("agent-2", VersionedState.of("b2"));
+            state.upsert("agent-1", VersionedState.of("a4"));
+            assertTrue(state.restore("agent-2", checkpoint));
+            assertEquals("b", state.read("agent-2").orElseThrow().data());
+            assertEquals(3, state.read("agent-2").orElseThrow().version());
+            assertEquals(4, state.read("agent-1").orElseThrow().version());
+        }
+    }
+    
+    @Test
+    void testScanDoesNotEvictFrequentStates() throws IOException {
+        try (TieredHotState state = tiered(TieredConfig.defaults().withMaxEntries(10).withSegments(1))) {
+            for (int i = 0; i < 5; i++) {
+                state.upsert("hot-" + i, VersionedState.of(i));
+                state.read("hot-" + i);
+            }
+            for (int i = 0; i < 200; i++) {
+                state.upsert("scan-" + i, VersionedState.of(i));
+            }
+            long hits = state.hits();
+            for (int i = 0; i < 5; i++) {
+                assertEquals(i, state.read("hot-" + i).orElseThrow().data());
+            }
+            assertEquals(hits + 5, state.hits());
+            assertTrue(state.read("scan-0").isPresent());
+            assertEquals(1, state.promotions());
+        }
+    }
+    
+    @Test
+    void testBoundedByBytes() throws IOException {
+        try (TieredHotState state = tiered(TieredConfig.defaults().withMaxBytes(10_000).withSegments(1))) {
+            for (int i = 0; i < 100; i++) {
+                state.upsert("agent-" + i, VersionedState.of("x".repeat(1_000)));
+            }
+            assertTrue(state.residentWeight() <= 10_000, "weight: " + state.residentWeight());
+            assertTrue(state.residentCount() >= 5);
+            assertEquals(100, state.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals("x".repeat(1_000), state.read("agent-" + i).orElseThrow().data());
+            }
+            assertTrue(state.residentWeight() <= 10_000);
+        }
+    }
+    
+    @Test
+    void testBatchReadAndUpdate() throws IOException {
+        try (TieredHotState state = tiered(TieredConfig.defaults().withMaxEntries(1).withSegments(2))) {
+            state.upsert("agent-1", VersionedState.of(Map.of("n", 1)));
+            state.upsert("agent-2", VersionedState.of(Map.of("n", 2)));
+            Map<String, HotState.State> read = state.readAll(List.of("agent-2", "agent-9", "agent-1"));
+            assertEquals(List.of("agent-2", "agent-1"), new ArrayList<>(read.keySet()));
+            assertEquals(Map.of("n", 1), read.get("agent-1").data());
+            
+            List<HotState.Update> stale = List.of(
+                new HotState.Update("agent-1", 1, VersionedState.of(Map.of("n", 10))),
+                new HotState.Update("agent-3", 0, VersionedState.of(Map.of("n", 30))),
+                new HotState.Update("agent-2", 0, VersionedState.of(Map.of("n", 20)))
+            );
+            assertEquals(List.of(false, false, false), state.updateAll(stale, HotState.BatchMode.ATOMIC));
+            assertEquals(1, state.read("agent-1").orElseThrow().version());
+            assertTrue(state.read("agent-3").isEmpty());
+            
+            assertEquals(List.of(true, true, false), state.updateAll(stale, HotState.BatchMode.BEST_EFFORT));
+            assertEquals(Map.of("n", 10), state.read("agent-1").orElseThrow().data());
+            assertEquals(1, state.read("agent-3").orElseThrow().version());
+            
+            List<HotState.Update> current = List.of(
+                new HotState.Update("agent-1", 2, VersionedState.of(Map.of("n", 11))),
+                new HotState.Update("agent-2", 1, VersionedState.of(Map.of("n", 21)))
+            );
+            assertEquals(List.of(true, true), state.updateAll(current, HotState.BatchMode.ATOMIC));
+            assertEquals(3, state.read("agent-1").orElseThrow().version());
+            assertEquals(Map.of("n", 21), state.read("agent-2").orElseThrow().data());
+            
+            List<HotState.Update> duplicate = List.of(current.get(0), current.get(0));
+            assertThrows(IllegalArgumentException.class, () -> state.updateAll(duplicate, HotState.BatchMode.ATOMIC));
+        }
+    }
+    
+    @Test
+    void testHitAndMissMetrics() throws IOException {
+        RecordingMetrics metrics = new RecordingMetrics();
+        TieredConfig config = TieredConfig.defaults().withMaxEntries(1).withSegments(1).withMetrics(metrics);
+        try (TieredHotState state = tiered(config)) {
+            state.upsert("agent-1", VersionedState.of(1));
+            state.read("agent-1");
+            state.upsert("agent-2", VersionedState.of(2)); // once-seen agent-2 is demoted
+            state.read("agent-2");
+            state.read("agent-3");
+            
+            assertEquals(1, state.hits());
+            assertEquals(2, state.misses());
+            assertEquals(1, state.promotions());
+            assertEquals(2, state.demotions());
+            assertEquals(1L, (long) metrics.counters.get("hotstate.tiered.hits"));
+            assertEquals(2L, (long) metrics.counters.get("hotstate.tiered.misses"));
+            assertEquals(1L, (long) metrics.counters.get("hotstate.tiered.promotions"));
+            assertEquals(2L, (long) metrics.counters.get("hotstate.tiered.demotions"));
+        }
+        assertFalse(Files.exists(dir.resolve("cold.spill")));
+    }
+    
+    private static final class RecordingMetrics implements Metrics {
+        final Map<String, Long> counters = new ConcurrentHashMap<>();
+        
+        @Override
+        public void incrementCounter(String name, long value, Map<String, String> attributes) {
+            counters.merge(name, value, Long::sum);
+        }
+        
+        @Override
+        public void recordGauge(String name, double value, Map<String, String> attributes) {
+        }
+        
+        @Override
+        public void recordHistogram(String name, double value, Map<String, String> attributes) {
+        }
+    }
+}
\ No newline at end of file
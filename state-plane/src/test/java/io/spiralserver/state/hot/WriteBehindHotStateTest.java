@@ -0,0 +1,245 @@
+package io.spiralserver.state.hot;
+
+import io.spiralserver.observability.Metrics;
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.schema.Version;
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.EventLog;
+import io.spiralserver.state.HotState;
+import io.spiralserver.state.JsonDataCodec;
+import io.spiralserver.state.log.EventLogConfig;
+import io.spiralserver.state.log.LogEvent;
+import io.spiralserver.state.log.SegmentedEventLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link WriteBehindHotState} and {@link FileStateStore}.
+ * 
+ * @author SpiralServer Team
+ */
+class WriteBehindHotStateTest {
+    
+    private static final SchemaRef COUNTED = new SchemaRef("event", "counted", new Version(1, 0, 0));
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void testRepeatedWritesCoalesce() throws IOException {
+        AtomicLong applied = new AtomicLong();
+        RecordingMetrics metrics = new RecordingMetrics();
+        try (FileStateStore store = FileStateStore.open(dir.resolve("states.dat"))) {
+            WriteBehindHotState state = new WriteBehindHotState(
+                new ConcurrentHotState(), store, () -> new Cursor(applied.get()),
+                WriteBehindConfig.defaults().withMetrics(metrics)
+            );
+            for (int i = 1; i <= 100; i++) {
+                state.upsert("agent-" + (i % 3), VersionedState.of(Map.of("n", i)));
+                applied.set(i);
+            }
+            assertEquals(3, state.dirtyCount());
+            assertEquals(3, state.flush());
+            assertEquals(0, state.dirtyCount());
+            assertEquals(100, state.writeCount());
+            assertEquals(3, state.flushedEntries());
+            assertEquals(new Cursor(100), store.cursor());
+            assertEquals(1, store.batchCount());
+            assertEquals(Map.of("n", 99), state.config().dataCodec().decode(store.read("agent-0").orElseThrow().data()));
+            assertEquals(3L, (long) metrics.counters.get("hotstate.flush.entries"));
+            state.close();
+        }
+    }
+    
+    @Test
+    void testDirtyBoundForcesFlush() throws IOException {
+        try (FileStateStore store = FileStateStore.open(dir.resolve("states.dat"))) {
+            WriteBehindHotState state = new WriteBehindHotState(
+                new ConcurrentHotState(), store, Cursor::beginning,
+                WriteBehindConfig.defaults().withMaxDirtyEntries(10).withFlushBatchEntries(4)
+            );
+            for (int i = 0; i < 25; i++) {
+                state.upsert("agent-" + i, VersionedState.of(i));
+                assertTrue(state.dirtyCount() < 10);
+            }
+            assertEquals(2, state.flushCount());
+            assertEquals(20, store.size());
+            state.close();
+            assertEquals(25, store.size());
+        }
+    }
+    
+    @Test
+    void testRecoverReplaysEventsAfterFlushedCursor() throws IOException {
+        Path states = dir.resolve("states.dat");
+        EventLogConfig logConfig = EventLogConfig.of(dir.resolve("log"));
+        try (SegmentedEventLog log = SegmentedEventLog.open(logConfig);
+             FileStateStore store = FileStateStore.open(states)) {
+            Counter counter = new Counter(store, WriteBehindConfig.defaults());
+            for (int i = 0; i < 30; i++) {
+                counter.apply(log, "agent-" + (i % 4));
+                if (i == 19) {
+                    counter.state.flush();
+                }
+            }
+            assertEquals(new Cursor(20), store.cursor());
+            // crash: the last ten events were never flushed
+        }
+        try (SegmentedEventLog log = SegmentedEventLog.open(logConfig);
+             FileStateStore store = FileStateStore.open(states)) {
+            Counter counter = new Counter(store, WriteBehindConfig.defaults());
+            Cursor replayed = counter.state.recover(log, counter::increment);
+            assertEquals(new Cursor(30), replayed);
+            int total = 0;
+            for (int a = 0; a < 4; a++) {
+                total += (Integer) counter.state.read("agent-" + a).orElseThrow().data();
+            }
+            assertEquals(30, total);
+            assertEquals(8, counter.state.read("agent-0").orElseThrow().data());
+        }
+    }
+    
+    @Test
+    void testRecoverAppliesEventsWrittenDuringFlushOnce() throws IOException, InterruptedException {
+        Path states = dir.resolve("states.dat");
+        EventLogConfig logConfig = EventLogConfig.of(dir.resolve("log"));
+        try (SegmentedEventLog log = SegmentedEventLog.open(logConfig);
+             FileStateStore store = FileStateStore.open(states)) {
+            CountDownLatch encoding = new CountDownLatch(1);
+            CountDownLatch applied = new CountDownLatch(1);
+            JsonDataCodec json = new JsonDataCodec();
+            DataCodec pausing = new DataCodec() {
+                @Override
+                public byte[] encode(Object data) {
+                    encoding.countDown();
+                    await(applied); // the writer applies events while the flush is underway
+                    return json.encode(data);
+                }
+                
+                @Override
+                public Object decode(ByteBuffer buffer) {
+                    return json.decode(buffer);
+                }
+            };
+            Counter counter = new Counter(store, WriteBehindConfig.defaults().withDataCodec(pausing));
+            counter.apply(log, "agent-a");
+            counter.apply(log, "agent-b");
+            Thread writer = new Thread(() -> {
+                await(encoding);
+                counter.apply(log, "agent-a");
+                counter.apply(log, "agent-b");
+                applied.countDown();
+            });
+            writer.start();
+            assertEquals(2, counter.state.flush());
+            writer.join();
+            assertEquals(new Cursor(2), store.cursor());
+            // crash: the writer's events were never flushed
+        }
+        try (SegmentedEventLog log = SegmentedEventLog.open(logConfig);
+             FileStateStore store = FileStateStore.open(states)) {
+            Counter counter = new Counter(store, WriteBehindConfig.defaults());
+            counter.applied.set(store.cursor().sequence());
+            assertEquals(new Cursor(4), counter.state.recover(log, counter::increment));
+            assertEquals(2, counter.state.read("agent-a").orElseThrow().data());
+            assertEquals(2, counter.state.read("agent-b").orElseThrow().data());
+        }
+    }
+    
+    @Test
+    void testStoreDiscardsTornBatchAndCompacts() throws IOException {
+        Path file = dir.resolve("states.dat");
+        byte[] payload = new byte[2048];
+        try (FileStateStore store = FileStateStore.open(file)) {
+            for (int round = 1; round <= 600; round++) {
+                store.write(List.of(
+                    new FileStateStore.StoredState("agent-a", round, round, Instant.now(), payload),
+                    new FileStateStore.StoredState("agent-b", round, round, Instant.now(), payload)
+                ), new Cursor(round));
+            }
+            assertTrue(store.fileBytes() < 2 * 1024 * 1024, "compacted: " + store.fileBytes());
+            assertEquals(600, store.read("agent-a").orElseThrow().version());
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 1, 0, 1, 2, 3}));
+        }
+        try (FileStateStore store = FileStateStore.open(file)) {
+            assertEquals(new Cursor(600), store.cursor());
+            assertEquals(2, store.size());
+            assertEquals(600, store.read("agent-b").orElseThrow().version());
+        }
+    }
+    
+    /**
+     * Applies counting events: appends to the log, increments through the store, then
+     * advances the applied cursor.
+     */
+    private static final class Counter {
+        final AtomicLong applied = new AtomicLong();
+        final WriteBehindHotState state;
+        
+        Counter(FileStateStore store, WriteBehindConfig config) {
+            this.state = new WriteBehindHotState(
+                new ConcurrentHotState(), store, () -> new Cursor(applied.get()), config
+            );
+        }
+        
+        void apply(EventLog log, String agent) {
+            long sequence = log.append(new LogEvent(COUNTED, Instant.now(), agent, null, Map.of(), "test"));
+            increment(agent);
+            applied.set(sequence);
+        }
+        
+        void increment(EventLog.Event event) {
+            increment(event.correlationKey());
+            applied.set(event.sequence());
+        }
+        
+        void increment(String agent) {
+            HotState.State current = state.read(agent).orElse(null);
+            state.upsert(agent, VersionedState.of(current == null ? 1 : (Integer) current.data() + 1));
+        }
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static final class RecordingMetrics implements Metrics {
+        final Map<String, Long> counters = new ConcurrentHashMap<>();
+        
+        @Override
+        public void incrementCounter(String name, long value, Map<String, String> attributes) {
+            counters.merge(name, value, Long::sum);
+        }
+        
+        @Override
+        public void recordGauge(String name, double value, Map<String, String> attributes) {
+        }
+        
+        @Override
+        public void recordHistogram(String name, double value, Map<String, String> attributes) {
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.schema.Version;
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.JsonDataCodec;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link EventCodec}.
+ * 
+ * @author SpiralServer Team
+ */
+class EventCodecTest {
+    
+    private static final SchemaRef PLACED = new SchemaRef("event", "order-placed", new Version(1, 0, 0));
+    private static final SchemaRef SHIPPED = new SchemaRef("event", "order-shipped", new Version(2, 1, 0));
+    private static final long BASE_MILLIS = 1_700_000_000_000L;
+    
+    private final EventCodec codec = new EventCodec(new JsonDataCodec());
+    
+    @Test
+    void testRoundTripWithDictionary() {
+        SegmentDictionary dictionary = new SegmentDictionary(BASE_MILLIS);
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        LogEvent first = new LogEvent(1, PLACED, Instant.ofEpochMilli(BASE_MILLIS).plusNanos(123_456),
+            "order-1", "key-1", Map.of("n", 1), "test");
+        LogEvent second = new LogEvent(2, SHIPPED, Instant.ofEpochMilli(BASE_MILLIS - 5_000), null, null,
+            Map.of("n", 2), "test");
+        LogEvent third = new LogEvent(3, PLACED, Instant.ofEpochSecond(0, 999_999_999), "order-1", null,
+            Map.of("n", 3), "test");
+        
+        int[] positions = new int[3];
+        int pos = 0;
+        LogEvent[] events = {first, second, third};
+        for (int i = 0; i < events.length; i++) {
+            EventCodec.Encoded encoded = codec.encode(events[i]);
+            positions[i] = pos;
+            int length = codec.bodyBytes(encoded, dictionary);
+            assertTrue(length <= encoded.maxBodyBytes());
+            codec.write(buffer, pos, events[i].sequence(), encoded, dictionary);
+            pos += length;
+        }
+        assertEquals(2, dictionary.size());
+        
+        for (int i = 0; i < events.length; i++) {
+            assertEquals(events[i], codec.decode(buffer, positions[i], dictionary));
+        }
+        assertEquals(BASE_MILLIS - 5_000, EventCodec.timestampMillis(buffer, positions[1], dictionary));
+        
+        SegmentDictionary restored = new SegmentDictionary(BASE_MILLIS);
+        for (int position : positions) {
+            assertTrue(EventCodec.restoreSchema(buffer, position, restored));
+        }
+        assertEquals(dictionary.toStrings(), restored.toStrings());
+    }
+    
+    @Test
+    void testRepeatedSchemaIsStoredOnce() {
+        SegmentDictionary dictionary = new SegmentDictionary(BASE_MILLIS);
+        LogEvent event = new LogEvent(1, PLACED, Instant.ofEpochMilli(BASE_MILLIS + 10), null, null, Map.of(), "test");
+        EventCodec.Encoded encoded = codec.encode(event);
+        int firstUse = codec.bodyBytes(encoded, dictionary);
+        codec.write(ByteBuffer.allocate(256), 0, 1, encoded, dictionary);
+        int laterUse = codec.bodyBytes(encoded, dictionary);
+        
+        assertEquals(PLACED.toString().length() + 1, firstUse - laterUse);
+        assertTrue(laterUse < 32, "header should be a few bytes, was " + laterUse);
+    }
+    
+    @Test
+    void testPayloadIsDecodedOnFirstAccess() {
+        AtomicInteger decodes = new AtomicInteger();
+        JsonDataCodec json = new JsonDataCodec();
+        DataCodec counting = new DataCodec() {
+            @Override
+            public byte[] encode(Object data) {
+                return json.encode(data);
+            }
+            
+            @Override
+            public Object decode(ByteBuffer buffer) {
+                decodes.incrementAndGet();
+                return json.decode(buffer);
+            }
+        };
+        EventCodec lazyCodec = new EventCodec(counting);
+        SegmentDictionary dictionary = new SegmentDictionary(BASE_MILLIS);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        LogEvent event = new LogEvent(7, PLACED, Instant.ofEpochMilli(BASE_MILLIS), "order-7", null,
+            Map.of("n", 7), "test");
+        lazyCodec.write(buffer, 0, 7, lazyCodec.encode(event), dictionary);
+        
+        LogEvent decoded = lazyCodec.decode(buffer, 0, dictionary);
+        assertEquals("order-7", decoded.correlationKey());
+        assertEquals(PLACED, decoded.eventSchemaRef());
+        assertEquals(0, decodes.get());
+        assertEquals(Map.of("n", 7), decoded.payload());
+        assertEquals(Map.of("n", 7), decoded.payload());
+        assertEquals(1, decodes.get());
+    }
+}
\ No newline at end of file
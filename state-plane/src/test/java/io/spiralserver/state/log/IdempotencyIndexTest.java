@@ -0,0 +1,60 @@
+package io.spiralserver.state.log;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link IdempotencyIndex}.
+ * 
+ * @author SpiralServer Team
+ */
+class IdempotencyIndexTest {
+    
+    @Test
+    void testFindWithinWindow() {
+        IdempotencyIndex index = new IdempotencyIndex(60_000, 6);
+        index.add("key-1", 1, 1_000, 1_000);
+        index.add("key-2", 2, 2_000, 2_000);
+        
+        assertEquals(1, index.find("key-1", 0, seq -> true));
+        assertEquals(2, index.find("key-2", 1_500, seq -> true));
+        assertEquals(-1, index.find("key-1", 1_500, seq -> true));
+        assertEquals(-1, index.find("key-3", 0, seq -> true));
+    }
+    
+    @Test
+    void testCandidatesMustBeConfirmed() {
+        IdempotencyIndex index = new IdempotencyIndex(60_000, 6);
+        index.add("key-1", 1, 1_000, 1_000);
+        index.add("key-1", 5, 1_100, 1_100);
+        
+        assertEquals(5, index.find("key-1", 0, seq -> true));
+        assertEquals(1, index.find("key-1", 0, seq -> seq == 1));
+        assertEquals(-1, index.find("key-1", 0, seq -> false));
+    }
+    
+    @Test
+    void testBucketsExpire() {
+        IdempotencyIndex index = new IdempotencyIndex(10_000, 10);
+        for (int i = 0; i < 100; i++) {
+            long now = i * 1_000L;
+            index.add("key-" + i, i + 1, now, now);
+        }
+        assertTrue(index.bucketCount() <= 11);
+        assertTrue(index.size() <= 11);
+        assertEquals(-1, index.find("key-0", 0, seq -> true));
+        assertEquals(100, index.find("key-99", 0, seq -> true));
+    }
+    
+    @Test
+    void testTablesGrow() {
+        IdempotencyIndex index = new IdempotencyIndex(60_000, 1);
+        for (int i = 1; i <= 10_000; i++) {
+            index.add("key-" + i, i, 1_000, 1_000);
+        }
+        for (int i = 1; i <= 10_000; i++) {
+            assertEquals(i, index.find("key-" + i, 0, seq -> true));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+package io.spiralserver.state.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link Lz4BlockCodec}.
+ * 
+ * @author SpiralServer Team
+ */
+class Lz4BlockCodecTest {
+    
+    @Test
+    void testRoundTripCompressibleData() {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            json.append("{\"orderId\":\"order-").append(i).append("\",\"status\":\"PLACED\",\"amount\":")
+                .append(i * 7 % 1000).append("}");
+        }
+        byte[] input = json.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = roundTrip(input);
+        assertTrue(compressed.length < input.length / 3, "compressed to " + compressed.length + " of " + input.length);
+    }
+    
+    @Test
+    void testRoundTripIncompressibleAndEdgeCases() {
+        Random random = new Random(42);
+        byte[] noise = new byte[70_000];
+        random.nextBytes(noise);
+        roundTrip(noise);
+        roundTrip(new byte[0]);
+        roundTrip(new byte[] {1, 2, 3});
+        roundTrip(new byte[13]);
+        byte[] run = new byte[100_000];
+        Arrays.fill(run, (byte) 'a');
+        assertTrue(roundTrip(run).length < 1_000);
+    }
+    
+    @Test
+    void testMalformedBlockIsRejected() {
+        byte[] input = "hello hello hello hello hello hello".getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = new byte[Lz4BlockCodec.maxCompressedLength(input.length)];
+        int length = Lz4BlockCodec.compress(input, 0, input.length, compressed, 0);
+        byte[] output = new byte[input.length];
+        
+        assertThrows(IllegalStateException.class,
+            () -> Lz4BlockCodec.decompress(compressed, 0, length - 3, output, 0, output.length));
+        assertThrows(IllegalStateException.class,
+            () -> Lz4BlockCodec.decompress(compressed, 0, length, new byte[input.length + 1], 0, input.length + 1));
+    }
+    
+    private static byte[] roundTrip(byte[] input) {
+        byte[] compressed = new byte[Lz4BlockCodec.maxCompressedLength(input.length)];
+        int length = Lz4BlockCodec.compress(input, 0, input.length, compressed, 0);
+        byte[] output = new byte[input.length];
+        Lz4BlockCodec.decompress(compressed, 0, length, output, 0, output.length);
+        assertArrayEquals(input, output);
+        return Arrays.copyOf(compressed, length);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,169 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.schema.Version;
+import io.spiralserver.state.EventLog;
+import io.spiralserver.state.PartitionedCursor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link PartitionedEventLog}.
+ * 
+ * @author SpiralServer Team
+ */
+class PartitionedEventLogTest {
+    
+    private static final SchemaRef ORDER_PLACED = new SchemaRef("event", "order-placed", new Version(1, 0, 0));
+    
+    @TempDir
+    Path dir;
+    
+    private static LogEvent event(String correlationKey, String idempotencyKey, int n) {
+        return new LogEvent(ORDER_PLACED, Instant.now(), correlationKey, idempotencyKey, Map.of("n", n), "test");
+    }
+    
+    @Test
+    void testEventsOfOneKeyStayInOnePartitionInOrder() throws IOException {
+        try (PartitionedEventLog log = PartitionedEventLog.open(EventLogConfig.of(dir), 4)) {
+            for (int i = 0; i < 400; i++) {
+                log.append(event("order-" + (i % 20), null, i));
+            }
+            Set<Integer> used = new HashSet<>();
+            for (int k = 0; k < 20; k++) {
+                String key = "order-" + k;
+                used.add(log.partitionOfKey(key));
+                List<EventLog.Event> events = log.readByCorrelation(key, Optional.empty(), 100);
+                assertEquals(20, events.size());
+                for (int i = 0; i < events.size(); i++) {
+                    assertEquals(Map.of("n", k + 20 * i), events.get(i).payload());
+                }
+            }
+            assertTrue(used.size() > 1, "keys should spread over partitions");
+            
+            PartitionedCursor head = log.currentCursor();
+            long total = 0;
+            for (int p = 0; p < log.partitionCount(); p++) {
+                total += head.partition(p).sequence();
+            }
+            assertEquals(400, total);
+        }
+    }
+    
+    @Test
+    void testReadTracksProgressPerPartition() throws IOException {
+        try (PartitionedEventLog log = PartitionedEventLog.open(EventLogConfig.of(dir), 3)) {
+            List<EventLog.Event> batch = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                batch.add(event("order-" + i, null, i));
+            }
+            List<Long> sequences = log.appendAll(batch);
+            assertEquals(300, sequences.size());
+            
+            PartitionedCursor cursor = PartitionedCursor.beginning(3);
+            Set<Object> seen = new HashSet<>();
+            int reads = 0;
+            while (true) {
+                PartitionedEventLog.Batch read = log.read(cursor, 32);
+                if (read.events().isEmpty()) {
+                    break;
+                }
+                assertTrue(read.events().size() <= 32);
+                for (EventLog.Event event : read.events()) {
+                    assertTrue(seen.add(event.payload()), "delivered twice: " + event);
+                }
+                assertTrue(read.next().covers(cursor));
+                cursor = read.next();
+                reads++;
+            }
+            assertEquals(300, seen.size());
+            assertEquals(log.currentCursor(), cursor);
+            assertTrue(reads >= 300 / 32);
+        }
+    }
+    
+    @Test
+    void testFirstReadIsSharedFairly() throws IOException {
+        try (PartitionedEventLog log = PartitionedEventLog.open(EventLogConfig.of(dir), 2)) {
+            String[] keys = new String[2];
+            for (int i = 0; keys[0] == null || keys[1] == null; i++) {
+                String key = "order-" + i;
+                keys[log.partitionOfKey(key)] = key;
+            }
+            for (int i = 0; i < 100; i++) {
+                log.append(event(keys[0], null, i));
+            }
+            log.append(event(keys[1], null, 100));
+            
+            PartitionedEventLog.Batch read = log.read(PartitionedCursor.beginning(2), 10);
+            assertEquals(10, read.events().size());
+            assertEquals(1, read.next().partition(1).sequence());
+            assertEquals(9, read.next().partition(0).sequence());
+        }
+    }
+    
+    @Test
+    void testIdempotencyAndReopen() throws IOException {
+        Map<String, Long> sequences = new HashMap<>();
+        try (PartitionedEventLog log = PartitionedEventLog.open(EventLogConfig.of(dir), 4)) {
+            for (int i = 0; i < 50; i++) {
+                sequences.put("key-" + i, log.append(event(null, "key-" + i, i)));
+            }
+            assertThrows(IllegalArgumentException.class, () -> log.append(event(null, "key-7", 7)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> PartitionedEventLog.open(EventLogConfig.of(dir), 2));
+        try (PartitionedEventLog log = PartitionedEventLog.open(EventLogConfig.of(dir), 4)) {
+            EventLog.Event found = log.findByIdempotencyKey("key-7", 60_000).orElseThrow();
+            assertEquals((long) sequences.get("key-7"), found.sequence());
+            assertTrue(log.findByIdempotencyKey("key-99", 60_000).isEmpty());
+        }
+    }
+    
+    @Test
+    void testConcurrentAppendsKeepPerKeyOrder() throws Exception {
+        int threads = 8;
+        int perThread = 500;
+        try (PartitionedEventLog log = PartitionedEventLog.open(EventLogConfig.of(dir), 4)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    String key = "agent-" + t;
+                    futures.add(pool.submit(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            log.append(event(key, null, i));
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                pool.shutdown();
+            }
+            for (int t = 0; t < threads; t++) {
+                List<EventLog.Event> events = log.readByCorrelation("agent-" + t, Optional.empty(), perThread);
+                assertEquals(perThread, events.size());
+                for (int i = 0; i < perThread; i++) {
+                    assertEquals(Map.of("n", i), events.get(i).payload());
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,206 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.schema.Version;
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.EventLog;
+import io.spiralserver.state.Snapshot;
+import io.spiralserver.state.SnapshotStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link RetentionService}.
+ * 
+ * @author SpiralServer Team
+ */
+class RetentionServiceTest {
+    
+    private static final SchemaRef ORDER_PLACED = new SchemaRef("event", "order-placed", new Version(1, 0, 0));
+    
+    @TempDir
+    Path dir;
+    
+    private final LatestSnapshots snapshots = new LatestSnapshots();
+    
+    private EventLogConfig config() {
+        return EventLogConfig.of(dir.resolve("log")).withSegmentBytes(4096).withDedupeWindowMs(0);
+    }
+    
+    private static void appendEvents(SegmentedEventLog log, int count) {
+        for (int i = 1; i <= count; i++) {
+            log.append(new LogEvent(ORDER_PLACED, Instant.now(), "order-" + (i % 5), "key-" + i, Map.of("n", i), "test"));
+        }
+    }
+    
+    @Test
+    void testRemovesSegmentsBelowOldestSnapshot() throws IOException {
+        try (SegmentedEventLog log = SegmentedEventLog.open(config())) {
+            appendEvents(log, 500);
+            int segmentsBefore = log.segmentCount();
+            snapshots.put("agent-a", 300);
+            snapshots.put("agent-b", 120);
+            
+            RetentionService retention = new RetentionService(
+                log, snapshots, () -> List.of("agent-a", "agent-b"), RetentionPolicy.defaults().withSegmentsPerRun(100)
+            );
+            int removed = retention.runOnce();
+            assertTrue(removed > 0);
+            assertEquals(segmentsBefore - removed, log.segmentCount());
+            assertTrue(log.firstSequence() > 1 && log.firstSequence() <= 121);
+            
+            List<EventLog.Event> events = log.read(Cursor.beginning(), 1000);
+            assertEquals(log.firstSequence(), events.get(0).sequence());
+            assertEquals(500, events.get(events.size() - 1).sequence());
+            List<EventLog.Event> correlated = log.readByCorrelation("order-1", Optional.empty(), 1000);
+            assertTrue(correlated.get(0).sequence() >= log.firstSequence());
+            assertEquals(0, retention.runOnce());
+        }
+        try (SegmentedEventLog log = SegmentedEventLog.open(config())) {
+            assertTrue(log.firstSequence() > 1);
+            assertEquals(new Cursor(500), log.currentCursor());
+            assertEquals(500 - log.firstSequence() + 1, log.read(Cursor.beginning(), 1000).size());
+        }
+    }
+    
+    @Test
+    void testAgentWithoutSnapshotKeepsWholeLog() throws IOException {
+        try (SegmentedEventLog log = SegmentedEventLog.open(config())) {
+            appendEvents(log, 500);
+            snapshots.put("agent-a", 450);
+            RetentionService retention = new RetentionService(
+                log, snapshots, () -> List.of("agent-a", "agent-b"), RetentionPolicy.defaults()
+            );
+            assertEquals(0, retention.runOnce());
+            assertEquals(1, log.firstSequence());
+        }
+    }
+    
+    @Test
+    void testEmptyAgentSetKeepsWholeLogUnlessAllowed() throws IOException {
+        try (SegmentedEventLog log = SegmentedEventLog.open(config())) {
+            appendEvents(log, 500);
+            RetentionService retention = new RetentionService(
+                log, snapshots, List::of, RetentionPolicy.defaults().withSegmentsPerRun(100)
+            );
+            assertEquals(0, retention.runOnce());
+            assertEquals(1, log.firstSequence());
+            
+            RetentionService allowed = new RetentionService(
+                log, snapshots, List::of, RetentionPolicy.defaults().withSegmentsPerRun(100).withRemoveWithoutAgents(true)
+            );
+            assertTrue(allowed.runOnce() > 0);
+            assertEquals(1, log.segmentCount());
+        }
+    }
+    
+    @Test
+    void testSegmentsInsideDedupeWindowAreKept() throws IOException {
+        try (SegmentedEventLog log = SegmentedEventLog.open(config().withDedupeWindowMs(60_000))) {
+            appendEvents(log, 500);
+            snapshots.put("agent-a", 500);
+            RetentionService retention = new RetentionService(
+                log, snapshots, () -> List.of("agent-a"), RetentionPolicy.defaults().withSegmentsPerRun(100)
+            );
+            assertEquals(0, retention.runOnce());
+            assertTrue(log.findByIdempotencyKey("key-1", 60_000).isPresent());
+            assertThrows(IllegalArgumentException.class, () -> log.append(
+                new LogEvent(ORDER_PLACED, Instant.now(), null, "key-1", Map.of("n", 1), "test")
+            ));
+        }
+        Clock later = Clock.offset(Clock.systemUTC(), Duration.ofMinutes(2));
+        try (SegmentedEventLog log = SegmentedEventLog.open(config().withDedupeWindowMs(60_000).withClock(later))) {
+            RetentionService retention = new RetentionService(
+                log, snapshots, () -> List.of("agent-a"), RetentionPolicy.defaults().withSegmentsPerRun(100)
+            );
+            assertTrue(retention.runOnce() > 0);
+            assertEquals(1, log.segmentCount());
+        }
+    }
+    
+    @Test
+    void testRunsAreThrottledAndArchive() throws IOException {
+        Path archive = dir.resolve("archive");
+        try (SegmentedEventLog log = SegmentedEventLog.open(config())) {
+            appendEvents(log, 500);
+            snapshots.put("agent-a", 500);
+            RetentionService retention = new RetentionService(
+                log, snapshots, () -> List.of("agent-a"), RetentionPolicy.defaults().withArchiveDirectory(archive)
+            );
+            int segments = log.segmentCount();
+            assertEquals(1, retention.runOnce());
+            assertEquals(1, retention.runOnce());
+            assertEquals(segments - 2, log.segmentCount());
+            assertEquals(2, retention.removedSegments());
+            try (Stream<Path> files = Files.list(archive)) {
+                List<String> names = files.map(p -> p.getFileName().toString()).sorted().toList();
+                assertTrue(names.contains(LogSegment.fileName(1)), names.toString());
+                assertEquals(6, names.size(), names.toString()); // .log, .index, .corr per segment
+            }
+        }
+    }
+    
+    @Test
+    void testCompressedSegmentsAreRemoved() throws Exception {
+        try (SegmentedEventLog log = SegmentedEventLog.open(config().withBlockCompression(1024))) {
+            appendEvents(log, 500);
+            log.awaitCompression();
+            snapshots.put("agent-a", 500);
+            RetentionService retention = new RetentionService(
+                log, snapshots, () -> List.of("agent-a"), RetentionPolicy.defaults().withSegmentsPerRun(100)
+            );
+            assertTrue(retention.runOnce() > 0);
+            assertEquals(1, log.segmentCount());
+            try (Stream<Path> files = Files.list(dir.resolve("log"))) {
+                assertTrue(files.noneMatch(p -> p.toString().endsWith(CompressedSegment.SUFFIX)));
+            }
+        }
+    }
+    
+    /**
+     * Snapshot store holding one snapshot per agent.
+     */
+    private static final class LatestSnapshots implements SnapshotStore {
+        private final Map<String, Snapshot> latest = new HashMap<>();
+        
+        void put(String agentInstanceId, long sequence) {
+            save(new Snapshot(agentInstanceId + "@" + sequence, agentInstanceId, new Cursor(sequence), Map.of(),
+                Instant.now(), sequence));
+        }
+        
+        @Override
+        public void save(Snapshot snapshot) {
+            latest.put(snapshot.agentInstanceId(), snapshot);
+        }
+        
+        @Override
+        public Optional<Snapshot> findById(String snapshotId) {
+            return latest.values().stream().filter(s -> s.snapshotId().equals(snapshotId)).findFirst();
+        }
+        
+        @Override
+        public Optional<Snapshot> findLatestBefore(String agentInstanceId, Cursor maxCursor) {
+            return Optional.ofNullable(latest.get(agentInstanceId))
+                .filter(s -> s.cursor().sequence() <= maxCursor.sequence());
+        }
+        
+        @Override
+        public int deleteBefore(String agentInstanceId, Cursor beforeCursor) {
+            return 0;
+        }
+    }
+}
\ No newline at end of file
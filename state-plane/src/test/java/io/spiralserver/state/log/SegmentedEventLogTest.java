@@ -0,0 +1,440 @@
+package io.spiralserver.state.log;
+
+import io.spiralserver.schema.SchemaRef;
+import io.spiralserver.schema.Version;
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.EventLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link SegmentedEventLog}.
+ * 
+ * @author SpiralServer Team
+ */
+class SegmentedEventLogTest {
+    
+    private static final SchemaRef ORDER_PLACED = new SchemaRef("event", "order-placed", new Version(1, 0, 0));
+    
+    @TempDir
+    Path dir;
+    
+    private static LogEvent event(String correlationKey, String idempotencyKey, int n) {
+        return new LogEvent(ORDER_PLACED, Instant.now(), correlationKey, idempotencyKey, Map.of("n", n), "test");
+    }
+    
+    @Test
+    void testAppendAndRead() throws IOException {
+        try (SegmentedEventLog log = SegmentedEventLog.open(EventLogConfig.of(dir))) {
+            assertEquals(1, log.append(event("order-1", null, 1)));
+            assertEquals(2, log.append(event("order-2", null, 2)));
+            assertEquals(new Cursor(2), log.currentCursor());
+            
+            List<EventLog.Event> events = log.read(Cursor.beginning(), 10);
+            assertEquals(2, events.size());
+            assertEquals(1, events.get(0).sequence());
+            assertEquals(ORDER_PLACED, events.get(0).eventSchemaRef());
+            assertEquals(Map.of("n", 1), events.get(0).payload());
+            
+            List<EventLog.Event> tail = log.read(new Cursor(1), 10);
+            assertEquals(1, tail.size());
+            assertEquals("order-2", tail.get(0).correlationKey());
+        }
+    }
+    
+    @Test
+    void testRollOverAndReopen() throws IOException {
+        EventLogConfig config = EventLogConfig.of(dir).withSegmentBytes(4096).withIndexIntervalBytes(256);
+        try (SegmentedEventLog log = SegmentedEventLog.open(config)) {
+            for (int i = 1; i <= 500; i++) {
+                log.append(event("order-" + (i % 7), null, i));
+            }
+            assertTrue(log.segmentCount() > 1);
+        }
+        try (SegmentedEventLog log = SegmentedEventLog.open(config)) {
+            assertEquals(new Cursor(500), log.currentCursor());
+            List<EventLog.Event> events = log.read(new Cursor(250), 100);
+            assertEquals(100, events.size());
+            for (int i = 0; i < events.size(); i++) {
+                assertEquals(251 + i, events.get(i).sequence());
+                assertEquals(Map.of("n", 251 + i), events.get(i).payload());
+            }
+            assertEquals(501, log.append(event("order-1", null, 501)));
+        }
+    }
+    
+    @Test
+    void testTornTailIsTruncatedOnRecovery() throws IOException {
+        EventLogConfig config = EventLogConfig.of(dir).withSegmentBytes(64 * 1024);
+        try (SegmentedEventLog log = SegmentedEventLog.open(config)) {
+            for (int i = 1; i <= 10; i++) {
+                log.append(event("order-1", null, i));
+            }
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(p -> p.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        corruptLastRecord(segment);
+        try (SegmentedEventLog log = SegmentedEventLog.open(config)) {
+            assertEquals(new Cursor(9), log.currentCursor());
+            assertEquals(10, log.append(event("order-1", null, 10)));
+            assertEquals(10, log.read(Cursor.beginning(), 100).size());
+        }
+    }
+    
+    @Test
+    void testDuplicateIdempotencyKeyRejected() throws IOException {
+        try (SegmentedEventLog log = SegmentedEventLog.open(EventLogConfig.of(dir))) {
+            log.append(event("order-1", "key-1", 1));
+            assertThrows(IllegalArgumentException.class, () -> log.append(event("order-1", "key-1", 2)));
+            
+            Optional<EventLog.Event> found = log.findByIdempotencyKey("key-1", 60_000);
+            assertTrue(found.isPresent());
+            assertEquals(1, found.get().sequence());
+            assertTrue(log.findByIdempotencyKey("key-2", 60_000).isEmpty());
+        }
+    }
+    
+    @Test
+    void testIdempotencyWindow() throws IOException {
+        MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+        EventLogConfig config = EventLogConfig.of(dir).withClock(clock).withIdempotencyIndex(60_000, 6);
+        try (SegmentedEventLog log = SegmentedEventLog.open(config)) {
+            log.append(new LogEvent(ORDER_PLACED, clock.instant(), "order-1", "key-1", Map.of(), "test"));
+            clock.advanceMillis(30_000);
+            assertTrue(log.findByIdempotencyKey("key-1", 60_000).isPresent());
+            assertTrue(log.findByIdempotencyKey("key-1", 10_000).isEmpty());
+            
+            clock.advanceMillis(60_000);
+            log.append(new LogEvent(ORDER_PLACED, clock.instant(), "order-1", "key-2", Map.of(), "test"));
+            assertTrue(log.findByIdempotencyKey("key-1", 60_000).isEmpty());
+            // window longer than the index retention falls back to a segment scan
+            assertTrue(log.findByIdempotencyKey("key-1", 120_000).isPresent());
+        }
+        try (SegmentedEventLog log = SegmentedEventLog.open(config)) {
+            assertTrue(log.findByIdempotencyKey("key-2", 60_000).isPresent());
+        }
+    }
+    
+    @Test
+    void testReadByCorrelation() throws IOException {
+        try (SegmentedEventLog log = SegmentedEventLog.open(EventLogConfig.of(dir))) {
+            for (int i = 1; i <= 20; i++) {
+                log.append(event("order-" + (i % 2), null, i));
+            }
+            List<EventLog.Event> events = log.readByCorrelation("order-1", Optional.of(ORDER_PLACED), 5);
+            assertEquals(5, events.size());
+            assertEquals(List.of(1L, 3L, 5L, 7L, 9L), events.stream().map(EventLog.Event::sequence).toList());
+        }
+    }
+    
+    @Test
+    void testAppendAllAssignsContiguousSequences() throws IOException {
+        try (SegmentedEventLog log = SegmentedEventLog.open(EventLogConfig.of(dir))) {
+            log.append(event("order-1", null, 0));
+            List<Long> sequences = log.appendAll(List.of(event("order-1", "a", 1), event("order-1", "b", 2)));
+            assertEquals(List.of(2L, 3L), sequences);
+            assertEquals(new Cursor(3), log.currentCursor());
+        }
+    }
+    
+    @Test
+    void testAppendAllIsRejectedAsAWhole() throws IOException {
+        try (SegmentedEventLog log = SegmentedEventLog.open(EventLogConfig.of(dir))) {
+            log.append(event("order-1", "a", 1));
+            assertThrows(IllegalArgumentException.class,
+                () -> log.appendAll(List.of(event("order-1", "b", 2), event("order-1", "a", 3))));
+            assertThrows(IllegalArgumentException.class,
+                () -> log.appendAll(List.of(event("order-1", "c", 2), event("order-1", "c", 3))));
+            assertEquals(new Cursor(1), log.currentCursor());
+        }
+    }
+    
+    @Test
+    void testGroupCommitWithConcurrentAppenders() throws Exception {
+        EventLogConfig config = EventLogConfig.of(dir).withFsyncPolicy(FsyncPolicy.perBatch());
+        int threads = 8;
+        int perThread = 100;
+        try (SegmentedEventLog log = SegmentedEventLog.open(config)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        log.appendAll(List.of(event("order-1", null, i), event("order-2", null, i)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            pool.shutdown();
+            assertEquals(new Cursor(threads * perThread * 2L), log.currentCursor());
+            assertTrue(log.syncCount() >= 1 && log.syncCount() <= threads * perThread);
+        }
+    }
+    
+    @Test
+    void testCorrelationIndexIsPersistedAndRebuilt() throws IOException {
+        SchemaRef shipped = new SchemaRef("event", "order-shipped", new Version(1, 0, 0));
+        EventLogConfig config = EventLogConfig.of(dir).withSegmentBytes(4096);
+        try (SegmentedEventLog log = SegmentedEventLog.open(config)) {
+            for (int i = 1; i <= 300; i++) {
+                SchemaRef ref = i % 3 == 0 ? shipped : ORDER_PLACED;
+                log.append(new LogEvent(ref, Instant.now(), "order-" + (i % 10), null, Map.of("n", i), "test"));
+            }
+        }
+        List<Path> postingFiles;
+        try (Stream<Path> files = Files.list(dir)) {
+            postingFiles = files.filter(p -> p.toString().endsWith(CorrelationIndex.SUFFIX)).toList();
+        }
+        assertFalse(postingFiles.isEmpty());
+        Files.delete(postingFiles.get(0));
+        
+        try (SegmentedEventLog log = SegmentedEventLog.open(config)) {
+            List<EventLog.Event> all = log.readByCorrelation("order-3", Optional.empty(), 100);
+            assertEquals(30, all.size());
+            assertEquals(3, all.get(0).sequence());
+            assertEquals(293, all.get(29).sequence());
+            
+            List<EventLog.Event> placed = log.readByCorrelation("order-3", Optional.of(ORDER_PLACED), 100);
+            assertEquals(List.of(13L, 23L, 43L), placed.stream().map(EventLog.Event::sequence).limit(3).toList());
+            assertTrue(placed.stream().allMatch(e -> e.eventSchemaRef().equals(ORDER_PLACED)));
+            assertEquals(20, placed.size());
+        }
+        assertTrue(Files.exists(postingFiles.get(0)));
+    }
+    
+    @Test
+    void testTailDeliversBacklogThenLiveEventsOnDemand() throws Exception {
+        try (SegmentedEventLog log = SegmentedEventLog.open(EventLogConfig.of(dir))) {
+            log.append(event("order-1", null, 1));
+            log.append(event("order-2", null, 2));
+            
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            log.tail(Cursor.beginning()).subscribe(subscriber);
+            assertNull(subscriber.events.poll(100, TimeUnit.MILLISECONDS));
+            
+            subscriber.subscription.request(1);
+            assertEquals(1, subscriber.events.poll(5, TimeUnit.SECONDS).sequence());
+            assertNull(subscriber.events.poll(100, TimeUnit.MILLISECONDS));
+            
+            subscriber.subscription.request(2);
+            assertEquals(2, subscriber.events.poll(5, TimeUnit.SECONDS).sequence());
+            log.append(event("order-3", null, 3));
+            EventLog.Event live = subscriber.events.poll(5, TimeUnit.SECONDS);
+            assertEquals(3, live.sequence());
+            assertEquals(Map.of("n", 3), live.payload());
+            
+            log.append(event("order-4", null, 4));
+            assertNull(subscriber.events.poll(100, TimeUnit.MILLISECONDS));
+            subscriber.subscription.cancel();
+        }
+    }
+    
+    @Test
+    void testTailCatchesUpFromSegmentsAndCompletesOnClose() throws Exception {
+        EventLogConfig config = EventLogConfig.of(dir).withSegmentBytes(4096).withTailBufferEvents(8);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        try (SegmentedEventLog log = SegmentedEventLog.open(config)) {
+            for (int i = 1; i <= 200; i++) {
+                log.append(event("order-" + i, null, i));
+            }
+            log.tail(new Cursor(50)).subscribe(subscriber);
+            subscriber.subscription.request(Long.MAX_VALUE);
+            for (long expected = 51; expected <= 200; expected++) {
+                assertEquals(expected, subscriber.events.poll(5, TimeUnit.SECONDS).sequence());
+            }
+            log.appendAll(List.of(event("order-201", null, 201), event("order-202", null, 202)));
+            assertEquals(201, subscriber.events.poll(5, TimeUnit.SECONDS).sequence());
+            assertEquals(202, subscriber.events.poll(5, TimeUnit.SECONDS).sequence());
+        }
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    void testTailStopsAtCommittedSequence() throws Exception {
+        try (SegmentedEventLog log = SegmentedEventLog.open(EventLogConfig.of(dir))) {
+            List<EventLog.Event> written = new ArrayList<>();
+            for (int i = 1; i <= 3; i++) {
+                log.append(event("order-" + i, null, i));
+                written.add(log.read(new Cursor(i - 1), 1).get(0));
+            }
+            // events 2 and 3 are in the ring but only event 1 is committed
+            RecentEvents recent = new RecentEvents(4, EventLogConfig.of(dir).dataCodec());
+            recent.put(2, written.get(1), new byte[0]);
+            recent.put(3, written.get(2), new byte[0]);
+            AtomicLong committed = new AtomicLong(1);
+            TailPublisher.Source source = new TailPublisher.Source(log, recent, committed::get, Runnable::run);
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            new TailPublisher(source, Cursor.beginning()).subscribe(subscriber);
+            subscriber.subscription.request(Long.MAX_VALUE);
+            
+            assertEquals(1, subscriber.events.poll(5, TimeUnit.SECONDS).sequence());
+            assertNull(subscriber.events.poll(100, TimeUnit.MILLISECONDS));
+            committed.set(3);
+            source.committed();
+            assertEquals(2, subscriber.events.poll(5, TimeUnit.SECONDS).sequence());
+            assertEquals(3, subscriber.events.poll(5, TimeUnit.SECONDS).sequence());
+            assertNull(subscriber.events.poll(100, TimeUnit.MILLISECONDS));
+        }
+    }
+    
+    @Test
+    void testTailRejectsNonPositiveRequest() throws Exception {
+        try (SegmentedEventLog log = SegmentedEventLog.open(EventLogConfig.of(dir))) {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            log.tail(Cursor.beginning()).subscribe(subscriber);
+            subscriber.subscription.request(0);
+            assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+        }
+    }
+    
+    @Test
+    void testSealedSegmentsAreCompressed() throws Exception {
+        EventLogConfig plain = EventLogConfig.of(dir.resolve("plain")).withSegmentBytes(16 * 1024);
+        EventLogConfig compressed = EventLogConfig.of(dir.resolve("compressed")).withSegmentBytes(16 * 1024)
+            .withBlockCompression(2048);
+        long plainBytes;
+        try (SegmentedEventLog log = SegmentedEventLog.open(plain)) {
+            for (int i = 1; i <= 2000; i++) {
+                log.append(event("order-" + (i % 50), "key-" + i, i));
+            }
+            plainBytes = log.dataBytes();
+        }
+        try (SegmentedEventLog log = SegmentedEventLog.open(compressed)) {
+            for (int i = 1; i <= 2000; i++) {
+                log.append(event("order-" + (i % 50), "key-" + i, i));
+            }
+            log.awaitCompression();
+            assertTrue(log.dataBytes() < plainBytes * 3 / 4, log.dataBytes() + " vs " + plainBytes);
+            assertReadable(log);
+        }
+        try (Stream<Path> files = Files.list(compressed.directory())) {
+            List<String> names = files.map(p -> p.getFileName().toString()).toList();
+            assertEquals(1, names.stream().filter(n -> n.endsWith(LogSegment.LOG_SUFFIX)).count());
+            assertTrue(names.stream().anyMatch(n -> n.endsWith(CompressedSegment.SUFFIX)));
+        }
+        try (SegmentedEventLog log = SegmentedEventLog.open(compressed)) {
+            assertEquals(new Cursor(2000), log.currentCursor());
+            assertReadable(log);
+            assertEquals(2001, log.append(event("order-1", "key-2001", 2001)));
+        }
+    }
+    
+    private static void assertReadable(SegmentedEventLog log) {
+        List<EventLog.Event> events = log.read(new Cursor(999), 500);
+        assertEquals(500, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(1000 + i, events.get(i).sequence());
+            assertEquals(Map.of("n", 1000 + i), events.get(i).payload());
+        }
+        List<EventLog.Event> correlated = log.readByCorrelation("order-7", Optional.empty(), 100);
+        assertEquals(40, correlated.size());
+        assertEquals(7, correlated.get(0).sequence());
+        assertEquals(57, log.findByIdempotencyKey("key-57", 60_000).orElseThrow().sequence());
+    }
+    
+    private static final class RecordingSubscriber implements Flow.Subscriber<EventLog.Event> {
+        private final BlockingQueue<EventLog.Event> events = new LinkedBlockingQueue<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+        
+        @Override
+        public void onNext(EventLog.Event event) {
+            events.add(event);
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+        
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+    
+    private static void corruptLastRecord(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            long pos = LogSegment.HEADER_BYTES;
+            long last = pos;
+            while (true) {
+                header.clear();
+                channel.read(header, pos);
+                int length = header.flip().getInt();
+                if (length == 0) {
+                    break;
+                }
+                last = pos;
+                pos += LogSegment.RECORD_OVERHEAD + length;
+            }
+            channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4}), last + LogSegment.RECORD_OVERHEAD + 30);
+        }
+    }
+    
+    private static final class MutableClock extends Clock {
+        private Instant now;
+        
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+        
+        void advanceMillis(long millis) {
+            now = now.plusMillis(millis);
+        }
+        
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+        
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,228 @@
+package io.spiralserver.state.snapshot;
+
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.DataCodec;
+import io.spiralserver.state.JsonDataCodec;
+import io.spiralserver.state.Snapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link FileSnapshotStore}.
+ * 
+ * @author SpiralServer Team
+ */
+class FileSnapshotStoreTest {
+    
+    @TempDir
+    Path dir;
+    
+    private static Snapshot snapshot(String agent, long sequence, Object state) {
+        return new Snapshot(agent + "@" + sequence, agent, new Cursor(sequence), state, Instant.ofEpochSecond(sequence), sequence);
+    }
+    
+    @Test
+    void testFindLatestBefore() throws IOException {
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir)) {
+            for (long sequence = 10; sequence <= 100; sequence += 10) {
+                store.save(snapshot("agent-a", sequence, Map.of("at", (int) sequence)));
+            }
+            store.save(snapshot("agent-b", 55, List.of("b")));
+            
+            assertEquals("agent-a@50", store.findLatestBefore("agent-a", new Cursor(59)).orElseThrow().snapshotId());
+            assertEquals("agent-a@60", store.findLatestBefore("agent-a", new Cursor(60)).orElseThrow().snapshotId());
+            assertEquals(Map.of("at", 100), store.findLatestBefore("agent-a", new Cursor(1_000)).orElseThrow().stateData());
+            assertTrue(store.findLatestBefore("agent-a", new Cursor(9)).isEmpty());
+            assertTrue(store.findLatestBefore("agent-c", new Cursor(100)).isEmpty());
+            assertEquals(snapshot("agent-b", 55, List.of("b")), store.findById("agent-b@55").orElseThrow());
+            assertThrows(IllegalArgumentException.class, () -> store.save(snapshot("agent-b", 55, List.of("again"))));
+            assertEquals(11, store.size());
+            assertEquals(2, store.agentCount());
+        }
+    }
+    
+    @Test
+    void testDeleteBeforeRemovesRange() throws IOException {
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir)) {
+            for (long sequence = 1; sequence <= 20; sequence++) {
+                store.save(snapshot("agent-a", sequence, (int) sequence));
+            }
+            assertEquals(9, store.deleteBefore("agent-a", new Cursor(10)));
+            assertEquals(0, store.deleteBefore("agent-a", new Cursor(10)));
+            assertTrue(store.findById("agent-a@9").isEmpty());
+            assertTrue(store.findLatestBefore("agent-a", new Cursor(9)).isEmpty());
+            assertEquals("agent-a@10", store.findLatestBefore("agent-a", new Cursor(10)).orElseThrow().snapshotId());
+            assertEquals(11, store.size());
+        }
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir)) {
+            assertEquals(11, store.size());
+            assertTrue(store.findById("agent-a@5").isEmpty());
+            assertEquals(20, store.findLatestBefore("agent-a", new Cursor(20)).orElseThrow().stateData());
+        }
+    }
+    
+    @Test
+    void testReopenDiscardsTornIndexRecord() throws IOException {
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir)) {
+            store.save(snapshot("agent-a", 1, "one"));
+            store.save(snapshot("agent-a", 2, "two"));
+        }
+        Path index = dir.resolve("snapshots-0.index");
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir)) {
+            assertEquals(1, store.size());
+            assertEquals("one", store.findLatestBefore("agent-a", new Cursor(2)).orElseThrow().stateData());
+            store.save(snapshot("agent-a", 3, "three"));
+        }
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir)) {
+            assertEquals("three", store.findLatestBefore("agent-a", new Cursor(3)).orElseThrow().stateData());
+        }
+    }
+    
+    @Test
+    void testCompactionKeepsLiveSnapshots() throws IOException {
+        String large = "x".repeat(20_000);
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir)) {
+            for (long sequence = 1; sequence <= 120; sequence++) {
+                store.save(snapshot("agent-a", sequence, Map.of("n", (int) sequence, "blob", large)));
+                store.deleteBefore("agent-a", new Cursor(Math.max(0, sequence - 2)));
+            }
+            assertEquals(3, store.size());
+            assertTrue(store.dataBytes() < 1024 * 1024 + 100_000, "data bytes: " + store.dataBytes());
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(2, files.count());
+        }
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir)) {
+            assertEquals(3, store.size());
+            assertEquals(Map.of("n", 118, "blob", large), store.findById("agent-a@118").orElseThrow().stateData());
+            assertEquals(Map.of("n", 120, "blob", large),
+                store.findLatestBefore("agent-a", new Cursor(500)).orElseThrow().stateData());
+        }
+    }
+    
+    @Test
+    void testIdenticalStatesShareOnePayload() throws IOException {
+        Map<String, Object> initial = Map.of("phase", "init", "blob", "x".repeat(10_000));
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir)) {
+            store.save(snapshot("agent-a", 1, initial));
+            long bytes = store.dataBytes();
+            store.save(snapshot("agent-b", 1, initial));
+            store.save(snapshot("agent-a", 2, "done"));
+            store.save(snapshot("agent-b", 2, "done"));
+            assertEquals(4, store.size());
+            assertEquals(2, store.blobCount());
+            assertTrue(store.dataBytes() < bytes + 100, "data bytes: " + store.dataBytes());
+            
+            assertEquals(1, store.deleteBefore("agent-a", new Cursor(2)));
+            assertEquals(2, store.blobCount());
+            assertEquals(initial, store.findById("agent-b@1").orElseThrow().stateData());
+            assertEquals(1, store.deleteBefore("agent-b", new Cursor(2)));
+            assertEquals(1, store.blobCount());
+        }
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir)) {
+            assertEquals(2, store.size());
+            assertEquals(1, store.blobCount());
+            assertEquals("done", store.findLatestBefore("agent-a", new Cursor(5)).orElseThrow().stateData());
+            store.save(snapshot("agent-c", 1, initial));
+            assertEquals(2, store.blobCount());
+            assertEquals(initial, store.findById("agent-c@1").orElseThrow().stateData());
+        }
+    }
+    
+    @Test
+    void testStoredStateIsDigestedButNotWrittenAgain() throws IOException {
+        GatedCodec codec = new GatedCodec();
+        Map<String, Object> initial = Map.of("blob", "x".repeat(10_000));
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir, codec)) {
+            store.save(snapshot("agent-a", 1, initial));
+            assertEquals(2, codec.encodes.get());
+            long bytes = store.dataBytes();
+            
+            store.save(snapshot("agent-b", 1, initial));
+            assertEquals(3, codec.encodes.get());
+            assertEquals(bytes, store.dataBytes());
+            assertEquals(initial, store.findById("agent-b@1").orElseThrow().stateData());
+        }
+    }
+    
+    @Test
+    void testLookupsProceedWhileAPayloadIsWritten() throws Exception {
+        GatedCodec codec = new GatedCodec();
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir, codec)) {
+            store.save(snapshot("agent-a", 1, "first"));
+            codec.gateAt = codec.encodes.get() + 2; // the write after the next digest
+            Thread saver = new Thread(() -> store.save(snapshot("agent-a", 2, "second")));
+            saver.start();
+            await(codec.entered);
+            
+            assertEquals("first", store.findLatestBefore("agent-a", new Cursor(5)).orElseThrow().stateData());
+            assertEquals("first", store.findById("agent-a@1").orElseThrow().stateData());
+            assertTrue(store.findById("agent-a@2").isEmpty());
+            
+            codec.released.countDown();
+            saver.join(10_000);
+            assertFalse(saver.isAlive());
+            assertEquals("second", store.findLatestBefore("agent-a", new Cursor(5)).orElseThrow().stateData());
+        }
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+        }
+    }
+    
+    /**
+     * JSON codec that counts streamed encodes and can hold one of them until released.
+     */
+    private static final class GatedCodec implements DataCodec {
+        
+        private final DataCodec json = new JsonDataCodec();
+        private final AtomicInteger encodes = new AtomicInteger();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private volatile int gateAt = -1;
+        
+        @Override
+        public byte[] encode(Object data) {
+            return json.encode(data);
+        }
+        
+        @Override
+        public Object decode(ByteBuffer buffer) {
+            return json.decode(buffer);
+        }
+        
+        @Override
+        public void encode(Object data, OutputStream out) throws IOException {
+            if (encodes.incrementAndGet() == gateAt) {
+                entered.countDown();
+                await(released);
+            }
+            json.encode(data, out);
+        }
+    }
+}
\ No newline at end of file
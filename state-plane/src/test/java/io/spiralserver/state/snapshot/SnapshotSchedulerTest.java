@@ -0,0 +1,223 @@
+package io.spiralserver.state.snapshot;
+
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.Snapshot;
+import io.spiralserver.state.SnapshotStore;
+import io.spiralserver.state.hot.ConcurrentHotState;
+import io.spiralserver.state.hot.VersionedState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link SnapshotScheduler}.
+ * 
+ * @author SpiralServer Team
+ */
+class SnapshotSchedulerTest {
+    
+    @TempDir
+    Path dir;
+    
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+    private final ConcurrentHotState hotState = new ConcurrentHotState();
+    
+    private void apply(SnapshotScheduler scheduler, String agent, long sequence, int eventBytes) {
+        long version = hotState.upsert(agent, VersionedState.of(Map.of("at", (int) sequence)));
+        scheduler.recordApplied(agent, new Cursor(sequence), version, eventBytes);
+    }
+    
+    @Test
+    void testSnapshotsWhenTriggersFire() throws IOException {
+        SnapshotPolicy policy = SnapshotPolicy.defaults().withClock(clock)
+            .withMaxEvents(10).withMaxReplayBytes(1_000).withMaxAge(Duration.ofMinutes(1));
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir)) {
+            SnapshotScheduler scheduler = new SnapshotScheduler(hotState, store, policy);
+            for (long sequence = 1; sequence <= 9; sequence++) {
+                apply(scheduler, "by-count", sequence, 10);
+            }
+            apply(scheduler, "by-bytes", 20, 1_000);
+            apply(scheduler, "by-age", 30, 10);
+            assertEquals(1, scheduler.runOnce());
+            assertEquals(new Cursor(20), store.findLatestBefore("by-bytes", new Cursor(100)).orElseThrow().cursor());
+            
+            apply(scheduler, "by-count", 10, 10);
+            assertEquals(1, scheduler.runOnce());
+            Snapshot snapshot = store.findLatestBefore("by-count", new Cursor(100)).orElseThrow();
+            assertEquals(new Cursor(10), snapshot.cursor());
+            assertEquals(Map.of("at", 10), snapshot.stateData());
+            
+            clock.advance(Duration.ofMinutes(1));
+            assertEquals(1, scheduler.runOnce());
+            assertTrue(store.findLatestBefore("by-age", new Cursor(100)).isPresent());
+            assertEquals(0, scheduler.runOnce());
+            assertEquals(0, scheduler.pendingCount());
+            assertEquals(3, scheduler.snapshotsTaken());
+        }
+    }
+    
+    @Test
+    void testSkipsStateThatMovedPastRecordedEvent() throws IOException {
+        SnapshotPolicy policy = SnapshotPolicy.defaults().withClock(clock).withMaxEvents(1);
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir)) {
+            SnapshotScheduler scheduler = new SnapshotScheduler(hotState, store, policy);
+            apply(scheduler, "agent-a", 1, 10);
+            hotState.upsert("agent-a", VersionedState.of(Map.of("at", 2))); // event 2 not yet recorded
+            assertEquals(0, scheduler.runOnce());
+            assertEquals(1, scheduler.pendingCount());
+            
+            scheduler.recordApplied("agent-a", new Cursor(2), hotState.read("agent-a").orElseThrow().version(), 10);
+            assertEquals(1, scheduler.runOnce());
+            Snapshot snapshot = store.findLatestBefore("agent-a", new Cursor(2)).orElseThrow();
+            assertEquals(Map.of("at", 2), snapshot.stateData());
+            assertEquals(hotState.read("agent-a").orElseThrow().version(), snapshot.stateVersion());
+        }
+    }
+    
+    @Test
+    void testWriteBudgetDefersSnapshots() throws IOException {
+        SnapshotPolicy policy = SnapshotPolicy.defaults().withClock(clock).withMaxEvents(1).withSnapshotsPerSecond(5);
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir)) {
+            SnapshotScheduler scheduler = new SnapshotScheduler(hotState, store, policy);
+            for (int i = 0; i < 12; i++) {
+                apply(scheduler, "agent-" + i, i + 1, 10 + i);
+            }
+            assertEquals(5, scheduler.runOnce());
+            assertTrue(store.findLatestBefore("agent-11", new Cursor(100)).isPresent(), "most debt goes first");
+            assertEquals(0, scheduler.runOnce());
+            assertEquals(7, scheduler.pendingCount());
+            
+            clock.advance(Duration.ofMillis(600));
+            assertEquals(3, scheduler.runOnce());
+            clock.advance(Duration.ofSeconds(10));
+            assertEquals(4, scheduler.runOnce());
+            assertEquals(12, store.size());
+        }
+    }
+    
+    @Test
+    void testFailingAgentBacksOffWithoutBlockingOthers() throws IOException {
+        SnapshotPolicy policy = SnapshotPolicy.defaults().withClock(clock).withMaxEvents(1);
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir)) {
+            SnapshotScheduler scheduler = new SnapshotScheduler(hotState, store, policy);
+            apply(scheduler, "agent-ok", 1, 10);
+            long version = hotState.upsert("agent-bad", VersionedState.of(new Object())); // not encodable
+            scheduler.recordApplied("agent-bad", new Cursor(2), version, 1_000); // most debt: tried first
+            assertEquals(1, scheduler.runOnce());
+            assertTrue(store.findLatestBefore("agent-ok", new Cursor(100)).isPresent());
+            assertEquals(1, scheduler.pendingCount());
+            
+            apply(scheduler, "agent-bad", 3, 10);
+            apply(scheduler, "agent-ok", 4, 10);
+            assertEquals(1, scheduler.runOnce()); // agent-bad is backing off
+            assertTrue(store.findLatestBefore("agent-bad", new Cursor(100)).isEmpty());
+            
+            clock.advance(policy.interval());
+            assertEquals(1, scheduler.runOnce());
+            assertEquals(new Cursor(3), store.findLatestBefore("agent-bad", new Cursor(100)).orElseThrow().cursor());
+            assertEquals(0, scheduler.pendingCount());
+        }
+    }
+    
+    @Test
+    void testDebtLeftAfterSnapshotAgesFromItsFirstEvent() throws IOException {
+        SnapshotPolicy policy = SnapshotPolicy.defaults().withClock(clock).withMaxEvents(2)
+            .withMaxAge(Duration.ofMinutes(1));
+        try (FileSnapshotStore files = FileSnapshotStore.open(dir)) {
+            SnapshotScheduler[] scheduler = new SnapshotScheduler[1];
+            SnapshotStore store = new HookedStore(files, () -> {
+                clock.advance(Duration.ofSeconds(10));
+                apply(scheduler[0], "agent-a", 3, 10); // recorded while the snapshot is saved
+            });
+            scheduler[0] = new SnapshotScheduler(hotState, store, policy);
+            apply(scheduler[0], "agent-a", 1, 10);
+            apply(scheduler[0], "agent-a", 2, 10);
+            assertEquals(1, scheduler[0].runOnce());
+            assertEquals(1, scheduler[0].pendingCount());
+            
+            clock.advance(Duration.ofSeconds(50)); // a minute after the run, 50 seconds after event 3
+            assertEquals(0, scheduler[0].runOnce());
+            clock.advance(Duration.ofSeconds(10));
+            assertEquals(1, scheduler[0].runOnce());
+            assertEquals(new Cursor(3), files.findLatestBefore("agent-a", new Cursor(100)).orElseThrow().cursor());
+        }
+    }
+    
+    /**
+     * Snapshot store that runs a hook once, during the first save.
+     */
+    private static final class HookedStore implements SnapshotStore {
+        
+        private final SnapshotStore delegate;
+        private Runnable onSave;
+        
+        HookedStore(SnapshotStore delegate, Runnable onSave) {
+            this.delegate = delegate;
+            this.onSave = onSave;
+        }
+        
+        @Override
+        public void save(Snapshot snapshot) {
+            delegate.save(snapshot);
+            if (onSave != null) {
+                Runnable hook = onSave;
+                onSave = null;
+                hook.run();
+            }
+        }
+        
+        @Override
+        public Optional<Snapshot> findById(String snapshotId) {
+            return delegate.findById(snapshotId);
+        }
+        
+        @Override
+        public Optional<Snapshot> findLatestBefore(String agentInstanceId, Cursor maxCursor) {
+            return delegate.findLatestBefore(agentInstanceId, maxCursor);
+        }
+        
+        @Override
+        public int deleteBefore(String agentInstanceId, Cursor beforeCursor) {
+            return delegate.deleteBefore(agentInstanceId, beforeCursor);
+        }
+    }
+    
+    private static final class MutableClock extends Clock {
+        
+        private Instant now;
+        
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+        
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+        
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+        
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
\ No newline at end of file
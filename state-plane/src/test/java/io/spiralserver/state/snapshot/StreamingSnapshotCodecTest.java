@@ -0,0 +1,95 @@
+package io.spiralserver.state.snapshot;
+
+import io.spiralserver.state.Cursor;
+import io.spiralserver.state.JsonDataCodec;
+import io.spiralserver.state.Snapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link StreamingSnapshotCodec}.
+ * 
+ * @author SpiralServer Team
+ */
+class StreamingSnapshotCodecTest {
+    
+    @TempDir
+    Path dir;
+    
+    private static Map<String, Object> largeState() {
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            items.add(Map.of("id", i, "name", "item-" + i));
+        }
+        return Map.of("items", items, "phase", "running");
+    }
+    
+    @Test
+    void testRoundTripsInChunks() throws IOException {
+        StreamingSnapshotCodec codec = new StreamingSnapshotCodec(new JsonDataCodec(), 1024);
+        Map<String, Object> state = largeState();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StreamingSnapshotCodec.Written written = codec.write(state, Channels.newChannel(bytes));
+        byte[] encoded = new JsonDataCodec().encode(state);
+        
+        assertEquals(bytes.size(), written.bytes());
+        assertEquals(encoded.length + 8 * ((encoded.length + 1023) / 1024 + 1), written.bytes());
+        assertEquals(state, codec.read(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray()))));
+        
+        StreamingSnapshotCodec single = new StreamingSnapshotCodec(new JsonDataCodec(), 1 << 20);
+        assertEquals(written.digest(), single.write(state, Channels.newChannel(new ByteArrayOutputStream())).digest());
+    }
+    
+    @Test
+    void testRejectsCorruptChunk() throws IOException {
+        StreamingSnapshotCodec codec = new StreamingSnapshotCodec(new JsonDataCodec(), 1024);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        codec.write(largeState(), Channels.newChannel(bytes));
+        byte[] corrupt = bytes.toByteArray();
+        corrupt[5 * 1032 + 100] ^= 1;
+        
+        assertThrows(StreamCorruptedException.class,
+            () -> codec.read(Channels.newChannel(new ByteArrayInputStream(corrupt))));
+        
+        // an oversized length is rejected before anything is allocated for it
+        byte[] oversized = bytes.toByteArray();
+        ByteBuffer.wrap(oversized).putInt(0, Integer.MAX_VALUE);
+        assertThrows(StreamCorruptedException.class,
+            () -> codec.read(Channels.newChannel(new ByteArrayInputStream(oversized))));
+    }
+    
+    @Test
+    void testStoreStreamsLargeStates() throws IOException {
+        StreamingSnapshotCodec codec = new StreamingSnapshotCodec(new JsonDataCodec(), 4096);
+        Map<String, Object> state = largeState();
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir, codec)) {
+            store.save(new Snapshot("agent-a@1", "agent-a", new Cursor(1), state, Instant.EPOCH, 1));
+            store.save(new Snapshot("agent-a@2", "agent-a", new Cursor(2), "small", Instant.EPOCH, 2));
+            assertEquals(state, store.findById("agent-a@1").orElseThrow().stateData());
+            assertEquals("small", store.findLatestBefore("agent-a", new Cursor(2)).orElseThrow().stateData());
+        }
+        try (FileChannel data = FileChannel.open(dir.resolve("snapshots-0.data"), StandardOpenOption.WRITE)) {
+            data.write(ByteBuffer.wrap(new byte[] {'?'}), 20_000);
+        }
+        try (FileSnapshotStore store = FileSnapshotStore.open(dir, codec)) {
+            assertEquals("small", store.findById("agent-a@2").orElseThrow().stateData());
+            assertThrows(IllegalStateException.class, () -> store.findById("agent-a@1"));
+        }
+    }
+}
\ No newline at end of file